@@ -286,6 +286,55 @@ class FileInputStream extends InputStream
 
     private native long skip0(long n) throws IOException;
 
+    /**
+     * Reads all bytes from this input stream and writes the bytes to the
+     * given output stream in the order that they are read.
+     *
+     * <p> If this stream reads a seekable file and <code>out</code> is a
+     * <code>FileOutputStream</code>, the bytes are transferred with {@link
+     * java.nio.channels.FileChannel#transferTo FileChannel.transferTo}, which
+     * many operating systems can perform without copying them through user
+     * space.  Subclasses of <code>FileInputStream</code> and of
+     * <code>FileOutputStream</code> are not transferred this way, as they may
+     * override the methods that read or write the bytes.
+     *
+     * @param      out   the output stream, non-null
+     * @return     the number of bytes transferred
+     * @exception  IOException  if an I/O error occurs when reading or writing
+     * @exception  NullPointerException if <code>out</code> is <code>null</code>
+     *
+     * @since 9
+     */
+    @Override
+    public long transferTo(OutputStream out) throws IOException {
+        long transferred = 0L;
+        if (getClass() == FileInputStream.class && out != null &&
+            out.getClass() == FileOutputStream.class) {
+            FileChannel fc = getChannel();
+            long pos, size;
+            try {
+                pos = fc.position();
+                size = fc.size();
+            } catch (IOException x) {
+                // not seekable, e.g. a pipe: copy through a buffer
+                return super.transferTo(out);
+            }
+            if (pos < size) {
+                FileChannel oc = ((FileOutputStream)out).getChannel();
+                while (pos < size) {
+                    long n = fc.transferTo(pos, size - pos, oc);
+                    if (n <= 0)
+                        break;
+                    pos += n;
+                    transferred += n;
+                }
+                fc.position(pos);
+            }
+        }
+        // copy whatever remains, e.g. if the file grew or is not regular
+        return transferred + super.transferTo(out);
+    }
+
     /**
      * Returns an estimate of the number of remaining bytes that can be read (or
      * skipped over) from this input stream without blocking by the next
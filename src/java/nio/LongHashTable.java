@@ -0,0 +1,798 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.channels.FileChannel;
+
+
+/**
+ * A fixed-capacity hash table of {@code long} keys and fixed-width
+ * values whose slots are stored in direct or mapped byte buffers rather
+ * than on the Java heap.
+ *
+ * <p> Because a table holds no Java objects per entry it adds nothing to
+ * the work of the garbage collector, however many entries it holds.  A
+ * table is either allocated in {@linkplain ByteBuffer#allocateDirect
+ * direct buffers}, or {@linkplain #map mapped} onto a file, in which case
+ * its contents persist in the file and a table mapped again later, for
+ * example by a restarted process, is usable immediately without being
+ * rebuilt.  A table larger than a single buffer can address is split
+ * into segments of whole slots, each held in its own buffer, so the
+ * capacity of a table is limited only by {@link Integer#MAX_VALUE}.
+ *
+ * <p> Each value is an opaque sequence of bytes of the width given when
+ * the table was created, transferred to and from byte buffers by the
+ * {@link #get(long,ByteBuffer) get} and {@link #put(long,ByteBuffer) put}
+ * methods.  Tables whose values are at least eight bytes wide may also
+ * use the {@link #getLong getLong} and {@link #putLong putLong} methods,
+ * which operate on the first eight bytes of a value.
+ *
+ * <p> Collisions are resolved by linear probing.  The capacity of a
+ * table is fixed when it is created, and a table holds at most seven
+ * eighths as many entries as its capacity, always leaving a free slot to
+ * end every probe; an attempt to insert a key into a table holding that
+ * many entries fails with {@link IllegalStateException}.  Removal shifts
+ * later entries of the probe sequence back into the vacated slot, so no
+ * deleted-slot markers accumulate and a lookup of an absent key never
+ * probes further than the run of occupied slots in which it falls.
+ *
+ * <p> Updates ({@code put}, {@code remove} and {@code clear}) are
+ * serialized by the table.  Retrievals do not lock: each slot carries a
+ * sequence number that is advanced, with release semantics, around every
+ * update of the slot, and a reader that observes a change in the
+ * sequence across its reads of a slot retries them.  Removals and
+ * {@code clear} also advance a sequence number of the whole table, and a
+ * lookup that finds no entry while entries were being moved retries.  A
+ * retrieval therefore never returns a partially written value, nor
+ * misses an entry moved during the lookup.  Control words, keys and
+ * the header are accessed through {@linkplain
+ * MethodHandles#byteBufferViewVarHandle byte-buffer view var handles};
+ * the bytes of a value are copied with plain buffer accesses, ordered by
+ * the accesses to the control word of their slot.
+ *
+ * <p> The on-buffer layout is little-endian regardless of the platform's
+ * native byte order, so that mapped tables may be moved between
+ * platforms.  Writes to a mapped table reach the file as described for
+ * {@link MappedByteBuffer}; {@link #force} may be used to ensure that
+ * they have been written to the storage device.  The table records in
+ * the file whether an update is in progress.  If the process fails
+ * during an update, the table is repaired when it is next mapped: an
+ * entry whose value was being written at the time is removed, and all
+ * other entries are intact.  A table is not guaranteed to be consistent
+ * if the operating system fails before its changes have been forced to
+ * the storage device.  A file must not be mapped by more than one table
+ * at a time.
+ *
+ * @since 9
+ */
+
+public final class LongHashTable {
+
+    // Layout: a header of HEADER_SIZE bytes followed by capacity slots of
+    // slotSize bytes, split into segments of segmentSlots slots (a power
+    // of two), each of which is held in its own buffer.  The header holds
+    // the magic number, capacity, value width, entry count, a flag that
+    // is set while an update is in progress, and the move sequence,
+    // which is odd while a removal or clear may be moving or freeing
+    // entries.  Each slot holds a control word, the key, and the value
+    // padded to a multiple of eight bytes, so that every long is aligned
+    // for atomic access.
+    //
+    // The control word of a slot holds the slot's state in its low bit,
+    // a WRITING flag set while an update is in progress, and a sequence
+    // number in the remaining bits, advanced by each update.  Entries are
+    // kept where lookups probing from their home slot will find them: a
+    // removal shifts back each later entry of the run that may occupy the
+    // vacated slot, copying it there before the slot it leaves is reused
+    // or freed.  An update interrupted by a failure therefore leaves at
+    // worst one slot marked WRITING and some entries duplicated further
+    // along their probe sequence, both of which map() repairs.
+
+    private static final long MAGIC = 0x4c6f6e6748546232L;     // "LongHTb2"
+
+    private static final int MAGIC_OFFSET = 0;
+    private static final int CAPACITY_OFFSET = 8;
+    private static final int VALUE_SIZE_OFFSET = 12;
+    private static final int SIZE_OFFSET = 16;
+    private static final int UPDATING_OFFSET = 24;
+    private static final int MOVES_OFFSET = 32;
+    private static final int HEADER_SIZE = 64;
+
+    private static final long FREE = 0L;
+    private static final long FULL = 1L;
+    private static final long STATE_MASK = 1L;
+    private static final long WRITING = 4L;
+    private static final long SEQ_UNIT = 8L;
+
+    private static final VarHandle LONGS =
+        MethodHandles.byteBufferViewVarHandle(long[].class,
+                                              ByteOrder.LITTLE_ENDIAN);
+    private static final VarHandle INTS =
+        MethodHandles.byteBufferViewVarHandle(int[].class,
+                                              ByteOrder.LITTLE_ENDIAN);
+
+    private final ByteBuffer header;
+    private final ByteBuffer[] segments;
+    private final int capacity;
+    private final int valueSize;
+    private final int slotSize;
+    private final int segmentShift;
+    private final int maxSize;
+
+    private LongHashTable(ByteBuffer header, ByteBuffer[] segments,
+                          int capacity, int valueSize)
+    {
+        this.header = header;
+        this.segments = segments;
+        this.capacity = capacity;
+        this.valueSize = valueSize;
+        this.slotSize = slotSize(valueSize);
+        this.segmentShift = segmentShift(slotSize);
+        this.maxSize = capacity - Math.max(1, capacity >>> 3);
+    }
+
+    // -- Creation --
+
+    private static int slotSize(int valueSize) {
+        if (valueSize < 0 || valueSize > Integer.MAX_VALUE - 23)
+            throw new IllegalArgumentException("Illegal value size: "
+                                               + valueSize);
+        return 16 + ((valueSize + 7) & ~7);
+    }
+
+    // Returns log2 of the largest number of slots a buffer can hold
+    private static int segmentShift(int slotSize) {
+        return 31 - Integer.numberOfLeadingZeros(Integer.MAX_VALUE / slotSize);
+    }
+
+    private static void checkCapacity(int capacity) {
+        if (capacity <= 0)
+            throw new IllegalArgumentException("Illegal capacity: " + capacity);
+    }
+
+    // Returns the sizes of the segment buffers of a table
+    private static int[] segmentSizes(int capacity, int valueSize) {
+        int slotSize = slotSize(valueSize);
+        int segmentSlots = 1 << segmentShift(slotSize);
+        int n = (int)(((long)capacity + segmentSlots - 1) / segmentSlots);
+        int[] sizes = new int[n];
+        for (int i = 0; i < n; i++) {
+            int slots = Math.min(segmentSlots, capacity - i * segmentSlots);
+            sizes[i] = slots * slotSize;
+        }
+        return sizes;
+    }
+
+    // Maps the segments of a table following the header of the file
+    private static ByteBuffer[] mapSegments(FileChannel channel, int[] sizes)
+        throws IOException
+    {
+        ByteBuffer[] segments = new ByteBuffer[sizes.length];
+        long position = HEADER_SIZE;
+        for (int i = 0; i < sizes.length; i++) {
+            segments[i] = channel.map(FileChannel.MapMode.READ_WRITE,
+                                      position, sizes[i]);
+            position += sizes[i];
+        }
+        return segments;
+    }
+
+    private static LongHashTable init(ByteBuffer header, ByteBuffer[] segments,
+                                      int capacity, int valueSize)
+    {
+        LongHashTable t = new LongHashTable(header, segments,
+                                            capacity, valueSize);
+        INTS.set(header, CAPACITY_OFFSET, capacity);
+        INTS.set(header, VALUE_SIZE_OFFSET, valueSize);
+        LONGS.set(header, SIZE_OFFSET, 0L);
+        LONGS.set(header, UPDATING_OFFSET, 0L);
+        LONGS.set(header, MOVES_OFFSET, 0L);
+        LONGS.setRelease(header, MAGIC_OFFSET, MAGIC);
+        return t;
+    }
+
+    /**
+     * Creates a new, empty table in newly allocated direct buffers.
+     *
+     * @param  capacity
+     *         The number of slots in the table
+     *
+     * @param  valueSize
+     *         The width, in bytes, of each value
+     *
+     * @return  The new table
+     *
+     * @throws  IllegalArgumentException
+     *          If the capacity is not positive or the value size is
+     *          negative or too large for a slot to fit in a buffer
+     */
+    public static LongHashTable allocate(int capacity, int valueSize) {
+        checkCapacity(capacity);
+        int[] sizes = segmentSizes(capacity, valueSize);
+        ByteBuffer[] segments = new ByteBuffer[sizes.length];
+        for (int i = 0; i < sizes.length; i++)
+            segments[i] = ByteBuffer.allocateDirect(sizes[i]);
+        return init(ByteBuffer.allocateDirect(HEADER_SIZE), segments,
+                    capacity, valueSize);
+    }
+
+    /**
+     * Maps a table onto the start of the given file.  If the file
+     * already holds a table, as left by a previous mapping, that table is
+     * returned with its contents intact, after repairing it if an update
+     * was interrupted; its capacity and value size must match those
+     * given.  Otherwise a new, empty table is created in the file, which
+     * is extended as necessary, overwriting whatever the start of the file
+     * held.
+     *
+     * <p> The mapping remains valid after the channel is closed, as
+     * described for {@link FileChannel#map FileChannel.map}.
+     *
+     * @param  channel
+     *         A channel to the file, open for reading and writing
+     *
+     * @param  capacity
+     *         The number of slots in the table
+     *
+     * @param  valueSize
+     *         The width, in bytes, of each value
+     *
+     * @return  The mapped table
+     *
+     * @throws  IllegalArgumentException
+     *          If the capacity is not positive, the value size is
+     *          negative or too large for a slot to fit in a buffer, or
+     *          the file holds a table of a different capacity or value size
+     *
+     * @throws  IOException
+     *          If an I/O error occurs, or the file holds a table that has
+     *          been truncated
+     */
+    public static LongHashTable map(FileChannel channel,
+                                    int capacity, int valueSize)
+        throws IOException
+    {
+        checkCapacity(capacity);
+        int[] sizes = segmentSizes(capacity, valueSize);
+        long size = HEADER_SIZE;
+        for (int s : sizes)
+            size += s;
+        boolean exists = channel.size() >= HEADER_SIZE;
+        MappedByteBuffer header =
+            channel.map(FileChannel.MapMode.READ_WRITE, 0L, HEADER_SIZE);
+        if (exists && (long)LONGS.getAcquire(header, MAGIC_OFFSET) == MAGIC) {
+            int c = (int)INTS.get(header, CAPACITY_OFFSET);
+            int v = (int)INTS.get(header, VALUE_SIZE_OFFSET);
+            if (c != capacity || v != valueSize)
+                throw new IllegalArgumentException(
+                    "File holds a table of capacity " + c
+                    + " and value size " + v);
+            if (channel.size() < size)
+                throw new IOException("Truncated table");
+            LongHashTable t = new LongHashTable(header,
+                                                mapSegments(channel, sizes),
+                                                capacity, valueSize);
+            if ((long)LONGS.get(header, UPDATING_OFFSET) != 0L)
+                t.recover();
+            return t;
+        }
+        // Not a table, or one whose creation was interrupted: invalidate
+        // the header before zeroing the slots, so that a failure meanwhile
+        // leaves no table that would be taken for an intact one
+        LONGS.set(header, MAGIC_OFFSET, 0L);
+        ByteBuffer[] segments = mapSegments(channel, sizes);
+        VarHandle.storeStoreFence();
+        for (ByteBuffer b : segments) {
+            for (int off = 0; off < b.capacity(); off += 8)
+                LONGS.set(b, off, 0L);
+        }
+        return init(header, segments, capacity, valueSize);
+    }
+
+    // -- Accessors --
+
+    /**
+     * Returns the number of slots in this table.
+     *
+     * @return  The capacity of this table
+     */
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the width, in bytes, of the values held in this table.
+     *
+     * @return  The value size of this table
+     */
+    public int valueSize() {
+        return valueSize;
+    }
+
+    /**
+     * Returns the number of entries in this table.
+     *
+     * @return  The number of entries in this table
+     */
+    public long size() {
+        return (long)LONGS.getAcquire(header, SIZE_OFFSET);
+    }
+
+    private static int mix(long key) {
+        // Final mixing step of MurmurHash3, as keys are often sequential
+        key = (key ^ (key >>> 33)) * 0xff51afd7ed558ccdL;
+        key = (key ^ (key >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return (int)(key ^ (key >>> 33)) & 0x7fffffff;
+    }
+
+    private int home(long key) {
+        return mix(key) % capacity;
+    }
+
+    private ByteBuffer segment(int slot) {
+        return segments[slot >>> segmentShift];
+    }
+
+    private int offset(int slot) {
+        return (slot & ((1 << segmentShift) - 1)) * slotSize;
+    }
+
+    // Returns the slot holding key, or -1 if absent.  Reads are validated
+    // against the control word of each slot examined, and a miss against
+    // the move sequence of the table.
+    //
+    private int find(long key) {
+        for (;;) {
+            long m = (long)LONGS.getAcquire(header, MOVES_OFFSET);
+            int slot = home(key);
+            for (int n = 0; n < capacity; n++) {
+                ByteBuffer b = segment(slot);
+                int off = offset(slot);
+                long c, k;
+                do {
+                    while (((c = (long)LONGS.getAcquire(b, off)) & WRITING) != 0)
+                        Thread.onSpinWait();
+                    k = (long)LONGS.get(b, off + 8);
+                    VarHandle.loadLoadFence();
+                } while ((long)LONGS.get(b, off) != c);
+                if ((c & STATE_MASK) == FREE)
+                    break;
+                if (k == key)
+                    return slot;
+                if (++slot == capacity)
+                    slot = 0;
+            }
+            VarHandle.loadLoadFence();
+            if ((m & 1L) == 0L && (long)LONGS.get(header, MOVES_OFFSET) == m)
+                return -1;
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Tells whether this table contains an entry for the given key.
+     *
+     * @param  key
+     *         The key
+     *
+     * @return  {@code true} if, and only if, an entry is present
+     */
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Copies the value for the given key into the given buffer.  If an
+     * entry is present, {@link #valueSize()} bytes are transferred into
+     * the buffer starting at its current position, whose position is then
+     * incremented by that amount.  Otherwise the buffer is not modified.
+     *
+     * @param  key
+     *         The key
+     *
+     * @param  dst
+     *         The buffer into which the value is to be transferred
+     *
+     * @return  {@code true} if, and only if, an entry was present
+     *
+     * @throws  BufferOverflowException
+     *          If an entry is present and there is insufficient space in
+     *          the buffer
+     */
+    public boolean get(long key, ByteBuffer dst) {
+        int pos = dst.position();
+        if (dst.remaining() < valueSize)
+            throw new BufferOverflowException();
+        for (;;) {
+            int slot = find(key);
+            if (slot < 0)
+                return false;
+            ByteBuffer b = segment(slot);
+            int off = offset(slot);
+            long c = (long)LONGS.getAcquire(b, off);
+            if ((c & WRITING) == 0) {
+                int v = off + 16;
+                for (int i = 0; i < valueSize; i++)
+                    dst.put(pos + i, b.get(v + i));
+                VarHandle.loadLoadFence();
+                if ((long)LONGS.get(b, off) == c
+                    && (long)LONGS.get(b, off + 8) == key) {
+                    dst.position(pos + valueSize);
+                    return true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the first eight bytes of the value for the given key,
+     * interpreted as a little-endian {@code long}.
+     *
+     * @param  key
+     *         The key
+     *
+     * @param  defaultValue
+     *         The value to return if no entry is present
+     *
+     * @return  The value, or {@code defaultValue} if no entry is present
+     *
+     * @throws  UnsupportedOperationException
+     *          If the value size of this table is less than eight
+     */
+    public long getLong(long key, long defaultValue) {
+        if (valueSize < 8)
+            throw new UnsupportedOperationException();
+        for (;;) {
+            int slot = find(key);
+            if (slot < 0)
+                return defaultValue;
+            ByteBuffer b = segment(slot);
+            int off = offset(slot);
+            long c = (long)LONGS.getAcquire(b, off);
+            if ((c & WRITING) == 0) {
+                long v = (long)LONGS.get(b, off + 16);
+                VarHandle.loadLoadFence();
+                if ((long)LONGS.get(b, off) == c
+                    && (long)LONGS.get(b, off + 8) == key)
+                    return v;
+            }
+        }
+    }
+
+    // -- Updates --
+
+    // Records in the header that an update is in progress, or has ended.
+    private void setUpdating(boolean updating) {
+        if (updating) {
+            LONGS.setOpaque(header, UPDATING_OFFSET, 1L);
+            VarHandle.storeStoreFence();
+        } else {
+            LONGS.setRelease(header, UPDATING_OFFSET, 0L);
+        }
+    }
+
+    // Marks the slot at off as being written.  The caller holds the lock.
+    private static long beginWrite(ByteBuffer b, int off) {
+        long c = (long)LONGS.get(b, off);
+        LONGS.setOpaque(b, off, c | WRITING);
+        VarHandle.storeStoreFence();
+        return c;
+    }
+
+    // Publishes the slot at off with the given state.
+    private static void endWrite(ByteBuffer b, int off, long c, long state) {
+        LONGS.setRelease(b, off,
+                         ((c & ~(STATE_MASK | WRITING)) + SEQ_UNIT) | state);
+    }
+
+    private void addSize(long delta) {
+        LONGS.setRelease(header, SIZE_OFFSET,
+                         (long)LONGS.get(header, SIZE_OFFSET) + delta);
+    }
+
+    // Returns the first slot holding key along its probe sequence, or the
+    // complement of the free slot ending the sequence if absent.  The
+    // caller holds the lock.
+    //
+    private int probe(long key) {
+        int slot = home(key);
+        for (int n = 0; n < capacity; n++) {
+            ByteBuffer b = segment(slot);
+            int off = offset(slot);
+            if (((long)LONGS.get(b, off) & STATE_MASK) == FREE)
+                return ~slot;
+            if ((long)LONGS.get(b, off + 8) == key)
+                return slot;
+            if (++slot == capacity)
+                slot = 0;
+        }
+        throw new IllegalStateException("Table full");   // not reached
+    }
+
+    // Returns the slot for key, claiming a free slot if absent, in which
+    // case the slot is left marked as being written with the key stored.
+    // The caller holds the lock and has marked the table as updating.
+    //
+    private int slotFor(long key) {
+        int slot = probe(key);
+        if (slot >= 0)
+            return slot;
+        slot = ~slot;
+        ByteBuffer b = segment(slot);
+        int off = offset(slot);
+        beginWrite(b, off);
+        LONGS.set(b, off + 8, key);
+        return slot;
+    }
+
+    // Throws if a key absent from the table cannot be inserted.
+    private void checkInsert(long key) {
+        if ((long)LONGS.get(header, SIZE_OFFSET) >= maxSize && probe(key) < 0)
+            throw new IllegalStateException("Table full");
+    }
+
+    /**
+     * Associates the given value with the given key, replacing any
+     * previous value.  Exactly {@link #valueSize()} bytes are transferred
+     * from the buffer starting at its current position, whose position is
+     * then incremented by that amount.
+     *
+     * @param  key
+     *         The key
+     *
+     * @param  src
+     *         The buffer from which the value is to be transferred
+     *
+     * @return  {@code true} if a new entry was created, {@code false} if
+     *          the value of an existing entry was replaced
+     *
+     * @throws  BufferUnderflowException
+     *          If there are fewer than {@link #valueSize()} bytes
+     *          remaining in the buffer
+     *
+     * @throws  IllegalStateException
+     *          If the key is absent and the table holds its maximum
+     *          number of entries
+     */
+    public synchronized boolean put(long key, ByteBuffer src) {
+        int pos = src.position();
+        if (src.remaining() < valueSize)
+            throw new BufferUnderflowException();
+        checkInsert(key);
+        setUpdating(true);
+        int slot = slotFor(key);
+        ByteBuffer b = segment(slot);
+        int off = offset(slot);
+        long c = (long)LONGS.get(b, off);
+        boolean added = (c & WRITING) != 0;
+        if (!added)
+            c = beginWrite(b, off);
+        int v = off + 16;
+        for (int i = 0; i < valueSize; i++)
+            b.put(v + i, src.get(pos + i));
+        endWrite(b, off, c, FULL);
+        src.position(pos + valueSize);
+        if (added)
+            addSize(1L);
+        setUpdating(false);
+        return added;
+    }
+
+    /**
+     * Associates the given {@code long} with the given key, storing it
+     * little-endian in the first eight bytes of the value.  When creating
+     * a new entry the remaining bytes of the value, if any, are zeroed;
+     * otherwise they are left unchanged.
+     *
+     * @param  key
+     *         The key
+     *
+     * @param  value
+     *         The value
+     *
+     * @return  {@code true} if a new entry was created, {@code false} if
+     *          the value of an existing entry was replaced
+     *
+     * @throws  UnsupportedOperationException
+     *          If the value size of this table is less than eight
+     *
+     * @throws  IllegalStateException
+     *          If the key is absent and the table holds its maximum
+     *          number of entries
+     */
+    public synchronized boolean putLong(long key, long value) {
+        if (valueSize < 8)
+            throw new UnsupportedOperationException();
+        checkInsert(key);
+        setUpdating(true);
+        int slot = slotFor(key);
+        ByteBuffer b = segment(slot);
+        int off = offset(slot);
+        long c = (long)LONGS.get(b, off);
+        boolean added = (c & WRITING) != 0;
+        if (!added)
+            c = beginWrite(b, off);
+        else {
+            for (int i = 8; i < valueSize; i++)
+                b.put(off + 16 + i, (byte)0);
+        }
+        LONGS.set(b, off + 16, value);
+        endWrite(b, off, c, FULL);
+        if (added)
+            addSize(1L);
+        setUpdating(false);
+        return added;
+    }
+
+    /**
+     * Removes the entry for the given key, if present.
+     *
+     * @param  key
+     *         The key
+     *
+     * @return  {@code true} if, and only if, an entry was removed
+     */
+    public synchronized boolean remove(long key) {
+        int slot = probe(key);
+        if (slot < 0)
+            return false;
+        setUpdating(true);
+        long m = beginMoves();
+        delete(slot);
+        endMoves(m);
+        addSize(-1L);
+        setUpdating(false);
+        return true;
+    }
+
+    // Makes the move sequence odd, so that lookups missing meanwhile retry.
+    private long beginMoves() {
+        long m = (long)LONGS.get(header, MOVES_OFFSET);
+        LONGS.setOpaque(header, MOVES_OFFSET, m + 1L);
+        VarHandle.storeStoreFence();
+        return m;
+    }
+
+    private void endMoves(long m) {
+        LONGS.setRelease(header, MOVES_OFFSET, m + 2L);
+    }
+
+    // Vacates the given slot, shifting back into it, and in turn into the
+    // slots they leave, the later entries of its run that may occupy it
+    // without being passed over by lookups from their home slots.  The
+    // caller holds the lock and has begun moves.
+    //
+    private void delete(int hole) {
+        int slot = hole;
+        for (int n = 1; n < capacity; n++) {
+            if (++slot == capacity)
+                slot = 0;
+            ByteBuffer b = segment(slot);
+            int off = offset(slot);
+            if (((long)LONGS.get(b, off) & STATE_MASK) == FREE)
+                break;
+            int h = home((long)LONGS.get(b, off + 8));
+            // The entry may move unless its home lies cyclically in
+            // (hole, slot]
+            if ((hole <= slot) ? (h <= hole || h > slot)
+                               : (h <= hole && h > slot)) {
+                copy(slot, hole);
+                hole = slot;
+            }
+        }
+        ByteBuffer b = segment(hole);
+        int off = offset(hole);
+        long c = beginWrite(b, off);
+        endWrite(b, off, c, FREE);
+    }
+
+    // Copies the key and value of the entry in slot from into slot to.
+    private void copy(int from, int to) {
+        ByteBuffer src = segment(from), dst = segment(to);
+        int s = offset(from), d = offset(to);
+        long c = beginWrite(dst, d);
+        for (int i = 8; i < slotSize; i += 8)
+            LONGS.set(dst, d + i, (long)LONGS.get(src, s + i));
+        endWrite(dst, d, c, FULL);
+    }
+
+    /**
+     * Removes all entries from this table.
+     */
+    public synchronized void clear() {
+        setUpdating(true);
+        long m = beginMoves();
+        for (int slot = 0; slot < capacity; slot++) {
+            ByteBuffer b = segment(slot);
+            int off = offset(slot);
+            long c = (long)LONGS.get(b, off);
+            if ((c & STATE_MASK) != FREE) {
+                beginWrite(b, off);
+                endWrite(b, off, c, FREE);
+            }
+        }
+        LONGS.setRelease(header, SIZE_OFFSET, 0L);
+        endMoves(m);
+        setUpdating(false);
+    }
+
+    // Repairs a mapped table left by an update interrupted by a failure:
+    // removes the entry, if any, of the slot left marked as being written,
+    // then the duplicates left by an interrupted shift, and recounts the
+    // entries.  Called before the table is published.
+    //
+    private void recover() {
+        long m = (long)LONGS.get(header, MOVES_OFFSET);
+        LONGS.set(header, MOVES_OFFSET, (m + 1L) & ~1L);
+        for (int slot = 0; slot < capacity; slot++) {
+            ByteBuffer b = segment(slot);
+            int off = offset(slot);
+            long c = (long)LONGS.get(b, off);
+            if ((c & WRITING) != 0) {
+                // The state bits are those from before the update
+                LONGS.set(b, off, c & ~WRITING);
+                if ((c & STATE_MASK) == FULL)
+                    delete(slot);
+                else
+                    endWrite(b, off, c, FREE);
+            }
+        }
+        long size = 0L;
+        for (int slot = 0; slot < capacity; ) {
+            ByteBuffer b = segment(slot);
+            int off = offset(slot);
+            if (((long)LONGS.get(b, off) & STATE_MASK) == FULL) {
+                if (probe((long)LONGS.get(b, off + 8)) != slot) {
+                    delete(slot);       // a duplicate; re-examine the slot
+                    continue;
+                }
+                size++;
+            }
+            slot++;
+        }
+        LONGS.set(header, SIZE_OFFSET, size);
+        LONGS.setRelease(header, UPDATING_OFFSET, 0L);
+    }
+
+    /**
+     * Forces any changes made to a mapped table to be written to the
+     * storage device containing the mapped file.  This method has no
+     * effect on a table that is not mapped.
+     *
+     * @see MappedByteBuffer#force()
+     */
+    public void force() {
+        if (header instanceof MappedByteBuffer) {
+            for (ByteBuffer b : segments)
+                ((MappedByteBuffer)b).force();
+            ((MappedByteBuffer)header).force();
+        }
+    }
+
+}
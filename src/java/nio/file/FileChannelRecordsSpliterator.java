@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * A file-based records spliterator, covering the records of a file that are
+ * separated by a delimiter byte, and producing each record as a slice of a
+ * mapped byte buffer.
+ *
+ * <p>
+ * Splitting reads bytes of the file from the mid-point of the covered range
+ * until a delimiter is found.  If one is found within {@code MAX_PROBE} bytes
+ * then the spliterator is split with the returned spliterator containing the
+ * delimiter at the end of it's covered range of bytes.  Splitting does not map
+ * the file.
+ *
+ * <p>
+ * Traversing maps the file in windows of up to {@code WINDOW_SIZE} bytes, so
+ * that files larger than can be indexed by a single byte buffer are supported.
+ * A record that extends beyond the end of a window causes the file to be
+ * mapped again from the start of the record, with a window of twice the size
+ * if the record is larger than the window, up to the maximum size of a byte
+ * buffer.  Records are slices of the windows, so the bytes are never copied,
+ * and a record remains valid for as long as it is referenced.
+ */
+final class FileChannelRecordsSpliterator implements Spliterator<ByteBuffer> {
+
+    // The size of the windows mapped when traversing
+    private static final int WINDOW_SIZE = 1 << 28;
+    // The size of the chunks read when probing for a delimiter when splitting
+    private static final int PROBE_SIZE = 8192;
+    // The maximum number of bytes read when probing for a delimiter
+    private static final int MAX_PROBE = 1 << 20;
+    // The maximum size of a window and therefore of a record
+    private static final int MAX_WINDOW_SIZE = Integer.MAX_VALUE - 8;
+
+    private final FileChannel fc;
+    private final byte delimiter;
+    private long index;
+    private final long fence;
+
+    // The window mapped when traversing, and the file position of its start
+    private ByteBuffer window;
+    private long windowStart;
+
+    FileChannelRecordsSpliterator(FileChannel fc, byte delimiter,
+                                  long index, long fence) {
+        this.fc = fc;
+        this.delimiter = delimiter;
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super ByteBuffer> action) {
+        ByteBuffer record = readRecord();
+        if (record != null) {
+            action.accept(record);
+            return true;
+        } else {
+            return false;
+        }
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super ByteBuffer> action) {
+        ByteBuffer record;
+        while ((record = readRecord()) != null) {
+            action.accept(record);
+        }
+    }
+
+    private ByteBuffer map(long position, int size) {
+        try {
+            return fc.map(FileChannel.MapMode.READ_ONLY, position, size);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the next record, without its delimiter, or {@code null} if
+     * there are no more records.
+     */
+    private ByteBuffer readRecord() {
+        final long start = index;
+        if (start >= fence)
+            return null;
+
+        ByteBuffer w = window;
+        int size = WINDOW_SIZE;
+        if (w == null || start >= windowStart + w.limit()) {
+            w = null;
+        }
+        for (;;) {
+            if (w == null) {
+                size = (int) Math.min(size, fence - start);
+                w = window = map(start, size);
+                windowStart = start;
+            }
+            int from = (int) (start - windowStart);
+            int limit = w.limit();
+            int i = from;
+            while (i < limit && w.get(i) != delimiter) {
+                i++;
+            }
+            if (i < limit || windowStart + limit >= fence) {
+                // Delimiter found, or the last record of the file
+                index = windowStart + i + 1;
+                ByteBuffer record = w.duplicate();
+                record.position(from).limit(i);
+                return record.slice();
+            }
+            // The record extends beyond the window, map from its start
+            if (from == 0) {
+                if (limit >= MAX_WINDOW_SIZE) {
+                    throw new UncheckedIOException(new IOException(
+                        "Record at position " + start + " is too large"));
+                }
+                size = (int) Math.min((long) limit << 1, MAX_WINDOW_SIZE);
+            } else {
+                size = Math.max(limit, WINDOW_SIZE);
+            }
+            w = null;
+        }
+    }
+
+    @Override
+    public Spliterator<ByteBuffer> trySplit() {
+        // Cannot split after partial traverse
+        if (window != null)
+            return null;
+
+        final long hi = fence, lo = index;
+        long mid = (lo + hi) >>> 1;
+        if (mid <= lo)
+            return null;
+
+        // Read forward from the mid point for a delimiter
+        ByteBuffer b = ByteBuffer.allocate(PROBE_SIZE);
+        long pos = mid;
+        long limit = Math.min(hi, mid + MAX_PROBE);
+        mid = -1;
+        try {
+            while (mid < 0 && pos < limit) {
+                b.clear();
+                if (limit - pos < b.capacity())
+                    b.limit((int) (limit - pos));
+                int n = fc.read(b, pos);
+                if (n <= 0)
+                    break;
+                for (int i = 0; i < n; i++) {
+                    if (b.get(i) == delimiter) {
+                        mid = pos + i + 1;
+                        break;
+                    }
+                }
+                pos += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        // The left spliterator will have the delimiter at the end
+        return (mid > lo && mid < hi)
+               ? new FileChannelRecordsSpliterator(fc, delimiter, lo, index = mid)
+               : null;
+    }
+
+    @Override
+    public long estimateSize() {
+        // Use the number of bytes as an estimate
+        return fence - index;
+    }
+
+    @Override
+    public long getExactSizeIfKnown() {
+        return -1;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+}
@@ -0,0 +1,174 @@
+/*
+ * Copyright (c) 2013, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.nio.file;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.nio.file.FileTreeWalker.Event;
+
+/**
+ * A {@code Spliterator} over the nodes of a file tree, which splits by
+ * handing directories, or batches of directory entries, to new spliterators
+ * so that a parallel stream walks the tree with multiple threads.
+ *
+ * <pre>{@code
+ *     try (FileTreeSpliterator spliterator = new FileTreeSpliterator(start, maxDepth, options)) {
+ *         Stream<Event> s = StreamSupport.stream(spliterator, parallel);
+ *         ...
+ *     }
+ * }</pre>
+ *
+ * <p> A spliterator that has not been split walks the tree depth-first, in
+ * the same order as {@link FileTreeWalker}.  Each spliterator split off
+ * walks its part of the tree with a walker of its own, and cycle detection
+ * is by the chain of ancestors of each directory, which is unaffected by
+ * splitting.  Closing any of the spliterators closes the directories open
+ * by all of them.
+ */
+
+class FileTreeSpliterator implements Spliterator<Event>, Closeable {
+    // the number of directory entries read ahead to split a directory
+    private static final int BATCH_SIZE = 64;
+
+    private final FileTreeWalker walker;
+    private final Set<FileTreeWalker> walkers;  // open walkers of this walk
+    private Event next;
+
+    /**
+     * Creates a new spliterator to walk the file tree starting at the given
+     * file.
+     *
+     * @throws  IllegalArgumentException
+     *          if {@code maxDepth} is negative
+     * @throws  IOException
+     *          if an I/O errors occurs opening the starting file
+     * @throws  SecurityException
+     *          if the security manager denies access to the starting file
+     * @throws  NullPointerException
+     *          if {@code start} or {@code options} is {@code null} or
+     *          the options array contains a {@code null} element
+     */
+    FileTreeSpliterator(Path start, int maxDepth, FileVisitOption... options)
+        throws IOException
+    {
+        this.walker = new FileTreeWalker(Arrays.asList(options), maxDepth);
+        this.walkers = ConcurrentHashMap.newKeySet();
+        walkers.add(walker);
+        this.next = walker.walk(start);
+        assert next.type() == FileTreeWalker.EventType.ENTRY ||
+               next.type() == FileTreeWalker.EventType.START_DIRECTORY;
+
+        // IOException if there a problem accessing the starting file
+        IOException ioe = next.ioeException();
+        if (ioe != null)
+            throw ioe;
+    }
+
+    private FileTreeSpliterator(FileTreeWalker walker,
+                                Set<FileTreeWalker> walkers) {
+        this.walker = walker;
+        this.walkers = walkers;
+        walkers.add(walker);
+    }
+
+    /**
+     * Returns the next event other than an END_DIRECTORY event without an
+     * error, or {@code null} if the walk is done.
+     */
+    private Event fetch() {
+        Event ev;
+        while ((ev = walker.next()) != null) {
+            if (ev.type() != FileTreeWalker.EventType.END_DIRECTORY ||
+                ev.ioeException() != null)
+                break;
+        }
+        return ev;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super Event> action) {
+        Event ev;
+        // the walker may be closed by another thread closing the stream
+        synchronized (walker) {
+            if (!walker.isOpen())
+                throw new IllegalStateException();
+            ev = next;
+            if (ev != null) {
+                next = null;
+            } else if ((ev = fetch()) == null) {
+                walkers.remove(walker);
+                return false;
+            }
+        }
+        IOException ioe = ev.ioeException();
+        if (ioe != null)
+            throw new UncheckedIOException(ioe);
+        action.accept(ev);
+        return true;
+    }
+
+    @Override
+    public Spliterator<Event> trySplit() {
+        FileTreeWalker split;
+        synchronized (walker) {
+            split = walker.split(BATCH_SIZE);
+            if (split == null && next == null && walker.isOpen()) {
+                // step into the next directory so that its entries can be
+                // split, keeping the event for the next tryAdvance
+                next = fetch();
+                if (next != null)
+                    split = walker.split(BATCH_SIZE);
+            }
+        }
+        return (split == null) ? null : new FileTreeSpliterator(split, walkers);
+    }
+
+    @Override
+    public long estimateSize() {
+        return Long.MAX_VALUE;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.DISTINCT;
+    }
+
+    @Override
+    public void close() {
+        for (FileTreeWalker w : walkers) {
+            synchronized (w) {
+                w.close();
+            }
+            walkers.remove(w);
+        }
+    }
+}
@@ -51,6 +51,9 @@ import sun.nio.fs.BasicFileAttributesHolder;
  *     }
  * }</pre>
  *
+ * <p> A walker may be {@link #split split} so that parts of the tree are
+ * walked by other walkers, possibly in parallel.
+ *
  * @see Files#walkFileTree
  */
 
@@ -63,19 +66,29 @@ class FileTreeWalker implements Closeable {
 
     /**
      * The element on the walking stack corresponding to a directory node.
+     * Entries read ahead of the walk, for splitting, are buffered, as is any
+     * error reading them.  A node split off from another has no stream and
+     * only buffered entries.
      */
     private static class DirectoryNode {
         private final Path dir;
         private final Object key;
+        private final DirectoryNode parent;
+        private final int depth;
         private final DirectoryStream<Path> stream;
-        private final Iterator<Path> iterator;
+        private Iterator<Path> iterator;    // null when exhausted
+        private ArrayDeque<Path> buffered;
+        private IOException ioe;
         private boolean skipped;
 
-        DirectoryNode(Path dir, Object key, DirectoryStream<Path> stream) {
+        DirectoryNode(Path dir, Object key, DirectoryNode parent,
+                      DirectoryStream<Path> stream) {
             this.dir = dir;
             this.key = key;
+            this.parent = parent;
+            this.depth = (parent == null) ? 0 : parent.depth + 1;
             this.stream = stream;
-            this.iterator = stream.iterator();
+            this.iterator = (stream == null) ? null : stream.iterator();
         }
 
         Path directory() {
@@ -86,12 +99,78 @@ class FileTreeWalker implements Closeable {
             return key;
         }
 
-        DirectoryStream<Path> stream() {
-            return stream;
+        DirectoryNode parent() {
+            return parent;
         }
 
-        Iterator<Path> iterator() {
-            return iterator;
+        int depth() {
+            return depth;
+        }
+
+        /**
+         * Returns the next entry in the directory or {@code null} if there
+         * are no more entries.
+         */
+        Path nextEntry() throws IOException {
+            if (buffered != null && !buffered.isEmpty())
+                return buffered.poll();
+            if (ioe != null) {
+                IOException x = ioe;
+                ioe = null;
+                throw x;
+            }
+            if (iterator != null) {
+                try {
+                    if (iterator.hasNext())
+                        return iterator.next();
+                } catch (DirectoryIteratorException x) {
+                    iterator = null;
+                    throw x.getCause();
+                }
+                iterator = null;
+            }
+            return null;
+        }
+
+        /**
+         * Reads entries ahead until {@code n} are buffered or the directory
+         * is exhausted, returning the number buffered.  An error reading
+         * the directory is reported by {@code nextEntry} once the buffered
+         * entries have been returned.
+         */
+        int fill(int n) {
+            if (buffered == null)
+                buffered = new ArrayDeque<>();
+            try {
+                while (iterator != null && buffered.size() < n) {
+                    if (iterator.hasNext()) {
+                        buffered.add(iterator.next());
+                    } else {
+                        iterator = null;
+                    }
+                }
+            } catch (DirectoryIteratorException x) {
+                ioe = x.getCause();
+                iterator = null;
+            }
+            return buffered.size();
+        }
+
+        /**
+         * Moves half of the buffered entries to a new node for the same
+         * directory.
+         */
+        DirectoryNode splitBuffered() {
+            DirectoryNode node = new DirectoryNode(dir, key, parent, null);
+            node.buffered = new ArrayDeque<>();
+            for (int n = buffered.size() >>> 1; n > 0; n--)
+                node.buffered.add(buffered.poll());
+            return node;
+        }
+
+        void close() throws IOException {
+            if (stream != null)
+                stream.close();
         }
 
         void skip() {
@@ -193,6 +272,17 @@ class FileTreeWalker implements Closeable {
         this.maxDepth = maxDepth;
     }
 
+    /**
+     * Creates a walker with the same options as the given walker, to walk
+     * the given directory node.
+     */
+    private FileTreeWalker(FileTreeWalker walker, DirectoryNode node) {
+        this.followLinks = walker.followLinks;
+        this.linkOptions = walker.linkOptions;
+        this.maxDepth = walker.maxDepth;
+        stack.push(node);
+    }
+
     /**
      * Returns the attributes of the given file, taking into account whether
      * the walk is following sym links is not. The {@code canUseCached}
@@ -230,13 +320,14 @@ class FileTreeWalker implements Closeable {
     }
 
     /**
-     * Returns true if walking into the given directory would result in a
-     * file system loop/cycle.
+     * Returns true if walking into the given directory, an entry in the
+     * given parent directory, would result in a file system loop/cycle.
      */
-    private boolean wouldLoop(Path dir, Object key) {
+    private boolean wouldLoop(Path dir, Object key, DirectoryNode parent) {
         // if this directory and ancestor has a file key then we compare
         // them; otherwise we use less efficient isSameFile test.
-        for (DirectoryNode ancestor: stack) {
+        for (DirectoryNode ancestor = parent; ancestor != null;
+             ancestor = ancestor.parent()) {
             Object ancestorKey = ancestor.key();
             if (key != null && ancestorKey != null) {
                 if (key.equals(ancestorKey)) {
@@ -268,8 +359,12 @@ class FileTreeWalker implements Closeable {
      *
      * The {@code canUseCached} parameter determines whether cached attributes
      * for the file can be used or not.
+     *
+     * The {@code parent} parameter is the node of the directory containing
+     * the file, or {@code null} for the starting file.
      */
-    private Event visit(Path entry, boolean ignoreSecurityException, boolean canUseCached) {
+    private Event visit(Path entry, DirectoryNode parent,
+                        boolean ignoreSecurityException, boolean canUseCached) {
         // need the file attributes
         BasicFileAttributes attrs;
         try {
@@ -283,13 +378,13 @@ class FileTreeWalker implements Closeable {
         }
 
         // at maximum depth or file is not a directory
-        int depth = stack.size();
+        int depth = (parent == null) ? 0 : parent.depth() + 1;
         if (depth >= maxDepth || !attrs.isDirectory()) {
             return new Event(EventType.ENTRY, entry, attrs);
         }
 
         // check for cycles when following links
-        if (followLinks && wouldLoop(entry, attrs.fileKey())) {
+        if (followLinks && wouldLoop(entry, attrs.fileKey(), parent)) {
             return new Event(EventType.ENTRY, entry,
                              new FileSystemLoopException(entry.toString()));
         }
@@ -307,7 +402,7 @@ class FileTreeWalker implements Closeable {
         }
 
         // push a directory node to the stack and return an event
-        stack.push(new DirectoryNode(entry, attrs.fileKey(), stream));
+        stack.push(new DirectoryNode(entry, attrs.fileKey(), parent, stream));
         return new Event(EventType.START_DIRECTORY, entry, attrs);
     }
 
@@ -320,6 +415,7 @@ class FileTreeWalker implements Closeable {
             throw new IllegalStateException("Closed");
 
         Event ev = visit(file,
+                         null,    // parent
                          false,   // ignoreSecurityException
                          false);  // canUseCached
         assert ev != null;
@@ -343,13 +439,10 @@ class FileTreeWalker implements Closeable {
 
             // get next entry in the directory
             if (!top.skipped()) {
-                Iterator<Path> iterator = top.iterator();
                 try {
-                    if (iterator.hasNext()) {
-                        entry = iterator.next();
-                    }
-                } catch (DirectoryIteratorException x) {
-                    ioe = x.getCause();
+                    entry = top.nextEntry();
+                } catch (IOException x) {
+                    ioe = x;
                 }
             }
 
@@ -357,7 +450,7 @@ class FileTreeWalker implements Closeable {
             // creating corresponding event
             if (entry == null) {
                 try {
-                    top.stream().close();
+                    top.close();
                 } catch (IOException e) {
                     if (ioe == null) {
                         ioe = e;
@@ -371,6 +464,7 @@ class FileTreeWalker implements Closeable {
 
             // visit the entry
             ev = visit(entry,
+                       top,    // parent
                        true,   // ignoreSecurityException
                        true);  // canUseCached
 
@@ -389,7 +483,7 @@ class FileTreeWalker implements Closeable {
         if (!stack.isEmpty()) {
             DirectoryNode node = stack.pop();
             try {
-                node.stream().close();
+                node.close();
             } catch (IOException ignore) { }
         }
     }
@@ -404,6 +498,34 @@ class FileTreeWalker implements Closeable {
         }
     }
 
+    /**
+     * Splits off part of the remainder of the walk to a new walker with the
+     * same options, or returns {@code null} if there is no part worth
+     * splitting off.  The part split off is the shallowest directory with
+     * entries remaining, other than the directory at the top of the stack,
+     * or failing that, half of up to {@code batchSize} entries read ahead
+     * from the directory at the top of the stack.  The walker split off
+     * produces the END_DIRECTORY event for a directory handed to it, and
+     * this walker does not, so splitting is only for walks that ignore
+     * those events.
+     */
+    FileTreeWalker split(int batchSize) {
+        if (closed || stack.isEmpty())
+            return null;
+        DirectoryNode top = stack.peek();
+        Iterator<DirectoryNode> it = stack.descendingIterator();
+        DirectoryNode node;
+        while ((node = it.next()) != top) {
+            if (!node.skipped() && node.fill(1) > 0) {
+                it.remove();
+                return new FileTreeWalker(this, node);
+            }
+        }
+        if (top.skipped() || top.fill(batchSize) < 2)
+            return null;
+        return new FileTreeWalker(this, top.splitBuffered());
+    }
+
     /**
      * Returns {@code true} if the walker is open.
      */
@@ -29,6 +29,8 @@ import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.Closeable;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -37,9 +39,11 @@ import java.io.OutputStreamWriter;
 import java.io.Reader;
 import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
@@ -2957,14 +2961,38 @@ public final class Files {
     private static long copy(InputStream source, OutputStream sink)
         throws IOException
     {
-        long nread = 0L;
-        byte[] buf = new byte[BUFFER_SIZE];
-        int n;
-        while ((n = source.read(buf)) > 0) {
-            sink.write(buf, 0, n);
-            nread += n;
+        // InputStream.transferTo copies through a buffer as this method
+        // once did, but FileInputStream overrides it to use transferTo
+        return source.transferTo(sink);
+    }
+
+    /**
+     * Transfers the bytes from the position of a file channel to its size
+     * to the given channel, leaving the file channel positioned after the
+     * last byte transferred.  FileChannel.transferTo may be implemented
+     * without copying the bytes through user space.  Transfers nothing if
+     * the file channel is not seekable, e.g. for a pipe, leaving the bytes
+     * to be copied through a buffer.
+     */
+    private static long transfer(FileChannel source, WritableByteChannel sink)
+        throws IOException
+    {
+        long pos, size;
+        try {
+            pos = source.position();
+            size = source.size();
+        } catch (IOException x) {
+            return 0L;
         }
-        return nread;
+        long start = pos;
+        while (pos < size) {
+            long n = source.transferTo(pos, size - pos, sink);
+            if (n <= 0)
+                break;
+            pos += n;
+        }
+        source.position(pos);
+        return pos - start;
     }
 
     /**
@@ -3066,10 +3094,21 @@ public final class Files {
         // FileAlreadyExistsException then it may be because the security
         // manager prevented us from deleting the file, in which case we just
         // throw the SecurityException.
+        //
+        // If the source is a file, the target is opened as a channel so that
+        // the bytes can be transferred with FileChannel.transferTo.
+        boolean fromFile = (in.getClass() == FileInputStream.class);
+        SeekableByteChannel sbc = null;
         OutputStream ostream;
         try {
-            ostream = newOutputStream(target, StandardOpenOption.CREATE_NEW,
-                                              StandardOpenOption.WRITE);
+            if (fromFile) {
+                sbc = newByteChannel(target, StandardOpenOption.CREATE_NEW,
+                                             StandardOpenOption.WRITE);
+                ostream = Channels.newOutputStream(sbc);
+            } else {
+                ostream = newOutputStream(target, StandardOpenOption.CREATE_NEW,
+                                                  StandardOpenOption.WRITE);
+            }
         } catch (FileAlreadyExistsException x) {
             if (se != null)
                 throw se;
@@ -3079,7 +3118,11 @@ public final class Files {
 
         // do the copy
         try (OutputStream out = ostream) {
-            return copy(in, out);
+            long n = 0L;
+            if (sbc != null) {
+                n = transfer(((FileInputStream)in).getChannel(), sbc);
+            }
+            return n + copy(in, out);
         }
     }
 
@@ -3120,6 +3163,18 @@ public final class Files {
         // ensure not null before opening file
         Objects.requireNonNull(out);
 
+        // transfer from a channel if the output stream is a file
+        if (out.getClass() == FileOutputStream.class) {
+            try (SeekableByteChannel sbc = newByteChannel(source)) {
+                long n = 0L;
+                if (sbc instanceof FileChannel) {
+                    FileChannel oc = ((FileOutputStream)out).getChannel();
+                    n = transfer((FileChannel)sbc, oc);
+                }
+                return n + copy(Channels.newInputStream(sbc), out);
+            }
+        }
+
         try (InputStream in = newInputStream(source)) {
             return copy(in, out);
         }
@@ -3612,6 +3667,10 @@ public final class Files {
      * <p> The returned stream contains references to one or more open directories.
      * The directories are closed by closing the stream.
      *
+     * <p> If the returned stream is {@linkplain Stream#parallel parallel} then
+     * subdirectories may be walked concurrently by multiple threads, and the
+     * elements are not in depth-first order.
+     *
      * <p> If an {@link IOException} is thrown when accessing the directory
      * after this method has returned, it is wrapped in an {@link
      * UncheckedIOException} which will be thrown from the method that caused
@@ -3647,15 +3706,14 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        FileTreeSpliterator spliterator =
+            new FileTreeSpliterator(start, maxDepth, options);
         try {
-            Spliterator<FileTreeWalker.Event> spliterator =
-                Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT);
             return StreamSupport.stream(spliterator, false)
-                                .onClose(iterator::close)
+                                .onClose(spliterator::close)
                                 .map(entry -> entry.file());
         } catch (Error|RuntimeException e) {
-            iterator.close();
+            spliterator.close();
             throw e;
         }
     }
@@ -3677,6 +3735,10 @@ public final class Files {
      * <p> The returned stream contains references to one or more open directories.
      * The directories are closed by closing the stream.
      *
+     * <p> If the returned stream is {@linkplain Stream#parallel parallel} then
+     * subdirectories may be walked concurrently by multiple threads, and the
+     * elements are not in depth-first order.
+     *
      * @apiNote
      * This method must be used within a try-with-resources statement or similar
      * control structure to ensure that the stream's open directories are closed
@@ -3723,6 +3785,10 @@ public final class Files {
      * <p> The returned stream contains references to one or more open directories.
      * The directories are closed by closing the stream.
      *
+     * <p> If the returned stream is {@linkplain Stream#parallel parallel} then
+     * subdirectories may be walked concurrently by multiple threads, and the
+     * elements are not in depth-first order.
+     *
      * <p> If an {@link IOException} is thrown when accessing the directory
      * after returned from this method, it is wrapped in an {@link
      * UncheckedIOException} which will be thrown from the method that caused
@@ -3764,16 +3830,15 @@ public final class Files {
                                     FileVisitOption... options)
         throws IOException
     {
-        FileTreeIterator iterator = new FileTreeIterator(start, maxDepth, options);
+        FileTreeSpliterator spliterator =
+            new FileTreeSpliterator(start, maxDepth, options);
         try {
-            Spliterator<FileTreeWalker.Event> spliterator =
-                Spliterators.spliteratorUnknownSize(iterator, Spliterator.DISTINCT);
             return StreamSupport.stream(spliterator, false)
-                                .onClose(iterator::close)
+                                .onClose(spliterator::close)
                                 .filter(entry -> matcher.test(entry.file(), entry.attributes()))
                                 .map(entry -> entry.file());
         } catch (Error|RuntimeException e) {
-            iterator.close();
+            spliterator.close();
             throw e;
         }
     }
@@ -3872,6 +3937,100 @@ public final class Files {
         return createBufferedReaderLinesStream(Files.newBufferedReader(path, cs));
     }
 
+    /**
+     * Read all records from a file as a {@code Stream}, where records are
+     * separated by the given delimiter byte.  Each record is a read-only
+     * {@code ByteBuffer} containing the bytes of the record, without the
+     * delimiter, from its position to its limit.  A delimiter at the end of
+     * the file does not begin an empty last record.
+     *
+     * <p> This method is intended for large files of records in which a
+     * delimiter such as a line feed can be identified without decoding the
+     * bytes.  The records are not decoded into characters unless the caller
+     * does so, for example by mapping the stream with {@link
+     * Charset#decode Charset.decode}, and the bytes of the records are not
+     * copied: each record is a view of a region of the file mapped into
+     * memory, which remains valid for as long as the record is referenced.
+     *
+     * <p> The records are those of the file as of its size when this method
+     * is invoked.  The returned stream contains a reference to an open file.
+     * The file is closed by closing the stream.
+     *
+     * <p> The file contents should not be modified during the execution of the
+     * terminal stream operation. Otherwise, the result of the terminal stream
+     * operation is undefined.
+     *
+     * <p> After this method returns, then any subsequent I/O exception that
+     * occurs while reading from the file is wrapped in an {@link
+     * UncheckedIOException} that will be thrown from the {@link
+     * java.util.stream.Stream} method that caused the read to take place. In
+     * case an {@code IOException} is thrown when closing the file, it is also
+     * wrapped as an {@code UncheckedIOException}.
+     *
+     * @apiNote
+     * This method must be used within a try-with-resources statement or similar
+     * control structure to ensure that the stream's open file is closed promptly
+     * after the stream's operations have completed.
+     * <p> For example, to count the lines of a large ASCII file in parallel
+     * that contain a given string:
+     * <pre>{@code
+     *     try (Stream<ByteBuffer> records = Files.records(path, (byte)'\n')) {
+     *         long count = records.parallel()
+     *             .map(b -> StandardCharsets.US_ASCII.decode(b).toString())
+     *             .filter(line -> line.contains(s))
+     *             .count();
+     *     }
+     * }</pre>
+     *
+     * @implNote
+     * This implementation splits the stream source by finding the delimiter
+     * nearest to the middle of the range of the file to be split, which
+     * gives good parallel stream performance for files containing a regular
+     * sequence of records.  Records are read by mapping the file in windows,
+     * so files of any size are supported; a single record may not exceed the
+     * maximum size of a {@code ByteBuffer}.
+     *
+     * @param   path
+     *          the path to the file
+     * @param   delimiter
+     *          the byte that separates records
+     *
+     * @return  the records from the file as a {@code Stream}
+     *
+     * @throws  IOException
+     *          if an I/O error occurs opening the file
+     * @throws  UnsupportedOperationException
+     *          if the file system of the path does not support file channels
+     * @throws  SecurityException
+     *          In the case of the default provider, and a security manager is
+     *          installed, the {@link SecurityManager#checkRead(String) checkRead}
+     *          method is invoked to check read access to the file.
+     *
+     * @see     #lines(Path, Charset)
+     * @since   9
+     */
+    public static Stream<ByteBuffer> records(Path path, byte delimiter)
+        throws IOException
+    {
+        FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            Spliterator<ByteBuffer> s =
+                new FileChannelRecordsSpliterator(fc, delimiter, 0, fc.size());
+            return StreamSupport.stream(s, false)
+                                .onClose(asUncheckedRunnable(fc));
+        } catch (Error|RuntimeException|IOException e) {
+            try {
+                fc.close();
+            } catch (IOException ex) {
+                try {
+                    e.addSuppressed(ex);
+                } catch (Throwable ignore) {
+                }
+            }
+            throw e;
+        }
+    }
+
     private static Stream<String> createFileChannelLinesStream(FileChannel fc, Charset cs) throws IOException {
         try {
             // Obtaining the size from the FileChannel is much faster
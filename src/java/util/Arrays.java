@@ -5607,7 +5607,7 @@ public class Arrays {
      * @since 1.8
      */
     public static <T> Stream<T> stream(T[] array) {
-        return stream(array, 0, array.length);
+        return Stream.of(array);
     }
 
     /**
@@ -5638,7 +5638,7 @@ public class Arrays {
      * @since 1.8
      */
     public static IntStream stream(int[] array) {
-        return stream(array, 0, array.length);
+        return IntStream.of(array);
     }
 
     /**
@@ -5668,7 +5668,7 @@ public class Arrays {
      * @since 1.8
      */
     public static LongStream stream(long[] array) {
-        return stream(array, 0, array.length);
+        return LongStream.of(array);
     }
 
     /**
@@ -5698,7 +5698,7 @@ public class Arrays {
      * @since 1.8
      */
     public static DoubleStream stream(double[] array) {
-        return stream(array, 0, array.length);
+        return DoubleStream.of(array);
     }
 
     /**
@@ -0,0 +1,687 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+/**
+ * Hash table mapping primitive {@code long} keys to primitive {@code long}
+ * values.  Keys and values are held in two parallel arrays and
+ * collisions are resolved by open addressing with linear probing, so
+ * unlike {@code HashMap<Long,Long>} neither keys, values nor
+ * mappings are represented by objects.
+ *
+ * <p>Absent keys read as zero: {@link #get} returns {@code 0} for a key
+ * with no mapping, and {@link #addTo} treats such a key as if it were
+ * mapped to {@code 0}, which makes this class directly usable as a
+ * counting table.  {@link #containsKey} distinguishes a key mapped to
+ * zero from an absent one.
+ *
+ * <p>The table is sized and its keys spread in the same way as
+ * {@link LongObjectHashMap}; see that class for a discussion of the
+ * load factor.  Key {@code 0} marks a free slot in the table, so a
+ * mapping for {@code 0} itself is kept in a reserved slot past the
+ * end of the probed range.  {@link #asMap} provides a
+ * {@code Map<Long,Long>} view for interoperation with APIs that
+ * expect a {@code Map}.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access the map concurrently, and at least one of
+ * them modifies it structurally, it <i>must</i> be synchronized
+ * externally.  Iterators over the map and its views are <i>fail-fast</i>
+ * in the same sense as those of {@link HashMap}.
+ *
+ * @see LongObjectHashMap
+ * @see IntIntHashMap
+ * @since 9
+ */
+public class LongLongHashMap {
+
+    /**
+     * The keys, indexed in parallel with vals.  Length is always one
+     * more than a power of two; the last slot holds the mapping for
+     * key 0, if any.  Elsewhere a zero key marks a free slot.
+     */
+    transient long[] keys;
+
+    /**
+     * The values.
+     */
+    transient long[] vals;
+
+    /**
+     * True if the reserved slot holds a mapping for key 0.
+     */
+    transient boolean hasZeroKey;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The size at which to resize, not counting the zero key.
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Holds cached asMap() view.
+     */
+    transient Map<Long,Long> mapView;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not strictly between zero and one
+     */
+    public LongLongHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(HashMap.tableSizeFor(Math.max(initialCapacity, 2)));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.5).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongLongHashMap(int initialCapacity) {
+        this(initialCapacity, IntObjectHashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity
+     * (16) and the default load factor (0.5).
+     */
+    public LongLongHashMap() {
+        this(IntObjectHashMap.DEFAULT_INITIAL_CAPACITY,
+             IntObjectHashMap.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Installs empty tables with n probed slots plus the reserved one.
+     */
+    private void allocate(int n) {
+        keys = new long[n + 1];
+        vals = new long[n + 1];
+        threshold = Math.min((int)(n * loadFactor), n - 1);
+    }
+
+    /**
+     * Doubles the table, reinserting all entries.
+     */
+    final void resize() {
+        long[] oldKeys = keys;
+        long[] oldVals = vals;
+        int oldCap = oldKeys.length - 1;
+        if (oldCap >= HashMap.MAXIMUM_CAPACITY) {
+            if (size - (hasZeroKey ? 1 : 0) >= oldCap - 1)
+                throw new IllegalStateException("Map is full");
+            threshold = oldCap - 1;
+            return;
+        }
+        allocate(oldCap << 1);
+        long[] ks = keys;
+        long[] vs = vals;
+        int mask = ks.length - 2;
+        for (int j = 0; j < oldCap; ++j) {
+            long k;
+            if ((k = oldKeys[j]) != 0) {
+                int i = IntObjectHashMap.mix(Long.hashCode(k)) & mask;
+                while (ks[i] != 0)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = oldVals[j];
+            }
+        }
+        vs[mask + 1] = oldVals[oldCap];
+    }
+
+    /**
+     * Returns the slot holding key, or -1 if absent.
+     */
+    final int indexOf(long key) {
+        long[] ks = keys;
+        int mask = ks.length - 2;
+        if (key == 0)
+            return hasZeroKey ? mask + 1 : -1;
+        int i = IntObjectHashMap.mix(Long.hashCode(key)) & mask;
+        for (;; i = (i + 1) & mask) {
+            long k;
+            if ((k = ks[i]) == 0)
+                return -1;
+            if (k == key)
+                return i;
+        }
+    }
+
+    /**
+     * Removes the entry at slot i, shifting back any later entries of
+     * the probe run whose home slot does not lie between i and their
+     * current position.
+     */
+    final void removeAt(int i) {
+        long[] ks = keys;
+        long[] vs = vals;
+        int mask = ks.length - 2;
+        if (i > mask)
+            hasZeroKey = false;
+        else {
+            for (int j = i;;) {
+                j = (j + 1) & mask;
+                long k;
+                if ((k = ks[j]) == 0)
+                    break;
+                int h = IntObjectHashMap.mix(Long.hashCode(k)) & mask;
+                if ((i <= j) ? (h <= i || h > j) : (h <= i && h > j)) {
+                    ks[i] = k;
+                    vs[i] = vs[j];
+                    i = j;
+                }
+            }
+            ks[i] = 0;
+        }
+        vs[i] = 0;
+        --size;
+        ++modCount;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code 0} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code 0} if this map contains no mapping for the key
+     */
+    public long get(long key) {
+        long[] ks = keys;
+        int mask = ks.length - 2;
+        if (key == 0)
+            return vals[mask + 1];
+        int i = IntObjectHashMap.mix(Long.hashCode(key)) & mask;
+        for (;; i = (i + 1) & mask) {
+            long k;
+            if ((k = ks[i]) == 0)
+                return 0;
+            if (k == key)
+                return vals[i];
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or
+     *         {@code defaultValue} if this map contains no mapping for the key
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        int i;
+        return ((i = indexOf(key)) < 0) ? defaultValue : vals[i];
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the specified
+     *         key
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code 0} if there was no mapping for {@code key}
+     */
+    public long put(long key, long value) {
+        int i = slotFor(key);
+        long old = vals[i];
+        vals[i] = value;
+        return old;
+    }
+
+    /**
+     * Adds the given delta to the value mapped to the specified key,
+     * first mapping the key to {@code 0} if it is absent.
+     *
+     * @param key key with which the resulting value is to be associated
+     * @param delta the value to add
+     * @return the updated value
+     */
+    public long addTo(long key, long delta) {
+        int i = slotFor(key);
+        return vals[i] += delta;
+    }
+
+    /**
+     * Adds each value of the specified map to the value mapped to its
+     * key in this map, as if by {@link #addTo}.  Entries are read
+     * directly from the table of the specified map, which makes this
+     * an inexpensive way to combine partial counts or sums, for
+     * example in the combiner of a parallel {@code collect}.
+     *
+     * @param m the map whose values are to be added to this map
+     * @throws NullPointerException if the specified map is null
+     */
+    public void addAll(LongLongHashMap m) {
+        long[] ks = m.keys;
+        long[] vs = m.vals;
+        int n = ks.length - 1;
+        for (int j = 0; j < n; ++j) {
+            long k;
+            if ((k = ks[j]) != 0) {
+                int i = slotFor(k);
+                vals[i] += vs[j];
+            }
+        }
+        if (m.hasZeroKey) {
+            int i = slotFor(0L);
+            vals[i] += vs[n];
+        }
+    }
+
+    /**
+     * Returns the slot for key, claiming one (with value 0) if the key
+     * is absent.  The returned slot remains valid until the next
+     * structural modification, so a resize triggered by the insertion
+     * is performed before the slot is located.
+     */
+    final int slotFor(long key) {
+        long[] ks = keys;
+        int mask = ks.length - 2;
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                ++size;
+                ++modCount;
+            }
+            return mask + 1;
+        }
+        int i = IntObjectHashMap.mix(Long.hashCode(key)) & mask;
+        for (long k; (k = ks[i]) != 0; i = (i + 1) & mask) {
+            if (k == key)
+                return i;
+        }
+        if (size - (hasZeroKey ? 1 : 0) >= threshold) {
+            resize();
+            return slotFor(key);
+        }
+        ks[i] = key;
+        ++size;
+        ++modCount;
+        return i;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         {@code 0} if there was no mapping for {@code key}
+     */
+    public long remove(long key) {
+        int i;
+        if ((i = indexOf(key)) < 0)
+            return 0;
+        long v = vals[i];
+        removeAt(i);
+        return v;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(vals, 0);
+            hasZeroKey = false;
+            size = 0;
+            ++modCount;
+        }
+    }
+
+    /**
+     * Returns an iterator over the keys contained in this map.  The
+     * iterator does not box the keys it returns and supports removal.
+     *
+     * @return an iterator over the keys contained in this map
+     */
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Returns a {@link Map} view of the mappings contained in this map.
+     * The map is backed by this map, so changes to this map are
+     * reflected in the view, and vice-versa.  The view does not permit
+     * {@code null} keys or values.
+     *
+     * @return a map view of the mappings contained in this map
+     */
+    public Map<Long,Long> asMap() {
+        Map<Long,Long> m;
+        return (m = mapView) == null ? (mapView = new MapView()) : m;
+    }
+
+    /**
+     * Returns a string representation of this map, in the same form
+     * as {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        return asMap().toString();
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    /**
+     * Base iterator, scanning from the reserved slot down, as
+     * described for {@link IntObjectHashMap}.
+     */
+    abstract class HashIterator {
+        int index;              // next slot to scan is index - 1
+        int last;               // slot of last returned entry, -1 if none,
+                                // or -2 if taken from the wrapped list
+        int remaining;          // entries not yet returned
+        int expectedModCount;   // for fast-fail
+        long[] wrappedKeys;      // entries moved behind the scan by remove
+        long[] wrappedVals;
+        int wrappedCount;
+        long currentKey;
+        long currentValue;
+
+        HashIterator() {
+            index = keys.length;
+            last = -1;
+            remaining = size;
+            expectedModCount = modCount;
+        }
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final void advance() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            --remaining;
+            long[] ks = keys;
+            int z = ks.length - 1;
+            if (index > z) {
+                index = z;
+                if (hasZeroKey) {
+                    currentKey = 0;
+                    currentValue = vals[z];
+                    last = z;
+                    return;
+                }
+            }
+            while (--index >= 0) {
+                long k;
+                if ((k = ks[index]) != 0) {
+                    currentKey = k;
+                    currentValue = vals[index];
+                    last = index;
+                    return;
+                }
+            }
+            index = 0;
+            currentKey = wrappedKeys[--wrappedCount];
+            currentValue = wrappedVals[wrappedCount];
+            last = -2;
+        }
+
+        public final void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == -2 || last == keys.length - 1)
+                LongLongHashMap.this.remove(currentKey);
+            else
+                removeScanned(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Variant of removeAt that records entries which wrap around
+         * into already scanned slots.
+         */
+        private void removeScanned(int i) {
+            long[] ks = keys;
+            long[] vs = vals;
+            int mask = ks.length - 2;
+            for (int j = i;;) {
+                j = (j + 1) & mask;
+                long k;
+                if ((k = ks[j]) == 0)
+                    break;
+                int h = IntObjectHashMap.mix(Long.hashCode(k)) & mask;
+                if ((i <= j) ? (h <= i || h > j) : (h <= i && h > j)) {
+                    if (j < i) {
+                        if (wrappedKeys == null) {
+                            wrappedKeys = new long[2];
+                            wrappedVals = new long[2];
+                        } else if (wrappedCount == wrappedKeys.length) {
+                            int n = wrappedCount << 1;
+                            wrappedKeys = Arrays.copyOf(wrappedKeys, n);
+                            wrappedVals = Arrays.copyOf(wrappedVals, n);
+                        }
+                        wrappedKeys[wrappedCount] = k;
+                        wrappedVals[wrappedCount++] = vs[j];
+                    }
+                    ks[i] = k;
+                    vs[i] = vs[j];
+                    i = j;
+                }
+            }
+            ks[i] = 0;
+            vs[i] = 0;
+            --size;
+            ++modCount;
+        }
+    }
+
+    final class KeyIterator extends HashIterator
+        implements PrimitiveIterator.OfLong {
+        public final long nextLong() {
+            advance();
+            return currentKey;
+        }
+    }
+
+    final class EntryIterator extends HashIterator
+        implements Iterator<Map.Entry<Long,Long>> {
+        public final Map.Entry<Long,Long> next() {
+            advance();
+            return new MapEntry(currentKey, currentValue);
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // Map view
+
+    /**
+     * Entry returned by the view's iterator; setValue writes through.
+     */
+    final class MapEntry implements Map.Entry<Long,Long> {
+        final long key;
+        long value;
+
+        MapEntry(long key, long value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public Long getKey()   { return key; }
+        public Long getValue() { return value; }
+        public String toString()  { return key + "=" + value; }
+
+        public int hashCode() {
+            return Long.hashCode(key) ^ Long.hashCode(value);
+        }
+
+        public boolean equals(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) instanceof Long &&
+                    (v = e.getValue()) instanceof Long &&
+                    (Long)k == key && (Long)v == value);
+        }
+
+        public Long setValue(Long v) {
+            long old = value;
+            value = v;
+            put(key, v);
+            return old;
+        }
+    }
+
+    final class MapView extends AbstractMap<Long,Long> {
+        transient Set<Map.Entry<Long,Long>> entrySet;
+
+        public int size()                 { return size; }
+        public boolean isEmpty()          { return size == 0; }
+        public void clear()               { LongLongHashMap.this.clear(); }
+
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) &&
+                LongLongHashMap.this.containsKey((Long)key);
+        }
+
+        public Long get(Object key) {
+            int i;
+            return (key instanceof Long &&
+                    (i = indexOf((Long)key)) >= 0) ? vals[i] : null;
+        }
+
+        public Long put(Long key, Long value) {
+            long k = key, v = value;     // null checks before modification
+            int i = indexOf(k);
+            Long old = (i < 0) ? null : vals[i];
+            LongLongHashMap.this.put(k, v);
+            return old;
+        }
+
+        public Long remove(Object key) {
+            int i;
+            if (!(key instanceof Long) || (i = indexOf((Long)key)) < 0)
+                return null;
+            long v = vals[i];
+            removeAt(i);
+            return v;
+        }
+
+        public Set<Map.Entry<Long,Long>> entrySet() {
+            Set<Map.Entry<Long,Long>> es;
+            return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Long,Long>> {
+        public int size()                 { return size; }
+        public void clear()               { LongLongHashMap.this.clear(); }
+
+        public Iterator<Map.Entry<Long,Long>> iterator() {
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object k = e.getKey(), v = e.getValue();
+            int i;
+            return (k instanceof Long) && (v instanceof Long) &&
+                (i = indexOf((Long)k)) >= 0 && vals[i] == (Long)v;
+        }
+
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                Object k = ((Map.Entry<?,?>)o).getKey();
+                LongLongHashMap.this.remove((Long)k);
+                return true;
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,676 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util;
+
+import java.util.function.LongFunction;
+
+/**
+ * Hash table mapping primitive {@code long} keys to non-null values.
+ * Keys and values are held in two parallel arrays and collisions are
+ * resolved by open addressing with linear probing, so unlike
+ * {@code HashMap<Long,V>} neither keys nor mappings are represented
+ * by objects, and lookups do not box their arguments.
+ *
+ * <p>The table is sized to a power of two in the same way as
+ * {@link HashMap}, but keys are scrambled by a multiplicative hash
+ * before they are masked into an index: the bit-spreading function of
+ * {@code HashMap}, which suffices for its chained and treeified bins,
+ * leaves keys with a power-of-two stride in long runs of adjacent
+ * slots under linear probing.  The <i>load factor</i>
+ * bounds the fraction of occupied slots before the table is doubled;
+ * because probe sequences lengthen quickly as an open-addressed table
+ * fills, the default is {@code 0.5} rather than {@code HashMap}'s
+ * {@code 0.75}.  Removal shifts later entries of the probe sequence
+ * back into the vacated slot, so no deleted-slot markers accumulate.
+ *
+ * <p>This class does not permit {@code null} values, as the absence of
+ * a value marks a free slot.  {@link #asMap} provides a
+ * {@code Map<Long,V>} view for interoperation with APIs that
+ * expect a {@code Map}; operations on the view box their keys.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ * If multiple threads access the map concurrently, and at least one of
+ * them modifies it structurally, it <i>must</i> be synchronized
+ * externally.  Iterators over the map and its views are <i>fail-fast</i>
+ * in the same sense as those of {@link HashMap}.
+ *
+ * @param <V> the type of mapped values
+ *
+ * @see HashMap
+ * @see LongLongHashMap
+ * @since 9
+ */
+public class LongObjectHashMap<V> {
+
+    /**
+     * The default initial capacity - MUST be a power of two.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 1 << 4;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The keys, indexed in parallel with vals.  Length is always a
+     * power of two.
+     */
+    transient long[] keys;
+
+    /**
+     * The values; a null element marks a free slot.
+     */
+    transient Object[] vals;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The size at which to resize.  Always less than the table length,
+     * so that every probe sequence ends at a free slot.
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Holds cached asMap() view.
+     */
+    transient Map<Long,V> mapView;
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * load factor.
+     *
+     * @param  initialCapacity the initial capacity
+     * @param  loadFactor      the load factor
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not strictly between zero and one
+     */
+    public LongObjectHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(HashMap.tableSizeFor(Math.max(initialCapacity, 2)));
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and
+     * the default load factor (0.5).
+     *
+     * @param  initialCapacity the initial capacity
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongObjectHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map with the default initial capacity
+     * (16) and the default load factor (0.5).
+     */
+    public LongObjectHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Installs empty tables of the given power of two length.
+     */
+    private void allocate(int n) {
+        keys = new long[n];
+        vals = new Object[n];
+        threshold = Math.min((int)(n * loadFactor), n - 1);
+    }
+
+    /**
+     * Doubles the table, reinserting all entries.
+     */
+    final void resize() {
+        long[] oldKeys = keys;
+        Object[] oldVals = vals;
+        int oldCap = oldKeys.length;
+        if (oldCap >= HashMap.MAXIMUM_CAPACITY) {
+            if (size >= oldCap - 1)
+                throw new IllegalStateException("Map is full");
+            threshold = oldCap - 1;
+            return;
+        }
+        allocate(oldCap << 1);
+        long[] ks = keys;
+        Object[] vs = vals;
+        int mask = ks.length - 1;
+        for (int j = 0; j < oldCap; ++j) {
+            Object v;
+            if ((v = oldVals[j]) != null) {
+                long k = oldKeys[j];
+                int i = IntObjectHashMap.mix(Long.hashCode(k)) & mask;
+                while (vs[i] != null)
+                    i = (i + 1) & mask;
+                ks[i] = k;
+                vs[i] = v;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot holding key, or -1 if absent.
+     */
+    final int indexOf(long key) {
+        long[] ks = keys;
+        Object[] vs = vals;
+        int mask = ks.length - 1;
+        int i = IntObjectHashMap.mix(Long.hashCode(key)) & mask;
+        for (;; i = (i + 1) & mask) {
+            if (vs[i] == null)
+                return -1;
+            if (ks[i] == key)
+                return i;
+        }
+    }
+
+    /**
+     * Removes the entry at slot i, shifting back any later entries of
+     * the probe run whose home slot does not lie between i and their
+     * current position.
+     */
+    final void removeAt(int i) {
+        long[] ks = keys;
+        Object[] vs = vals;
+        int mask = ks.length - 1;
+        for (int j = i;;) {
+            j = (j + 1) & mask;
+            Object v;
+            if ((v = vs[j]) == null)
+                break;
+            int h = IntObjectHashMap.mix(Long.hashCode(ks[j])) & mask;
+            if ((i <= j) ? (h <= i || h > j) : (h <= i && h > j)) {
+                ks[i] = ks[j];
+                vs[i] = v;
+                i = j;
+            }
+        }
+        ks[i] = 0;
+        vs[i] = null;
+        --size;
+        ++modCount;
+    }
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns {@code true} if this map contains no key-value mappings.
+     *
+     * @return {@code true} if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value to which the specified key is mapped, or
+     *         {@code null} if this map contains no mapping for the key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        long[] ks = keys;
+        Object[] vs = vals;
+        int mask = ks.length - 1;
+        int i = IntObjectHashMap.mix(Long.hashCode(key)) & mask;
+        for (;; i = (i + 1) & mask) {
+            Object v;
+            if ((v = vs[i]) == null)
+                return null;
+            if (ks[i] == key)
+                return (V)v;
+        }
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value to which the specified key is mapped, or
+     *         {@code defaultValue} if this map contains no mapping for the key
+     */
+    public V getOrDefault(long key, V defaultValue) {
+        V v;
+        return ((v = get(key)) == null) ? defaultValue : v;
+    }
+
+    /**
+     * Returns {@code true} if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence in this map is to be tested
+     * @return {@code true} if this map contains a mapping for the specified
+     *         key
+     */
+    public boolean containsKey(long key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified value is null
+     */
+    public V put(long key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * associates it with the given value.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified value is null
+     */
+    public V putIfAbsent(long key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /**
+     * Implements put and putIfAbsent.
+     */
+    @SuppressWarnings("unchecked")
+    final V putVal(long key, V value, boolean onlyIfAbsent) {
+        if (value == null)
+            throw new NullPointerException();
+        long[] ks = keys;
+        Object[] vs = vals;
+        int mask = ks.length - 1;
+        int i = IntObjectHashMap.mix(Long.hashCode(key)) & mask;
+        for (Object v; (v = vs[i]) != null; i = (i + 1) & mask) {
+            if (ks[i] == key) {
+                if (!onlyIfAbsent)
+                    vs[i] = value;
+                return (V)v;
+            }
+        }
+        ks[i] = key;
+        vs[i] = value;
+        ++modCount;
+        if (++size > threshold)
+            resize();
+        return null;
+    }
+
+    /**
+     * If the specified key is not already associated with a value,
+     * attempts to compute its value using the given mapping function
+     * and enters it into this map unless {@code null}.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the mapping function is null
+     * @throws ConcurrentModificationException if it is detected that the
+     *         mapping function modified this map
+     */
+    @SuppressWarnings("unchecked")
+    public V computeIfAbsent(long key,
+                             LongFunction<? extends V> mappingFunction) {
+        if (mappingFunction == null)
+            throw new NullPointerException();
+        V v;
+        if ((v = get(key)) == null) {
+            int mc = modCount;
+            if ((v = mappingFunction.apply(key)) != null) {
+                if (mc != modCount)
+                    throw new ConcurrentModificationException();
+                putVal(key, v, false);
+            }
+        }
+        return v;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i;
+        if ((i = indexOf(key)) < 0)
+            return null;
+        Object v = vals[i];
+        removeAt(i);
+        return (V)v;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     * The map will be empty after this call returns.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(vals, null);
+            size = 0;
+            ++modCount;
+        }
+    }
+
+    /**
+     * Returns an iterator over the keys contained in this map.  The
+     * iterator does not box the keys it returns and supports removal.
+     *
+     * @return an iterator over the keys contained in this map
+     */
+    public PrimitiveIterator.OfLong keyIterator() {
+        return new KeyIterator();
+    }
+
+    /**
+     * Returns a {@link Map} view of the mappings contained in this map.
+     * The map is backed by this map, so changes to this map are
+     * reflected in the view, and vice-versa.  The view does not permit
+     * {@code null} keys or values.
+     *
+     * @return a map view of the mappings contained in this map
+     */
+    public Map<Long,V> asMap() {
+        Map<Long,V> m;
+        return (m = mapView) == null ? (mapView = new MapView()) : m;
+    }
+
+    /**
+     * Returns a string representation of this map, in the same form
+     * as {@link AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        return asMap().toString();
+    }
+
+    /* ------------------------------------------------------------ */
+    // iterators
+
+    /**
+     * Base iterator.  Slots are visited from the top of the table
+     * down, so that the back-shifting performed by remove() can only
+     * move unvisited entries into visited slots when a probe run wraps
+     * around the end of the table; such entries are set aside and
+     * returned once the scan is complete.
+     */
+    abstract class HashIterator {
+        int index;              // next slot to scan is index - 1
+        int last;               // slot of last returned entry, -1 if none,
+                                // or -2 if taken from the wrapped list
+        int remaining;          // entries not yet returned
+        int expectedModCount;   // for fast-fail
+        long[] wrappedKeys;      // entries moved behind the scan by remove
+        Object[] wrappedVals;
+        int wrappedCount;
+        long currentKey;
+        Object currentValue;
+
+        HashIterator() {
+            index = keys.length;
+            last = -1;
+            remaining = size;
+            expectedModCount = modCount;
+        }
+
+        public final boolean hasNext() {
+            return remaining > 0;
+        }
+
+        final void advance() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining <= 0)
+                throw new NoSuchElementException();
+            --remaining;
+            Object[] vs = vals;
+            Object v;
+            while (--index >= 0) {
+                if ((v = vs[index]) != null) {
+                    currentKey = keys[index];
+                    currentValue = v;
+                    last = index;
+                    return;
+                }
+            }
+            index = 0;
+            currentKey = wrappedKeys[--wrappedCount];
+            currentValue = wrappedVals[wrappedCount];
+            last = -2;
+        }
+
+        public final void remove() {
+            if (last == -1)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == -2)
+                LongObjectHashMap.this.remove(currentKey);
+            else
+                removeScanned(last);
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        /**
+         * Variant of removeAt that records entries which wrap around
+         * into already scanned slots.
+         */
+        private void removeScanned(int i) {
+            long[] ks = keys;
+            Object[] vs = vals;
+            int mask = ks.length - 1;
+            for (int j = i;;) {
+                j = (j + 1) & mask;
+                Object v;
+                if ((v = vs[j]) == null)
+                    break;
+                int h = IntObjectHashMap.mix(Long.hashCode(ks[j])) & mask;
+                if ((i <= j) ? (h <= i || h > j) : (h <= i && h > j)) {
+                    if (j < i) {
+                        if (wrappedKeys == null) {
+                            wrappedKeys = new long[2];
+                            wrappedVals = new Object[2];
+                        } else if (wrappedCount == wrappedKeys.length) {
+                            int n = wrappedCount << 1;
+                            wrappedKeys = Arrays.copyOf(wrappedKeys, n);
+                            wrappedVals = Arrays.copyOf(wrappedVals, n);
+                        }
+                        wrappedKeys[wrappedCount] = ks[j];
+                        wrappedVals[wrappedCount++] = v;
+                    }
+                    ks[i] = ks[j];
+                    vs[i] = v;
+                    i = j;
+                }
+            }
+            ks[i] = 0;
+            vs[i] = null;
+            --size;
+            ++modCount;
+        }
+    }
+
+    final class KeyIterator extends HashIterator
+        implements PrimitiveIterator.OfLong {
+        public final long nextLong() {
+            advance();
+            return currentKey;
+        }
+    }
+
+    final class EntryIterator extends HashIterator
+        implements Iterator<Map.Entry<Long,V>> {
+        public final Map.Entry<Long,V> next() {
+            advance();
+            return new MapEntry(currentKey, currentValue);
+        }
+    }
+
+    /* ------------------------------------------------------------ */
+    // Map view
+
+    /**
+     * Entry returned by the view's iterator; setValue writes through.
+     */
+    final class MapEntry implements Map.Entry<Long,V> {
+        final long key;
+        V value;
+
+        @SuppressWarnings("unchecked")
+        MapEntry(long key, Object value) {
+            this.key = key;
+            this.value = (V)value;
+        }
+
+        public Long getKey()   { return key; }
+        public V getValue()       { return value; }
+        public String toString()  { return key + "=" + value; }
+
+        public int hashCode() {
+            return Long.hashCode(key) ^ value.hashCode();
+        }
+
+        public boolean equals(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) instanceof Long &&
+                    (v = e.getValue()) != null &&
+                    (Long)k == key &&
+                    (v == value || v.equals(value)));
+        }
+
+        public V setValue(V v) {
+            if (v == null)
+                throw new NullPointerException();
+            V old = value;
+            value = v;
+            put(key, v);
+            return old;
+        }
+    }
+
+    final class MapView extends AbstractMap<Long,V> {
+        transient Set<Map.Entry<Long,V>> entrySet;
+
+        public int size()                 { return size; }
+        public boolean isEmpty()          { return size == 0; }
+        public void clear()               { LongObjectHashMap.this.clear(); }
+
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) &&
+                LongObjectHashMap.this.containsKey((Long)key);
+        }
+
+        public V get(Object key) {
+            return (key instanceof Long) ?
+                LongObjectHashMap.this.get((Long)key) : null;
+        }
+
+        public V put(Long key, V value) {
+            return LongObjectHashMap.this.put(key, value);
+        }
+
+        public V remove(Object key) {
+            return (key instanceof Long) ?
+                LongObjectHashMap.this.remove((Long)key) : null;
+        }
+
+        public Set<Map.Entry<Long,V>> entrySet() {
+            Set<Map.Entry<Long,V>> es;
+            return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Long,V>> {
+        public int size()                 { return size; }
+        public void clear()               { LongObjectHashMap.this.clear(); }
+
+        public Iterator<Map.Entry<Long,V>> iterator() {
+            return new EntryIterator();
+        }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>)o;
+            Object k = e.getKey();
+            Object v;
+            return (k instanceof Long) &&
+                (v = get((Long)k)) != null && v.equals(e.getValue());
+        }
+
+        public boolean remove(Object o) {
+            if (contains(o)) {
+                Object k = ((Map.Entry<?,?>)o).getKey();
+                LongObjectHashMap.this.remove((Long)k);
+                return true;
+            }
+            return false;
+        }
+    }
+}
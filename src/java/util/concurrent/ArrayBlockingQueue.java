@@ -708,41 +708,138 @@ public class ArrayBlockingQueue<E> extends AbstractQueue<E>
             throw new IllegalArgumentException();
         if (maxElements <= 0)
             return 0;
-        final Object[] items = this.items;
         final ReentrantLock lock = this.lock;
         lock.lock();
         try {
-            int n = Math.min(maxElements, count);
-            int take = takeIndex;
-            int i = 0;
-            try {
-                while (i < n) {
-                    @SuppressWarnings("unchecked")
-                    E e = (E) items[take];
-                    c.add(e);
-                    items[take] = null;
-                    if (++take == items.length) take = 0;
-                    i++;
+            return drainAvailable(c, maxElements);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Removes at most the given number of available elements and adds
+     * them to the given collection.  Call only when holding lock.
+     */
+    private int drainAvailable(Collection<? super E> c, int maxElements) {
+        // assert lock.isHeldByCurrentThread();
+        final Object[] items = this.items;
+        int n = Math.min(maxElements, count);
+        int take = takeIndex;
+        int i = 0;
+        try {
+            while (i < n) {
+                @SuppressWarnings("unchecked")
+                E e = (E) items[take];
+                c.add(e);
+                items[take] = null;
+                if (++take == items.length) take = 0;
+                i++;
+            }
+            return n;
+        } finally {
+            // Restore invariants even if c.add() threw
+            if (i > 0) {
+                count -= i;
+                takeIndex = take;
+                if (itrs != null) {
+                    if (count == 0)
+                        itrs.queueIsEmpty();
+                    else if (i > take)
+                        itrs.takeIndexWrapped();
                 }
-                return n;
-            } finally {
-                // Restore invariants even if c.add() threw
-                if (i > 0) {
-                    count -= i;
-                    takeIndex = take;
-                    if (itrs != null) {
-                        if (count == 0)
-                            itrs.queueIsEmpty();
-                        else if (i > take)
-                            itrs.takeIndexWrapped();
-                    }
-                    for (; i > 0 && lock.hasWaiters(notFull); i--)
-                        notFull.signal();
+                for (; i > 0 && lock.hasWaiters(notFull); i--)
+                    notFull.signal();
+            }
+        }
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue and
+     * adds them to the given collection, waiting up to the specified
+     * wait time if necessary for at least {@code minElements} elements
+     * to be transferred.  The lock is acquired once, and held except
+     * while waiting.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 9
+     */
+    public int drainTo(Collection<? super E> c,
+                       int minElements, int maxElements,
+                       long timeout, TimeUnit unit)
+        throws InterruptedException {
+        Objects.requireNonNull(c);
+        if (c == this || minElements > maxElements)
+            throw new IllegalArgumentException();
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock lock = this.lock;
+        int n = 0;
+        lock.lockInterruptibly();
+        try {
+            for (;;) {
+                if (n < maxElements)
+                    n += drainAvailable(c, maxElements - n);
+                if (n >= minElements || nanos <= 0L)
+                    return n;
+                while (count == 0 && nanos > 0L)
+                    nanos = notEmpty.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, waiting up to the specified wait time if necessary for
+     * space to become available.  The lock is acquired once, and held
+     * except while waiting.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 9
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == this)
+            throw new IllegalArgumentException();
+        final Object[] es = c.toArray();
+        for (Object e : es)
+            Objects.requireNonNull(e);
+        long nanos = unit.toNanos(timeout);
+        final Object[] items = this.items;
+        final ReentrantLock lock = this.lock;
+        int n = 0;
+        lock.lockInterruptibly();
+        try {
+            while (n < es.length) {
+                int k = Math.min(es.length - n, items.length - count);
+                if (k == 0) {
+                    if (nanos <= 0L)
+                        break;
+                    nanos = notFull.awaitNanos(nanos);
+                    continue;
+                }
+                int put = putIndex;
+                for (int i = 0; i < k; i++) {
+                    items[put] = es[n + i];
+                    if (++put == items.length) put = 0;
                 }
+                putIndex = put;
+                count += k;
+                n += k;
+                for (; k > 0 && lock.hasWaiters(notEmpty); k--)
+                    notEmpty.signal();
             }
         } finally {
             lock.unlock();
         }
+        return n;
     }
 
     /**
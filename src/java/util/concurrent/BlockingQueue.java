@@ -373,4 +373,121 @@ public interface BlockingQueue<E> extends Queue<E> {
      *         it from being added to the specified collection
      */
     int drainTo(Collection<? super E> c, int maxElements);
+
+    /**
+     * Inserts the elements of the given collection into this queue, in
+     * the order returned by its iterator, waiting up to the specified
+     * wait time if necessary for space to become available.  Returns
+     * the number of elements inserted, which is less than the size of
+     * the collection only if the wait time elapses first.  The elements
+     * inserted before the wait time elapses, or before the calling
+     * thread is interrupted while waiting, remain in this queue.
+     *
+     * <p>Implementations may insert the elements in batches, acquiring
+     * locks and waking waiting consumers once per batch rather than once
+     * per element.  The behavior of this operation is undefined if the
+     * specified collection is modified while the operation is in
+     * progress.
+     *
+     * @implSpec
+     * The default implementation inserts each element in turn using
+     * {@link #offer(Object, long, TimeUnit) offer}, with whatever remains
+     * of the wait time, so the elements preceding a null element are
+     * inserted before {@code NullPointerException} is thrown.
+     *
+     * @param c the collection of elements to insert
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements inserted
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ClassCastException if the class of an element of the
+     *         specified collection prevents it from being added to this queue
+     * @throws NullPointerException if the specified collection or any of
+     *         its elements is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         queue, or some property of an element of the specified
+     *         collection prevents it from being added to this queue
+     * @since 9
+     */
+    default int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == this)
+            throw new IllegalArgumentException();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int n = 0;
+        for (E e : c) {
+            if (!offer(e, deadline - System.nanoTime(), TimeUnit.NANOSECONDS))
+                break;
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue and
+     * adds them to the given collection, waiting up to the specified
+     * wait time if necessary for at least {@code minElements} elements
+     * to be transferred.  Returns the number of elements transferred,
+     * which is less than {@code minElements} only if the wait time
+     * elapses first.  The elements transferred before the wait time
+     * elapses, or before the calling thread is interrupted while
+     * waiting, remain in the given collection.
+     *
+     * <p>This method allows a consumer to take elements in batches of
+     * a useful size while bounding the latency of each batch.  A
+     * failure encountered while attempting to add elements to
+     * collection {@code c} may result in elements being in neither,
+     * either or both collections when the associated exception is
+     * thrown.  Attempts to drain a queue to itself result in
+     * {@code IllegalArgumentException}. Further, the behavior of
+     * this operation is undefined if the specified collection is
+     * modified while the operation is in progress.
+     *
+     * @implSpec
+     * The default implementation transfers the available elements using
+     * {@link #drainTo(Collection, int) drainTo}, and while fewer than
+     * {@code minElements} have been transferred, waits for a further
+     * element using {@link #poll(long, TimeUnit) poll} before transferring
+     * the available elements again.
+     *
+     * @param c the collection to transfer elements into
+     * @param minElements the number of elements to wait for
+     * @param maxElements the maximum number of elements to transfer
+     * @param timeout how long to wait before giving up, in units of
+     *        {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     *        {@code timeout} parameter
+     * @return the number of elements transferred
+     * @throws InterruptedException if interrupted while waiting
+     * @throws UnsupportedOperationException if addition of elements
+     *         is not supported by the specified collection
+     * @throws ClassCastException if the class of an element of this queue
+     *         prevents it from being added to the specified collection
+     * @throws NullPointerException if the specified collection is null
+     * @throws IllegalArgumentException if the specified collection is this
+     *         queue, or some property of an element of this queue prevents
+     *         it from being added to the specified collection, or if
+     *         {@code minElements > maxElements}
+     * @since 9
+     */
+    default int drainTo(Collection<? super E> c,
+                        int minElements, int maxElements,
+                        long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == this || minElements > maxElements)
+            throw new IllegalArgumentException();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        int n = drainTo(c, maxElements);
+        while (n < minElements) {
+            E e = poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (e == null)
+                break;
+            c.add(e);
+            n++;
+            n += drainTo(c, maxElements - n);
+        }
+        return n;
+    }
 }
@@ -75,9 +75,12 @@ import java.util.function.Supplier;
  * marker interface {@link AsynchronousCompletionTask}.  Operations
  * with time-delays can use adapter methods defined in this class, for
  * example: {@code supplyAsync(supplier, delayedExecutor(timeout,
- * timeUnit))}.  To support methods with delays and timeouts, this
- * class maintains at most one daemon thread for triggering and
- * cancelling actions, not for running them.
+ * timeUnit))}.  Similarly, related computations can be kept on the
+ * same {@link ForkJoinPool} worker, where possible, by supplying an
+ * executor obtained from {@link ForkJoinPool#affinityExecutor}.  To
+ * support methods with delays and timeouts, this class maintains at
+ * most one daemon thread for triggering and cancelling actions, not
+ * for running them.
  *
  * <li>All CompletionStage methods are implemented independently of
  * other public methods, so the behavior of one method is not impacted
@@ -220,11 +223,22 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
      *   Classes with two inputs (for example BiApply) deal with races
      *   across both while pushing actions.  The second completion is
      *   a CoCompletion pointing to the first, shared so that at most
-     *   one performs the action.  The multiple-arity methods allOf
-     *   does this pairwise to form trees of completions.  Method
-     *   anyOf is handled differently from allOf because completion of
-     *   any source should trigger a cleanStack of other sources.
-     *   Each AnyOf completion can reach others via a shared array.
+     *   one performs the action.  The multiple-arity method allOf
+     *   instead pushes one AllOf completion per source, sharing a
+     *   count of sources not yet complete, so that the last to
+     *   complete triggers the dependent without building a tree of
+     *   intermediate futures.  Method anyOf also pushes one
+     *   completion per source, but because completion of any source
+     *   should trigger a cleanStack of other sources, each AnyOf
+     *   completion can reach others via a shared array.
+     *
+     * * Synchronous thenApply and thenAccept stages of MinimalStages
+     *   are fused: because a MinimalStage cannot be completed other
+     *   than by its source, a stage added to an incomplete
+     *   MinimalStage produced by such a stage is linked after it,
+     *   rather than pushed as a separate Completion.  A run of
+     *   fused stages is triggered by the single FusedStage pushed on
+     *   the first source, and executed in a loop (see runFused).
      *
      * Note that the generic type parameters of methods vary according
      * to whether "this" is a source, dependent, or completion.
@@ -443,10 +457,15 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
 
     /**
      * Null-checks user executor argument, and translates uses of
-     * commonPool to ASYNC_POOL in case parallelism disabled.
+     * commonPool (including its affinity executors) to ASYNC_POOL in
+     * case parallelism disabled.
      */
     static Executor screenExecutor(Executor e) {
-        if (!USE_COMMON_POOL && e == ForkJoinPool.commonPool())
+        if (!USE_COMMON_POOL &&
+            (e == ForkJoinPool.commonPool() ||
+             (e instanceof ForkJoinPool.AffinityExecutor &&
+              ((ForkJoinPool.AffinityExecutor)e).pool ==
+              ForkJoinPool.commonPool())))
             return ASYNC_POOL;
         if (e == null) throw new NullPointerException();
         return e;
@@ -656,6 +675,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         Object r;
         if ((r = result) != null)
             return uniApplyNow(r, e, f);
+        if (e == null && this instanceof MinimalStage)
+            return fuseStage(f, false);
         CompletableFuture<V> d = newIncompleteFuture();
         unipush(new UniApply<T,V>(e, d, this, f));
         return d;
@@ -729,6 +750,8 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         Object r;
         if ((r = result) != null)
             return uniAcceptNow(r, e, f);
+        if (e == null && this instanceof MinimalStage)
+            return fuseStage(f, true);
         CompletableFuture<Void> d = newIncompleteFuture();
         unipush(new UniAccept<T>(e, d, this, f));
         return d;
@@ -1122,6 +1145,106 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
+    /* ------------- Fused synchronous MinimalStage stages -------------- */
+
+    /**
+     * A synchronous thenApply or thenAccept stage of a MinimalStage.
+     * Only the first of a run of fused stages is pushed on its source
+     * (field src); later ones are reached through field link of the
+     * stage producing their source.  Field link is null while a
+     * following stage may still be appended, and is set to SEALED by
+     * the thread running the stage after completing dep, so that an
+     * appender losing that race pushes a new first stage instead,
+     * which then fires immediately.
+     */
+    @SuppressWarnings("serial")
+    static final class FusedStage extends Completion {
+        CompletableFuture<?> src;        // source, if first of run
+        Object fn;                       // Function, or Consumer if accept
+        final boolean accept;
+        final MinimalStage<?> dep;       // the dependent to complete
+        volatile FusedStage link;        // next fused stage, or SEALED
+        FusedStage(CompletableFuture<?> src, Object fn, boolean accept,
+                   MinimalStage<?> dep) {
+            this.src = src; this.fn = fn; this.accept = accept;
+            this.dep = dep;
+        }
+        final CompletableFuture<?> tryFire(int mode) {
+            // assert mode != ASYNC;
+            CompletableFuture<?> a;
+            if ((a = src) == null || a.result == null
+                || !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            src = null;
+            return runFused(a, this, mode);
+        }
+        final boolean isLive() { return src != null; }
+    }
+
+    /** Marks a FusedStage that no longer accepts a following stage. */
+    static final FusedStage SEALED = new FusedStage(null, null, false, null);
+
+    /**
+     * Runs fused stage s and those linked after it, the first taking
+     * its input from a, which must be complete.  Dependents pushed on
+     * intermediate stages are triggered as each completes.
+     */
+    @SuppressWarnings("unchecked")
+    static CompletableFuture<?> runFused(CompletableFuture<?> a,
+                                         FusedStage s, int mode) {
+        for (CompletableFuture<?> b = a;;) {
+            MinimalStage<Object> d = (MinimalStage<Object>)s.dep;
+            Object f = s.fn, r = b.result; Throwable x; FusedStage n;
+            s.fn = null;
+            d.producer = null;
+            tryComplete: if (d.result == null) {
+                if (r instanceof AltResult) {
+                    if ((x = ((AltResult)r).ex) != null) {
+                        d.completeThrowable(x, r);
+                        break tryComplete;
+                    }
+                    r = null;
+                }
+                try {
+                    if (s.accept) {
+                        ((Consumer<Object>)f).accept(r);
+                        d.completeNull();
+                    }
+                    else
+                        d.completeValue(((Function<Object,Object>)f).apply(r));
+                } catch (Throwable ex) {
+                    d.completeThrowable(ex);
+                }
+            }
+            if ((n = s.link) == null && LINK.compareAndSet(s, null, SEALED))
+                return d.postFire(a, mode);
+            if (n == null)
+                n = s.link;
+            if (d.stack != null)
+                d.postComplete();
+            b = d;
+            s = n;
+        }
+    }
+
+    /**
+     * Adds a synchronous apply (or, if accept, accept) stage to this
+     * incomplete MinimalStage, linked after the stage producing it if
+     * that has not yet run.
+     */
+    private <V> CompletableFuture<V> fuseStage(Object f, boolean accept) {
+        MinimalStage<V> d = new MinimalStage<V>();
+        FusedStage p = ((MinimalStage<?>)this).producer, s;
+        if (p != null) {
+            d.producer = s = new FusedStage(null, f, accept, d);
+            if (LINK.compareAndSet(p, null, s))
+                return d;
+        }
+        d.producer = s = new FusedStage(this, f, accept, d);
+        unipush(s);
+        return d;
+    }
+
     /* ------------- Two-input Completions -------------- */
 
     /** A Completion for an action with two sources */
@@ -1400,60 +1523,61 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
-    @SuppressWarnings("serial")
-    static final class BiRelay<T,U> extends BiCompletion<T,U,Void> { // for And
-        BiRelay(CompletableFuture<Void> dep,
-                CompletableFuture<T> src, CompletableFuture<U> snd) {
-            super(null, dep, src, snd);
+    /**
+     * State shared by the AllOf completions of one allOf call: the
+     * number of sources not yet known complete, plus one while
+     * completions are still being pushed.
+     */
+    static final class AndCount {
+        final CompletableFuture<Void> dep;
+        CompletableFuture<?>[] srcs;
+        volatile int pending;
+        AndCount(CompletableFuture<Void> dep, CompletableFuture<?>[] srcs,
+                 int pending) {
+            this.dep = dep; this.srcs = srcs; this.pending = pending;
         }
-        final CompletableFuture<Void> tryFire(int mode) {
-            CompletableFuture<Void> d;
-            CompletableFuture<T> a;
-            CompletableFuture<U> b;
-            Object r, s, z; Throwable x;
-            if ((d = dep) == null
-                || (a = src) == null || (r = a.result) == null
-                || (b = snd) == null || (s = b.result) == null)
-                return null;
-            if (d.result == null) {
-                if ((r instanceof AltResult
-                     && (x = ((AltResult)(z = r)).ex) != null) ||
-                    (s instanceof AltResult
-                     && (x = ((AltResult)(z = s)).ex) != null))
-                    d.completeThrowable(x, z);
-                else
-                    d.completeNull();
+
+        /**
+         * Records n more complete sources, completing dep if these
+         * are the last, with the exception of the first exceptionally
+         * completed source, if any.
+         */
+        final void arrive(int n) {
+            CompletableFuture<?>[] as;
+            if ((int)PENDING.getAndAdd(this, -n) == n && (as = srcs) != null) {
+                Object z; Throwable x;
+                srcs = null;
+                for (CompletableFuture<?> a : as) {
+                    if ((z = a.result) instanceof AltResult
+                        && (x = ((AltResult)z).ex) != null) {
+                        dep.completeThrowable(x, z);
+                        return;
+                    }
+                }
+                dep.completeNull();
             }
-            src = null; snd = null; dep = null;
-            return d.postFire(a, b, mode);
         }
     }
 
-    /** Recursively constructs a tree of completions. */
-    static CompletableFuture<Void> andTree(CompletableFuture<?>[] cfs,
-                                           int lo, int hi) {
-        CompletableFuture<Void> d = new CompletableFuture<Void>();
-        if (lo > hi) // empty
-            d.result = NIL;
-        else {
-            CompletableFuture<?> a, b; Object r, s, z; Throwable x;
-            int mid = (lo + hi) >>> 1;
-            if ((a = (lo == mid ? cfs[lo] :
-                      andTree(cfs, lo, mid))) == null ||
-                (b = (lo == hi ? a : (hi == mid+1) ? cfs[hi] :
-                      andTree(cfs, mid+1, hi))) == null)
-                throw new NullPointerException();
-            if ((r = a.result) == null || (s = b.result) == null)
-                a.bipush(b, new BiRelay<>(d, a, b));
-            else if ((r instanceof AltResult
-                      && (x = ((AltResult)(z = r)).ex) != null) ||
-                     (s instanceof AltResult
-                      && (x = ((AltResult)(z = s)).ex) != null))
-                d.result = encodeThrowable(x, z);
-            else
-                d.result = NIL;
+    /** Completion for an allOf input future. */
+    @SuppressWarnings("serial")
+    static final class AllOf extends Completion {
+        AndCount count; CompletableFuture<?> src;
+        AllOf(AndCount count, CompletableFuture<?> src) {
+            this.count = count; this.src = src;
         }
-        return d;
+        final CompletableFuture<Void> tryFire(int mode) {
+            // assert mode != ASYNC;
+            AndCount c; CompletableFuture<?> a;
+            if ((c = count) == null
+                || (a = src) == null || a.result == null
+                || !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            count = null; src = null;
+            c.arrive(1);
+            return c.dep.postFire(a, mode);
+        }
+        final boolean isLive() { return count != null; }
     }
 
     /* ------------- Projected (Ored) BiCompletions -------------- */
@@ -2334,7 +2458,21 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
      * {@code null}
      */
     public static CompletableFuture<Void> allOf(CompletableFuture<?>... cfs) {
-        return andTree(cfs, 0, cfs.length - 1);
+        CompletableFuture<Void> d = new CompletableFuture<Void>();
+        for (CompletableFuture<?> cf : cfs)
+            if (cf == null)
+                throw new NullPointerException();
+        cfs = cfs.clone();
+        AndCount c = new AndCount(d, cfs, cfs.length + 1);
+        int done = 1;
+        for (CompletableFuture<?> cf : cfs) {
+            if (cf.result != null)
+                ++done;
+            else
+                cf.unipush(new AllOf(c, cf));
+        }
+        c.arrive(done);
+        return d;
     }
 
     /**
@@ -2818,6 +2956,7 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
      * A subclass that just throws UOE for most non-CompletionStage methods.
      */
     static final class MinimalStage<T> extends CompletableFuture<T> {
+        FusedStage producer; // stage completing this, if not yet run
         MinimalStage() { }
         MinimalStage(Object r) { super(r); }
         @Override public <U> CompletableFuture<U> newIncompleteFuture() {
@@ -2876,12 +3015,16 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
     private static final VarHandle RESULT;
     private static final VarHandle STACK;
     private static final VarHandle NEXT;
+    private static final VarHandle LINK;
+    private static final VarHandle PENDING;
     static {
         try {
             MethodHandles.Lookup l = MethodHandles.lookup();
             RESULT = l.findVarHandle(CompletableFuture.class, "result", Object.class);
             STACK = l.findVarHandle(CompletableFuture.class, "stack", Completion.class);
             NEXT = l.findVarHandle(Completion.class, "next", Completion.class);
+            LINK = l.findVarHandle(FusedStage.class, "link", FusedStage.class);
+            PENDING = l.findVarHandle(AndCount.class, "pending", int.class);
         } catch (ReflectiveOperationException e) {
             throw new Error(e);
         }
@@ -0,0 +1,635 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+import java.util.concurrent.ConcurrentHashMap.Node;
+import java.util.concurrent.ConcurrentHashMap.Traverser;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent cache that bounds its contents by total weight and,
+ * optionally, by the age of its entries.  Mappings are held in a
+ * {@link ConcurrentHashMap}, so retrievals are lock-free and updates
+ * contend only on the affected bin, unlike a {@link
+ * java.util.LinkedHashMap} bounded via {@code removeEldestEntry},
+ * which must be locked as a whole.
+ *
+ * <p>Each entry has a weight, computed when it is inserted by the
+ * cache's weigher (by default one per entry, in which case the maximum
+ * weight is a maximum size).  When the total weight exceeds the
+ * maximum, entries are evicted until it does not.  Rather than keeping
+ * entries on a shared recency list, which every retrieval would have to
+ * update under a lock, each entry records its last access time, and
+ * eviction chooses the least recently used of a small random sample of
+ * entries.  Access times are coarsened so that entries read at a high
+ * rate by many threads are not written on each read.
+ *
+ * <p>Entries may also be configured to expire a fixed duration after
+ * they were written, or after they were last accessed.  Expired entries
+ * are never returned; they are removed when encountered by a
+ * retrieval or by eviction sampling, or by {@link #cleanUp}.
+ *
+ * <p>{@link #computeIfAbsent computeIfAbsent} installs a placeholder
+ * for the key and runs the mapping function without holding any lock,
+ * so that a slow load neither blocks retrievals of other keys in the
+ * same bin nor restricts what the function may do.  Other threads
+ * calling {@code computeIfAbsent} for the same key wait for the load
+ * to complete rather than repeating it.
+ *
+ * <p>Counts of hits, misses and evictions are maintained, and may be
+ * used to tune the maximum weight.
+ *
+ * <p>Instances are created by a {@link Builder}:
+ * <pre> {@code
+ * ConcurrentCache<String,byte[]> cache =
+ *     ConcurrentCache.<String,byte[]>newBuilder()
+ *     .maximumWeight(64 << 20)
+ *     .weigher((k, v) -> v.length)
+ *     .expireAfterWrite(10, TimeUnit.MINUTES)
+ *     .build();}</pre>
+ *
+ * <p>This class does not permit {@code null} keys or values.
+ *
+ * @param <K> the type of keys maintained by this cache
+ * @param <V> the type of cached values
+ * @see ConcurrentHashMap
+ * @since 9
+ */
+public class ConcurrentCache<K,V> {
+
+    /*
+     * Entries are wrapped in CacheEntry nodes held as the values of
+     * a ConcurrentHashMap.  Every removal is conditional on the node
+     * being the one observed, so that the total weight, which is
+     * adjusted by whichever thread succeeds in adding or removing a
+     * node, stays consistent without further locking.  Loads in
+     * progress are represented by LoadingEntry nodes, which have no
+     * value and zero weight, and are replaced by a CacheEntry once the
+     * load completes.
+     *
+     * Eviction is performed by at most one thread at a time, guarded
+     * by a tryLock so that writers never block on it; a writer that
+     * fails to acquire the lock leaves the excess to the thread
+     * holding it, which rechecks the weight before releasing.
+     * Candidates are sampled by traversing the map's table from a
+     * random bin.
+     */
+
+    /** The number of entries examined when choosing a victim */
+    static final int EVICTION_SAMPLE_SIZE = 8;
+
+    /**
+     * The granularity, in nanoseconds, of recorded access times.  An
+     * access within this period of the recorded time does not update
+     * it.
+     */
+    static final long ACCESS_GRANULARITY = TimeUnit.MILLISECONDS.toNanos(1);
+
+    /**
+     * A cached value with its weight and timestamps.
+     */
+    static class CacheEntry<V> {
+        final V value;
+        final int weight;
+        final long writeTime;
+        volatile long accessTime;
+
+        CacheEntry(V value, int weight, long now) {
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * Placeholder for a key whose value is being computed.
+     */
+    static final class LoadingEntry<V> extends CacheEntry<V> {
+        final CompletableFuture<V> future = new CompletableFuture<V>();
+        final Thread loader = Thread.currentThread();
+
+        LoadingEntry() {
+            super(null, 0, 0L);
+        }
+    }
+
+    private final ConcurrentHashMap<K,CacheEntry<V>> map;
+    private final long maximumWeight;
+    private final ToIntBiFunction<? super K, ? super V> weigher;
+    private final long expireAfterWriteNanos;
+    private final long expireAfterAccessNanos;
+    private final boolean timed;
+
+    private final AtomicLong weight = new AtomicLong();
+    private final ReentrantLock evictionLock = new ReentrantLock();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    ConcurrentCache(Builder<K,V> b) {
+        this.map = new ConcurrentHashMap<K,CacheEntry<V>>(b.initialCapacity);
+        this.maximumWeight = b.maximumWeight;
+        this.weigher = b.weigher;
+        this.expireAfterWriteNanos = b.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = b.expireAfterAccessNanos;
+        this.timed = (b.maximumWeight != Long.MAX_VALUE ||
+                      b.expireAfterWriteNanos != Long.MAX_VALUE ||
+                      b.expireAfterAccessNanos != Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a new builder for a cache with no bounds, which may then
+     * be configured.
+     *
+     * @param <K> the type of keys maintained by the cache
+     * @param <V> the type of cached values
+     * @return a new builder
+     */
+    public static <K,V> Builder<K,V> newBuilder() {
+        return new Builder<K,V>();
+    }
+
+    private long now() {
+        return timed ? System.nanoTime() : 0L;
+    }
+
+    private boolean isExpired(CacheEntry<V> e, long now) {
+        return (now - e.writeTime >= expireAfterWriteNanos ||
+                now - e.accessTime >= expireAfterAccessNanos);
+    }
+
+    private static <V> void recordAccess(CacheEntry<V> e, long now) {
+        if (now - e.accessTime >= ACCESS_GRANULARITY)
+            e.accessTime = now;
+    }
+
+    /**
+     * Removes the given node if still mapped, adjusting the weight.
+     * Returns true if removed by this call.
+     */
+    private boolean removeEntry(Object key, CacheEntry<V> e) {
+        if (map.remove(key, e)) {
+            weight.addAndGet(-e.weight);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this cache contains no unexpired mapping for the
+     * key.  This method does not wait for a load in progress.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the cached value, or {@code null} if none
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        CacheEntry<V> e; V v;
+        if ((e = map.get(key)) != null && (v = e.value) != null) {
+            long now = now();
+            if (!isExpired(e, now)) {
+                recordAccess(e, now);
+                hits.increment();
+                return v;
+            }
+            if (removeEntry(key, e))
+                evictions.increment();
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Associates the specified value with the specified key, replacing
+     * any existing mapping, and then evicts entries as needed to
+     * respect the maximum weight.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was none, or it had expired
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V put(K key, V value) {
+        if (key == null || value == null) throw new NullPointerException();
+        long now = now();
+        CacheEntry<V> e = new CacheEntry<V>(value, weigh(key, value), now);
+        CacheEntry<V> p = map.put(key, e);
+        long delta = e.weight - ((p == null) ? 0 : p.weight);
+        if (delta != 0L)
+            weight.addAndGet(delta);
+        V v = null;
+        if (p != null && p.value != null) {   // else absent or loading
+            if (!isExpired(p, now))
+                v = p.value;
+            else
+                evictions.increment();
+        }
+        evictIfNeeded();
+        return v;
+    }
+
+    /**
+     * Returns the value for the specified key, computing it with the
+     * given mapping function if absent or expired.  The function is
+     * invoked at most once per load, without holding any lock; other
+     * threads requesting the same key meanwhile wait for its result.
+     * If the function returns {@code null} or throws an exception, no
+     * mapping is recorded, and threads waiting on the load retry it.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param mappingFunction the function to compute a value
+     * @return the current (existing or computed) value associated with
+     *         the specified key, or null if the computed value is null
+     * @throws NullPointerException if the specified key or mappingFunction
+     *         is null
+     * @throws IllegalStateException if the computation detectably
+     *         attempts to load the same key
+     * @throws RuntimeException or Error if the mappingFunction does so,
+     *         in which case the mapping is left unestablished
+     */
+    public V computeIfAbsent(K key,
+                             Function<? super K, ? extends V> mappingFunction) {
+        if (key == null || mappingFunction == null)
+            throw new NullPointerException();
+        for (;;) {
+            CacheEntry<V> e; V v;
+            if ((e = map.get(key)) == null) {
+                LoadingEntry<V> p = new LoadingEntry<V>();
+                if ((e = map.putIfAbsent(key, p)) == null)
+                    return load(key, p, mappingFunction);
+            }
+            if (e instanceof LoadingEntry) {
+                LoadingEntry<V> p = (LoadingEntry<V>)e;
+                if (p.loader == Thread.currentThread())
+                    throw new IllegalStateException("Recursive load");
+                try {
+                    v = p.future.join();
+                } catch (CompletionException | CancellationException ex) {
+                    continue;
+                }
+                if (v == null)          // load recorded no mapping; retry
+                    continue;
+                hits.increment();
+                return v;
+            }
+            long now = now();
+            if (isExpired(e, now)) {
+                if (removeEntry(key, e))
+                    evictions.increment();
+                continue;
+            }
+            recordAccess(e, now);
+            hits.increment();
+            return e.value;
+        }
+    }
+
+    /**
+     * Runs the mapping function for a placeholder installed by the
+     * caller, and publishes the result.
+     */
+    private V load(K key, LoadingEntry<V> p,
+                   Function<? super K, ? extends V> mappingFunction) {
+        misses.increment();
+        V v;
+        try {
+            v = mappingFunction.apply(key);
+        } catch (Throwable ex) {
+            map.remove(key, p);
+            p.future.completeExceptionally(ex);
+            throw ex;
+        }
+        if (v == null)
+            map.remove(key, p);
+        else {
+            CacheEntry<V> e = new CacheEntry<V>(v, weigh(key, v), now());
+            if (map.replace(key, p, e)) {
+                weight.addAndGet(e.weight);
+                evictIfNeeded();
+            }
+        }
+        p.future.complete(v);
+        return v;
+    }
+
+    /**
+     * Removes the mapping for a key from this cache if present.
+     *
+     * @param key key whose mapping is to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was none
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        CacheEntry<V> e;
+        if ((e = map.remove(key)) == null)
+            return null;
+        weight.addAndGet(-e.weight);
+        return e.value;
+    }
+
+    /**
+     * Removes all of the mappings from this cache.
+     */
+    public void clear() {
+        for (K k : map.keySet()) {
+            CacheEntry<V> e;
+            if ((e = map.remove(k)) != null)
+                weight.addAndGet(-e.weight);
+        }
+    }
+
+    /**
+     * Removes all expired entries.  Expired entries are otherwise
+     * removed lazily, so this method may be called periodically to
+     * reclaim their space.
+     */
+    public void cleanUp() {
+        long now = now();
+        map.forEach((k, e) -> {
+            if (e.value != null && isExpired(e, now) && removeEntry(k, e))
+                evictions.increment();
+        });
+        evictIfNeeded();
+    }
+
+    /**
+     * Returns the number of entries in this cache, including any that
+     * have expired but not yet been removed.
+     *
+     * @return the number of entries
+     */
+    public long size() {
+        return map.mappingCount();
+    }
+
+    /**
+     * Returns the total weight of the entries in this cache.
+     *
+     * @return the total weight
+     */
+    public long weightedSize() {
+        return Math.max(weight.get(), 0L);
+    }
+
+    /**
+     * Returns the number of retrievals that returned a cached value,
+     * including waits for a load performed by another thread.
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of retrievals that found no cached value.
+     * Each load performed by {@link #computeIfAbsent} counts as a miss.
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of entries removed to respect the maximum
+     * weight or because they expired.
+     *
+     * @return the eviction count
+     */
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private int weigh(K key, V value) {
+        int w;
+        if ((w = weigher.applyAsInt(key, value)) < 0)
+            throw new IllegalArgumentException("Negative weight");
+        return w;
+    }
+
+    /**
+     * Evicts entries while the maximum weight is exceeded, unless
+     * another thread is doing so.
+     */
+    private void evictIfNeeded() {
+        while (weight.get() > maximumWeight && evictionLock.tryLock()) {
+            boolean progress = false;
+            try {
+                while (weight.get() > maximumWeight && evictOne())
+                    progress = true;
+            } finally {
+                evictionLock.unlock();
+            }
+            if (!progress)
+                break;
+        }
+    }
+
+    /**
+     * Evicts an expired entry or the least recently accessed of a
+     * random sample of entries.  Returns false if no candidate was
+     * found.
+     */
+    private boolean evictOne() {
+        Node<K,CacheEntry<V>>[] tab; int n;
+        if ((tab = map.table) == null || (n = tab.length) == 0)
+            return false;
+        long now = now();
+        int start = ThreadLocalRandom.current().nextInt(n);
+        K victimKey = null;
+        CacheEntry<V> victim = null;
+        int sampled = 0;
+        outer: for (int pass = 0; pass < 2; ++pass) {
+            Traverser<K,CacheEntry<V>> it = (pass == 0)
+                ? new Traverser<K,CacheEntry<V>>(tab, n, start, n)
+                : new Traverser<K,CacheEntry<V>>(tab, n, 0, start);
+            for (Node<K,CacheEntry<V>> p; sampled < EVICTION_SAMPLE_SIZE &&
+                     (p = it.advance()) != null; ) {
+                CacheEntry<V> e = p.val;
+                if (e == null || e.value == null)
+                    continue;           // skip loads in progress
+                ++sampled;
+                if (isExpired(e, now)) {
+                    victimKey = p.key;
+                    victim = e;
+                    break outer;
+                }
+                if (victim == null || e.accessTime - victim.accessTime < 0L) {
+                    victimKey = p.key;
+                    victim = e;
+                }
+            }
+        }
+        if (victim == null)
+            return false;
+        if (removeEntry(victimKey, victim))
+            evictions.increment();
+        return true;
+    }
+
+    /**
+     * A builder of {@link ConcurrentCache} instances.  Unless
+     * configured otherwise, caches are unbounded and entries never
+     * expire.
+     *
+     * @param <K> the type of keys maintained by the cache
+     * @param <V> the type of cached values
+     * @since 9
+     */
+    public static final class Builder<K,V> {
+        int initialCapacity = 16;
+        long maximumWeight = Long.MAX_VALUE;
+        ToIntBiFunction<? super K, ? super V> weigher = (k, v) -> 1;
+        long expireAfterWriteNanos = Long.MAX_VALUE;
+        long expireAfterAccessNanos = Long.MAX_VALUE;
+
+        Builder() {}
+
+        /**
+         * Sets the number of entries the cache's table is initially
+         * sized to hold without resizing.
+         *
+         * @param initialCapacity the initial capacity
+         * @return this builder
+         * @throws IllegalArgumentException if negative
+         */
+        public Builder<K,V> initialCapacity(int initialCapacity) {
+            if (initialCapacity < 0)
+                throw new IllegalArgumentException();
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of entries, each of which is given
+         * a weight of one.
+         *
+         * @param maximumSize the maximum number of entries
+         * @return this builder
+         * @throws IllegalArgumentException if negative
+         */
+        public Builder<K,V> maximumSize(long maximumSize) {
+            if (maximumSize < 0L)
+                throw new IllegalArgumentException();
+            this.maximumWeight = maximumSize;
+            this.weigher = (k, v) -> 1;
+            return this;
+        }
+
+        /**
+         * Sets the maximum total weight of entries, as computed by the
+         * {@linkplain #weigher weigher}.
+         *
+         * @param maximumWeight the maximum total weight
+         * @return this builder
+         * @throws IllegalArgumentException if negative
+         */
+        public Builder<K,V> maximumWeight(long maximumWeight) {
+            if (maximumWeight < 0L)
+                throw new IllegalArgumentException();
+            this.maximumWeight = maximumWeight;
+            return this;
+        }
+
+        /**
+         * Sets the function computing the weight of each entry when it
+         * is inserted.  Weights must not be negative.
+         *
+         * @param weigher the weigher
+         * @return this builder
+         * @throws NullPointerException if weigher is null
+         */
+        public Builder<K,V> weigher(
+            ToIntBiFunction<? super K, ? super V> weigher) {
+            if (weigher == null)
+                throw new NullPointerException();
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Sets the duration after which an entry expires once it has
+         * been written.
+         *
+         * @param duration the duration
+         * @param unit the unit of the duration argument
+         * @return this builder
+         * @throws IllegalArgumentException if duration is negative
+         */
+        public Builder<K,V> expireAfterWrite(long duration, TimeUnit unit) {
+            if (duration < 0L)
+                throw new IllegalArgumentException();
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Sets the duration after which an entry expires once it has
+         * been last written or retrieved.  Accesses are recorded with a
+         * granularity of about a millisecond.
+         *
+         * @param duration the duration
+         * @param unit the unit of the duration argument
+         * @return this builder
+         * @throws IllegalArgumentException if duration is negative
+         */
+        public Builder<K,V> expireAfterAccess(long duration, TimeUnit unit) {
+            if (duration < 0L)
+                throw new IllegalArgumentException();
+            this.expireAfterAccessNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Returns a new cache with the settings of this builder.
+         *
+         * @return a new cache
+         */
+        public ConcurrentCache<K,V> build() {
+            return new ConcurrentCache<K,V>(this);
+        }
+    }
+}
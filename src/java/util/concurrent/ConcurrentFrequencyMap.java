@@ -0,0 +1,282 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A scalable map from keys to {@code long} counts, suitable for
+ * maintaining frequency tables (histograms or multisets) that are
+ * updated by many threads.
+ *
+ * <p>Each key is associated with a {@link LongAdder}, whose striped
+ * cells are of the same form as those {@link ConcurrentHashMap} uses
+ * to maintain its own size.  Once a key is present, {@link #increment}
+ * and {@link #add} perform only a lock-free table lookup followed by a
+ * cell update, so concurrent updates to a hot key neither contend on
+ * the bin lock used by {@link ConcurrentHashMap#merge merge} and
+ * {@link ConcurrentHashMap#compute compute} nor allocate a new boxed
+ * count on every update.  Only the first update of a key takes the
+ * bin lock, to install its adder.
+ *
+ * <p>As with {@code LongAdder}, reads such as {@link #sum} are not
+ * atomic snapshots: updates occurring concurrently with a read may or
+ * may not be reflected in its result.  Similarly {@link #sumThenReset}
+ * and {@link #remove} may race with concurrent updates of the same
+ * key; the former may leave such updates to be reported by a later
+ * read, and updates racing with the latter may be lost.
+ *
+ * <p>This class does not permit {@code null} keys.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @see ConcurrentHashMap
+ * @see LongAdder
+ * @since 9
+ */
+public class ConcurrentFrequencyMap<K> {
+
+    /** The per-key adders */
+    private final ConcurrentHashMap<K,LongAdder> counts;
+
+    /**
+     * Creates a new, empty map with the default initial table size (16).
+     */
+    public ConcurrentFrequencyMap() {
+        counts = new ConcurrentHashMap<K,LongAdder>();
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size
+     * accommodating the specified number of keys without the need
+     * to dynamically resize.
+     *
+     * @param initialCapacity the implementation performs internal
+     * sizing to accommodate this many keys.
+     * @throws IllegalArgumentException if the initial capacity of
+     * keys is negative
+     */
+    public ConcurrentFrequencyMap(int initialCapacity) {
+        counts = new ConcurrentHashMap<K,LongAdder>(initialCapacity);
+    }
+
+    /**
+     * Returns the adder for the given key, installing a new one if
+     * absent.  The lock-free get avoids locking the bin in the common
+     * case that the key is already present.
+     */
+    private LongAdder adderFor(K key) {
+        LongAdder a;
+        if ((a = counts.get(key)) == null)
+            a = counts.computeIfAbsent(key, k -> new LongAdder());
+        return a;
+    }
+
+    /**
+     * Adds one to the count for the given key, which is first
+     * associated with a count of zero if absent.
+     *
+     * @param key the key
+     * @throws NullPointerException if the specified key is null
+     */
+    public void increment(K key) {
+        adderFor(key).increment();
+    }
+
+    /**
+     * Adds the given value to the count for the given key, which is
+     * first associated with a count of zero if absent.
+     *
+     * @param key the key
+     * @param delta the value to add
+     * @throws NullPointerException if the specified key is null
+     */
+    public void add(K key, long delta) {
+        adderFor(key).add(delta);
+    }
+
+    /**
+     * Returns the current count for the given key, or zero if the key
+     * is not present.
+     *
+     * @param key the key
+     * @return the count
+     * @throws NullPointerException if the specified key is null
+     */
+    public long sum(K key) {
+        LongAdder a;
+        return ((a = counts.get(key)) == null) ? 0L : a.sum();
+    }
+
+    /**
+     * Equivalent in effect to {@link #sum(Object)} followed by
+     * resetting the count for the key to zero.  The key remains
+     * present.
+     *
+     * @param key the key
+     * @return the count before the reset
+     * @throws NullPointerException if the specified key is null
+     */
+    public long sumThenReset(K key) {
+        LongAdder a;
+        return ((a = counts.get(key)) == null) ? 0L : a.sumThenReset();
+    }
+
+    /**
+     * Resets the count of every key to zero, returning the counts
+     * accumulated since the previous reset.  Keys whose count was
+     * zero are omitted from the result.
+     *
+     * @return a new map from keys to their counts before the reset
+     */
+    public Map<K,Long> sumThenReset() {
+        ConcurrentHashMap<K,Long> m = new ConcurrentHashMap<K,Long>();
+        counts.forEach((k, a) -> {
+            long s;
+            if ((s = a.sumThenReset()) != 0L)
+                m.put(k, s);
+        });
+        return m;
+    }
+
+    /**
+     * Returns the sum of the counts of all keys.
+     *
+     * @return the sum of all counts
+     */
+    public long total() {
+        long sum = 0L;
+        for (LongAdder a : counts.values())
+            sum += a.sum();
+        return sum;
+    }
+
+    /**
+     * Removes the given key, returning its count.
+     *
+     * @param key the key
+     * @return the count of the key before removal, or zero if absent
+     * @throws NullPointerException if the specified key is null
+     */
+    public long remove(K key) {
+        LongAdder a;
+        return ((a = counts.remove(key)) == null) ? 0L : a.sum();
+    }
+
+    /**
+     * Returns {@code true} if the given key is present, even if its
+     * count is zero.
+     *
+     * @param key the key
+     * @return {@code true} if the key is present
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        return counts.containsKey(key);
+    }
+
+    /**
+     * Returns the number of keys present.
+     *
+     * @return the number of keys present
+     */
+    public int size() {
+        return counts.size();
+    }
+
+    /**
+     * Returns {@code true} if no keys are present.
+     *
+     * @return {@code true} if no keys are present
+     */
+    public boolean isEmpty() {
+        return counts.isEmpty();
+    }
+
+    /**
+     * Removes all keys.
+     */
+    public void clear() {
+        counts.clear();
+    }
+
+    /**
+     * Returns a {@link Set} view of the keys present.  The set is
+     * backed by this map, and supports element removal but not
+     * addition.
+     *
+     * @return the set view
+     */
+    public Set<K> keySet() {
+        return counts.keySet();
+    }
+
+    /**
+     * Performs the given action for each key and its current count.
+     *
+     * @param action the action
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEach(ObjLongConsumer<? super K> action) {
+        if (action == null) throw new NullPointerException();
+        counts.forEach((k, a) -> action.accept(k, a.sum()));
+    }
+
+    /**
+     * Returns a new map from each key to its current count.
+     *
+     * @return a snapshot of the counts
+     */
+    public Map<K,Long> toMap() {
+        ConcurrentHashMap<K,Long> m =
+            new ConcurrentHashMap<K,Long>(Math.max(counts.size(), 16));
+        counts.forEach((k, a) -> m.put(k, a.sum()));
+        return m;
+    }
+
+    /**
+     * Returns a string representation of the current counts, in the
+     * form used by {@link java.util.AbstractMap#toString}.
+     *
+     * @return a string representation of this map
+     */
+    public String toString() {
+        return toMap().toString();
+    }
+}
@@ -137,6 +137,8 @@ import jdk.internal.misc.Unsafe;
  * {@link #computeIfAbsent computeIfAbsent}. For example, to add a count
  * to a {@code ConcurrentHashMap<String,LongAdder> freqs}, you can use
  * {@code freqs.computeIfAbsent(key, k -> new LongAdder()).increment();}
+ * {@link ConcurrentFrequencyMap} packages this idiom, avoiding the bin
+ * lock taken by {@code computeIfAbsent} once a key is present.
  *
  * <p>This class and its views and iterators implement all of the
  * <em>optional</em> methods of the {@link Map} and {@link Iterator}
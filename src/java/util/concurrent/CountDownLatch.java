@@ -36,6 +36,7 @@
 package java.util.concurrent;
 
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.ContentionStatistics;
 
 /**
  * A synchronization aid that allows one or more threads to wait until
@@ -303,6 +304,49 @@ public class CountDownLatch {
         return sync.getCount();
     }
 
+    /**
+     * Enables or disables adaptive spinning for this latch: whether a
+     * thread that awaits the latch before it reaches zero spins
+     * briefly before blocking, for a duration learned from how long
+     * such spins have recently taken to succeed.  This can reduce the
+     * cost of waiting for a latch that is usually counted down soon
+     * after threads start to wait.  Adaptive spinning is disabled by
+     * default.
+     *
+     * @param enable true to enable adaptive spinning
+     * @see AbstractQueuedSynchronizer#setAdaptiveSpinning
+     * @since 9
+     */
+    public void setAdaptiveSpinning(boolean enable) {
+        sync.setAdaptiveSpinning(enable);
+    }
+
+    /**
+     * Enables or disables the recording of contention statistics for
+     * this latch, as reported by {@link #getContentionStatistics}.
+     * Profiling is disabled by default.
+     *
+     * @param enable true to enable contention profiling
+     * @see AbstractQueuedSynchronizer#setContentionProfiling
+     * @since 9
+     */
+    public void setContentionProfiling(boolean enable) {
+        sync.setContentionProfiling(enable);
+    }
+
+    /**
+     * Returns a snapshot of the contention statistics recorded for this latch
+     * while {@linkplain #setContentionProfiling contention profiling} was
+     * enabled.  This method is designed for use in monitoring of the system
+     * state, not for synchronization control.
+     *
+     * @return the contention statistics
+     * @since 9
+     */
+    public ContentionStatistics getContentionStatistics() {
+        return sync.getContentionStatistics();
+    }
+
     /**
      * Returns a string identifying this latch, as well as its state.
      * The state, in brackets, includes the String {@code "Count ="}
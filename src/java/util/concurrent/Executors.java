@@ -304,6 +304,52 @@ public class Executors {
         return new ScheduledThreadPoolExecutor(corePoolSize, threadFactory);
     }
 
+    /**
+     * Creates a thread pool that can schedule commands to run after a
+     * given delay, or to execute periodically, keeping delayed commands
+     * in a timing wheel that advances once per tick of the given
+     * duration.  Scheduling and cancelling commands take constant time,
+     * and commands run within about a tick after their delay elapses.
+     * @param poolSize the number of threads in the pool
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @return a newly created scheduled thread pool
+     * @throws IllegalArgumentException if {@code poolSize <= 0} or
+     * {@code tickDuration <= 0}
+     * @throws NullPointerException if unit is null
+     * @see TimingWheelScheduledExecutor
+     * @since 9
+     */
+    public static ScheduledExecutorService newTimingWheelScheduledThreadPool(
+            int poolSize, long tickDuration, TimeUnit unit) {
+        return new TimingWheelScheduledExecutor(poolSize, tickDuration, unit);
+    }
+
+    /**
+     * Creates a thread pool that can schedule commands to run after a
+     * given delay, or to execute periodically, keeping delayed commands
+     * in a timing wheel that advances once per tick of the given
+     * duration.  Scheduling and cancelling commands take constant time,
+     * and commands run within about a tick after their delay elapses.
+     * @param poolSize the number of threads in the pool
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param threadFactory the factory to use when the executor
+     * creates a new thread
+     * @return a newly created scheduled thread pool
+     * @throws IllegalArgumentException if {@code poolSize <= 0} or
+     * {@code tickDuration <= 0}
+     * @throws NullPointerException if unit or threadFactory is null
+     * @see TimingWheelScheduledExecutor
+     * @since 9
+     */
+    public static ScheduledExecutorService newTimingWheelScheduledThreadPool(
+            int poolSize, long tickDuration, TimeUnit unit,
+            ThreadFactory threadFactory) {
+        return new TimingWheelScheduledExecutor(poolSize, tickDuration, unit,
+                                                threadFactory);
+    }
+
     /**
      * Returns an object that delegates all defined {@link
      * ExecutorService} methods to the given executor, but not any
@@ -48,6 +48,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.concurrent.locks.LockSupport;
 
@@ -480,6 +481,18 @@ public class ForkJoinPool extends AbstractExecutorService {
      * about to process them before triggering the "STOP" phase of
      * termination.
      *
+     * Statistics. Each WorkQueue keeps counts of executions, empty
+     * scans, parks and wakeups, the time spent running top-level
+     * tasks and parked, and the largest size seen on push, all
+     * written with plain stores by the owner only, at points where
+     * the owner already performs a much more expensive action
+     * (running or stealing a task, or blocking).  The one exception is
+     * nstolen, incremented by thieves just after they write the
+     * victim's base, so the cache line is already held.  Racing
+     * thieves may lose increments, which is tolerable for
+     * monitoring.  Method getWorkerStatistics reads all of these
+     * racily, as getStealCount does for nsteals.
+     *
      * Joining Tasks
      * =============
      *
@@ -745,7 +758,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         // Instance fields
         volatile int phase;        // versioned, negative: queued, 1: locked
         int stackPred;             // pool stack (ctl) predecessor link
-        int nsteals;               // number of steals
+        long nsteals;              // number of steals
         int id;                    // index, mode, tag
         volatile int source;       // source queue id, or sentinel
         volatile int base;         // index of next slot for poll
@@ -754,6 +767,16 @@ public class ForkJoinPool extends AbstractExecutorService {
         final ForkJoinPool pool;   // the containing pool (may be null)
         final ForkJoinWorkerThread owner; // owning thread or null if shared
 
+        // Statistics, written only by owner except nstolen (by thieves)
+        long nexecs;               // number of tasks executed
+        long nstolen;              // number of tasks stolen from queue
+        long nempty;               // number of scans finding no tasks
+        long nparks;               // number of parks
+        long nwakes;               // number of releases from idle stack
+        int maxDepth;              // maximum queue size upon push
+        long activeNanos;          // time spent running top-level tasks
+        long idleNanos;            // time spent parked
+
         WorkQueue(ForkJoinPool pool, ForkJoinWorkerThread owner) {
             this.pool = pool;
             this.owner = owner;
@@ -803,7 +826,9 @@ public class ForkJoinPool extends AbstractExecutorService {
                 ForkJoinPool p = pool;
                 top = s + 1;
                 QA.setRelease(a, index, task);
-                if ((d = base - s) == 0 && p != null) {
+                if ((d = base - s) < 1 - maxDepth)
+                    maxDepth = 1 - d;
+                if (d == 0 && p != null) {
                     VarHandle.fullFence();
                     p.signalWork();
                 }
@@ -922,6 +947,16 @@ public class ForkJoinPool extends AbstractExecutorService {
             return false;
         }
 
+        /**
+         * Runs a task removed by tryUnpush, counting the execution.
+         *
+         * @return task status on exit
+         */
+        final int execUnpushed(ForkJoinTask<?> task) {
+            ++nexecs;
+            return task.doExec();
+        }
+
         /**
          * Removes and cancels all known tasks, ignoring any exceptions.
          */
@@ -948,6 +983,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                         top = s;
                         VarHandle.releaseFence();
                         t.doExec();
+                        ++nexecs;
                         if (limit != 0 && --limit == 0)
                             break;
                     }
@@ -975,6 +1011,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                     if (t != null) {
                         base = b;
                         t.doExec();
+                        ++nexecs;
                         if (limit != 0 && ++polls == limit)
                             break;
                     }
@@ -1014,6 +1051,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                             }
                             VarHandle.releaseFence();
                             t.doExec();
+                            ++nexecs;
                         }
                         break;
                     }
@@ -1051,6 +1089,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                                         top = s - 1;
                                         VarHandle.releaseFence();
                                         t.doExec();
+                                        ++nexecs;
                                         help = true;
                                     }
                                     break;
@@ -1421,7 +1460,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         int phase = 0;
         if (wt != null && (w = wt.workQueue) != null) {
             Object lock = workerNamePrefix;
-            long ns = (long)w.nsteals & 0xffffffffL;
+            long ns = w.nsteals;
             int idx = w.id & SMASK;
             if (lock != null) {
                 WorkQueue[] ws;                       // remove index from array
@@ -1599,12 +1638,16 @@ public class ForkJoinPool extends AbstractExecutorService {
                         QA.compareAndSet(a, index, t, null)) {
                         if ((q.base = b) - q.top < 0 && qid != lastSignalId)
                             signalWork();               // propagate signal
+                        ++q.nstolen;
                         w.source = lastSignalId = qid;
+                        long startTime = System.nanoTime();
                         t.doExec();
+                        ++w.nexecs;
                         if ((w.id & FIFO) != 0)         // run remaining locals
                             w.localPollAndExec(POLL_LIMIT);
                         else
                             w.localPopAndExec(POLL_LIMIT);
+                        w.activeNanos += System.nanoTime() - startTime;
                         ForkJoinWorkerThread thread = w.owner;
                         ++w.nsteals;
                         w.source = 0;                   // now idle
@@ -1625,6 +1668,7 @@ public class ForkJoinPool extends AbstractExecutorService {
             else {
                 int phase;
                 lastSignalId = 0;                       // clear for next scan
+                ++w.nempty;
                 if ((phase = w.phase) >= 0) {           // enqueue
                     int np = w.phase = (phase + SS_SEQ) | UNSIGNALLED;
                     long c, nc;
@@ -1640,6 +1684,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                         int md, rc; long c;
                         if (w.phase >= 0) {
                             w.source = 0;
+                            ++w.nwakes;
                             break;
                         }
                         else if ((md = mode) < 0)       // shutting down
@@ -1653,7 +1698,10 @@ public class ForkJoinPool extends AbstractExecutorService {
                             Thread.interrupted();       // clear between parks
                         else if (rc <= 0 && pred != 0 && phase == (int)c) {
                             long d = keepAlive + System.currentTimeMillis();
+                            long parkTime = System.nanoTime();
+                            ++w.nparks;
                             LockSupport.parkUntil(this, d);
+                            w.idleNanos += System.nanoTime() - parkTime;
                             if (ctl == c &&
                                 d - System.currentTimeMillis() <= TIMEOUT_SLOP) {
                                 long nc = ((UC_MASK & (c - TC_UNIT)) |
@@ -1664,8 +1712,12 @@ public class ForkJoinPool extends AbstractExecutorService {
                                 }
                             }
                         }
-                        else
+                        else {
+                            long parkTime = System.nanoTime();
+                            ++w.nparks;
                             LockSupport.park(this);
+                            w.idleNanos += System.nanoTime() - parkTime;
+                        }
                     }
                 }
             }
@@ -1709,8 +1761,10 @@ public class ForkJoinPool extends AbstractExecutorService {
                             if (t != null && b++ == q.base && id == q.source &&
                                 QA.compareAndSet(a, index, t, null)) {
                                 q.base = b;
+                                ++q.nstolen;
                                 w.source = qid;
                                 t.doExec();
+                                ++w.nexecs;
                                 w.source = src;
                             }
                             nonempty = true;
@@ -1773,8 +1827,10 @@ public class ForkJoinPool extends AbstractExecutorService {
                             if (t != null && b++ == q.base &&
                                 QA.compareAndSet(a, index, t, null)) {
                                 q.base = b;
+                                ++q.nstolen;
                                 w.source = source = q.id;
                                 t.doExec();
+                                ++w.nexecs;
                                 w.source = source = prevSrc;
                             }
                             quiet = empty = false;
@@ -1836,6 +1892,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                         if (t != null && b++ == q.base &&
                             QA.compareAndSet(a, index, t, null)) {
                             q.base = b;
+                            ++q.nstolen;
                             return t;
                         }
                         else
@@ -1880,6 +1937,19 @@ public class ForkJoinPool extends AbstractExecutorService {
             ThreadLocalRandom.localInit();
             r = ThreadLocalRandom.getProbe();
         }
+        externalPush(task, r, false);
+    }
+
+    /**
+     * Adds the given task to the submission queue selected by r,
+     * creating one if null.
+     *
+     * @param task the task. Caller must ensure non-null.
+     * @param r the caller's probe, or the hash of an affinity key
+     * @param keyed true if r is an affinity hash, in which case a
+     *        contended queue is retried rather than moving to another
+     */
+    private void externalPush(ForkJoinTask<?> task, int r, boolean keyed) {
         for (;;) {
             int md = mode, n;
             WorkQueue[] ws = workQueues;
@@ -1913,6 +1983,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                         al - 1 + (d = b - s) > 0) {
                         a[(al - 1) & s] = task;
                         q.top = s + 1;        // relaxed writes OK here
+                        if (d < 1 - q.maxDepth)
+                            q.maxDepth = 1 - d;
                         q.phase = 0;
                         if (d < 0 && q.base - s < -1)
                             break;            // no signal needed
@@ -1937,6 +2009,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                     signalWork();
                     break;
                 }
+                else if (keyed)               // retry if busy
+                    Thread.yield();
                 else                          // move if busy
                     r = ThreadLocalRandom.advanceProbe(r);
             }
@@ -2535,6 +2609,80 @@ public class ForkJoinPool extends AbstractExecutorService {
         return externalSubmit(job);
     }
 
+    /**
+     * Arranges for (asynchronous) execution of the given task, placing
+     * it in the same submission queue as other tasks submitted with
+     * an equal affinity key.  Workers that take a task from a queue
+     * prefer to take the next ones from the same queue, so related
+     * tasks tend to run in order on the same worker, and so reuse
+     * data it has already cached.  Tasks remain available to be
+     * stolen by any worker.  Unlike {@link #execute(ForkJoinTask)},
+     * the task is placed in this submission queue even when called
+     * from a worker thread of this pool.  Distinct keys may share a
+     * submission queue, as there are a bounded number of them.
+     *
+     * @param task the task
+     * @param affinityKey the affinity key, whose {@code hashCode}
+     *        selects the submission queue
+     * @throws NullPointerException if the task or key is null
+     * @throws RejectedExecutionException if the task cannot be
+     *         scheduled for execution
+     * @since 9
+     */
+    public void execute(ForkJoinTask<?> task, Object affinityKey) {
+        if (task == null)
+            throw new NullPointerException();
+        externalPush(task, affinityHash(affinityKey), true);
+    }
+
+    /**
+     * Returns an executor that places its tasks in this pool as does
+     * {@link #execute(ForkJoinTask, Object)} with the given affinity
+     * key.  The executor may be used to carry the key through the
+     * asynchronous methods of {@link CompletableFuture}, for example
+     * {@code CompletableFuture.supplyAsync(supplier,
+     * pool.affinityExecutor(key))}, so that the stages of related
+     * computations tend to run on the same worker.
+     *
+     * @param affinityKey the affinity key
+     * @return an executor that submits tasks with the given key
+     * @throws NullPointerException if the key is null
+     * @since 9
+     */
+    public Executor affinityExecutor(Object affinityKey) {
+        return new AffinityExecutor(this, affinityHash(affinityKey));
+    }
+
+    /**
+     * Returns the hash selecting the submission queue for a key,
+     * spread so that the bits used by SQMASK vary.
+     */
+    static int affinityHash(Object key) {
+        int h = key.hashCode() * 0x9e3779b9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Executor returned by affinityExecutor.
+     */
+    static final class AffinityExecutor implements Executor {
+        final ForkJoinPool pool;
+        final int hash;
+        AffinityExecutor(ForkJoinPool pool, int hash) {
+            this.pool = pool; this.hash = hash;
+        }
+        public void execute(Runnable task) {
+            if (task == null)
+                throw new NullPointerException();
+            ForkJoinTask<?> job;
+            if (task instanceof ForkJoinTask<?>) // avoid re-wrap
+                job = (ForkJoinTask<?>) task;
+            else
+                job = new ForkJoinTask.RunnableExecuteAction(task);
+            pool.externalPush(job, hash, true);
+        }
+    }
+
     /**
      * @throws NullPointerException       {@inheritDoc}
      * @throws RejectedExecutionException {@inheritDoc}
@@ -2709,7 +2857,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         if ((ws = workQueues) != null) {
             for (int i = 1; i < ws.length; i += 2) {
                 if ((w = ws[i]) != null)
-                    count += (long)w.nsteals & 0xffffffffL;
+                    count += w.nsteals;
             }
         }
         return count;
@@ -2773,6 +2921,72 @@ public class ForkJoinPool extends AbstractExecutorService {
         return false;
     }
 
+    /**
+     * Returns a snapshot of the statistics recorded by each worker
+     * thread currently in this pool, in order of their pool indices.
+     * Statistics of workers that have terminated are not included.
+     * Comparing successive snapshots, for example using {@link
+     * #sampleWorkerStatistics}, may help to diagnose imbalanced load,
+     * excessive stealing, or task granularities that are too fine or
+     * too coarse.
+     *
+     * @return the statistics of each current worker
+     * @since 9
+     */
+    public List<ForkJoinWorkerStatistics> getWorkerStatistics() {
+        ArrayList<ForkJoinWorkerStatistics> stats = new ArrayList<>();
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    stats.add(new ForkJoinWorkerStatistics(w));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Periodically passes the result of {@link #getWorkerStatistics}
+     * to the given action, starting after the given period, until the
+     * returned future is cancelled or the action throws an exception.
+     * Samples are taken by a daemon thread shared with other delayed
+     * actions such as those of {@link CompletableFuture#delayedExecutor},
+     * so the action should be brief and should not block.
+     *
+     * @param period the period between samples
+     * @param unit the time unit of the period argument
+     * @param action the action to perform on each sample
+     * @return a future that can be cancelled to stop sampling
+     * @throws NullPointerException if unit or action is null
+     * @throws IllegalArgumentException if period less than or equal
+     *         to zero
+     * @since 9
+     */
+    public ScheduledFuture<?> sampleWorkerStatistics(
+        long period, TimeUnit unit,
+        Consumer<? super List<ForkJoinWorkerStatistics>> action) {
+        if (unit == null || action == null)
+            throw new NullPointerException();
+        if (period <= 0L)
+            throw new IllegalArgumentException();
+        return CompletableFuture.Delayer.delayer.scheduleAtFixedRate
+            (new StatisticsSampler(this, action), period, period, unit);
+    }
+
+    /**
+     * Periodic action for sampleWorkerStatistics.
+     */
+    static final class StatisticsSampler implements Runnable {
+        final ForkJoinPool pool;
+        final Consumer<? super List<ForkJoinWorkerStatistics>> action;
+        StatisticsSampler(ForkJoinPool pool,
+                          Consumer<? super List<ForkJoinWorkerStatistics>>
+                          action) {
+            this.pool = pool; this.action = action;
+        }
+        public void run() { action.accept(pool.getWorkerStatistics()); }
+    }
+
     /**
      * Removes and returns the next unexecuted submission if one is
      * available.  This method may be useful in extensions to this
@@ -2837,7 +3051,7 @@ public class ForkJoinPool extends AbstractExecutorService {
                         qs += size;
                     else {
                         qt += size;
-                        st += (long)w.nsteals & 0xffffffffL;
+                        st += w.nsteals;
                         if (w.isApparentlyUnblocked())
                             ++rc;
                     }
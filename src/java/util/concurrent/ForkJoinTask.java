@@ -380,7 +380,7 @@ public abstract class ForkJoinTask<V> implements Future<V>, Serializable {
         return (s = status) < 0 ? s :
             ((t = Thread.currentThread()) instanceof ForkJoinWorkerThread) ?
             (w = (wt = (ForkJoinWorkerThread)t).workQueue).
-            tryUnpush(this) && (s = doExec()) < 0 ? s :
+            tryUnpush(this) && (s = w.execUnpushed(this)) < 0 ? s :
             wt.pool.awaitJoin(w, this, 0L) :
             externalAwaitDone();
     }
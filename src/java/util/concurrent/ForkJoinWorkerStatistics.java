@@ -0,0 +1,221 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+/**
+ * A snapshot of the statistics recorded by one worker thread of a
+ * {@link ForkJoinPool}, as returned by {@link
+ * ForkJoinPool#getWorkerStatistics}.  Each worker maintains its
+ * counts with plain writes to fields of its own work queue, so
+ * recording them adds little overhead, but a snapshot may be slightly
+ * stale.  The number of tasks stolen from a worker is updated by the
+ * stealing threads, and may underestimate the actual number when
+ * several threads steal from the same worker at once.
+ *
+ * @since 9
+ */
+public final class ForkJoinWorkerStatistics {
+    private final String workerName;
+    private final int poolIndex;
+    private final long tasksExecuted;
+    private final long steals;
+    private final long stolen;
+    private final long emptyScans;
+    private final long parks;
+    private final long wakeups;
+    private final long activeNanos;
+    private final long idleNanos;
+    private final int maxQueueSize;
+    private final int queueSize;
+
+    ForkJoinWorkerStatistics(ForkJoinPool.WorkQueue w) {
+        ForkJoinWorkerThread owner = w.owner;
+        this.workerName = (owner == null) ? null : owner.getName();
+        this.poolIndex = w.getPoolIndex();
+        this.tasksExecuted = w.nexecs;
+        this.steals = w.nsteals;
+        this.stolen = w.nstolen;
+        this.emptyScans = w.nempty;
+        this.parks = w.nparks;
+        this.wakeups = w.nwakes;
+        this.activeNanos = w.activeNanos;
+        this.idleNanos = w.idleNanos;
+        this.maxQueueSize = w.maxDepth;
+        this.queueSize = w.queueSize();
+    }
+
+    /**
+     * Returns the name of the worker thread.
+     *
+     * @return the name of the worker thread
+     */
+    public String getWorkerName() {
+        return workerName;
+    }
+
+    /**
+     * Returns the index of the worker in its pool, as reported by
+     * {@link ForkJoinWorkerThread#getPoolIndex}.
+     *
+     * @return the index of the worker
+     */
+    public int getPoolIndex() {
+        return poolIndex;
+    }
+
+    /**
+     * Returns the number of tasks the worker has executed, whether
+     * taken from its own queue or stolen from others.
+     *
+     * @return the number of tasks executed
+     */
+    public long getTasksExecuted() {
+        return tasksExecuted;
+    }
+
+    /**
+     * Returns the number of top-level tasks the worker has stolen
+     * from other queues while scanning for work.  The sum of these
+     * across workers contributes to {@link ForkJoinPool#getStealCount}.
+     *
+     * @return the number of tasks stolen by the worker
+     */
+    public long getSteals() {
+        return steals;
+    }
+
+    /**
+     * Returns the number of tasks that other threads have stolen from
+     * the worker's queue.
+     *
+     * @return the number of tasks stolen from the worker
+     */
+    public long getStolen() {
+        return stolen;
+    }
+
+    /**
+     * Returns the number of times the worker scanned all queues
+     * without finding a task, and so went on to become idle.
+     *
+     * @return the number of failed scans
+     */
+    public long getEmptyScans() {
+        return emptyScans;
+    }
+
+    /**
+     * Returns the number of times the worker blocked while idle.
+     *
+     * @return the number of parks
+     */
+    public long getParks() {
+        return parks;
+    }
+
+    /**
+     * Returns the number of times the worker was released from idle
+     * to look for new work.
+     *
+     * @return the number of wakeups
+     */
+    public long getWakeups() {
+        return wakeups;
+    }
+
+    /**
+     * Returns the time, in nanoseconds, that the worker spent running
+     * tasks that it stole while scanning for work, including the
+     * local tasks they forked.  Time spent running tasks while joining
+     * other tasks is attributed to the task being joined.
+     *
+     * @return the time spent active, in nanoseconds
+     */
+    public long getActiveNanos() {
+        return activeNanos;
+    }
+
+    /**
+     * Returns the time, in nanoseconds, that the worker spent blocked
+     * while idle.
+     *
+     * @return the time spent idle, in nanoseconds
+     */
+    public long getIdleNanos() {
+        return idleNanos;
+    }
+
+    /**
+     * Returns the largest number of tasks observed in the worker's
+     * queue when pushing a task.
+     *
+     * @return the maximum queue size
+     */
+    public int getMaxQueueSize() {
+        return maxQueueSize;
+    }
+
+    /**
+     * Returns an estimate of the number of tasks in the worker's
+     * queue when this snapshot was taken.
+     *
+     * @return the number of queued tasks
+     */
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * Returns a string identifying these statistics and their values.
+     *
+     * @return a string identifying these statistics and their values
+     */
+    public String toString() {
+        return super.toString()
+            + "[worker = " + workerName
+            + ", executed = " + tasksExecuted
+            + ", steals = " + steals
+            + ", stolen = " + stolen
+            + ", emptyScans = " + emptyScans
+            + ", parks = " + parks
+            + ", wakeups = " + wakeups
+            + ", activeNanos = " + activeNanos
+            + ", idleNanos = " + idleNanos
+            + ", maxQueueSize = " + maxQueueSize
+            + ", queueSize = " + queueSize + "]";
+    }
+}
@@ -733,6 +733,135 @@ public class LinkedBlockingQueue<E> extends AbstractQueue<E>
         }
     }
 
+    /**
+     * Inserts the elements of the given collection at the tail of this
+     * queue, waiting up to the specified wait time if necessary for
+     * space to become available.  The put lock is acquired once for as
+     * many elements as there is space for, and a waiting consumer is
+     * signalled once per such batch rather than once per element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     * @throws IllegalArgumentException {@inheritDoc}
+     * @since 9
+     */
+    public int offerAll(Collection<? extends E> c, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (c == this)
+            throw new IllegalArgumentException();
+        final Object[] es = c.toArray();
+        for (Object e : es)
+            if (e == null) throw new NullPointerException();
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock putLock = this.putLock;
+        final AtomicInteger count = this.count;
+        int n = 0;
+        boolean signalNotEmpty = false;
+        putLock.lockInterruptibly();
+        try {
+            while (n < es.length) {
+                int k = Math.min(es.length - n, capacity - count.get());
+                if (k <= 0) {
+                    if (nanos <= 0L)
+                        break;
+                    // wake consumers of what has been added before waiting
+                    if (signalNotEmpty) {
+                        signalNotEmpty = false;
+                        signalNotEmpty();
+                    }
+                    nanos = notFull.awaitNanos(nanos);
+                    continue;
+                }
+                for (int i = 0; i < k; i++) {
+                    @SuppressWarnings("unchecked") E e = (E) es[n + i];
+                    enqueue(new Node<E>(e));
+                }
+                n += k;
+                int was = count.getAndAdd(k);
+                if (was == 0)
+                    signalNotEmpty = true;
+                if (was + k < capacity)
+                    notFull.signal();
+            }
+        } finally {
+            putLock.unlock();
+            if (signalNotEmpty)
+                signalNotEmpty();
+        }
+        return n;
+    }
+
+    /**
+     * Removes at most the given number of elements from this queue and
+     * adds them to the given collection, waiting up to the specified
+     * wait time if necessary for at least {@code minElements} elements
+     * to be transferred.  The take lock is acquired once for all of the
+     * elements available at a time, and a waiting producer is signalled
+     * once per such batch rather than once per element.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     * @since 9
+     */
+    public int drainTo(Collection<? super E> c,
+                       int minElements, int maxElements,
+                       long timeout, TimeUnit unit)
+        throws InterruptedException {
+        Objects.requireNonNull(c);
+        if (c == this || minElements > maxElements)
+            throw new IllegalArgumentException();
+        long nanos = unit.toNanos(timeout);
+        final ReentrantLock takeLock = this.takeLock;
+        final AtomicInteger count = this.count;
+        int n = 0;
+        for (;;) {
+            boolean signalNotFull = false;
+            takeLock.lockInterruptibly();
+            try {
+                // All available elements have been taken, so the queue is
+                // empty while waiting and the next put signals notEmpty.
+                while (count.get() == 0 && n < minElements && nanos > 0L)
+                    nanos = notEmpty.awaitNanos(nanos);
+                int k = Math.min(maxElements - n, count.get());
+                // count.get provides visibility to first k Nodes
+                Node<E> h = head;
+                int i = 0;
+                try {
+                    while (i < k) {
+                        Node<E> p = h.next;
+                        c.add(p.item);
+                        p.item = null;
+                        h.next = h;
+                        h = p;
+                        ++i;
+                    }
+                } finally {
+                    // Restore invariants even if c.add() threw
+                    if (i > 0) {
+                        // assert h.item == null;
+                        head = h;
+                        n += i;
+                        signalNotFull = (count.getAndAdd(-i) == capacity);
+                    }
+                }
+                if (n >= minElements || nanos <= 0L) {
+                    if (count.get() > 0)
+                        notEmpty.signal();
+                    return n;
+                }
+            } finally {
+                // signal producers before waiting again, without holding
+                // takeLock while acquiring putLock
+                takeLock.unlock();
+                if (signalNotFull)
+                    signalNotFull();
+            }
+        }
+    }
+
     /**
      * Used for any element traversal that is not entirely under lock.
      * Such traversals must handle both:
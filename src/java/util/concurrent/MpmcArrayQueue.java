@@ -0,0 +1,210 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by an
+ * array, for any number of producer and consumer threads.  This queue
+ * orders elements FIFO (first-in-first-out), in the order in which
+ * producers claim their slots.
+ *
+ * <p>Unlike {@link ArrayBlockingQueue}, this class uses no locks and
+ * allocates nothing per element.  Each array slot carries a sequence
+ * number recording whether it is ready to be filled or to be emptied,
+ * and in which pass over the array.  Producers and consumers claim
+ * slots by advancing their own shared counters with compare-and-set,
+ * so that insertions contend only with insertions and removals only
+ * with removals.  When the queue is full or empty, the blocking
+ * methods wait according to the {@link WaitStrategy} given on
+ * construction.
+ *
+ * <p>The capacity is rounded up to the next power of two and is
+ * reported by {@link #capacity()}.
+ *
+ * <p>A thread that stalls after claiming a slot, but before filling
+ * or emptying it, delays other threads that reach the same slot on a
+ * later pass over the array.  For a single consumer, {@link
+ * MpscArrayQueue} is cheaper.
+ *
+ * <p>The {@code iterator}, {@code spliterator} and {@code toArray}
+ * methods return snapshots of the elements present when they are
+ * called.  Method {@code remove(Object)} and the iterator's {@code
+ * remove}, and so {@code removeIf}, {@code removeAll} and {@code
+ * retainAll}, may be called by any thread, concurrently with
+ * producers and consumers.  They
+ * mark the slot of the removed element, which is freed only when
+ * a consumer reaches it; until then {@code remainingCapacity} counts
+ * the removed element as present.  Methods {@code size}, {@code
+ * isEmpty} and {@code remainingCapacity} are estimates while the
+ * queue is in use.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/java/util/package-summary.html#CollectionsFramework">
+ * Java Collections Framework</a>.
+ *
+ * @since 9
+ * @param <E> the type of elements held in this queue
+ */
+public class MpmcArrayQueue<E> extends RingBufferQueue<E> {
+
+    /*
+     * This is Vyukov's bounded MPMC queue.  Slot i starts with sequence
+     * i.  A producer that reads tail t may fill slot t & mask once its
+     * sequence equals t, and claims it by CASing tail from t to t + 1;
+     * after storing the element it sets the sequence to t + 1.  A
+     * consumer that reads head h may empty the slot once its sequence
+     * equals h + 1, claims it by CASing head, and after clearing it
+     * sets the sequence to h + capacity, ready for the producer of the
+     * next pass.  A sequence ahead of the expected value means the
+     * counter read was stale, so the thread retries.  A sequence
+     * behind it means the slot is still in use by the previous pass:
+     * if the counters show the queue to be full (or empty), offer (or
+     * poll) fails; otherwise another thread has claimed the slot and
+     * is about to release it, and we spin.
+     */
+
+    /** Per-slot sequence numbers; see above */
+    private final long[] sequences;
+
+    /**
+     * Creates a {@code MpmcArrayQueue} with at least the given
+     * capacity, whose blocking methods park waiting threads.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or is greater than {@code 1 << 30}
+     */
+    public MpmcArrayQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a {@code MpmcArrayQueue} with at least the given
+     * capacity and the given wait strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how threads wait in the blocking methods
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or is greater than {@code 1 << 30}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpmcArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        long[] seqs = new long[items.length];
+        for (int i = 0; i < seqs.length; ++i)
+            seqs[i] = i;
+        this.sequences = seqs;
+    }
+
+    boolean enqueue(E e) {
+        final Object[] items = this.items;
+        final long[] seqs = sequences;
+        for (;;) {
+            long t = tail;
+            int i = (int)t & mask;
+            long d = (long)SEQUENCES.getAcquire(seqs, i) - t;
+            if (d == 0L) {
+                if (TAIL.weakCompareAndSet(this, t, t + 1L)) {
+                    ITEMS.setRelease(items, i, e);
+                    SEQUENCES.setRelease(seqs, i, t + 1L);
+                    return true;
+                }
+            } else if (d < 0L) {
+                if (t - head >= items.length)
+                    return false;
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    E dequeue() {
+        final Object[] items = this.items;
+        final long[] seqs = sequences;
+        for (;;) {
+            long h = head;
+            int i = (int)h & mask;
+            long d = (long)SEQUENCES.getAcquire(seqs, i) - (h + 1L);
+            if (d == 0L) {
+                if (HEAD.weakCompareAndSet(this, h, h + 1L)) {
+                    Object x = ITEMS.getAndSet(items, i, null);
+                    SEQUENCES.setRelease(seqs, i, h + items.length);
+                    if (x != REMOVED)
+                        return (E)x;
+                }
+            } else if (d < 0L) {
+                if (tail <= h)
+                    return null;
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final Object[] items = this.items;
+        final long[] seqs = sequences;
+        for (;;) {
+            long h = head;
+            int i = (int)h & mask;
+            long d = (long)SEQUENCES.getAcquire(seqs, i) - (h + 1L);
+            if (d == 0L) {
+                Object x = ITEMS.getAcquire(items, i);
+                if (x == REMOVED) {             // pass over removed slot
+                    if (HEAD.compareAndSet(this, h, h + 1L)) {
+                        ITEMS.setRelease(items, i, null);
+                        SEQUENCES.setRelease(seqs, i, h + items.length);
+                        signalNotFull();
+                    }
+                }
+                else if (x != null && head == h)
+                    return (E)x;
+            } else if (d < 0L) {
+                if (tail <= h)
+                    return null;
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle SEQUENCES
+        = MethodHandles.arrayElementVarHandle(long[].class);
+}
@@ -0,0 +1,186 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by an
+ * array, for delivering elements from any number of producer threads
+ * to a single consumer thread.  This queue orders elements FIFO
+ * (first-in-first-out), in the order in which producers claim their
+ * slots.
+ *
+ * <p>Unlike {@link ArrayBlockingQueue}, this class uses no locks and
+ * allocates nothing per element.  Producers claim slots by advancing a
+ * shared counter with compare-and-set, and hand off elements through
+ * the array slots with release and acquire memory ordering; the
+ * consumer advances its own counter without atomic updates.  When the
+ * queue is full or empty, the blocking methods wait according to the
+ * {@link WaitStrategy} given on construction.
+ *
+ * <p>The capacity is rounded up to the next power of two and is
+ * reported by {@link #capacity()}.
+ *
+ * <p>Any number of threads may insert elements, but at most one thread
+ * at a time may remove them ({@code poll}, {@code take}, {@code
+ * remove()}, {@code peek}, {@code element}, {@code drainTo}, {@code
+ * clear}).  The consumer role may pass to another thread, provided the
+ * hand-off is ordered by some other synchronization.  The effects of
+ * concurrent calls by two consumers are undefined.  A producer that
+ * stalls after claiming a slot delays the consumer, which cannot move
+ * past that slot until its element arrives.
+ *
+ * <p>The {@code iterator}, {@code spliterator} and {@code toArray}
+ * methods return snapshots of the elements present when they are
+ * called.  Method {@code remove(Object)} and the iterator's {@code
+ * remove}, and so {@code removeIf}, {@code removeAll} and {@code
+ * retainAll}, may be called by any thread, without taking the
+ * consumer role and concurrently with producers and the consumer.  They
+ * mark the slot of the removed element, which is freed only when
+ * the consumer reaches it; until then {@code remainingCapacity} counts
+ * the removed element as present.  Methods {@code size}, {@code
+ * isEmpty} and {@code remainingCapacity} are estimates while the
+ * queue is in use.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/java/util/package-summary.html#CollectionsFramework">
+ * Java Collections Framework</a>.
+ *
+ * @since 9
+ * @param <E> the type of elements held in this queue
+ */
+public class MpscArrayQueue<E> extends RingBufferQueue<E> {
+
+    /*
+     * A producer claims slot tail by CAS, then stores its element
+     * there.  A claimed slot is known to be free because the claim is
+     * only made while tail - head < capacity, and the consumer clears
+     * a slot before releasing it by advancing head.  To avoid reading
+     * the consumer's head on every offer, producers share a cached
+     * bound producerLimit = (some earlier head) + capacity, refreshed
+     * only when tail reaches it.  A stale bound is always too low,
+     * never too high, since head only increases.
+     *
+     * The consumer finds an element in slot head, or null.  Null with
+     * tail == head means empty; null with tail > head means a producer
+     * has claimed the slot but not yet filled it, and the consumer
+     * spins until it does, to keep FIFO order.
+     */
+
+    /** Cached upper bound for tail; see above */
+    @jdk.internal.vm.annotation.Contended
+    private volatile long producerLimit;
+
+    /**
+     * Creates a {@code MpscArrayQueue} with at least the given
+     * capacity, whose blocking methods park waiting threads.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or is greater than {@code 1 << 30}
+     */
+    public MpscArrayQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a {@code MpscArrayQueue} with at least the given
+     * capacity and the given wait strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how threads wait in the blocking methods
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or is greater than {@code 1 << 30}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpscArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        producerLimit = items.length;
+    }
+
+    boolean enqueue(E e) {
+        final Object[] items = this.items;
+        long t, limit = producerLimit;
+        do {
+            t = tail;
+            if (t >= limit) {
+                if (t >= (limit = head + items.length))
+                    return false;
+                producerLimit = limit;
+            }
+        } while (!TAIL.weakCompareAndSet(this, t, t + 1L));
+        ITEMS.setRelease(items, (int)t & mask, e);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    E dequeue() {
+        final Object[] items = this.items;
+        for (;;) {
+            final long h = head;
+            final int i = (int)h & mask;
+            if (ITEMS.getAcquire(items, i) == null) {
+                if (h == tail)
+                    return null;
+                while (ITEMS.getAcquire(items, i) == null)
+                    Thread.onSpinWait();
+            }
+            Object x = ITEMS.getAndSet(items, i, null);
+            HEAD.setRelease(this, h + 1L);
+            if (x != REMOVED)
+                return (E)x;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final Object[] items = this.items;
+        for (;;) {
+            final long h = head;
+            final int i = (int)h & mask;
+            Object x = ITEMS.getAcquire(items, i);
+            if (x == null && h != tail) {
+                while ((x = ITEMS.getAcquire(items, i)) == null)
+                    Thread.onSpinWait();
+            }
+            if (x != REMOVED)
+                return (E)x;
+            ITEMS.setRelease(items, i, null);   // pass over removed slot
+            HEAD.setRelease(this, h + 1L);
+            signalNotFull();
+        }
+    }
+}
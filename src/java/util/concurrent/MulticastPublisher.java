@@ -0,0 +1,1238 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Consumer;
+
+/**
+ * A {@link Flow.Publisher} that asynchronously issues submitted
+ * (non-null) items to current subscribers until it is closed, with
+ * all subscribers reading from a single shared buffer.  Each current
+ * subscriber receives newly submitted items in the same order unless
+ * exceptions are encountered.
+ *
+ * <p>This class is an alternative to {@link SubmissionPublisher} for
+ * publishers with many subscribers that each consume every item.  A
+ * {@code SubmissionPublisher} copies each item into a separate buffer
+ * per subscriber, so the cost of publishing grows with the number of
+ * subscribers.  Here an item is placed once in a ring buffer, and each
+ * subscriber advances its own position (cursor) through it, so
+ * publishing costs about the same however many subscribers there are.
+ * Each subscriber is driven by a task run by the {@link Executor}
+ * supplied in the constructor, which delivers all items that are
+ * available and requested in a batch before looking for more.
+ *
+ * <p>The buffer has a fixed capacity (rounded up to a power of two),
+ * and an item can only be published once every subscriber has
+ * consumed the item published that many items earlier.  The slowest
+ * subscriber thus limits the publication rate.  Method {@link
+ * #submit(Object) submit} blocks until there is space.  The {@code
+ * offer} methods instead drop the item, after waiting for a bounded
+ * time if one is given; an item is either published to all current
+ * subscribers or dropped for all of them.  The drop handler is
+ * invoked for each subscriber that is a full buffer behind, and may
+ * for example cancel its subscription, after which the offer is
+ * retried once.
+ *
+ * <p>If any Subscriber method throws an exception, its subscription
+ * is cancelled.  If a handler is supplied as a constructor argument,
+ * it is invoked before cancellation upon an exception in method
+ * {@link Flow.Subscriber#onNext onNext}.  If the supplied Executor
+ * throws {@link RejectedExecutionException} (or any other
+ * RuntimeException or Error) when attempting to execute a task for a
+ * subscription, that subscription is cancelled after its subscriber's
+ * {@link Flow.Subscriber#onError onError} method is invoked with the
+ * exception.
+ *
+ * <p>Items remain referenced by the buffer until overwritten by later
+ * items.
+ *
+ * @param <T> the published item type
+ * @since 9
+ */
+public class MulticastPublisher<T> implements Flow.Publisher<T>,
+                                              AutoCloseable {
+    /*
+     * Items are stored at index (seq & mask) of buffer, where seq is
+     * the count of items published before them; "published" is the
+     * count of items published so far.  Publication is serialized by
+     * the publisher's lock, as in SubmissionPublisher, so publishing
+     * is a plain store of the item followed by a volatile store of
+     * published.  Each subscription owns a cursor: the seq of the
+     * next item it will deliver.  A slot may be reused once every
+     * enabled subscription's cursor has passed it.  Rather than
+     * computing the minimum cursor on every publication, the publisher
+     * keeps a lower bound "gate", recomputed (and disabled
+     * subscriptions pruned) only when the buffer appears full; slots
+     * behind the gate are then cleared, so that consumed items are not
+     * retained.  A publisher that finds the buffer full waits without
+     * holding the lock, as in SubmissionPublisher, so that close,
+     * subscribe and the monitoring methods are not blocked meanwhile,
+     * and then retries.  Waiting publishers push themselves onto the
+     * "waiters" stack, which consumers check after advancing their
+     * cursors, and which is cleared as a whole when its waiters are
+     * released; a released publisher that still lacks space pushes
+     * itself again.
+     *
+     * Consumer tasks are controlled by ctl bits much as in
+     * SubmissionPublisher.BufferedSubscription, with one addition.  To
+     * avoid having to notify every subscription of every item, a
+     * consumer task that runs out of items while it still has demand
+     * sets SLEEPING (in place of ACTIVE), increments the publisher's
+     * "sleepers" count, and then rechecks published.  The publisher
+     * only scans subscriptions to wake sleepers when that count is
+     * nonzero.  Because both sides write one volatile and then read the
+     * other, either the consumer sees the new item and reclaims its
+     * task, or the publisher sees the sleeper and wakes it.  Whoever
+     * clears SLEEPING decrements the count.  A consumer task that runs
+     * out of demand instead just clears ACTIVE, and request() starts a
+     * new task, as in SubmissionPublisher.
+     */
+
+    /** The ring buffer of items */
+    final Object[] buffer;
+
+    /** buffer.length - 1 */
+    final int mask;
+
+    /**
+     * Current subscriptions, possibly including disabled ones; written
+     * only under lock, but also read by publishers waiting for space
+     */
+    volatile MulticastSubscription<T>[] subscriptions;
+
+    /** Lower bound of enabled subscriptions' cursors; updated under lock */
+    long gate;
+
+    /** Number of items published */
+    volatile long published;
+
+    /** Number of subscriptions in SLEEPING state */
+    volatile int sleepers;
+
+    /** Stack of publishers waiting for space, if any */
+    volatile SpaceWaiter waiters;
+
+    /** Run status, updated only within locks */
+    volatile boolean closed;
+
+    /** If non-null, the exception in closeExceptionally */
+    volatile Throwable closedException;
+
+    // Parameters for constructing MulticastSubscriptions
+    final Executor executor;
+    final BiConsumer<? super Flow.Subscriber<? super T>, ? super Throwable> onNextHandler;
+
+    /**
+     * Creates a new MulticastPublisher using the given Executor for
+     * async delivery to subscribers, with the given buffer capacity
+     * shared by all subscribers, and, if non-null, the given handler
+     * invoked when any Subscriber throws an exception in method {@link
+     * Flow.Subscriber#onNext(Object) onNext}.
+     *
+     * @param executor the executor to use for async delivery,
+     * supporting creation of at least one independent thread
+     * @param bufferCapacity the capacity of the shared buffer (the
+     * enforced capacity may be rounded up to the nearest power of two
+     * and/or bounded by the largest value supported by this
+     * implementation; method {@link #getBufferCapacity} returns the
+     * actual value)
+     * @param handler if non-null, procedure to invoke upon exception
+     * thrown in method {@code onNext}
+     * @throws NullPointerException if executor is null
+     * @throws IllegalArgumentException if bufferCapacity not positive
+     */
+    @SuppressWarnings("unchecked")
+    public MulticastPublisher(Executor executor, int bufferCapacity,
+                              BiConsumer<? super Flow.Subscriber<? super T>, ? super Throwable> handler) {
+        if (executor == null)
+            throw new NullPointerException();
+        if (bufferCapacity <= 0)
+            throw new IllegalArgumentException("capacity must be positive");
+        int cap = SubmissionPublisher.roundCapacity(bufferCapacity);
+        this.executor = executor;
+        this.onNextHandler = handler;
+        this.buffer = new Object[cap];
+        this.mask = cap - 1;
+        this.subscriptions = (MulticastSubscription<T>[])
+            new MulticastSubscription<?>[0];
+    }
+
+    /**
+     * Creates a new MulticastPublisher using the given Executor for
+     * async delivery to subscribers, with the given buffer capacity
+     * shared by all subscribers, and no handler for Subscriber
+     * exceptions in method {@link Flow.Subscriber#onNext(Object)
+     * onNext}.
+     *
+     * @param executor the executor to use for async delivery,
+     * supporting creation of at least one independent thread
+     * @param bufferCapacity the capacity of the shared buffer (the
+     * enforced capacity may be rounded up to the nearest power of two
+     * and/or bounded by the largest value supported by this
+     * implementation; method {@link #getBufferCapacity} returns the
+     * actual value)
+     * @throws NullPointerException if executor is null
+     * @throws IllegalArgumentException if bufferCapacity not positive
+     */
+    public MulticastPublisher(Executor executor, int bufferCapacity) {
+        this(executor, bufferCapacity, null);
+    }
+
+    /**
+     * Creates a new MulticastPublisher using the {@link
+     * ForkJoinPool#commonPool()} for async delivery to subscribers
+     * (unless it does not support a parallelism level of at least two,
+     * in which case, a new Thread is created to run each task), with
+     * buffer capacity of {@link Flow#defaultBufferSize}, and no
+     * handler for Subscriber exceptions in method {@link
+     * Flow.Subscriber#onNext(Object) onNext}.
+     */
+    public MulticastPublisher() {
+        this(SubmissionPublisher.ASYNC_POOL, Flow.defaultBufferSize(), null);
+    }
+
+    /**
+     * Adds the given Subscriber unless already subscribed.  If already
+     * subscribed, the Subscriber's {@link
+     * Flow.Subscriber#onError(Throwable) onError} method is invoked on
+     * the existing subscription with an {@link IllegalStateException}.
+     * Otherwise, upon success, the Subscriber's {@link
+     * Flow.Subscriber#onSubscribe onSubscribe} method is invoked
+     * asynchronously with a new {@link Flow.Subscription}, and the
+     * Subscriber receives the items submitted from then on.  If {@link
+     * Flow.Subscriber#onSubscribe onSubscribe} throws an exception, the
+     * subscription is cancelled. Otherwise, if this MulticastPublisher
+     * was closed exceptionally, then the subscriber's {@link
+     * Flow.Subscriber#onError onError} method is invoked with the
+     * corresponding exception, or if closed without exception, the
+     * subscriber's {@link Flow.Subscriber#onComplete() onComplete}
+     * method is invoked.
+     *
+     * @param subscriber the subscriber
+     * @throws NullPointerException if subscriber is null
+     */
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) throw new NullPointerException();
+        synchronized (this) {
+            MulticastSubscription<T>[] subs = subscriptions;
+            for (MulticastSubscription<T> b : subs) {
+                if (!b.isDisabled() && subscriber.equals(b.subscriber)) {
+                    b.onError(new IllegalStateException("Duplicate subscribe"));
+                    return;
+                }
+            }
+            MulticastSubscription<T> subscription =
+                new MulticastSubscription<T>(this, subscriber, published);
+            Throwable ex;
+            subscription.onSubscribe();
+            if ((ex = closedException) != null)
+                subscription.onError(ex);
+            else if (closed)
+                subscription.onComplete();
+            else {
+                int n = subs.length;
+                subs = Arrays.copyOf(subs, n + 1);
+                subs[n] = subscription;
+                subscriptions = subs;
+            }
+        }
+    }
+
+    /**
+     * Publishes the given item to each current subscriber by
+     * asynchronously invoking its {@link Flow.Subscriber#onNext(Object)
+     * onNext} method, blocking uninterruptibly while the buffer is full.
+     * This method returns an estimate of the maximum lag (number of
+     * items submitted but not yet consumed) among all current
+     * subscribers. This value is at least one (accounting for this
+     * submitted item) if there are any subscribers, else zero.
+     *
+     * @param item the (non-null) item to publish
+     * @return the estimated maximum lag among subscribers
+     * @throws IllegalStateException if closed
+     * @throws NullPointerException if item is null
+     */
+    public int submit(T item) {
+        return doOffer(item, false, 0L, null);
+    }
+
+    /**
+     * Publishes the given item to each current subscriber if there is
+     * space in the buffer, by asynchronously invoking its {@link
+     * Flow.Subscriber#onNext(Object) onNext} method.  If the buffer is
+     * full, the given handler (if non-null) is invoked for each
+     * subscriber that has not yet consumed the item it would overwrite,
+     * and if any invocation returns true, the offer is retried once.
+     * Other calls to methods in this class by other threads are blocked
+     * while the handler is invoked.
+     *
+     * <p>This method returns a status indicator: If negative, the item
+     * was dropped, and it represents the (negative) number of current
+     * subscribers. Otherwise it is an estimate of the maximum lag
+     * (number of items submitted but not yet consumed) among all
+     * current subscribers. This value is at least one (accounting for
+     * this submitted item) if there are any subscribers, else zero.
+     *
+     * @param item the (non-null) item to publish
+     * @param onDrop if non-null, the handler invoked for each subscriber
+     * holding up publication, with arguments of the subscriber and
+     * item; if it returns true, an offer is re-attempted (once)
+     * @return if negative, the (negative) number of subscribers for
+     * which the item was dropped; otherwise an estimate of maximum lag
+     * @throws IllegalStateException if closed
+     * @throws NullPointerException if item is null
+     */
+    public int offer(T item,
+                     BiPredicate<Flow.Subscriber<? super T>, ? super T> onDrop) {
+        return doOffer(item, true, 0L, onDrop);
+    }
+
+    /**
+     * Publishes the given item to each current subscriber, blocking
+     * while the buffer is full, up to the specified timeout or until
+     * the caller thread is interrupted, at which point the given
+     * handler (if non-null) is invoked for each subscriber that has not
+     * yet consumed the item it would overwrite, and if any invocation
+     * returns true, the offer is retried once. (The drop handler may
+     * distinguish timeouts from interrupts by checking whether the
+     * current thread is interrupted.)  Other calls to methods in this
+     * class by other threads are blocked while the handler is invoked.
+     *
+     * <p>This method returns a status indicator: If negative, the item
+     * was dropped, and it represents the (negative) number of current
+     * subscribers. Otherwise it is an estimate of the maximum lag
+     * (number of items submitted but not yet consumed) among all
+     * current subscribers. This value is at least one (accounting for
+     * this submitted item) if there are any subscribers, else zero.
+     *
+     * @param item the (non-null) item to publish
+     * @param timeout how long to wait for space in the buffer before
+     * giving up, in units of {@code unit}
+     * @param unit a {@code TimeUnit} determining how to interpret the
+     * {@code timeout} parameter
+     * @param onDrop if non-null, the handler invoked for each subscriber
+     * holding up publication, with arguments of the subscriber and
+     * item; if it returns true, an offer is re-attempted (once)
+     * @return if negative, the (negative) number of subscribers for
+     * which the item was dropped; otherwise an estimate of maximum lag
+     * @throws IllegalStateException if closed
+     * @throws NullPointerException if item is null
+     */
+    public int offer(T item, long timeout, TimeUnit unit,
+                     BiPredicate<Flow.Subscriber<? super T>, ? super T> onDrop) {
+        return doOffer(item, true, unit.toNanos(timeout), onDrop);
+    }
+
+    /**
+     * Common implementation for submit and both forms of offer.  The
+     * lock is released while waiting for space, after which the offer
+     * is retried from the start.
+     *
+     * @param timed false for submit, which waits uninterruptibly
+     * @param nanos if timed, how long to wait
+     */
+    final int doOffer(T item, boolean timed, long nanos,
+                      BiPredicate<Flow.Subscriber<? super T>, ? super T> onDrop) {
+        if (item == null) throw new NullPointerException();
+        final Object[] a = buffer;
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        boolean expired = timed && nanos <= 0L, interrupted = false;
+        try {
+            for (;;) {
+                SpaceWaiter w = null;
+                synchronized (this) {
+                    if (closed)
+                        throw new IllegalStateException("Closed");
+                    if (subscriptions.length == 0)
+                        return 0;
+                    long t = published;
+                    if (t - gate >= a.length && t - updateGate(t) >= a.length) {
+                        if (!expired)
+                            w = new SpaceWaiter(t, timed, deadline);
+                        else if (!retryDropped(item, t, onDrop))
+                            return -subscriptions.length;
+                    }
+                    if (w == null) {
+                        a[(int)t & mask] = item;      // relaxed write OK
+                        published = t + 1L;
+                        if (sleepers != 0)
+                            wakeSleepers();
+                        return (subscriptions.length == 0) ? 0 :
+                            (int)(t + 1L - gate);
+                    }
+                }
+                awaitSpace(w);
+                if (w.interrupted) {
+                    if (timed) {  // visible to onDrop
+                        Thread.currentThread().interrupt();
+                        expired = true;
+                    }
+                    else
+                        interrupted = true;
+                }
+                if (w.timedOut)
+                    expired = true;
+            }
+        } finally {
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Invokes onDrop for each subscription holding up publication of
+     * item number t.  Called only while holding lock.
+     *
+     * @return true if onDrop asked for a retry and there is now space
+     */
+    private boolean retryDropped(T item, long t,
+                                 BiPredicate<Flow.Subscriber<? super T>, ? super T> onDrop) {
+        boolean retry = false;
+        if (onDrop != null) {
+            for (MulticastSubscription<T> b : subscriptions) {
+                Flow.Subscriber<? super T> s;
+                if (t - b.cursor >= buffer.length &&
+                    (s = b.subscriber) != null &&
+                    onDrop.test(s, item))
+                    retry = true;
+            }
+        }
+        return retry && t - updateGate(t) < buffer.length;
+    }
+
+    /**
+     * Recomputes gate as the least cursor of enabled subscriptions,
+     * pruning disabled ones, and unless closed clears the slots of
+     * items that all of them have consumed.  Called only while holding
+     * lock.
+     *
+     * @param t the current value of published
+     * @return the new gate
+     */
+    private long updateGate(long t) {
+        MulticastSubscription<T>[] subs = subscriptions;
+        long min = t;
+        int live = 0;
+        for (MulticastSubscription<T> b : subs) {
+            if (!b.isDisabled()) {
+                long c = b.cursor;
+                if (c < min)
+                    min = c;
+                ++live;
+            }
+        }
+        if (live < subs.length)
+            pruneDisabled();
+        if (!closed) {  // else subscriptions removed on close may still read
+            // slots of items before t - length already hold later items
+            final Object[] a = buffer;
+            for (long g = Math.max(gate, t - a.length); g < min; ++g)
+                a[(int)g & mask] = null;
+        }
+        return gate = min;
+    }
+
+    /**
+     * Removes disabled subscriptions.  Called only while holding lock.
+     */
+    private void pruneDisabled() {
+        MulticastSubscription<T>[] subs = subscriptions;
+        int n = 0;
+        MulticastSubscription<T>[] live = Arrays.copyOf(subs, subs.length);
+        for (MulticastSubscription<T> b : subs) {
+            if (!b.isDisabled())
+                live[n++] = b;
+        }
+        if (n < subs.length)
+            subscriptions = Arrays.copyOf(live, n);
+    }
+
+    /**
+     * Waits, without holding lock, until there may be space to publish
+     * the waiter's item, or the wait times out or is interrupted (if
+     * timed).
+     */
+    private void awaitSpace(SpaceWaiter w) {
+        ForkJoinPool.helpAsyncBlocker(executor, w);
+        try {
+            ForkJoinPool.managedBlock(w);
+        } catch (InterruptedException ie) {
+            w.interrupted = true;
+        }
+    }
+
+    /**
+     * ManagedBlocker for a publisher waiting for space, and node of
+     * the waiters stack.  If untimed, interrupts are recorded but do
+     * not end the wait; if timed, they end it.  Space is only checked
+     * advisorily, without lock; the publisher rechecks it under lock.
+     */
+    final class SpaceWaiter implements ForkJoinPool.ManagedBlocker {
+        final long seq;
+        final boolean timed;
+        final long deadline;
+        final Thread thread;
+        SpaceWaiter next;                  // next waiter in stack
+        volatile boolean queued;           // pushed and not yet released
+        boolean interrupted, timedOut, done;
+        SpaceWaiter(long seq, boolean timed, long deadline) {
+            this.seq = seq;
+            this.timed = timed;
+            this.deadline = deadline;
+            this.thread = Thread.currentThread();
+        }
+        public boolean isReleasable() {
+            if (!done && (closed || hasSpace(seq)))
+                done = true;
+            return done;
+        }
+        public boolean block() {
+            if (!queued) {                 // push, then recheck
+                queued = true;
+                SpaceWaiter h;
+                do {
+                    next = h = waiters;
+                } while (!WAITERS.compareAndSet(MulticastPublisher.this, h, this));
+                return isReleasable();
+            }
+            if (!timed)
+                LockSupport.park(this);
+            else {
+                long nanos = deadline - System.nanoTime();
+                if (nanos <= 0L)
+                    return done = timedOut = true;
+                LockSupport.parkNanos(this, nanos);
+            }
+            if (Thread.interrupted()) {
+                interrupted = true;
+                if (timed)
+                    return done = true;
+            }
+            return isReleasable();
+        }
+    }
+
+    /**
+     * Returns true if item number t could be published, judging by the
+     * cursors of enabled subscriptions.  Called without lock.
+     */
+    private boolean hasSpace(long t) {
+        long min = t;
+        for (MulticastSubscription<T> b : subscriptions) {
+            long c;
+            if (!b.isDisabled() && (c = b.cursor) < min)
+                min = c;
+        }
+        return t - min < buffer.length;
+    }
+
+    /**
+     * Wakes subscriptions that are sleeping for lack of items.  Called
+     * only while holding lock.
+     */
+    private void wakeSleepers() {
+        for (MulticastSubscription<T> b : subscriptions) {
+            if ((b.ctl & MulticastSubscription.SLEEPING) != 0)
+                b.wake();
+        }
+    }
+
+    /**
+     * Releases the publishers waiting for space, if any.  Called by
+     * consumers after advancing their cursors, and on close.
+     */
+    final void signalWaiter() {
+        VarHandle.fullFence();
+        if (waiters != null) {
+            SpaceWaiter q = (SpaceWaiter)WAITERS.getAndSet(this, null);
+            for (SpaceWaiter next; q != null; q = next) {
+                next = q.next;
+                q.next = null;
+                q.queued = false;
+                LockSupport.unpark(q.thread);
+            }
+        }
+    }
+
+    /**
+     * Unless already closed, issues {@link
+     * Flow.Subscriber#onComplete() onComplete} signals to current
+     * subscribers, and disallows subsequent attempts to publish.
+     * Subscribers receive the items already published before their
+     * onComplete signal.  Upon return, this method does <em>NOT</em>
+     * guarantee that all subscribers have yet completed.
+     */
+    public void close() {
+        if (!closed) {
+            MulticastSubscription<T>[] subs;
+            synchronized (this) {
+                // no need to re-check closed here
+                subs = subscriptions;
+                subscriptions = Arrays.copyOf(subs, 0);
+                closed = true;
+            }
+            signalWaiter();
+            for (MulticastSubscription<T> b : subs)
+                b.onComplete();
+        }
+    }
+
+    /**
+     * Unless already closed, issues {@link
+     * Flow.Subscriber#onError(Throwable) onError} signals to current
+     * subscribers with the given error, and disallows subsequent
+     * attempts to publish.  Future subscribers also receive the given
+     * error. Upon return, this method does <em>NOT</em> guarantee
+     * that all subscribers have yet completed.
+     *
+     * @param error the {@code onError} argument sent to subscribers
+     * @throws NullPointerException if error is null
+     */
+    public void closeExceptionally(Throwable error) {
+        if (error == null)
+            throw new NullPointerException();
+        if (!closed) {
+            MulticastSubscription<T>[] subs = null;
+            synchronized (this) {
+                if (!closed) {  // don't clobber racing close
+                    subs = subscriptions;
+                    subscriptions = Arrays.copyOf(subs, 0);
+                    closedException = error;
+                    closed = true;
+                }
+            }
+            if (subs != null) {
+                signalWaiter();
+                for (MulticastSubscription<T> b : subs)
+                    b.onError(error);
+            }
+        }
+    }
+
+    /**
+     * Returns true if this publisher is not accepting submissions.
+     *
+     * @return true if closed
+     */
+    public boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * Returns the exception associated with {@link
+     * #closeExceptionally(Throwable) closeExceptionally}, or null if
+     * not closed or if closed normally.
+     *
+     * @return the exception, or null if none
+     */
+    public Throwable getClosedException() {
+        return closedException;
+    }
+
+    /**
+     * Returns true if this publisher has any subscribers.
+     *
+     * @return true if this publisher has any subscribers
+     */
+    public boolean hasSubscribers() {
+        return getNumberOfSubscribers() > 0;
+    }
+
+    /**
+     * Returns the number of current subscribers.
+     *
+     * @return the number of current subscribers
+     */
+    public int getNumberOfSubscribers() {
+        synchronized (this) {
+            pruneDisabled();
+            return subscriptions.length;
+        }
+    }
+
+    /**
+     * Returns the Executor used for asynchronous delivery.
+     *
+     * @return the Executor used for asynchronous delivery
+     */
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    /**
+     * Returns the capacity of the buffer shared by all subscribers.
+     *
+     * @return the buffer capacity
+     */
+    public int getBufferCapacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns a list of current subscribers for monitoring and
+     * tracking purposes, not for invoking {@link Flow.Subscriber}
+     * methods on the subscribers.
+     *
+     * @return list of current subscribers
+     */
+    public List<Flow.Subscriber<? super T>> getSubscribers() {
+        ArrayList<Flow.Subscriber<? super T>> subs = new ArrayList<>();
+        synchronized (this) {
+            pruneDisabled();
+            for (MulticastSubscription<T> b : subscriptions) {
+                Flow.Subscriber<? super T> s;
+                if ((s = b.subscriber) != null)
+                    subs.add(s);
+            }
+        }
+        return subs;
+    }
+
+    /**
+     * Returns true if the given Subscriber is currently subscribed.
+     *
+     * @param subscriber the subscriber
+     * @return true if currently subscribed
+     * @throws NullPointerException if subscriber is null
+     */
+    public boolean isSubscribed(Flow.Subscriber<? super T> subscriber) {
+        if (subscriber == null) throw new NullPointerException();
+        synchronized (this) {
+            for (MulticastSubscription<T> b : subscriptions) {
+                if (!b.isDisabled() && subscriber.equals(b.subscriber))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns an estimate of the minimum number of items requested
+     * (via {@link Flow.Subscription#request(long) request}) but not
+     * yet produced, among all current subscribers.
+     *
+     * @return the estimate, or zero if no subscribers
+     */
+    public long estimateMinimumDemand() {
+        long min = Long.MAX_VALUE;
+        boolean nonEmpty = false;
+        synchronized (this) {
+            long p = published;
+            for (MulticastSubscription<T> b : subscriptions) {
+                long d;
+                if (!b.isDisabled()) {
+                    if ((d = b.demand - (p - b.cursor)) < min)
+                        min = d;
+                    nonEmpty = true;
+                }
+            }
+        }
+        return nonEmpty ? min : 0;
+    }
+
+    /**
+     * Returns an estimate of the maximum number of items produced but
+     * not yet consumed among all current subscribers.
+     *
+     * @return the estimate
+     */
+    public int estimateMaximumLag() {
+        synchronized (this) {
+            long p = published;
+            return (int)(p - updateGate(p));
+        }
+    }
+
+    /**
+     * Processes all published items using the given Consumer function.
+     * Returns a CompletableFuture that is completed normally when this
+     * publisher signals {@link Flow.Subscriber#onComplete()
+     * onComplete}, or completed exceptionally upon any error, or an
+     * exception is thrown by the Consumer, or the returned
+     * CompletableFuture is cancelled, in which case no further items
+     * are processed.
+     *
+     * @param consumer the function applied to each onNext item
+     * @return a CompletableFuture that is completed normally
+     * when the publisher signals onComplete, and exceptionally
+     * upon any error or cancellation
+     * @throws NullPointerException if consumer is null
+     */
+    public CompletableFuture<Void> consume(Consumer<? super T> consumer) {
+        if (consumer == null)
+            throw new NullPointerException();
+        CompletableFuture<Void> status = new CompletableFuture<>();
+        subscribe(new SubmissionPublisher.ConsumerSubscriber<T>(status,
+                                                                consumer));
+        return status;
+    }
+
+    /**
+     * A task for delivering items and signals to a subscriber, created
+     * and executed whenever they become available.  As with
+     * SubmissionPublisher.ConsumerTask, the dual Runnable and
+     * ForkJoinTask declaration saves overhead when executed by
+     * ForkJoinPools.
+     */
+    @SuppressWarnings("serial")
+    static final class MulticastTask<T> extends ForkJoinTask<Void>
+        implements Runnable, CompletableFuture.AsynchronousCompletionTask {
+        final MulticastSubscription<T> consumer;
+        MulticastTask(MulticastSubscription<T> consumer) {
+            this.consumer = consumer;
+        }
+        public final Void getRawResult() { return null; }
+        public final void setRawResult(Void v) {}
+        public final boolean exec() { consumer.consume(); return false; }
+        public final void run() { consumer.consume(); }
+    }
+
+    /**
+     * A subscriber's cursor into the shared buffer, with the same
+     * control and signalling structure as
+     * SubmissionPublisher.BufferedSubscription; see the comments there
+     * and at the top of this class.
+     */
+    @jdk.internal.vm.annotation.Contended
+    private static final class MulticastSubscription<T>
+        implements Flow.Subscription {
+        volatile long cursor;              // seq of next item to deliver
+        volatile long demand;              // # unfilled requests
+        volatile int ctl;                  // atomic run state flags
+        final MulticastPublisher<T> publisher;
+        Flow.Subscriber<? super T> subscriber; // null if disabled
+        Executor executor;                 // null if disabled
+        volatile Throwable pendingError;   // holds until onError issued
+
+        // ctl values
+        static final int ACTIVE    = 0x01; // consumer task active
+        static final int CONSUME   = 0x02; // keep-alive for consumer task
+        static final int DISABLED  = 0x04; // final state
+        static final int ERROR     = 0x08; // signal onError then disable
+        static final int SUBSCRIBE = 0x10; // signal onSubscribe
+        static final int COMPLETE  = 0x20; // signal onComplete when done
+        static final int SLEEPING  = 0x40; // no task; awaiting items
+
+        MulticastSubscription(MulticastPublisher<T> publisher,
+                              Flow.Subscriber<? super T> subscriber,
+                              long cursor) {
+            this.publisher = publisher;
+            this.subscriber = subscriber;
+            this.executor = publisher.executor;
+            this.cursor = cursor;
+        }
+
+        final boolean isDisabled() {
+            return ctl == DISABLED;
+        }
+
+        /**
+         * Decrements the publisher's count of sleepers, after this
+         * subscription has left SLEEPING state.
+         */
+        private void leftSleeping() {
+            SLEEPERS.getAndAdd(publisher, -1);
+        }
+
+        /**
+         * Starts a task if sleeping; called by the publisher after
+         * publishing an item.
+         */
+        final void wake() {
+            for (int c;;) {
+                if (((c = ctl) & SLEEPING) == 0)
+                    break;
+                if (CTL.compareAndSet(this, c, (c & ~SLEEPING) | ACTIVE)) {
+                    leftSleeping();
+                    startOrDisable();
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Tries to start consumer task upon a signal, request or
+         * publication; disables on failure.
+         */
+        private void startOrDisable() {
+            Executor e;
+            if ((e = executor) != null) { // skip if already disabled
+                try {
+                    e.execute(new MulticastTask<T>(this));
+                } catch (Throwable ex) {  // back out and force signal
+                    for (int c;;) {
+                        if ((c = ctl) == DISABLED || (c & ACTIVE) == 0)
+                            break;
+                        if (CTL.compareAndSet(this, c, c & ~ACTIVE)) {
+                            onError(ex);
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+
+        /**
+         * Nulls out most fields, and releases the publisher if it is
+         * waiting for this subscription to advance.
+         */
+        private void detach() {
+            executor = null;
+            subscriber = null;
+            pendingError = null;
+            publisher.signalWaiter();
+        }
+
+        /**
+         * Issues error signal, asynchronously if a task is running,
+         * else synchronously.
+         */
+        final void onError(Throwable ex) {
+            for (int c;;) {
+                if (((c = ctl) & (ERROR | DISABLED)) != 0)
+                    break;
+                else if ((c & ACTIVE) != 0) {
+                    pendingError = ex;
+                    if (CTL.compareAndSet(this, c, c | ERROR))
+                        break; // cause consumer task to exit
+                }
+                else if (CTL.compareAndSet(this, c, DISABLED)) {
+                    if ((c & SLEEPING) != 0)
+                        leftSleeping();
+                    Flow.Subscriber<? super T> s = subscriber;
+                    if (s != null && ex != null) {
+                        try {
+                            s.onError(ex);
+                        } catch (Throwable ignore) {
+                        }
+                    }
+                    detach();
+                    break;
+                }
+            }
+        }
+
+        final void onComplete() {
+            for (int c;;) {
+                if ((c = ctl) == DISABLED)
+                    break;
+                if (CTL.compareAndSet(this, c,
+                                      (c & ~SLEEPING) |
+                                      (ACTIVE | CONSUME | COMPLETE))) {
+                    if ((c & SLEEPING) != 0)
+                        leftSleeping();
+                    if ((c & ACTIVE) == 0)
+                        startOrDisable();
+                    break;
+                }
+            }
+        }
+
+        final void onSubscribe() {
+            for (int c;;) {
+                if ((c = ctl) == DISABLED)
+                    break;
+                if (CTL.compareAndSet(this, c,
+                                      c | (ACTIVE | CONSUME | SUBSCRIBE))) {
+                    if ((c & ACTIVE) == 0)
+                        startOrDisable();
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Causes consumer task to exit if active (without reporting
+         * onError unless there is already a pending error), and
+         * disables.
+         */
+        public void cancel() {
+            for (int c;;) {
+                if ((c = ctl) == DISABLED)
+                    break;
+                else if ((c & ACTIVE) != 0) {
+                    if (CTL.compareAndSet(this, c,
+                                          c | (CONSUME | ERROR)))
+                        break;
+                }
+                else if (CTL.compareAndSet(this, c, DISABLED)) {
+                    if ((c & SLEEPING) != 0)
+                        leftSleeping();
+                    detach();
+                    break;
+                }
+            }
+        }
+
+        /**
+         * Adds to demand and possibly starts task.  A sleeping
+         * subscription already has demand, and is left for the
+         * publisher to wake.
+         */
+        public void request(long n) {
+            if (n > 0L) {
+                for (;;) {
+                    long prev = demand, d;
+                    if ((d = prev + n) < prev) // saturate
+                        d = Long.MAX_VALUE;
+                    if (DEMAND.compareAndSet(this, prev, d))
+                        break;
+                }
+                for (int c;;) {
+                    if ((c = ctl) == DISABLED || (c & SLEEPING) != 0)
+                        break;
+                    else if ((c & ACTIVE) != 0) {
+                        if ((c & CONSUME) != 0 ||
+                            CTL.compareAndSet(this, c, c | CONSUME))
+                            break;
+                    }
+                    else if (CTL.compareAndSet(this, c,
+                                               c | (ACTIVE | CONSUME))) {
+                        startOrDisable();
+                        break;
+                    }
+                }
+            }
+            else
+                onError(new IllegalArgumentException(
+                            "non-positive subscription request"));
+        }
+
+        /**
+         * Consumer loop, called from MulticastTask.  Delivers all
+         * items that are both published and requested before
+         * rechecking for more.
+         */
+        final void consume() {
+            Flow.Subscriber<? super T> s;
+            final MulticastPublisher<T> p = publisher;
+            final Object[] a = p.buffer;
+            final int m = p.mask;
+            long cur = cursor;
+            if ((s = subscriber) != null) {           // else disabled
+                for (;;) {
+                    int c; long n, d;
+                    if (((c = ctl) & (ERROR | SUBSCRIBE | DISABLED)) != 0) {
+                        if (!checkControl(s, c))
+                            break;
+                    }
+                    else if ((n = p.published - cur) <= 0L) {
+                        if (!checkEmpty(s, c))
+                            break;
+                    }
+                    else if ((d = demand) == 0L) {
+                        if (!checkDemand(c))
+                            break;
+                    }
+                    else {
+                        long end = cur + Math.min(n, d), start = cur;
+                        do {
+                            @SuppressWarnings("unchecked")
+                                T y = (T) a[(int)cur & m];
+                            if (y == null)            // cleared once disabled
+                                break;
+                            CURSOR.setRelease(this, ++cur);
+                            try {
+                                s.onNext(y);
+                            } catch (Throwable ex) {
+                                handleOnNext(s, ex);
+                            }
+                        } while (cur < end &&
+                                 (ctl & (ERROR | DISABLED)) == 0);
+                        DEMAND.getAndAdd(this, start - cur);
+                        p.signalWaiter();
+                    }
+                }
+            }
+        }
+
+        /**
+         * Responds to control events in consume().
+         */
+        private boolean checkControl(Flow.Subscriber<? super T> s, int c) {
+            boolean stat = true;
+            if ((c & SUBSCRIBE) != 0) {
+                if (CTL.compareAndSet(this, c, c & ~SUBSCRIBE)) {
+                    try {
+                        if (s != null)
+                            s.onSubscribe(this);
+                    } catch (Throwable ex) {
+                        onError(ex);
+                    }
+                }
+            }
+            else if ((c & ERROR) != 0) {
+                Throwable ex = pendingError;
+                ctl = DISABLED;           // no need for CAS
+                if (ex != null) {         // null if errorless cancel
+                    try {
+                        if (s != null)
+                            s.onError(ex);
+                    } catch (Throwable ignore) {
+                    }
+                }
+            }
+            else {
+                detach();
+                stat = false;
+            }
+            return stat;
+        }
+
+        /**
+         * Responds to apparent emptiness in consume(): completes if
+         * closed, else exits, leaving this subscription sleeping if it
+         * has demand.
+         */
+        private boolean checkEmpty(Flow.Subscriber<? super T> s, int c) {
+            boolean stat = true;
+            long cur = cursor;
+            if (publisher.published == cur) {
+                if ((c & CONSUME) != 0)
+                    CTL.compareAndSet(this, c, c & ~CONSUME);
+                else if ((c & COMPLETE) != 0) {
+                    if (CTL.compareAndSet(this, c, DISABLED)) {
+                        try {
+                            if (s != null)
+                                s.onComplete();
+                        } catch (Throwable ignore) {
+                        }
+                    }
+                }
+                else if (demand == 0L) {
+                    if (CTL.compareAndSet(this, c, c & ~ACTIVE))
+                        stat = false;
+                }
+                else if (CTL.compareAndSet(this, c,
+                                           (c & ~ACTIVE) | SLEEPING)) {
+                    SLEEPERS.getAndAdd(publisher, 1);
+                    if (publisher.published == cur)
+                        stat = false;     // publisher will wake us
+                    else {                // try to reclaim
+                        for (int k;;) {
+                            if (((k = ctl) & SLEEPING) == 0) {
+                                stat = false; // someone else woke us
+                                break;
+                            }
+                            if (CTL.compareAndSet(this, k,
+                                                  (k & ~SLEEPING) | ACTIVE)) {
+                                leftSleeping();
+                                break;
+                            }
+                        }
+                    }
+                }
+            }
+            return stat;
+        }
+
+        /**
+         * Responds to apparent zero demand in consume().
+         */
+        private boolean checkDemand(int c) {
+            boolean stat = true;
+            if (demand == 0L) {
+                if ((c & CONSUME) != 0)
+                    CTL.compareAndSet(this, c, c & ~CONSUME);
+                else if (CTL.compareAndSet(this, c, c & ~ACTIVE))
+                    stat = false;
+            }
+            return stat;
+        }
+
+        /**
+         * Processes exception in Subscriber.onNext.
+         */
+        private void handleOnNext(Flow.Subscriber<? super T> s, Throwable ex) {
+            BiConsumer<? super Flow.Subscriber<? super T>, ? super Throwable> h;
+            if ((h = publisher.onNextHandler) != null) {
+                try {
+                    h.accept(s, ex);
+                } catch (Throwable ignore) {
+                }
+            }
+            onError(ex);
+        }
+
+        // VarHandle mechanics
+        private static final VarHandle CTL;
+        private static final VarHandle CURSOR;
+        private static final VarHandle DEMAND;
+
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                CTL = l.findVarHandle(MulticastSubscription.class, "ctl",
+                                      int.class);
+                CURSOR = l.findVarHandle(MulticastSubscription.class,
+                                         "cursor", long.class);
+                DEMAND = l.findVarHandle(MulticastSubscription.class,
+                                         "demand", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle SLEEPERS;
+    private static final VarHandle WAITERS;
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            SLEEPERS = l.findVarHandle(MulticastPublisher.class, "sleepers",
+                                       int.class);
+            WAITERS = l.findVarHandle(MulticastPublisher.class, "waiters",
+                                      MulticastPublisher.SpaceWaiter.class);
+        } catch (ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+
+        // Reduce the risk of rare disastrous classloading in first call to
+        // LockSupport.park: https://bugs.openjdk.java.net/browse/JDK-8074773
+        Class<?> ensureLoaded = LockSupport.class;
+    }
+}
@@ -0,0 +1,554 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Base class for the bounded lock-free queues {@link SpscArrayQueue},
+ * {@link MpscArrayQueue} and {@link MpmcArrayQueue}.  Subclasses
+ * define how producers claim and publish slots and how consumers
+ * take them; this class supplies the blocking methods, bulk removal,
+ * removal of arbitrary elements and the snapshot views.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+abstract class RingBufferQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /*
+     * Elements live in a power-of-two array indexed by the low bits of
+     * two monotonically increasing counters: tail counts the slots
+     * claimed by producers and head the slots released by consumers.
+     * The counters never wrap in practice, so tail - head is the
+     * number of occupied or claimed slots.  Each counter is written by
+     * one side only (or CASed among producers or among consumers), and
+     * the two are placed in separate @Contended groups so that
+     * producers and consumers do not invalidate each other's cache
+     * lines on every operation.
+     *
+     * Since there are no locks there are no conditions to wait on.
+     * Threads that cannot proceed wait according to a WaitStrategy.
+     * With PARK, a waiting thread enqueues itself on notEmptyWaiters
+     * or notFullWaiters, re-checks the queue, and only then parks.
+     * Each successful insertion or removal issues a full fence before
+     * looking for waiters, which pairs with the full fence of the
+     * waiter's own enqueue so that either the waiter sees the change
+     * or the changing thread sees the waiter.  All waiters are woken,
+     * as a single permit could otherwise be given twice to the same
+     * thread while another waiter sleeps on.  Waiter queues are only
+     * created for PARK, so the other strategies pay nothing for them.
+     *
+     * An element other than the head is removed (by remove(Object) or
+     * an iterator) by CASing its slot to REMOVED, leaving the slot in
+     * place so that the ordering protocols of the subclasses are
+     * undisturbed.  Consumers clear the slots they claim with an
+     * atomic getAndSet, so that exactly one of a consumer and a
+     * remover takes each element, and pass over REMOVED slots as if
+     * they had dequeued them.  Since such a slot is freed only when a
+     * consumer passes it, poll and drainTo wake producers whenever head
+     * has advanced, even if no element was returned.  So that
+     * isEmpty holds for a queue of removed elements alone (as
+     * ThreadPoolExecutor relies on when shutting down), size and
+     * isEmpty scan the slots rather than comparing the counters.
+     */
+
+    /** Marks the slot of an element removed from the interior. */
+    static final Object REMOVED = new Object();
+
+    /** The largest possible capacity, limited by array indexing. */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** Number of CPUS, to decide whether to spin before waiting. */
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * The number of times to spin before yielding or parking.  Spinning
+     * is pointless on a uniprocessor.
+     */
+    static final int SPINS = (NCPU > 1) ? 1 << 7 : 0;
+
+    /** The queued elements; null marks a free slot */
+    final Object[] items;
+
+    /** items.length - 1 */
+    final int mask;
+
+    /** How threads wait in the blocking methods */
+    final WaitStrategy waitStrategy;
+
+    /** Threads waiting for an element; null unless parking */
+    final ConcurrentLinkedQueue<Thread> notEmptyWaiters;
+
+    /** Threads waiting for a free slot; null unless parking */
+    final ConcurrentLinkedQueue<Thread> notFullWaiters;
+
+    /** Count of slots claimed by producers */
+    @jdk.internal.vm.annotation.Contended("producer")
+    volatile long tail;
+
+    /** Count of slots released by consumers */
+    @jdk.internal.vm.annotation.Contended("consumer")
+    volatile long head;
+
+    /**
+     * Creates a queue holding at least the given number of elements.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how threads wait in the blocking methods
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or is greater than {@code 1 << 30}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    RingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException();
+        this.waitStrategy = Objects.requireNonNull(waitStrategy);
+        int n = -1 >>> Integer.numberOfLeadingZeros(capacity - 1);
+        this.items = new Object[n + 1];
+        this.mask = n;
+        if (waitStrategy == WaitStrategy.PARK) {
+            notEmptyWaiters = new ConcurrentLinkedQueue<>();
+            notFullWaiters = new ConcurrentLinkedQueue<>();
+        } else {
+            notEmptyWaiters = notFullWaiters = null;
+        }
+    }
+
+    /**
+     * Inserts the given element if a slot is free, without waking
+     * waiting consumers.
+     *
+     * @return true if inserted
+     */
+    abstract boolean enqueue(E e);
+
+    /**
+     * Removes and returns the head element, or null if there is none,
+     * without waking waiting producers.
+     */
+    abstract E dequeue();
+
+    /**
+     * Returns the number of elements this queue can hold, which is
+     * the capacity given on construction rounded up to a power of two.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return items.length;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false}
+     * if this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        if (!enqueue(e))
+            return false;
+        signalNotEmpty();
+        return true;
+    }
+
+    public E poll() {
+        long h = head;
+        E e = dequeue();
+        if (e != null || head != h)
+            signalNotFull();
+        return e;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * for space to become available if the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        if (!offer(e))
+            awaitOffer(e, false, 0L);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for space to become available if
+     * the queue is full.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return offer(e) || awaitOffer(e, true, unit.toNanos(timeout));
+    }
+
+    public E take() throws InterruptedException {
+        E e = poll();
+        return (e != null) ? e : awaitPoll(false, 0L);
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        return (e != null) ? e : awaitPoll(true, unit.toNanos(timeout));
+    }
+
+    /**
+     * Retries offer until it succeeds, waiting between attempts.
+     *
+     * @return true if inserted, false if timed out
+     */
+    private boolean awaitOffer(E e, boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        for (int spins = SPINS;;) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                return false;
+            if (spins > 0) {
+                --spins;
+                Thread.onSpinWait();
+            } else if (waitStrategy == WaitStrategy.SPIN) {
+                Thread.onSpinWait();
+            } else if (waitStrategy == WaitStrategy.YIELD) {
+                Thread.yield();
+            } else {
+                Thread w = Thread.currentThread();
+                notFullWaiters.offer(w);
+                try {
+                    if (offer(e))
+                        return true;
+                    park(timed, nanos);
+                } finally {
+                    notFullWaiters.remove(w);
+                }
+            }
+            if (offer(e))
+                return true;
+        }
+    }
+
+    /**
+     * Retries poll until it succeeds, waiting between attempts.
+     *
+     * @return the head element, or null if timed out
+     */
+    private E awaitPoll(boolean timed, long nanos)
+        throws InterruptedException {
+        final long deadline = timed ? System.nanoTime() + nanos : 0L;
+        E e;
+        for (int spins = SPINS;;) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                return null;
+            if (spins > 0) {
+                --spins;
+                Thread.onSpinWait();
+            } else if (waitStrategy == WaitStrategy.SPIN) {
+                Thread.onSpinWait();
+            } else if (waitStrategy == WaitStrategy.YIELD) {
+                Thread.yield();
+            } else {
+                Thread w = Thread.currentThread();
+                notEmptyWaiters.offer(w);
+                try {
+                    if ((e = poll()) != null)
+                        return e;
+                    park(timed, nanos);
+                } finally {
+                    notEmptyWaiters.remove(w);
+                }
+            }
+            if ((e = poll()) != null)
+                return e;
+        }
+    }
+
+    private void park(boolean timed, long nanos) {
+        if (timed)
+            LockSupport.parkNanos(this, nanos);
+        else
+            LockSupport.park(this);
+    }
+
+    /**
+     * Wakes consumers parked waiting for an element, if any.
+     */
+    final void signalNotEmpty() {
+        if (notEmptyWaiters != null)
+            wakeAll(notEmptyWaiters);
+    }
+
+    /**
+     * Wakes producers parked waiting for a free slot, if any.
+     */
+    final void signalNotFull() {
+        if (notFullWaiters != null)
+            wakeAll(notFullWaiters);
+    }
+
+    private static void wakeAll(ConcurrentLinkedQueue<Thread> waiters) {
+        VarHandle.fullFence();
+        if (!waiters.isEmpty()) {
+            for (Thread w : waiters)
+                LockSupport.unpark(w);
+        }
+    }
+
+    /**
+     * Returns the number of elements in this queue, counting the
+     * filled slots between head and tail.  Elements whose insertion or
+     * removal is in progress may or may not be counted.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        return count(Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns {@code true} if this queue contains no elements.  Slots
+     * of removed elements that consumers have not yet passed over are
+     * not counted.
+     *
+     * @return {@code true} if this queue contains no elements
+     */
+    public boolean isEmpty() {
+        return count(1) == 0;
+    }
+
+    /**
+     * Counts, up to max, the slots between head and tail holding an
+     * element, without writing anything.
+     */
+    private int count(int max) {
+        final Object[] items = this.items;
+        long h = head, t = tail;
+        if (t - h > items.length)
+            h = t - items.length;
+        int n = 0;
+        for (long p = h; p < t && n < max; ++p) {
+            Object x = ITEMS.getAcquire(items, (int)p & mask);
+            if (x != null && x != REMOVED)
+                ++n;
+        }
+        return n;
+    }
+
+    /**
+     * Returns the number of slots free for insertion.  The slots of
+     * removed elements are free only once consumers have passed over
+     * them.
+     */
+    public int remainingCapacity() {
+        for (;;) {
+            long h = head, t = tail;
+            if (h == head) {
+                long n = t - h;
+                return items.length -
+                    ((n <= 0L) ? 0 : (int)Math.min(n, items.length));
+            }
+        }
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @throws UnsupportedOperationException {@inheritDoc}
+     * @throws ClassCastException            {@inheritDoc}
+     * @throws NullPointerException          {@inheritDoc}
+     * @throws IllegalArgumentException      {@inheritDoc}
+     */
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        Objects.requireNonNull(c);
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        long h = head;
+        try {
+            E e;
+            while (n < maxElements && (e = dequeue()) != null) {
+                c.add(e);
+                ++n;
+            }
+        } finally {
+            // Wake producers once for the whole batch
+            if (n > 0 || head != h)
+                signalNotFull();
+        }
+        return n;
+    }
+
+    /**
+     * Returns a list of the elements currently in this queue, in
+     * order from head to tail.  Elements removed or inserted while the
+     * list is being built may or may not be included.
+     */
+    @SuppressWarnings("unchecked")
+    private ArrayList<E> snapshot() {
+        final Object[] items = this.items;
+        long h = head, t = tail;
+        if (t - h > items.length)
+            h = t - items.length;
+        ArrayList<E> list = new ArrayList<>((int)Math.max(t - h, 0L));
+        for (long p = h; p < t; ++p) {
+            Object x = ITEMS.getAcquire(items, (int)p & mask);
+            if (x != null && x != REMOVED)
+                list.add((E)x);
+        }
+        return list;
+    }
+
+    /**
+     * Removes a single instance of the specified element from this
+     * queue, if it is present.  Removal of an element other than the
+     * head frees its slot only when consumers reach it.
+     *
+     * @param o element to be removed from this queue, if present
+     * @return {@code true} if this queue changed as a result of the call
+     */
+    public boolean remove(Object o) {
+        return o != null && removeElement(o, false);
+    }
+
+    /**
+     * Removes the first element of this queue that equals, or if
+     * identical is true is, the given non-null object.
+     *
+     * @return true if removed
+     */
+    private boolean removeElement(Object o, boolean identical) {
+        final Object[] items = this.items;
+        long h = head, t = tail;
+        if (t - h > items.length)
+            h = t - items.length;
+        for (long p = h; p < t; ++p) {
+            int i = (int)p & mask;
+            Object x = ITEMS.getAcquire(items, i);
+            if (x != null && x != REMOVED &&
+                (identical ? x == o : o.equals(x)) &&
+                ITEMS.compareAndSet(items, i, x, REMOVED))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this
+     * queue, in proper sequence.  The snapshot is taken when this
+     * method is called and is not updated as the queue changes.  The
+     * iterator's {@code remove} method removes the last element
+     * returned from this queue, if it is still present.
+     *
+     * @return an iterator over the elements in this queue in proper
+     *         sequence
+     */
+    public Iterator<E> iterator() {
+        return new Itr(snapshot().iterator());
+    }
+
+    /** Iterator over a snapshot, removing through the queue. */
+    private final class Itr implements Iterator<E> {
+        private final Iterator<E> it;
+        private E lastRet;
+        Itr(Iterator<E> it) { this.it = it; }
+        public boolean hasNext() { return it.hasNext(); }
+        public E next() { return lastRet = it.next(); }
+        public void remove() {
+            if (lastRet == null)
+                throw new IllegalStateException();
+            removeElement(lastRet, true);
+            lastRet = null;
+        }
+    }
+
+    /**
+     * Returns a {@link Spliterator} over a snapshot of the elements in
+     * this queue, taken when this method is called.
+     *
+     * @return a {@code Spliterator} over the elements in this queue
+     */
+    public Spliterator<E> spliterator() {
+        return snapshot().spliterator();
+    }
+
+    public Object[] toArray() {
+        return snapshot().toArray();
+    }
+
+    public <T> T[] toArray(T[] a) {
+        return snapshot().toArray(a);
+    }
+
+    // VarHandle mechanics
+    static final VarHandle HEAD;
+    static final VarHandle TAIL;
+    static final VarHandle ITEMS;
+    static {
+        try {
+            MethodHandles.Lookup l = MethodHandles.lookup();
+            HEAD = l.findVarHandle(RingBufferQueue.class, "head", long.class);
+            TAIL = l.findVarHandle(RingBufferQueue.class, "tail", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new Error(e);
+        }
+        ITEMS = MethodHandles.arrayElementVarHandle(Object[].class);
+    }
+}
@@ -37,6 +37,7 @@ package java.util.concurrent;
 
 import java.util.Collection;
 import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.ContentionStatistics;
 
 /**
  * A counting semaphore.  Conceptually, a semaphore maintains a set of
@@ -707,6 +708,50 @@ public class Semaphore implements java.io.Serializable {
         return sync.getQueuedThreads();
     }
 
+    /**
+     * Enables or disables adaptive spinning for this semaphore: whether a
+     * thread that cannot acquire it immediately spins briefly before
+     * blocking, for a duration learned from how long spins on this
+     * semaphore have recently taken to succeed.  This can reduce the cost
+     * of contention for a semaphore that is held only for short periods.
+     * Adaptive spinning is disabled by default.
+     *
+     * @param enable true to enable adaptive spinning
+     * @see AbstractQueuedSynchronizer#setAdaptiveSpinning
+     * @since 9
+     */
+    public void setAdaptiveSpinning(boolean enable) {
+        sync.setAdaptiveSpinning(enable);
+    }
+
+    /**
+     * Enables or disables the recording of contention statistics for
+     * this semaphore, as reported by {@link #getContentionStatistics}.
+     * Profiling is disabled by default.
+     *
+     * @param enable true to enable contention profiling
+     * @see AbstractQueuedSynchronizer#setContentionProfiling
+     * @since 9
+     */
+    public void setContentionProfiling(boolean enable) {
+        sync.setContentionProfiling(enable);
+    }
+
+    /**
+     * Returns a snapshot of the contention statistics recorded for this
+     * semaphore while {@linkplain #setContentionProfiling contention
+     * profiling} was enabled.  Calls to the {@code tryAcquire()} methods
+     * without a timeout, which never wait, are not counted.  This method
+     * is designed for use in monitoring of the system state, not for
+     * synchronization control.
+     *
+     * @return the contention statistics
+     * @since 9
+     */
+    public ContentionStatistics getContentionStatistics() {
+        return sync.getContentionStatistics();
+    }
+
     /**
      * Returns a string identifying this semaphore, as well as its state.
      * The state, in brackets, includes the String {@code "Permits ="}
@@ -0,0 +1,159 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+/**
+ * A bounded {@linkplain BlockingQueue blocking queue} backed by an
+ * array, for exchanging elements between a single producer thread and
+ * a single consumer thread.  This queue orders elements FIFO
+ * (first-in-first-out).
+ *
+ * <p>Unlike {@link ArrayBlockingQueue}, this class uses no locks and
+ * allocates nothing per element.  The producer and the consumer each
+ * advance their own counter, and hand off elements through the array
+ * slots with release and acquire memory ordering only.  When the
+ * queue is full or empty, the blocking methods wait according to the
+ * {@link WaitStrategy} given on construction.
+ *
+ * <p>The capacity is rounded up to the next power of two and is
+ * reported by {@link #capacity()}.
+ *
+ * <p>At most one thread at a time may insert elements ({@code offer},
+ * {@code put}, {@code add}, {@code addAll}, {@code offerAll}), and at
+ * most one thread at a time may remove them ({@code poll}, {@code
+ * take}, {@code remove()}, {@code peek}, {@code element}, {@code
+ * drainTo}, {@code clear}).  Either role may pass to another thread,
+ * provided the hand-off is ordered by some other synchronization.  The
+ * effects of concurrent calls by two producers or by two consumers
+ * are undefined.
+ *
+ * <p>The {@code iterator}, {@code spliterator} and {@code toArray}
+ * methods return snapshots of the elements present when they are
+ * called.  Method {@code remove(Object)} and the iterator's {@code
+ * remove}, and so {@code removeIf}, {@code removeAll} and {@code
+ * retainAll}, may be called by any thread, without taking the
+ * producer or consumer role and concurrently with both.  They
+ * mark the slot of the removed element, which is freed only when
+ * the consumer reaches it; until then {@code remainingCapacity} counts
+ * the removed element as present.  Methods {@code size}, {@code
+ * isEmpty} and {@code remainingCapacity} are estimates while the
+ * queue is in use.
+ *
+ * <p>This class is a member of the
+ * <a href="{@docRoot}/java/util/package-summary.html#CollectionsFramework">
+ * Java Collections Framework</a>.
+ *
+ * @since 9
+ * @param <E> the type of elements held in this queue
+ */
+public class SpscArrayQueue<E> extends RingBufferQueue<E> {
+
+    /*
+     * A slot is free exactly when it holds null, so the producer needs
+     * only its own tail to find its next slot, and the consumer only
+     * its own head (Lamport's queue, using slot emptiness rather than
+     * the other side's counter to detect full and empty).  Each side
+     * still publishes its counter so that size() works.
+     */
+
+    /**
+     * Creates a {@code SpscArrayQueue} with at least the given
+     * capacity, whose blocking methods park waiting threads.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or is greater than {@code 1 << 30}
+     */
+    public SpscArrayQueue(int capacity) {
+        super(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a {@code SpscArrayQueue} with at least the given
+     * capacity and the given wait strategy.
+     *
+     * @param capacity the minimum capacity of this queue
+     * @param waitStrategy how threads wait in the blocking methods
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or is greater than {@code 1 << 30}
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public SpscArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    boolean enqueue(E e) {
+        final Object[] items = this.items;
+        final long t = tail;
+        final int i = (int)t & mask;
+        if (ITEMS.getAcquire(items, i) != null)
+            return false;
+        ITEMS.setRelease(items, i, e);
+        TAIL.setRelease(this, t + 1L);
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    E dequeue() {
+        final Object[] items = this.items;
+        for (;;) {
+            final long h = head;
+            final int i = (int)h & mask;
+            if (ITEMS.getAcquire(items, i) == null)
+                return null;
+            Object x = ITEMS.getAndSet(items, i, null);
+            HEAD.setRelease(this, h + 1L);
+            if (x != REMOVED)
+                return (E)x;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final Object[] items = this.items;
+        for (;;) {
+            final long h = head;
+            final int i = (int)h & mask;
+            Object x = ITEMS.getAcquire(items, i);
+            if (x != REMOVED)
+                return (E)x;
+            ITEMS.setRelease(items, i, null);   // pass over removed slot
+            HEAD.setRelease(this, h + 1L);
+            signalNotFull();
+        }
+    }
+}
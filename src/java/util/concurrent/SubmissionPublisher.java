@@ -100,6 +100,11 @@ import java.util.function.Consumer;
  * common case in which the only action of a subscriber is to request
  * and process all items using a supplied function.
  *
+ * <p>When there are many subscribers that each process every item,
+ * consider {@link MulticastPublisher}, in which all subscribers share
+ * a single buffer, so that the cost of publishing an item does not
+ * grow with the number of subscribers.
+ *
  * <p>This class may also serve as a convenient base for subclasses
  * that generate items, and use the methods in this class to publish
  * them.  For example here is a class that periodically publishes the
@@ -189,7 +194,7 @@ public class SubmissionPublisher<T> implements Flow.Publisher<T>,
      * Default executor -- ForkJoinPool.commonPool() unless it cannot
      * support parallelism.
      */
-    private static final Executor ASYNC_POOL =
+    static final Executor ASYNC_POOL =
         (ForkJoinPool.getCommonPoolParallelism() > 1) ?
         ForkJoinPool.commonPool() : new ThreadPerTaskExecutor();
 
@@ -872,7 +877,7 @@ public class SubmissionPublisher<T> implements Flow.Publisher<T>,
     }
 
     /** Subscriber for method consume */
-    private static final class ConsumerSubscriber<T>
+    static final class ConsumerSubscriber<T>
         implements Flow.Subscriber<T> {
         final CompletableFuture<Void> status;
         final Consumer<? super T> consumer;
@@ -0,0 +1,718 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+package java.util.concurrent;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps delayed tasks in a
+ * hierarchical hashed timing wheel, and runs them in a fixed pool of
+ * worker threads.  Compared with {@link ScheduledThreadPoolExecutor},
+ * whose delayed tasks are held in a binary heap under a single lock,
+ * scheduling and cancelling a task take constant time and do not
+ * contend with other threads scheduling or cancelling tasks, which
+ * suits applications that schedule large numbers of short timeouts
+ * that are usually cancelled before they expire.
+ *
+ * <p>Time is divided into <em>ticks</em> of a duration set when the
+ * executor is constructed.  A single timer thread advances the wheel
+ * once per tick, handing all of the tasks that have become due in the
+ * tick to the worker threads.  A task is never run before its delay
+ * has elapsed, but may be run up to about one tick later, so the tick
+ * duration trades timing precision against the overhead of the timer
+ * thread waking up.  Tasks with no delay are handed to the worker
+ * threads directly.  Tasks due in the same tick are not necessarily run
+ * in the order in which they were scheduled.
+ *
+ * <p>Scheduling threads do not touch the wheel: new tasks and
+ * cancellations are queued to the timer thread, which applies them at
+ * the start of the next tick.  A cancelled task is therefore removed
+ * from the wheel within about a tick, regardless of its delay.
+ *
+ * <p>After {@link #shutdown}, periodic tasks are cancelled, and delayed
+ * tasks already scheduled are run when due, as with the default
+ * policies of {@code ScheduledThreadPoolExecutor}.  The timer thread
+ * and worker threads are created by the thread factory supplied on
+ * construction, or {@link Executors#defaultThreadFactory} otherwise.
+ *
+ * @since 9
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+    implements ScheduledExecutorService {
+
+    /*
+     * The wheel has LEVELS levels of WHEEL_SIZE buckets each.  A task
+     * due in tick t, when the wheel has advanced to tick now, is held at
+     * the lowest level L for which t - now < WHEEL_SIZE^(L+1), in bucket
+     * (t >>> (L * WHEEL_BITS)) & WHEEL_MASK.  Whenever the level 0 index
+     * wraps around to 0, the current bucket of level 1 is "cascaded" by
+     * reinserting its tasks, which are then due within WHEEL_SIZE ticks,
+     * and so on up the levels (as in the classic Varghese & Lauck scheme
+     * and the Linux kernel's timer wheel).  With WHEEL_BITS * LEVELS >= 64
+     * any tick number can be held.
+     *
+     * All of the wheel is confined to the timer thread, apart from
+     * shutdownNow, which takes wheelLock (held by the timer thread while
+     * it advances) to drain it.  Tasks reach the timer thread through
+     * the lock-free submissions queue, and cancelled tasks through the
+     * cancellations queue; each bucket is a doubly-linked list, so that
+     * a cancelled task is unlinked in constant time.
+     */
+
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = (64 + WHEEL_BITS - 1) / WHEEL_BITS;
+
+    // runState values
+    private static final int RUNNING  = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP     = 2;
+
+    private final long tickNanos;
+    private final long startTime;
+    private final ThreadPoolExecutor workers;
+    private final ThreadFactory threadFactory;
+    private final Bucket[][] wheel;
+    private final ConcurrentLinkedQueue<WheelTask<?>> submissions =
+        new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<WheelTask<?>> cancellations =
+        new ConcurrentLinkedQueue<>();
+    private final ReentrantLock wheelLock = new ReentrantLock();
+    private final CountDownLatch timerDone = new CountDownLatch(1);
+
+    private volatile int runState;
+    private volatile Thread timer;
+    /** True while the timer thread is parked with no tasks to wait for. */
+    private volatile boolean idle;
+    /** The next tick to be processed; timer thread only. */
+    private long currentTick;
+    /** The number of tasks in the wheel; timer thread only. */
+    private int wheelSize;
+
+    /** A list of the tasks due in one slot of one level of the wheel. */
+    private static final class Bucket {
+        WheelTask<?> head;
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * number of worker threads and tick duration.
+     *
+     * @param poolSize the number of worker threads
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @throws IllegalArgumentException if {@code poolSize <= 0} or
+     *         {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public TimingWheelScheduledExecutor(int poolSize, long tickDuration,
+                                        TimeUnit unit) {
+        this(poolSize, tickDuration, unit, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new {@code TimingWheelScheduledExecutor} with the given
+     * number of worker threads, tick duration and thread factory.
+     *
+     * @param poolSize the number of worker threads
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @throws IllegalArgumentException if {@code poolSize <= 0} or
+     *         {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int poolSize, long tickDuration,
+                                        TimeUnit unit,
+                                        ThreadFactory threadFactory) {
+        if (poolSize <= 0 || tickDuration <= 0)
+            throw new IllegalArgumentException();
+        long tick = unit.toNanos(tickDuration);
+        if (threadFactory == null)
+            throw new NullPointerException();
+        this.tickNanos = tick;
+        this.threadFactory = threadFactory;
+        this.workers = new ThreadPoolExecutor(
+            poolSize, poolSize, 0L, NANOSECONDS,
+            new LinkedBlockingQueue<Runnable>(), threadFactory);
+        Bucket[][] w = new Bucket[LEVELS][WHEEL_SIZE];
+        for (Bucket[] level : w)
+            for (int i = 0; i < WHEEL_SIZE; i++)
+                level[i] = new Bucket();
+        this.wheel = w;
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Returns the duration of a tick.
+     *
+     * @param unit the time unit of the result
+     * @return the duration of a tick
+     */
+    public long getTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, NANOSECONDS);
+    }
+
+    private class WheelTask<V>
+            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** The nanoTime-based time when the task is enabled to execute. */
+        private volatile long time;
+
+        /** The tick in which the task is due; timer thread only. */
+        long tick;
+
+        /**
+         * Period for repeating tasks, in nanoseconds.
+         * A positive value indicates fixed-rate execution.
+         * A negative value indicates fixed-delay execution.
+         * A value of 0 indicates a non-repeating (one-shot) task.
+         */
+        private final long period;
+
+        /** Links within a bucket, and the bucket; timer thread only. */
+        WheelTask<?> prev, next;
+        Bucket bucket;
+
+        WheelTask(Runnable r, V result, long triggerTime, long period) {
+            super(r, result);
+            this.time = triggerTime;
+            this.period = period;
+        }
+
+        WheelTask(Callable<V> callable, long triggerTime) {
+            super(callable);
+            this.time = triggerTime;
+            this.period = 0;
+        }
+
+        long time() {
+            return time;
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+                return 0;
+            long diff = getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && runState < STOP)
+                cancellations.offer(this);
+            return cancelled;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reset/requeue if periodic.
+         */
+        public void run() {
+            if (!isPeriodic())
+                super.run();
+            else if (runState != RUNNING)
+                cancel(false);
+            else if (super.runAndReset()) {
+                long p = period;
+                time = (p > 0) ? time + p : triggerTime(-p);
+                reExecutePeriodic(this);
+            }
+        }
+    }
+
+    // Scheduling
+
+    /**
+     * Returns the nanoTime-based trigger time of a delayed action.
+     */
+    private static long triggerTime(long delay) {
+        // constrain delays to avoid overflow in time comparisons
+        return System.nanoTime() +
+            ((delay < 0L) ? 0L : Math.min(delay, Long.MAX_VALUE >>> 2));
+    }
+
+    /**
+     * Returns the tick in which a task with the given trigger time is
+     * due, the first tick that ends at or after the trigger time.
+     */
+    private long tickOf(long time) {
+        long t = time - startTime;
+        return (t <= 0L) ? 0L : (t - 1) / tickNanos + 1;
+    }
+
+    private void delayedExecute(WheelTask<?> task) {
+        if (runState != RUNNING)
+            throw new RejectedExecutionException();
+        if (task.getDelay(NANOSECONDS) <= 0L) {
+            workers.execute(task);
+            return;
+        }
+        submissions.offer(task);
+        if (runState != RUNNING && submissions.remove(task))
+            throw new RejectedExecutionException();
+        wakeTimer();
+    }
+
+    private void reExecutePeriodic(WheelTask<?> task) {
+        submissions.offer(task);
+        if (runState != RUNNING && submissions.remove(task))
+            task.cancel(false);
+        else
+            wakeTimer();
+    }
+
+    /**
+     * Starts the timer thread if necessary, and unparks it if idle.
+     */
+    private void wakeTimer() {
+        Thread t = timer;
+        if (t == null) {
+            wheelLock.lock();
+            try {
+                if ((t = timer) == null) {
+                    if (timerDone.getCount() == 0L)
+                        return;     // terminated before it was needed
+                    t = threadFactory.newThread(this::runTimer);
+                    if (t == null)
+                        throw new RejectedExecutionException();
+                    timer = t;
+                    t.start();
+                    return;
+                }
+            } finally {
+                wheelLock.unlock();
+            }
+        }
+        if (idle)
+            LockSupport.unpark(t);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<Void> t = new WheelTask<Void>(
+            command, null, triggerTime(unit.toNanos(delay)), 0L);
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        WheelTask<V> t = new WheelTask<V>(
+            callable, triggerTime(unit.toNanos(delay)));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0L)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t = new WheelTask<Void>(
+            command, null, triggerTime(unit.toNanos(initialDelay)),
+            unit.toNanos(period));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0L)
+            throw new IllegalArgumentException();
+        WheelTask<Void> t = new WheelTask<Void>(
+            command, null, triggerTime(unit.toNanos(initialDelay)),
+            -unit.toNanos(delay));
+        delayedExecute(t);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay.
+     *
+     * @throws RejectedExecutionException at discretion of
+     *         {@code RejectedExecutionHandler}, if the task
+     *         cannot be accepted for execution because the
+     *         executor has been shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void execute(Runnable command) {
+        schedule(command, 0, NANOSECONDS);
+    }
+
+    // The wheel, confined to the timer thread
+
+    private void insert(WheelTask<?> task) {
+        long t = task.tick, now = currentTick;
+        if (t < now)
+            t = now;
+        long delta = t - now;
+        int level = 0;
+        while (level < LEVELS - 1 &&
+               (delta >>> ((level + 1) * WHEEL_BITS)) != 0L)
+            level++;
+        Bucket b = wheel[level][(int)(t >>> (level * WHEEL_BITS)) & WHEEL_MASK];
+        WheelTask<?> h = b.head;
+        task.prev = null;
+        task.next = h;
+        if (h != null)
+            h.prev = task;
+        b.head = task;
+        task.bucket = b;
+        wheelSize++;
+    }
+
+    private void unlink(WheelTask<?> task) {
+        Bucket b = task.bucket;
+        if (b != null) {
+            WheelTask<?> p = task.prev, n = task.next;
+            if (p == null)
+                b.head = n;
+            else
+                p.next = n;
+            if (n != null)
+                n.prev = p;
+            task.prev = task.next = null;
+            task.bucket = null;
+            wheelSize--;
+        }
+    }
+
+    /**
+     * Removes and returns the list of tasks in the given bucket, linked
+     * by their next fields.
+     */
+    private WheelTask<?> takeAll(Bucket b) {
+        WheelTask<?> h = b.head;
+        b.head = null;
+        for (WheelTask<?> p = h; p != null; p = p.next) {
+            p.bucket = null;
+            wheelSize--;
+        }
+        return h;
+    }
+
+    /**
+     * Processes the current tick: cascades higher levels if the level 0
+     * index has wrapped, then dispatches the tasks due.
+     */
+    private void advance() {
+        long now = currentTick;
+        if ((now & WHEEL_MASK) == 0L) {
+            for (int level = 1; level < LEVELS; level++) {
+                int idx = (int)(now >>> (level * WHEEL_BITS)) & WHEEL_MASK;
+                for (WheelTask<?> p = takeAll(wheel[level][idx]), n;
+                     p != null; p = n) {
+                    n = p.next;
+                    p.next = null;
+                    insert(p);
+                }
+                if (idx != 0)
+                    break;
+            }
+        }
+        for (WheelTask<?> p = takeAll(wheel[0][(int)now & WHEEL_MASK]), n;
+             p != null; p = n) {
+            n = p.next;
+            p.next = p.prev = null;
+            if (!p.isCancelled()) {
+                try {
+                    workers.execute(p);
+                } catch (RejectedExecutionException ex) {
+                    p.cancel(false);
+                }
+            }
+        }
+        currentTick = now + 1;
+    }
+
+    /**
+     * Applies queued submissions and cancellations to the wheel.
+     */
+    private void drainQueues() {
+        boolean shutdown = runState != RUNNING;
+        for (WheelTask<?> t; (t = submissions.poll()) != null; ) {
+            if (t.isCancelled())
+                continue;
+            if (shutdown && t.isPeriodic()) {
+                t.cancel(false);
+                continue;
+            }
+            t.tick = tickOf(t.time());
+            insert(t);
+        }
+        for (WheelTask<?> t; (t = cancellations.poll()) != null; )
+            unlink(t);
+    }
+
+    /**
+     * Cancels the periodic tasks in the wheel, on shutdown.
+     */
+    private void cancelPeriodic() {
+        for (Bucket[] level : wheel) {
+            for (Bucket b : level) {
+                for (WheelTask<?> p = b.head, n; p != null; p = n) {
+                    n = p.next;
+                    if (p.isPeriodic()) {
+                        unlink(p);
+                        p.cancel(false);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * The body of the timer thread.
+     */
+    private void runTimer() {
+        boolean sawShutdown = false;
+        try {
+            for (;;) {
+                int rs = runState;
+                if (rs >= STOP)
+                    break;
+                wheelLock.lock();
+                try {
+                    if (runState >= STOP)
+                        break;
+                    // the last tick that has ended
+                    long nowTick = (System.nanoTime() - startTime) / tickNanos;
+                    if (wheelSize == 0 && currentTick < nowTick)
+                        currentTick = nowTick;  // nothing pending; skip ahead
+                    drainQueues();
+                    if (rs == SHUTDOWN && !sawShutdown) {
+                        sawShutdown = true;
+                        cancelPeriodic();
+                    }
+                    while (currentTick <= nowTick && wheelSize > 0)
+                        advance();
+                    if (wheelSize == 0 && rs != RUNNING &&
+                        submissions.isEmpty())
+                        break;
+                } finally {
+                    wheelLock.unlock();
+                }
+                if (wheelSize == 0) {
+                    idle = true;
+                    if (submissions.isEmpty() && runState == RUNNING)
+                        LockSupport.park(this);
+                    idle = false;
+                } else {
+                    long delay = startTime + currentTick * tickNanos
+                        - System.nanoTime();
+                    if (delay > 0L)
+                        LockSupport.parkNanos(this, delay);
+                }
+            }
+        } finally {
+            timerDone.countDown();
+            workers.shutdown();
+        }
+    }
+
+    // Lifecycle
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * tasks are executed, but no new tasks will be accepted.
+     * Periodic tasks are cancelled, and one-shot delayed tasks are run
+     * when due.  Invocation has no additional effect if already shut
+     * down.
+     *
+     * <p>This method does not wait for previously submitted tasks to
+     * complete execution.  Use {@link #awaitTermination awaitTermination}
+     * to do that.
+     */
+    public void shutdown() {
+        if (runState == RUNNING) {
+            runState = SHUTDOWN;
+            wakeTimerForShutdown();
+        }
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution.  These tasks are drained (removed)
+     * from the wheel upon return from this method.
+     *
+     * <p>This method does not wait for actively executing tasks to
+     * terminate.  Use {@link #awaitTermination awaitTermination} to
+     * do that.
+     *
+     * <p>There are no guarantees beyond best-effort attempts to stop
+     * processing actively executing tasks.  This implementation
+     * interrupts tasks via {@link Thread#interrupt}; any task that
+     * fails to respond to interrupts may never terminate.
+     *
+     * @return list of tasks that never commenced execution.
+     *         Each element of this list is a {@link ScheduledFuture}.
+     *         For tasks submitted via one of the {@code schedule}
+     *         methods, the element will be identical to the returned
+     *         {@code ScheduledFuture}.  For tasks submitted using
+     *         {@link #execute execute}, the element will be a
+     *         zero-delay {@code ScheduledFuture}.
+     */
+    public List<Runnable> shutdownNow() {
+        List<Runnable> tasks = new ArrayList<>();
+        wheelLock.lock();
+        try {
+            runState = STOP;
+            for (Bucket[] level : wheel) {
+                for (Bucket b : level) {
+                    for (WheelTask<?> p = takeAll(b), n; p != null; p = n) {
+                        n = p.next;
+                        p.next = p.prev = null;
+                        if (!p.isCancelled())
+                            tasks.add(p);
+                    }
+                }
+            }
+            for (WheelTask<?> t; (t = submissions.poll()) != null; )
+                if (!t.isCancelled())
+                    tasks.add(t);
+            cancellations.clear();
+        } finally {
+            wheelLock.unlock();
+        }
+        tasks.addAll(workers.shutdownNow());
+        wakeTimerForShutdown();
+        return tasks;
+    }
+
+    /**
+     * Wakes the timer thread so that it notices a change of run state,
+     * or completes termination if it was never started.
+     */
+    private void wakeTimerForShutdown() {
+        Thread t;
+        wheelLock.lock();
+        try {
+            if ((t = timer) == null) {
+                // never started, so there is nothing to wait for
+                timerDone.countDown();
+                workers.shutdown();
+                return;
+            }
+        } finally {
+            wheelLock.unlock();
+        }
+        LockSupport.unpark(t);
+    }
+
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return timerDone.getCount() == 0L && workers.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        if (!timerDone.await(timeout, unit))
+            return false;
+        return workers.awaitTermination(deadline - System.nanoTime(),
+                                        NANOSECONDS);
+    }
+
+    /**
+     * Returns a string identifying this executor, as well as its
+     * state, including indications of run state, tick duration and
+     * the worker pool.
+     *
+     * @return a string identifying this executor, as well as its state
+     */
+    public String toString() {
+        int rs = runState;
+        String runState =
+            (rs == RUNNING) ? "Running" :
+            isTerminated() ? "Terminated" :
+            "Shutting down";
+        return super.toString() +
+            "[" + runState +
+            ", tick duration = " + tickNanos + "ns" +
+            ", workers = " + workers + "]";
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent;
+
+/**
+ * Policies for how a thread waits in the blocking methods of the
+ * array-based ring buffer queues {@link SpscArrayQueue}, {@link
+ * MpscArrayQueue} and {@link MpmcArrayQueue}.  These queues do not
+ * use locks, so a thread that cannot insert or remove an element
+ * waits for another thread to do so in the manner selected here.
+ *
+ * @since 9
+ */
+public enum WaitStrategy {
+    /**
+     * Busy-waits, calling {@link Thread#onSpinWait} between attempts.
+     * This gives the lowest hand-off latency, at the cost of keeping a
+     * processor fully occupied for as long as the thread waits.  It is
+     * only appropriate when each waiting thread has a processor of its
+     * own.
+     */
+    SPIN,
+
+    /**
+     * Spins briefly, then calls {@link Thread#yield} between attempts.
+     * This reacts almost as quickly as {@link #SPIN} while letting
+     * other runnable threads make progress, but still consumes
+     * processor time while waiting.
+     */
+    YIELD,
+
+    /**
+     * Spins briefly, then parks the waiting thread until another thread
+     * inserts or removes an element.  This consumes no processor time
+     * while waiting, at the cost of a wakeup latency and of a full
+     * memory fence in each insertion and removal, which must check for
+     * parked threads.
+     */
+    PARK
+}
@@ -41,6 +41,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Provides a framework for implementing blocking locks and related
@@ -176,7 +177,16 @@ import java.util.concurrent.TimeUnit;
  * augment this by preceding calls to acquire methods with
  * "fast-path" checks, possibly prechecking {@link #hasContended}
  * and/or {@link #hasQueuedThreads} to only do so if the synchronizer
- * is likely not to be contended.
+ * is likely not to be contended.  Alternatively, {@link
+ * #setAdaptiveSpinning adaptive spinning} may be enabled, in which
+ * case a thread that fails its first {@code tryAcquire} keeps retrying
+ * for a while before queuing, for a duration that is adjusted
+ * according to whether such spins have recently succeeded.
+ *
+ * <p>{@linkplain #setContentionProfiling Contention profiling} may be
+ * enabled to count acquisitions, contended acquisitions, time spent
+ * blocked, and the longest queue, as reported by {@link
+ * #getContentionStatistics}.
  *
  * <p>This class provides an efficient and scalable basis for
  * synchronization in part by specializing its range of use to
@@ -567,6 +577,12 @@ public abstract class AbstractQueuedSynchronizer
      */
     private volatile int state;
 
+    /**
+     * Adaptive spinning and contention profiling control, created
+     * upon first use of either.
+     */
+    private transient volatile Contention contention;
+
     /**
      * Returns the current value of synchronization state.
      * This operation has memory semantics of a {@code volatile} read.
@@ -621,6 +637,7 @@ public abstract class AbstractQueuedSynchronizer
                 node.setPrevRelaxed(oldTail);
                 if (compareAndSetTail(oldTail, node)) {
                     oldTail.next = node;
+                    queueLengthChanged(1);
                     return oldTail;
                 }
             } else {
@@ -644,6 +661,7 @@ public abstract class AbstractQueuedSynchronizer
                 node.setPrevRelaxed(oldTail);
                 if (compareAndSetTail(oldTail, node)) {
                     oldTail.next = node;
+                    queueLengthChanged(1);
                     return node;
                 }
             } else {
@@ -663,6 +681,7 @@ public abstract class AbstractQueuedSynchronizer
         head = node;
         node.thread = null;
         node.prev = null;
+        queueLengthChanged(-1);
     }
 
     /**
@@ -780,6 +799,7 @@ public abstract class AbstractQueuedSynchronizer
             return;
 
         node.thread = null;
+        queueLengthChanged(-1);
 
         // Skip cancelled predecessors
         Node pred = node.prev;
@@ -868,10 +888,60 @@ public abstract class AbstractQueuedSynchronizer
      * @return {@code true} if interrupted
      */
     private final boolean parkAndCheckInterrupt() {
-        LockSupport.park(this);
+        Contention c = contention;
+        if (c == null || !c.profiling)
+            LockSupport.park(this);
+        else {
+            long start = System.nanoTime();
+            LockSupport.park(this);
+            c.parkNanos.add(System.nanoTime() - start);
+        }
         return Thread.interrupted();
     }
 
+    /**
+     * Timed version of park for acquire loops, also recording time
+     * blocked when profiling.
+     */
+    private void parkNanos(long nanosTimeout) {
+        Contention c = contention;
+        if (c == null || !c.profiling)
+            LockSupport.parkNanos(this, nanosTimeout);
+        else {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(this, nanosTimeout);
+            c.parkNanos.add(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Tries to acquire in exclusive mode, counting the attempt and
+     * spinning on failure if enabled.  Used in place of the initial
+     * call to tryAcquire in the exported acquire methods.
+     */
+    private boolean tryAcquireOrSpin(int arg) {
+        Contention c = contention;
+        return (c == null) ? tryAcquire(arg) : c.tryAcquire(this, arg);
+    }
+
+    /**
+     * Shared version of tryAcquireOrSpin.
+     */
+    private boolean tryAcquireSharedOrSpin(int arg) {
+        Contention c = contention;
+        return (c == null) ? tryAcquireShared(arg) >= 0
+            : c.tryAcquireShared(this, arg);
+    }
+
+    /**
+     * Records a change in the number of queued nodes, when profiling.
+     */
+    private void queueLengthChanged(int delta) {
+        Contention c = contention;
+        if (c != null && c.profiling)
+            c.queueLengthChanged(delta);
+    }
+
     /*
      * Various flavors of acquire, varying in exclusive/shared and
      * control modes.  Each is mostly the same, but annoyingly
@@ -962,7 +1032,7 @@ public abstract class AbstractQueuedSynchronizer
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
                     nanosTimeout > SPIN_FOR_TIMEOUT_THRESHOLD)
-                    LockSupport.parkNanos(this, nanosTimeout);
+                    parkNanos(nanosTimeout);
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
@@ -1061,7 +1131,7 @@ public abstract class AbstractQueuedSynchronizer
                 }
                 if (shouldParkAfterFailedAcquire(p, node) &&
                     nanosTimeout > SPIN_FOR_TIMEOUT_THRESHOLD)
-                    LockSupport.parkNanos(this, nanosTimeout);
+                    parkNanos(nanosTimeout);
                 if (Thread.interrupted())
                     throw new InterruptedException();
             }
@@ -1222,7 +1292,7 @@ public abstract class AbstractQueuedSynchronizer
      *        can represent anything you like.
      */
     public final void acquire(int arg) {
-        if (!tryAcquire(arg) &&
+        if (!tryAcquireOrSpin(arg) &&
             acquireQueued(addWaiter(Node.EXCLUSIVE), arg))
             selfInterrupt();
     }
@@ -1245,7 +1315,7 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
-        if (!tryAcquire(arg))
+        if (!tryAcquireOrSpin(arg))
             doAcquireInterruptibly(arg);
     }
 
@@ -1270,7 +1340,7 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
-        return tryAcquire(arg) ||
+        return tryAcquireOrSpin(arg) ||
             doAcquireNanos(arg, nanosTimeout);
     }
 
@@ -1306,7 +1376,7 @@ public abstract class AbstractQueuedSynchronizer
      *        and can represent anything you like.
      */
     public final void acquireShared(int arg) {
-        if (tryAcquireShared(arg) < 0)
+        if (!tryAcquireSharedOrSpin(arg))
             doAcquireShared(arg);
     }
 
@@ -1327,7 +1397,7 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
-        if (tryAcquireShared(arg) < 0)
+        if (!tryAcquireSharedOrSpin(arg))
             doAcquireSharedInterruptibly(arg);
     }
 
@@ -1351,7 +1421,7 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
-        return tryAcquireShared(arg) >= 0 ||
+        return tryAcquireSharedOrSpin(arg) ||
             doAcquireSharedNanos(arg, nanosTimeout);
     }
 
@@ -1627,6 +1697,207 @@ public abstract class AbstractQueuedSynchronizer
         return list;
     }
 
+    // Adaptive spinning and contention profiling
+
+    /**
+     * Returns the adaptive spinning and profiling control, creating
+     * it if necessary.
+     */
+    private Contention contention() {
+        Contention c;
+        if ((c = contention) == null &&
+            !CONTENTION.compareAndSet(this, null, c = new Contention()))
+            c = contention;
+        return c;
+    }
+
+    /**
+     * Enables or disables adaptive spinning.  When enabled, a thread
+     * whose first attempt to acquire fails retries for a while,
+     * without blocking, before it is queued.  The length of these
+     * spins is learned per synchronizer: it grows while spins
+     * succeed, and shrinks while they fail, so that spinning persists
+     * only when the synchronizer is typically held for periods
+     * shorter than the costs of blocking and unblocking a thread.
+     * Spinning is never used on uniprocessors.  Adaptive spinning is
+     * disabled by default.
+     *
+     * @param enable true to enable adaptive spinning
+     * @since 9
+     */
+    public final void setAdaptiveSpinning(boolean enable) {
+        if (enable || contention != null)
+            contention().spinning = enable;
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     * @see #setAdaptiveSpinning
+     * @since 9
+     */
+    public final boolean isAdaptiveSpinning() {
+        Contention c = contention;
+        return c != null && c.spinning;
+    }
+
+    /**
+     * Enables or disables contention profiling.  While enabled, the
+     * counts reported by {@link #getContentionStatistics} are
+     * accumulated.  Disabling profiling retains the counts, and
+     * enabling it again resumes counting from them.  Profiling is
+     * disabled by default.
+     *
+     * @param enable true to enable contention profiling
+     * @since 9
+     */
+    public final void setContentionProfiling(boolean enable) {
+        if (enable || contention != null)
+            contention().profiling = enable;
+    }
+
+    /**
+     * Returns {@code true} if contention profiling is enabled.
+     *
+     * @return {@code true} if contention profiling is enabled
+     * @see #setContentionProfiling
+     * @since 9
+     */
+    public final boolean isContentionProfiling() {
+        Contention c = contention;
+        return c != null && c.profiling;
+    }
+
+    /**
+     * Returns a snapshot of the contention statistics recorded while
+     * {@linkplain #setContentionProfiling contention profiling} was
+     * enabled, all zero if it never was.  Acquisitions are counted by
+     * the acquire methods of this class, not by calls to {@code
+     * tryAcquire} or {@code tryAcquireShared} made directly by
+     * subclasses.  The counts are updated concurrently with the
+     * operations they count, so are only estimates while the
+     * synchronizer is in use.
+     *
+     * @return the contention statistics
+     * @since 9
+     */
+    public final ContentionStatistics getContentionStatistics() {
+        Contention c = contention;
+        return (c == null)
+            ? new ContentionStatistics(0L, 0L, 0L, 0)
+            : new ContentionStatistics(c.acquisitions.sum(),
+                                       c.contended.sum(),
+                                       c.parkNanos.sum(),
+                                       c.maxQueued);
+    }
+
+    /**
+     * Control and counters for adaptive spinning and contention
+     * profiling.  Only synchronizers using either feature allocate
+     * one, so for all others the acquire methods pay just one extra
+     * volatile read of field "contention".
+     *
+     * The spin limit is a count of onSpinWait calls, each followed by
+     * a retry of tryAcquire (which for the usual synchronizers just
+     * reads state unless it looks available).  A successful spin
+     * raises the limit by half plus a constant, and a failed one
+     * lowers it by an eighth, within [MIN_SPINS, MAX_SPINS].  Keeping a
+     * nonzero minimum lets a synchronizer whose hold times shorten
+     * again rediscover spinning.  The limit is read and written
+     * without synchronization: lost updates only slow adaptation.
+     *
+     * The queue length is tracked by counting nodes in and out of the
+     * sync queue, so is approximate if profiling is enabled or
+     * disabled while threads are queued.
+     */
+    static final class Contention {
+        /** Number of CPUs, to disable spinning on uniprocessors */
+        static final int NCPU = Runtime.getRuntime().availableProcessors();
+        static final int MIN_SPINS = 1 << 4;
+        static final int MAX_SPINS = 1 << 12;
+        static final int INITIAL_SPINS = 1 << 8;
+
+        volatile boolean spinning;
+        volatile boolean profiling;
+        int spins = INITIAL_SPINS;
+        final LongAdder acquisitions = new LongAdder();
+        final LongAdder contended = new LongAdder();
+        final LongAdder parkNanos = new LongAdder();
+        volatile int queued;
+        volatile int maxQueued;
+
+        boolean tryAcquire(AbstractQueuedSynchronizer sync, int arg) {
+            boolean profile = profiling;
+            if (profile)
+                acquisitions.increment();
+            if (sync.tryAcquire(arg))
+                return true;
+            if (profile)
+                contended.increment();
+            if (spinning && NCPU > 1) {
+                for (int k = spins; k > 0; --k) {
+                    Thread.onSpinWait();
+                    if (sync.tryAcquire(arg)) {
+                        spun(true);
+                        return true;
+                    }
+                }
+                spun(false);
+            }
+            return false;
+        }
+
+        boolean tryAcquireShared(AbstractQueuedSynchronizer sync, int arg) {
+            boolean profile = profiling;
+            if (profile)
+                acquisitions.increment();
+            if (sync.tryAcquireShared(arg) >= 0)
+                return true;
+            if (profile)
+                contended.increment();
+            if (spinning && NCPU > 1) {
+                for (int k = spins; k > 0; --k) {
+                    Thread.onSpinWait();
+                    if (sync.tryAcquireShared(arg) >= 0) {
+                        spun(true);
+                        return true;
+                    }
+                }
+                spun(false);
+            }
+            return false;
+        }
+
+        /** Adjusts the spin limit after a spin. */
+        private void spun(boolean acquired) {
+            int s = spins;
+            spins = acquired
+                ? Math.min(s + (s >>> 1) + MIN_SPINS, MAX_SPINS)
+                : Math.max(s - (s >>> 3), MIN_SPINS);
+        }
+
+        void queueLengthChanged(int delta) {
+            int n = (int)QUEUED.getAndAdd(this, delta) + delta;
+            for (int m; n > (m = maxQueued); )
+                if (MAX_QUEUED.weakCompareAndSet(this, m, n))
+                    break;
+        }
+
+        private static final VarHandle QUEUED;
+        private static final VarHandle MAX_QUEUED;
+        static {
+            try {
+                MethodHandles.Lookup l = MethodHandles.lookup();
+                QUEUED = l.findVarHandle(Contention.class, "queued", int.class);
+                MAX_QUEUED = l.findVarHandle(Contention.class, "maxQueued",
+                                             int.class);
+            } catch (ReflectiveOperationException e) {
+                throw new Error(e);
+            }
+        }
+    }
+
     /**
      * Returns a string identifying this synchronizer, as well as its state.
      * The state, in brackets, includes the String {@code "State ="}
@@ -2281,6 +2552,7 @@ public abstract class AbstractQueuedSynchronizer
     private static final VarHandle STATE;
     private static final VarHandle HEAD;
     private static final VarHandle TAIL;
+    private static final VarHandle CONTENTION;
 
     static {
         try {
@@ -2288,6 +2560,7 @@ public abstract class AbstractQueuedSynchronizer
             STATE = l.findVarHandle(AbstractQueuedSynchronizer.class, "state", int.class);
             HEAD = l.findVarHandle(AbstractQueuedSynchronizer.class, "head", Node.class);
             TAIL = l.findVarHandle(AbstractQueuedSynchronizer.class, "tail", Node.class);
+            CONTENTION = l.findVarHandle(AbstractQueuedSynchronizer.class, "contention", Contention.class);
         } catch (ReflectiveOperationException e) {
             throw new Error(e);
         }
@@ -0,0 +1,710 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent.locks;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A reentrant {@link ReadWriteLock} that is biased towards readers.
+ * While the lock is biased, a thread acquires the read lock by
+ * publishing itself in one slot of a striped table of visible
+ * readers, without updating any state shared with other readers, so
+ * read-mostly workloads scale with the number of processors rather
+ * than contending on a single synchronization word as {@link
+ * ReentrantReadWriteLock} does.  A writer revokes the bias and then
+ * waits for the visible readers to drain before proceeding.  This
+ * design follows the BRAVO ("Biased Locking for Reader-Writer Locks")
+ * scheme layered over an underlying {@code ReentrantReadWriteLock},
+ * which supplies the blocking, queuing and fairness behavior.
+ *
+ * <p>Readers that find the bias revoked, or whose slot is occupied by
+ * another thread, use the underlying lock.  After a writer revokes the
+ * bias, readers do not restore it until a period proportional to the
+ * time the revocation took has elapsed, which bounds the overhead that
+ * frequent writers can incur.  Revocation is comparatively expensive,
+ * so this class is suited to data that is read much more often than
+ * it is written; otherwise a {@code ReentrantReadWriteLock} is usually
+ * preferable.  Each lock also occupies more memory than a {@code
+ * ReentrantReadWriteLock}, as the table of visible readers is sized in
+ * proportion to the number of available processors.
+ *
+ * <p>This lock otherwise has the same semantics as a {@code
+ * ReentrantReadWriteLock}: both the read and write locks are
+ * reentrant, a writer can acquire the read lock and so downgrade to
+ * it, but upgrading from a read lock to the write lock is not
+ * possible, and only the write lock supports {@link Condition}s.
+ * Waiting for visible readers to drain is not interruptible, although
+ * the timed {@link Lock#tryLock(long,TimeUnit) tryLock} of the write
+ * lock gives up if they do not drain within the given waiting time.
+ *
+ * <p>Unlike {@code ReentrantReadWriteLock}, this class provides no
+ * methods for monitoring the number of read holds, since reads made
+ * while the lock is biased are not recorded in any single place.
+ *
+ * @since 9
+ */
+public class BiasedReadWriteLock implements ReadWriteLock {
+    /*
+     * Overview: a reader first checks whether it already owns its
+     * slot (a reentrant read), and otherwise, if readBias is set, CASes
+     * its Thread into the empty slot selected by hashing its id and
+     * then rechecks readBias, backing out if it was cleared in the
+     * meantime.  A writer acquires the underlying write lock, which
+     * excludes all readers using the underlying lock, and then, if
+     * readBias is set, clears it and waits for every slot to become
+     * empty.  Because readBias and the slots are only accessed with
+     * volatile semantics, either the reader sees readBias cleared or
+     * the writer sees the occupied slot.  Only readers holding the
+     * underlying read lock set readBias, and they do not do so while
+     * the write lock is held (by a thread downgrading), so the bias
+     * cannot be restored while a writer is active.  A timed writer
+     * that gives up while readers remain visible sets readBias again
+     * before releasing the underlying lock, so that later writers
+     * still wait for those readers.
+     *
+     * Slots are spaced SLOT_STRIDE elements apart so that readers in
+     * different slots do not falsely share cache lines.  Reentrant
+     * acquisitions by the slot owner are counted in holds, which is
+     * written only by the owner (and only for nested holds), and whose
+     * values are published to later owners by the volatile store that
+     * empties the slot.
+     *
+     * Conditions of the write lock are wrapped so that when await
+     * reacquires the underlying write lock it also revokes any bias
+     * restored while the lock was released.
+     */
+
+    /** Number of CPUS, to size the table and to control spinning */
+    private static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The maximum number of reader slots */
+    private static final int MAX_SLOTS = 256;
+
+    /** Log2 of the spacing between slots in the readers array */
+    private static final int SLOT_SHIFT = 4;
+
+    /**
+     * The multiple of the time taken by a revocation during which the
+     * bias is not restored.
+     */
+    private static final long INHIBIT_MULTIPLIER = 9L;
+
+    /** The number of spins before yielding while waiting for readers */
+    private static final int DRAIN_SPINS = (NCPU > 1) ? 1 << 6 : 0;
+
+    /** The lock used when not biased, and by all writers */
+    private final ReentrantReadWriteLock underlying;
+
+    /** The visible readers, at indices that are multiples of the stride */
+    private final Thread[] readers;
+
+    /** Reentrant holds beyond the first, indexed by slot */
+    private final int[] holds;
+
+    /** Mask for slot indices */
+    private final int mask;
+
+    /** Whether readers may use the visible readers table */
+    private volatile boolean readBias;
+
+    /** The nanoTime before which the bias is not restored */
+    private volatile long inhibitUntil;
+
+    private final ReadLock readerLock;
+    private final WriteLock writerLock;
+
+    /**
+     * Creates a new {@code BiasedReadWriteLock} with default
+     * (nonfair) ordering properties.
+     */
+    public BiasedReadWriteLock() {
+        this(false);
+    }
+
+    /**
+     * Creates a new {@code BiasedReadWriteLock} with the given
+     * fairness policy for the underlying lock.  The fairness policy
+     * applies only among threads that use the underlying lock.
+     *
+     * @param fair {@code true} if the underlying lock should use a
+     *        fair ordering policy
+     */
+    public BiasedReadWriteLock(boolean fair) {
+        int n = 8;
+        while (n < NCPU << 2 && n < MAX_SLOTS)
+            n <<= 1;
+        underlying = new ReentrantReadWriteLock(fair);
+        readers = new Thread[n << SLOT_SHIFT];
+        holds = new int[n];
+        mask = n - 1;
+        readBias = true;
+        readerLock = new ReadLock(this);
+        writerLock = new WriteLock(this);
+    }
+
+    public BiasedReadWriteLock.WriteLock writeLock() { return writerLock; }
+    public BiasedReadWriteLock.ReadLock  readLock()  { return readerLock; }
+
+    /**
+     * Returns the slot of the given thread.
+     */
+    private int slotFor(Thread t) {
+        long id = t.getId();
+        int h = (int)(id ^ (id >>> 32)) * 0x9e3779b9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Tries to acquire a read hold using the visible readers table.
+     *
+     * @return true if acquired
+     */
+    private boolean tryFastRead() {
+        Thread t = Thread.currentThread();
+        int s = slotFor(t);
+        int i = s << SLOT_SHIFT;
+        Thread[] rs = readers;
+        Object r = READERS.getVolatile(rs, i);
+        if (r == t) {
+            ++holds[s];
+            return true;
+        }
+        if (r == null && readBias &&
+            READERS.compareAndSet(rs, i, null, t)) {
+            if (readBias)
+                return true;
+            READERS.setVolatile(rs, i, null);
+        }
+        return false;
+    }
+
+    /**
+     * Called after acquiring the underlying read lock; restores the
+     * bias if it is revoked, no longer inhibited, and the write lock
+     * is not held by this thread.
+     */
+    private void afterSlowRead() {
+        if (!readBias && System.nanoTime() - inhibitUntil >= 0L &&
+            !underlying.isWriteLocked())
+            readBias = true;
+    }
+
+    /**
+     * Releases a read hold of the current thread.
+     */
+    private void releaseRead() {
+        Thread t = Thread.currentThread();
+        int s = slotFor(t);
+        int i = s << SLOT_SHIFT;
+        if (READERS.getVolatile(readers, i) == t) {
+            if (holds[s] > 0)
+                --holds[s];
+            else
+                READERS.setVolatile(readers, i, null);
+        }
+        else
+            underlying.readLock().unlock();
+    }
+
+    /**
+     * Called while holding the underlying write lock; revokes the
+     * bias, if set, and waits for visible readers to drain.
+     *
+     * @param timed true if the wait is timed
+     * @param deadline the nanoTime deadline, if timed
+     * @return true if no visible readers remain, else false on timeout,
+     *         in which case the bias is restored
+     */
+    private boolean revokeBias(boolean timed, long deadline) {
+        if (!readBias)
+            return true;
+        readBias = false;
+        long start = System.nanoTime();
+        Thread[] rs = readers;
+        for (int i = 0; i < rs.length; i += 1 << SLOT_SHIFT) {
+            for (int spins = DRAIN_SPINS;
+                 READERS.getVolatile(rs, i) != null; ) {
+                if (timed && deadline - System.nanoTime() <= 0L) {
+                    readBias = true; // remaining readers must stay visible
+                    return false;
+                }
+                if (spins > 0) {
+                    --spins;
+                    Thread.onSpinWait();
+                }
+                else
+                    Thread.yield();
+            }
+        }
+        long now = System.nanoTime();
+        inhibitUntil = now + (now - start) * INHIBIT_MULTIPLIER;
+        return true;
+    }
+
+    /**
+     * The lock returned by method {@link BiasedReadWriteLock#readLock}.
+     */
+    public static class ReadLock implements Lock {
+        private final BiasedReadWriteLock lock;
+
+        /**
+         * Constructor for use by subclasses.
+         *
+         * @param lock the outer lock object
+         * @throws NullPointerException if the lock is null
+         */
+        protected ReadLock(BiasedReadWriteLock lock) {
+            if (lock == null)
+                throw new NullPointerException();
+            this.lock = lock;
+        }
+
+        /**
+         * Acquires the read lock.
+         *
+         * <p>Acquires the read lock if the write lock is not held by
+         * another thread and returns immediately.
+         *
+         * <p>If the write lock is held by another thread then the
+         * current thread becomes disabled for thread scheduling
+         * purposes and lies dormant until the read lock has been
+         * acquired.
+         */
+        public void lock() {
+            BiasedReadWriteLock l = lock;
+            if (!l.tryFastRead()) {
+                l.underlying.readLock().lock();
+                l.afterSlowRead();
+            }
+        }
+
+        /**
+         * Acquires the read lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         * @see ReentrantReadWriteLock.ReadLock#lockInterruptibly
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            BiasedReadWriteLock l = lock;
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (!l.tryFastRead()) {
+                l.underlying.readLock().lockInterruptibly();
+                l.afterSlowRead();
+            }
+        }
+
+        /**
+         * Acquires the read lock only if the write lock is not held by
+         * another thread at the time of invocation.
+         *
+         * @return {@code true} if the read lock was acquired
+         * @see ReentrantReadWriteLock.ReadLock#tryLock()
+         */
+        public boolean tryLock() {
+            BiasedReadWriteLock l = lock;
+            if (l.tryFastRead())
+                return true;
+            if (!l.underlying.readLock().tryLock())
+                return false;
+            l.afterSlowRead();
+            return true;
+        }
+
+        /**
+         * Acquires the read lock if the write lock is not held by
+         * another thread within the given waiting time and the
+         * current thread has not been {@linkplain Thread#interrupt
+         * interrupted}.
+         *
+         * @param timeout the time to wait for the read lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the read lock was acquired
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         * @see ReentrantReadWriteLock.ReadLock#tryLock(long,TimeUnit)
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            BiasedReadWriteLock l = lock;
+            if (unit == null)
+                throw new NullPointerException();
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (l.tryFastRead())
+                return true;
+            if (!l.underlying.readLock().tryLock(timeout, unit))
+                return false;
+            l.afterSlowRead();
+            return true;
+        }
+
+        /**
+         * Attempts to release this lock.
+         *
+         * <p>If the number of readers is now zero then the lock
+         * is made available for write lock attempts.  If the current
+         * thread does not hold this lock then {@link
+         * IllegalMonitorStateException} is thrown.
+         *
+         * @throws IllegalMonitorStateException if the current thread
+         * does not hold this lock
+         */
+        public void unlock() {
+            lock.releaseRead();
+        }
+
+        /**
+         * Throws {@code UnsupportedOperationException} because
+         * {@code ReadLocks} do not support conditions.
+         *
+         * @throws UnsupportedOperationException always
+         */
+        public Condition newCondition() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock
+         * state.  The state, in brackets, indicates whether the lock
+         * is currently biased towards readers.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            return super.toString() +
+                (lock.readBias ? "[Biased]" : "[Unbiased]");
+        }
+    }
+
+    /**
+     * The lock returned by method {@link BiasedReadWriteLock#writeLock}.
+     */
+    public static class WriteLock implements Lock {
+        private final BiasedReadWriteLock lock;
+
+        /**
+         * Constructor for use by subclasses.
+         *
+         * @param lock the outer lock object
+         * @throws NullPointerException if the lock is null
+         */
+        protected WriteLock(BiasedReadWriteLock lock) {
+            if (lock == null)
+                throw new NullPointerException();
+            this.lock = lock;
+        }
+
+        /**
+         * Acquires the write lock.
+         *
+         * <p>Acquires the write lock if neither the read nor write lock
+         * are held by another thread and returns immediately, setting
+         * the write lock hold count to one.  If the lock is biased
+         * towards readers, the bias is first revoked and the current
+         * thread waits for readers that acquired the read lock while
+         * it was biased to release it.
+         *
+         * @see ReentrantReadWriteLock.WriteLock#lock
+         */
+        public void lock() {
+            BiasedReadWriteLock l = lock;
+            l.underlying.writeLock().lock();
+            l.revokeBias(false, 0L);
+        }
+
+        /**
+         * Acquires the write lock unless the current thread is
+         * {@linkplain Thread#interrupt interrupted}.  Waiting for
+         * readers to release a biased read lock is not interruptible.
+         *
+         * @throws InterruptedException if the current thread is interrupted
+         * @see ReentrantReadWriteLock.WriteLock#lockInterruptibly
+         */
+        public void lockInterruptibly() throws InterruptedException {
+            BiasedReadWriteLock l = lock;
+            l.underlying.writeLock().lockInterruptibly();
+            l.revokeBias(false, 0L);
+        }
+
+        /**
+         * Acquires the write lock only if it is not held by another
+         * thread at the time of invocation and no thread holds the
+         * read lock, including readers that acquired it while the lock
+         * was biased towards them.
+         *
+         * @return {@code true} if the lock was free and was acquired
+         * by the current thread, or the write lock was already held
+         * by the current thread; and {@code false} otherwise.
+         * @see ReentrantReadWriteLock.WriteLock#tryLock()
+         */
+        public boolean tryLock() {
+            BiasedReadWriteLock l = lock;
+            ReentrantReadWriteLock.WriteLock w = l.underlying.writeLock();
+            if (!w.tryLock())
+                return false;
+            if (l.revokeBias(true, System.nanoTime()))
+                return true;
+            w.unlock();
+            return false;
+        }
+
+        /**
+         * Acquires the write lock if it is not held by another thread
+         * within the given waiting time and the current thread has
+         * not been {@linkplain Thread#interrupt interrupted}.  The
+         * waiting time includes the time spent waiting for readers to
+         * release a biased read lock.
+         *
+         * @param timeout the time to wait for the write lock
+         * @param unit the time unit of the timeout argument
+         * @return {@code true} if the lock was free and was acquired
+         * by the current thread, or the write lock was already held
+         * by the current thread; and {@code false} if the waiting
+         * time elapsed before the lock could be acquired.
+         * @throws InterruptedException if the current thread is interrupted
+         * @throws NullPointerException if the time unit is null
+         * @see ReentrantReadWriteLock.WriteLock#tryLock(long,TimeUnit)
+         */
+        public boolean tryLock(long timeout, TimeUnit unit)
+                throws InterruptedException {
+            BiasedReadWriteLock l = lock;
+            long deadline = System.nanoTime() + unit.toNanos(timeout);
+            ReentrantReadWriteLock.WriteLock w = l.underlying.writeLock();
+            if (!w.tryLock(timeout, unit))
+                return false;
+            if (l.revokeBias(true, deadline))
+                return true;
+            w.unlock();
+            return false;
+        }
+
+        /**
+         * Attempts to release this lock.
+         *
+         * <p>If the current thread is the holder of this lock then
+         * the hold count is decremented.  If the hold count is now
+         * zero then the lock is released.  If the current thread is
+         * not the holder of this lock then {@link
+         * IllegalMonitorStateException} is thrown.
+         *
+         * @throws IllegalMonitorStateException if the current thread does not
+         * hold this lock
+         */
+        public void unlock() {
+            lock.underlying.writeLock().unlock();
+        }
+
+        /**
+         * Returns a {@link Condition} instance for use with this
+         * {@link Lock} instance, with the same properties as those of
+         * {@link ReentrantReadWriteLock.WriteLock#newCondition}.
+         *
+         * @return the Condition object
+         */
+        public Condition newCondition() {
+            return new BiasedCondition(lock,
+                                       lock.underlying.writeLock()
+                                       .newCondition());
+        }
+
+        /**
+         * Returns a string identifying this lock, as well as its lock
+         * state.  The state, in brackets includes either the String
+         * {@code "Unlocked"} or the String {@code "Locked by"}
+         * followed by the {@linkplain Thread#getName name} of the owning
+         * thread.
+         *
+         * @return a string identifying this lock, as well as its lock state
+         */
+        public String toString() {
+            String s = lock.underlying.writeLock().toString();
+            return super.toString() + s.substring(s.lastIndexOf('['));
+        }
+
+        /**
+         * Queries if this write lock is held by the current thread.
+         *
+         * @return {@code true} if the current thread holds this lock and
+         *         {@code false} otherwise
+         */
+        public boolean isHeldByCurrentThread() {
+            return lock.underlying.isWriteLockedByCurrentThread();
+        }
+
+        /**
+         * Queries the number of holds on this write lock by the current
+         * thread.
+         *
+         * @return the number of holds on this lock by the current thread,
+         *         or zero if this lock is not held by the current thread
+         */
+        public int getHoldCount() {
+            return lock.underlying.getWriteHoldCount();
+        }
+    }
+
+    /**
+     * A condition of the write lock that revokes any restored bias
+     * when reacquiring the lock after waiting.
+     */
+    static final class BiasedCondition implements Condition {
+        final BiasedReadWriteLock lock;
+        final Condition condition;
+
+        BiasedCondition(BiasedReadWriteLock lock, Condition condition) {
+            this.lock = lock;
+            this.condition = condition;
+        }
+
+        public void await() throws InterruptedException {
+            try {
+                condition.await();
+            } finally {
+                lock.revokeBias(false, 0L);
+            }
+        }
+
+        public void awaitUninterruptibly() {
+            condition.awaitUninterruptibly();
+            lock.revokeBias(false, 0L);
+        }
+
+        public long awaitNanos(long nanosTimeout)
+                throws InterruptedException {
+            try {
+                return condition.awaitNanos(nanosTimeout);
+            } finally {
+                lock.revokeBias(false, 0L);
+            }
+        }
+
+        public boolean await(long time, TimeUnit unit)
+                throws InterruptedException {
+            try {
+                return condition.await(time, unit);
+            } finally {
+                lock.revokeBias(false, 0L);
+            }
+        }
+
+        public boolean awaitUntil(Date deadline)
+                throws InterruptedException {
+            try {
+                return condition.awaitUntil(deadline);
+            } finally {
+                lock.revokeBias(false, 0L);
+            }
+        }
+
+        public void signal() {
+            condition.signal();
+        }
+
+        public void signalAll() {
+            condition.signalAll();
+        }
+    }
+
+    /**
+     * Queries if the write lock is held by any thread.
+     * This method is designed for use in monitoring system state,
+     * not for synchronization control.
+     *
+     * @return {@code true} if any thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLocked() {
+        return underlying.isWriteLocked();
+    }
+
+    /**
+     * Queries if the write lock is held by the current thread.
+     *
+     * @return {@code true} if the current thread holds the write lock and
+     *         {@code false} otherwise
+     */
+    public boolean isWriteLockedByCurrentThread() {
+        return underlying.isWriteLockedByCurrentThread();
+    }
+
+    /**
+     * Queries if this lock is currently biased towards readers, so
+     * that the read lock can be acquired without contending with
+     * other readers.  This method is designed for use in monitoring
+     * system state, not for synchronization control.
+     *
+     * @return {@code true} if this lock is biased towards readers
+     */
+    public boolean isReadBiased() {
+        return readBias;
+    }
+
+    /**
+     * Returns {@code true} if the underlying lock has fairness set true.
+     *
+     * @return {@code true} if the underlying lock has fairness set true
+     */
+    public final boolean isFair() {
+        return underlying.isFair();
+    }
+
+    /**
+     * Returns a string identifying this lock, as well as its lock state.
+     * The state, in brackets, includes either the String {@code
+     * "Write locked"} or the String {@code "Unlocked"}, and either
+     * {@code "Biased"} or {@code "Unbiased"} according to whether the
+     * lock is currently biased towards readers.
+     *
+     * @return a string identifying this lock, as well as its lock state
+     */
+    public String toString() {
+        return super.toString() +
+            (underlying.isWriteLocked() ? "[Write locked" : "[Unlocked") +
+            (readBias ? ", Biased]" : ", Unbiased]");
+    }
+
+    // VarHandle mechanics
+    private static final VarHandle READERS;
+    static {
+        READERS = MethodHandles.arrayElementVarHandle(Thread[].class);
+    }
+}
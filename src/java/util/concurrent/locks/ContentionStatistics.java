@@ -0,0 +1,116 @@
+/*
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+/*
+ *
+ *
+ *
+ *
+ *
+ * Written by Doug Lea with assistance from members of JCP JSR-166
+ * Expert Group and released to the public domain, as explained at
+ * http://creativecommons.org/publicdomain/zero/1.0/
+ */
+
+
+package java.util.concurrent.locks;
+
+/**
+ * A snapshot of the contention statistics of a synchronizer based on
+ * {@link AbstractQueuedSynchronizer}, recorded while {@linkplain
+ * AbstractQueuedSynchronizer#setContentionProfiling contention
+ * profiling} is enabled.  Locks and other synchronizers in this
+ * package and in {@code java.util.concurrent} report these through
+ * methods such as {@link ReentrantLock#getContentionStatistics}.
+ *
+ * @since 9
+ */
+public final class ContentionStatistics {
+    private final long acquisitions;
+    private final long contendedAcquisitions;
+    private final long parkNanos;
+    private final int maxQueueLength;
+
+    ContentionStatistics(long acquisitions, long contendedAcquisitions,
+                         long parkNanos, int maxQueueLength) {
+        this.acquisitions = acquisitions;
+        this.contendedAcquisitions = contendedAcquisitions;
+        this.parkNanos = parkNanos;
+        this.maxQueueLength = maxQueueLength;
+    }
+
+    /**
+     * Returns the number of attempts to acquire, whether or not they
+     * succeeded immediately.
+     *
+     * @return the number of attempts to acquire
+     */
+    public long getAcquisitions() {
+        return acquisitions;
+    }
+
+    /**
+     * Returns the number of attempts to acquire that did not succeed
+     * immediately, and so went on to spin or to queue.
+     *
+     * @return the number of contended attempts to acquire
+     */
+    public long getContendedAcquisitions() {
+        return contendedAcquisitions;
+    }
+
+    /**
+     * Returns the total time, in nanoseconds, that threads spent
+     * blocked waiting to acquire.  Time spent waiting on {@link
+     * Condition}s is not included.
+     *
+     * @return the total time blocked, in nanoseconds
+     */
+    public long getTotalParkNanos() {
+        return parkNanos;
+    }
+
+    /**
+     * Returns the largest number of threads that were queued waiting
+     * to acquire at the same time.
+     *
+     * @return the maximum queue length
+     */
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    /**
+     * Returns a string identifying these statistics and their values.
+     *
+     * @return a string identifying these statistics and their values
+     */
+    public String toString() {
+        return super.toString()
+            + "[acquisitions = " + acquisitions
+            + ", contended = " + contendedAcquisitions
+            + ", parkNanos = " + parkNanos
+            + ", maxQueueLength = " + maxQueueLength + "]";
+    }
+}
@@ -1481,6 +1481,50 @@ public class ReentrantReadWriteLock
         return sync.getWaitingThreads((AbstractQueuedSynchronizer.ConditionObject)condition);
     }
 
+    /**
+     * Enables or disables adaptive spinning for this lock: whether a
+     * thread that cannot acquire it immediately spins briefly before
+     * blocking, for a duration learned from how long spins on this
+     * lock have recently taken to succeed.  This can reduce the cost
+     * of contention for a lock that is held only for short periods.
+     * Adaptive spinning is disabled by default.
+     *
+     * @param enable true to enable adaptive spinning
+     * @see AbstractQueuedSynchronizer#setAdaptiveSpinning
+     * @since 9
+     */
+    public void setAdaptiveSpinning(boolean enable) {
+        sync.setAdaptiveSpinning(enable);
+    }
+
+    /**
+     * Enables or disables the recording of contention statistics for
+     * this lock, as reported by {@link #getContentionStatistics}.
+     * Profiling is disabled by default.
+     *
+     * @param enable true to enable contention profiling
+     * @see AbstractQueuedSynchronizer#setContentionProfiling
+     * @since 9
+     */
+    public void setContentionProfiling(boolean enable) {
+        sync.setContentionProfiling(enable);
+    }
+
+    /**
+     * Returns a snapshot of the contention statistics recorded for this lock
+     * while {@linkplain #setContentionProfiling contention profiling} was
+     * enabled.  Calls to the {@code tryLock()} methods of the read and
+     * write locks, which never wait, are not counted.  This method is
+     * designed for use in monitoring of the system state, not for
+     * synchronization control.
+     *
+     * @return the contention statistics
+     * @since 9
+     */
+    public ContentionStatistics getContentionStatistics() {
+        return sync.getContentionStatistics();
+    }
+
     /**
      * Returns a string identifying this lock, as well as its lock state.
      * The state, in brackets, includes the String {@code "Write locks ="}
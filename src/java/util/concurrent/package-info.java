@@ -119,6 +119,14 @@
  * for producer-consumer, messaging, parallel tasking, and
  * related concurrent designs.
  *
+ * <p>Classes {@link java.util.concurrent.SpscArrayQueue},
+ * {@link java.util.concurrent.MpscArrayQueue} and
+ * {@link java.util.concurrent.MpmcArrayQueue} are bounded
+ * {@code BlockingQueue}s that use no locks, for single or multiple
+ * producers and consumers respectively.  Their blocking methods
+ * spin, yield or park according to a
+ * {@link java.util.concurrent.WaitStrategy}.
+ *
  * <p>Extended interface {@link java.util.concurrent.TransferQueue},
  * and implementation {@link java.util.concurrent.LinkedTransferQueue}
  * introduce a synchronous {@code transfer} method (along with related
@@ -296,6 +296,43 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         }
     }
 
+    /**
+     * Returns the source stage if the pipeline is sequential and this
+     * stage is either the source stage or the operation directly
+     * following it, otherwise {@code null}.  Used, together with
+     * {@link #consumeDirect}, by terminal operations that read an array
+     * source directly rather than traversing its spliterator.
+     *
+     * @return the source stage, or {@code null}
+     */
+    final AbstractPipeline<?, ?, ?> directSourceStage() {
+        return (!isParallel() &&
+                (this == sourceStage || previousStage == sourceStage))
+               ? sourceStage : null;
+    }
+
+    /**
+     * Consumes the pipeline as {@link #evaluate} would, discarding the
+     * source spliterator, for a terminal operation that reads the source
+     * directly.
+     *
+     * @throws IllegalStateException if the pipeline has already been
+     *         linked or consumed
+     */
+    @SuppressWarnings("unchecked")
+    final void consumeDirect() {
+        if (linkedOrConsumed)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        linkedOrConsumed = true;
+
+        if (sourceStage.sourceSpliterator != null)
+            sourceStage.sourceSpliterator = null;
+        else if (sourceStage.sourceSupplier != null)
+            sourceStage.sourceSupplier = null;
+        else
+            throw new IllegalStateException(MSG_CONSUMED);
+    }
+
     // BaseStream
 
     @Override
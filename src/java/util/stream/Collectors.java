@@ -305,6 +305,37 @@ public final class Collectors {
                                    CH_UNORDERED_ID);
     }
 
+    /**
+     * Returns a {@code Collector} that accumulates the first {@code k} input
+     * elements in the order of the given {@code Comparator} into a new
+     * {@code List}, in that order.  The result is that of sorting all the
+     * input elements with a stable sort and keeping the first {@code k},
+     * but only {@code O(k)} elements are retained while accumulating.  To
+     * collect the {@code k} greatest elements, pass a reversed comparator.
+     * There are no guarantees on the type, mutability, serializability, or
+     * thread-safety of the {@code List} returned.
+     *
+     * @param <T> the type of the input elements
+     * @param k the maximum number of elements to collect
+     * @param comparator a {@code Comparator} for comparing elements
+     * @return a {@code Collector} which collects the first {@code k} input
+     * elements in comparator order into a {@code List}
+     * @throws IllegalArgumentException if {@code k} is negative
+     * @throws NullPointerException if {@code comparator} is null
+     * @since 9
+     */
+    public static <T>
+    Collector<T, ?, List<T>> topK(int k, Comparator<? super T> comparator) {
+        if (k < 0)
+            throw new IllegalArgumentException(Integer.toString(k));
+        Objects.requireNonNull(comparator);
+        return new CollectorImpl<>(() -> new SortedOps.TopK<T>(k, comparator),
+                                   SortedOps.TopK::accept,
+                                   SortedOps.TopK::merge,
+                                   SortedOps.TopK::toList,
+                                   CH_NOID);
+    }
+
     /**
      * Returns a {@code Collector} that concatenates the input elements into a
      * {@code String}, in encounter order.
@@ -1266,6 +1297,76 @@ public final class Collectors {
         }
     }
 
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to a
+     * classification function, and summing the {@code long}-valued
+     * result of a mapping function applied to the elements of each group.
+     * The result is the same as that of
+     * {@code groupingBy(classifier, summingLong(mapper))}.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} returned.
+     *
+     * @implNote
+     * Sums are accumulated in an open-addressed table holding keys and
+     * primitive {@code long} sums in parallel arrays, so that no object
+     * is allocated per element or per group while collecting; the
+     * resulting {@code Map} is built only by the finisher.  For parallel
+     * stream pipelines, the {@code combiner} function adds the entries
+     * of the smaller table directly into the larger one.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the type of the keys
+     * @param classifier a classifier function mapping input elements to keys
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} implementing the group-by and sum operation
+     *
+     * @see #groupingBy(Function, Collector)
+     * @see #groupingToCount(Function)
+     * @since 9
+     */
+    public static <T, K>
+    Collector<T, ?, Map<K, Long>> groupingToLongSum(Function<? super T, ? extends K> classifier,
+                                                   ToLongFunction<? super T> mapper) {
+        return new CollectorImpl<>(
+                LongSumTable<K>::new,
+                (a, t) -> a.add(Objects.requireNonNull(classifier.apply(t), "element cannot be mapped to a null key"),
+                                mapper.applyAsLong(t)),
+                LongSumTable::merge,
+                LongSumTable::toMap,
+                CH_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to a
+     * classification function, and counting the elements of each group.
+     * The result is the same as that of
+     * {@code groupingBy(classifier, counting())}.
+     *
+     * <p>There are no guarantees on the type, mutability,
+     * serializability, or thread-safety of the {@code Map} returned.
+     *
+     * @implNote
+     * Counts are accumulated as by
+     * {@link #groupingToLongSum(Function, ToLongFunction)}, without
+     * allocating an object per element or per group while collecting.
+     *
+     * @param <T> the type of the input elements
+     * @param <K> the type of the keys
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a {@code Collector} implementing the group-by and count operation
+     *
+     * @see #groupingBy(Function, Collector)
+     * @see #groupingToLongSum(Function, ToLongFunction)
+     * @since 9
+     */
+    public static <T, K>
+    Collector<T, ?, Map<K, Long>> groupingToCount(Function<? super T, ? extends K> classifier) {
+        return groupingToLongSum(classifier, e -> 1L);
+    }
+
     /**
      * Returns a {@code Collector} which partitions the input elements according
      * to a {@code Predicate}, and organizes them into a
@@ -1779,4 +1880,100 @@ public final class Collectors {
             };
         }
     }
+
+    /**
+     * Implementation class used by groupingToLongSum: an open-addressed
+     * table with linear probing, holding non-null keys and their sums
+     * in parallel arrays.
+     */
+    private static final class LongSumTable<K> {
+        Object[] keys = new Object[16];
+        long[] sums = new long[16];
+        int size;
+
+        /**
+         * Scrambles a key hash into the start of its probe sequence, as
+         * IntObjectHashMap.mix does, so that hashes differing only above
+         * the mask do not cluster under linear probing.
+         */
+        static int mix(int h) {
+            h *= 0x9E3779B9;
+            return h ^ (h >>> 16);
+        }
+
+        /** Adds x to the sum for the given non-null key. */
+        void add(Object key, long x) {
+            int h = mix(key.hashCode());
+            for (;;) {
+                Object[] ks = keys;
+                int mask = ks.length - 1;
+                int i = h & mask;
+                for (Object k; (k = ks[i]) != null; i = (i + 1) & mask) {
+                    if (k == key || k.equals(key)) {
+                        sums[i] += x;
+                        return;
+                    }
+                }
+                if (size < (ks.length >>> 1) + (ks.length >>> 2)) {
+                    ks[i] = key;
+                    sums[i] = x;
+                    ++size;
+                    return;
+                }
+                resize();
+            }
+        }
+
+        /** Doubles the table, reinserting all entries. */
+        private void resize() {
+            Object[] oldKeys = keys;
+            long[] oldSums = sums;
+            int n = oldKeys.length << 1, mask = n - 1;
+            if (n <= 0)
+                throw new IllegalStateException("Too many groups");
+            Object[] ks = keys = new Object[n];
+            long[] ss = sums = new long[n];
+            for (int j = 0; j < oldKeys.length; ++j) {
+                Object k;
+                if ((k = oldKeys[j]) != null) {
+                    int i = mix(k.hashCode()) & mask;
+                    while (ks[i] != null)
+                        i = (i + 1) & mask;
+                    ks[i] = k;
+                    ss[i] = oldSums[j];
+                }
+            }
+        }
+
+        /** Adds the entries of the smaller of this and t to the other. */
+        LongSumTable<K> merge(LongSumTable<K> t) {
+            LongSumTable<K> into = this;
+            if (t.size > size) {
+                into = t;
+                t = this;
+            }
+            Object[] ks = t.keys;
+            long[] ss = t.sums;
+            for (int j = 0; j < ks.length; ++j) {
+                Object k;
+                if ((k = ks[j]) != null)
+                    into.add(k, ss[j]);
+            }
+            return into;
+        }
+
+        Map<K, Long> toMap() {
+            Map<K, Long> m = new HashMap<>(Math.max((int) (size / .75f) + 1, 16));
+            Object[] ks = keys;
+            long[] ss = sums;
+            for (int j = 0; j < ks.length; ++j) {
+                Object k;
+                if ((k = ks[j]) != null) {
+                    @SuppressWarnings("unchecked") K key = (K) k;
+                    m.put(key, ss[j]);
+                }
+            }
+            return m;
+        }
+    }
 }
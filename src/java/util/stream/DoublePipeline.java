@@ -24,6 +24,7 @@
  */
 package java.util.stream;
 
+import java.util.Arrays;
 import java.util.DoubleSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -43,6 +44,7 @@ import java.util.function.IntFunction;
 import java.util.function.LongPredicate;
 import java.util.function.ObjDoubleConsumer;
 import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
 
 /**
  * Abstract base class for an intermediate pipeline stage or pipeline source
@@ -393,6 +395,9 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final double sum() {
+        ArraySource a;
+        if ((a = arraySource()) != null)
+            return a.sum();
         /*
          * In the arrays allocated for the collect operation, index 0
          * holds the high-order bits of the running sum, index 1 holds
@@ -417,12 +422,14 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final OptionalDouble min() {
-        return reduce(Math::min);
+        ArraySource a;
+        return ((a = arraySource()) != null) ? a.min() : reduce(Math::min);
     }
 
     @Override
     public final OptionalDouble max() {
-        return reduce(Math::max);
+        ArraySource a;
+        return ((a = arraySource()) != null) ? a.max() : reduce(Math::max);
     }
 
     /**
@@ -436,6 +443,9 @@ abstract class DoublePipeline<E_IN>
      */
     @Override
     public final OptionalDouble average() {
+        ArraySource a;
+        if ((a = arraySource()) != null)
+            return a.average();
         /*
          * In the arrays allocated for the collect operation, index 0
          * holds the high-order bits of the running sum, index 1 holds
@@ -467,6 +477,9 @@ abstract class DoublePipeline<E_IN>
 
     @Override
     public final DoubleSummaryStatistics summaryStatistics() {
+        ArraySource a;
+        if ((a = arraySource()) != null)
+            return a.summaryStatistics();
         return collect(DoubleSummaryStatistics::new, DoubleSummaryStatistics::accept,
                        DoubleSummaryStatistics::combine);
     }
@@ -526,6 +539,119 @@ abstract class DoublePipeline<E_IN>
 
     //
 
+    /**
+     * The elements of a sequential pipeline read directly from an array:
+     * those of a double array source, or those of an object array source
+     * mapped by the only operation of the pipeline.  Terminal reductions
+     * over such pipelines run as counted loops over the array, which the
+     * compiler can unroll and free of bounds checks, instead of passing
+     * each element through a chain of Sinks.
+     */
+    abstract static class ArraySource {
+        final int length;
+
+        ArraySource(int length) {
+            this.length = length;
+        }
+
+        /** Returns the element at index i. */
+        abstract double get(int i);
+
+        final double sum() {
+            // as DoublePipeline.sum, see there for the layout of summation
+            double[] summation = new double[3];
+            for (int i = 0, n = length; i < n; ++i) {
+                double d = get(i);
+                Collectors.sumWithCompensation(summation, d);
+                summation[2] += d;
+            }
+            return Collectors.computeFinalSum(summation);
+        }
+
+        final OptionalDouble min() {
+            int n = length;
+            if (n == 0)
+                return OptionalDouble.empty();
+            double result = get(0);
+            for (int i = 1; i < n; ++i)
+                result = Math.min(result, get(i));
+            return OptionalDouble.of(result);
+        }
+
+        final OptionalDouble max() {
+            int n = length;
+            if (n == 0)
+                return OptionalDouble.empty();
+            double result = get(0);
+            for (int i = 1; i < n; ++i)
+                result = Math.max(result, get(i));
+            return OptionalDouble.of(result);
+        }
+
+        final OptionalDouble average() {
+            // as DoublePipeline.average, see there for the layout of avg
+            double[] avg = new double[4];
+            for (int i = 0, n = length; i < n; ++i) {
+                double d = get(i);
+                avg[2]++;
+                Collectors.sumWithCompensation(avg, d);
+                avg[3] += d;
+            }
+            return avg[2] > 0
+                ? OptionalDouble.of(Collectors.computeFinalSum(avg) / avg[2])
+                : OptionalDouble.empty();
+        }
+
+        final DoubleSummaryStatistics summaryStatistics() {
+            DoubleSummaryStatistics stats = new DoubleSummaryStatistics();
+            for (int i = 0, n = length; i < n; ++i)
+                stats.accept(get(i));
+            return stats;
+        }
+    }
+
+    /** ArraySource over the elements of a double array. */
+    static final class DoubleArraySource extends ArraySource {
+        private final double[] array;
+
+        DoubleArraySource(double[] array) {
+            super(array.length);
+            this.array = array;
+        }
+
+        @Override
+        double get(int i) {
+            return array[i];
+        }
+    }
+
+    /** ArraySource over the elements of an object array mapped to doubles. */
+    static final class MappedArraySource extends ArraySource {
+        private final Object[] array;
+        private final ToDoubleFunction<Object> mapper;
+
+        @SuppressWarnings("unchecked")
+        <T> MappedArraySource(T[] array, ToDoubleFunction<? super T> mapper) {
+            super(array.length);
+            this.array = array;
+            this.mapper = (ToDoubleFunction<Object>) mapper;
+        }
+
+        @Override
+        double get(int i) {
+            return mapper.applyAsDouble(array[i]);
+        }
+    }
+
+    /**
+     * Returns the elements of this stage as an ArraySource, consuming the
+     * pipeline, if the pipeline is sequential and reads them directly
+     * from an array; otherwise returns {@code null} without consuming it.
+     */
+    ArraySource arraySource() {
+        return null;
+    }
+
     /**
      * Source stage of a DoubleStream
      *
@@ -593,6 +719,31 @@ abstract class DoublePipeline<E_IN>
 
     }
 
+    /**
+     * Source stage of a DoubleStream over an entire double array, whose
+     * sequential terminal reductions read the array directly.
+     */
+    static final class ArrayHead extends Head<Double> {
+        private final double[] array;
+
+        ArrayHead(double[] array) {
+            this(array, Arrays.spliterator(array));
+        }
+
+        private ArrayHead(double[] array, Spliterator.OfDouble spliterator) {
+            super(spliterator, StreamOpFlag.fromCharacteristics(spliterator), false);
+            this.array = array;
+        }
+
+        @Override
+        ArraySource arraySource() {
+            if (directSourceStage() == null)
+                return null;
+            consumeDirect();
+            return new DoubleArraySource(array);
+        }
+    }
+
     /**
      * Base class for a stateless intermediate stage of a DoubleStream.
      *
@@ -24,7 +24,6 @@
  */
 package java.util.stream;
 
-import java.util.Arrays;
 import java.util.DoubleSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -937,7 +936,7 @@ public interface DoubleStream extends BaseStream<Double, DoubleStream> {
      * @return the new stream
      */
     public static DoubleStream of(double... values) {
-        return Arrays.stream(values);
+        return new DoublePipeline.ArrayHead(values);
     }
 
     /**
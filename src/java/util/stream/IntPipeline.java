@@ -24,6 +24,7 @@
  */
 package java.util.stream;
 
+import java.util.Arrays;
 import java.util.IntSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -42,6 +43,7 @@ import java.util.function.IntToLongFunction;
 import java.util.function.IntUnaryOperator;
 import java.util.function.ObjIntConsumer;
 import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 
 /**
  * Abstract base class for an intermediate pipeline stage or pipeline source
@@ -375,7 +377,9 @@ abstract class IntPipeline<E_IN>
     public final IntStream limit(long maxSize) {
         if (maxSize < 0)
             throw new IllegalArgumentException(Long.toString(maxSize));
-        return SliceOps.makeInt(this, 0, maxSize);
+        IntStream s = SliceOps.makeInt(this, 0, maxSize);
+        SortedOps.limitSorted(this, maxSize);
+        return s;
     }
 
     @Override
@@ -424,17 +428,20 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final int sum() {
-        return reduce(0, Integer::sum);
+        ArraySource a;
+        return ((a = arraySource()) != null) ? a.sum() : reduce(0, Integer::sum);
     }
 
     @Override
     public final OptionalInt min() {
-        return reduce(Math::min);
+        ArraySource a;
+        return ((a = arraySource()) != null) ? a.min() : reduce(Math::min);
     }
 
     @Override
     public final OptionalInt max() {
-        return reduce(Math::max);
+        ArraySource a;
+        return ((a = arraySource()) != null) ? a.max() : reduce(Math::max);
     }
 
     @Override
@@ -444,6 +451,9 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final OptionalDouble average() {
+        ArraySource a;
+        if ((a = arraySource()) != null)
+            return a.average();
         long[] avg = collect(() -> new long[2],
                              (ll, i) -> {
                                  ll[0]++;
@@ -460,6 +470,9 @@ abstract class IntPipeline<E_IN>
 
     @Override
     public final IntSummaryStatistics summaryStatistics() {
+        ArraySource a;
+        if ((a = arraySource()) != null)
+            return a.summaryStatistics();
         return collect(IntSummaryStatistics::new, IntSummaryStatistics::accept,
                        IntSummaryStatistics::combine);
     }
@@ -519,6 +532,111 @@ abstract class IntPipeline<E_IN>
 
     //
 
+    /**
+     * The elements of a sequential pipeline read directly from an array:
+     * those of an int array source, or those of an object array source
+     * mapped by the only operation of the pipeline.  Terminal reductions
+     * over such pipelines run as counted loops over the array, which the
+     * compiler can unroll and free of bounds checks, instead of passing
+     * each element through a chain of Sinks.
+     */
+    abstract static class ArraySource {
+        final int length;
+
+        ArraySource(int length) {
+            this.length = length;
+        }
+
+        /** Returns the element at index i. */
+        abstract int get(int i);
+
+        final int sum() {
+            int sum = 0;
+            for (int i = 0, n = length; i < n; ++i)
+                sum += get(i);
+            return sum;
+        }
+
+        final OptionalInt min() {
+            int n = length;
+            if (n == 0)
+                return OptionalInt.empty();
+            int result = get(0);
+            for (int i = 1; i < n; ++i)
+                result = Math.min(result, get(i));
+            return OptionalInt.of(result);
+        }
+
+        final OptionalInt max() {
+            int n = length;
+            if (n == 0)
+                return OptionalInt.empty();
+            int result = get(0);
+            for (int i = 1; i < n; ++i)
+                result = Math.max(result, get(i));
+            return OptionalInt.of(result);
+        }
+
+        final OptionalDouble average() {
+            int n = length;
+            long sum = 0;
+            for (int i = 0; i < n; ++i)
+                sum += get(i);
+            return n > 0
+                   ? OptionalDouble.of((double) sum / n)
+                   : OptionalDouble.empty();
+        }
+
+        final IntSummaryStatistics summaryStatistics() {
+            IntSummaryStatistics stats = new IntSummaryStatistics();
+            for (int i = 0, n = length; i < n; ++i)
+                stats.accept(get(i));
+            return stats;
+        }
+    }
+
+    /** ArraySource over the elements of an int array. */
+    static final class IntArraySource extends ArraySource {
+        private final int[] array;
+
+        IntArraySource(int[] array) {
+            super(array.length);
+            this.array = array;
+        }
+
+        @Override
+        int get(int i) {
+            return array[i];
+        }
+    }
+
+    /** ArraySource over the elements of an object array mapped to ints. */
+    static final class MappedArraySource extends ArraySource {
+        private final Object[] array;
+        private final ToIntFunction<Object> mapper;
+
+        @SuppressWarnings("unchecked")
+        <T> MappedArraySource(T[] array, ToIntFunction<? super T> mapper) {
+            super(array.length);
+            this.array = array;
+            this.mapper = (ToIntFunction<Object>) mapper;
+        }
+
+        @Override
+        int get(int i) {
+            return mapper.applyAsInt(array[i]);
+        }
+    }
+
+    /**
+     * Returns the elements of this stage as an ArraySource, consuming the
+     * pipeline, if the pipeline is sequential and reads them directly
+     * from an array; otherwise returns {@code null} without consuming it.
+     */
+    ArraySource arraySource() {
+        return null;
+    }
+
     /**
      * Source stage of an IntStream.
      *
@@ -586,6 +704,31 @@ abstract class IntPipeline<E_IN>
         }
     }
 
+    /**
+     * Source stage of an IntStream over an entire int array, whose
+     * sequential terminal reductions read the array directly.
+     */
+    static final class ArrayHead extends Head<Integer> {
+        private final int[] array;
+
+        ArrayHead(int[] array) {
+            this(array, Arrays.spliterator(array));
+        }
+
+        private ArrayHead(int[] array, Spliterator.OfInt spliterator) {
+            super(spliterator, StreamOpFlag.fromCharacteristics(spliterator), false);
+            this.array = array;
+        }
+
+        @Override
+        ArraySource arraySource() {
+            if (directSourceStage() == null)
+                return null;
+            consumeDirect();
+            return new IntArraySource(array);
+        }
+    }
+
     /**
      * Base class for a stateless intermediate stage of an IntStream
      *
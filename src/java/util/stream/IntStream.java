@@ -24,8 +24,8 @@
  */
 package java.util.stream;
 
-import java.util.Arrays;
 import java.util.IntSummaryStatistics;
+import java.util.LongLongHashMap;
 import java.util.Objects;
 import java.util.OptionalDouble;
 import java.util.OptionalInt;
@@ -450,6 +450,29 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
      */
     int[] toArray();
 
+    /**
+     * Returns an array containing the {@code k} least elements of this
+     * stream, in ascending order, or all of its elements if it has fewer.
+     * This is equivalent to {@code sorted().limit(k).toArray()}, and only
+     * {@code O(k)} elements are retained while traversing the stream.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation returns
+     * {@code sorted().limit(k).toArray()}.
+     *
+     * @param k the maximum number of elements to return
+     * @return an array containing the {@code k} least elements of this
+     *         stream, in ascending order
+     * @throws IllegalArgumentException if {@code k} is negative
+     * @since 9
+     */
+    default int[] topK(int k) {
+        return sorted().limit(k).toArray();
+    }
+
     /**
      * Performs a <a href="package-summary.html#Reduction">reduction</a> on the
      * elements of this stream, using the provided identity value and an
@@ -666,6 +689,35 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
      */
     long count();
 
+    /**
+     * Returns a table mapping each distinct element of this stream widened to {@code long}
+     * to the number of times it occurs.  This is equivalent to:
+     * <pre>{@code
+     *     return collect(LongLongHashMap::new,
+     *                    (m, e) -> m.addTo(e, 1L),
+     *                    LongLongHashMap::addAll);
+     * }</pre>
+     * and, unlike {@code boxed().collect(Collectors.groupingBy(Function.identity(),
+     * Collectors.counting()))}, allocates neither boxed keys nor
+     * per-key counters.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @apiNote
+     * For example, {@code IntStream.of(3, 1, 3).groupingCount().get(3)} is {@code 2}.
+     * Keys that do not occur are reported with count {@code 0} by
+     * {@link LongLongHashMap#get}.
+     *
+     * @return a table of the number of occurrences of each element
+     * @since 9
+     */
+    default LongLongHashMap groupingCount() {
+        return collect(LongLongHashMap::new,
+                       (m, e) -> m.addTo(e, 1L),
+                       LongLongHashMap::addAll);
+    }
+
     /**
      * Returns an {@code OptionalDouble} describing the arithmetic mean of elements of
      * this stream, or an empty optional if this stream is empty.  This is a
@@ -877,7 +929,7 @@ public interface IntStream extends BaseStream<Integer, IntStream> {
      * @return the new stream
      */
     public static IntStream of(int... values) {
-        return Arrays.stream(values);
+        return new IntPipeline.ArrayHead(values);
     }
 
     /**
@@ -24,6 +24,7 @@
  */
 package java.util.stream;
 
+import java.util.Arrays;
 import java.util.LongSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -43,6 +44,7 @@ import java.util.function.LongToIntFunction;
 import java.util.function.LongUnaryOperator;
 import java.util.function.ObjLongConsumer;
 import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
 
 /**
  * Abstract base class for an intermediate pipeline stage or pipeline source
@@ -406,22 +408,30 @@ abstract class LongPipeline<E_IN>
 
     @Override
     public final long sum() {
+        ArraySource a;
+        if ((a = arraySource()) != null)
+            return a.sum();
         // use better algorithm to compensate for intermediate overflow?
         return reduce(0, Long::sum);
     }
 
     @Override
     public final OptionalLong min() {
-        return reduce(Math::min);
+        ArraySource a;
+        return ((a = arraySource()) != null) ? a.min() : reduce(Math::min);
     }
 
     @Override
     public final OptionalLong max() {
-        return reduce(Math::max);
+        ArraySource a;
+        return ((a = arraySource()) != null) ? a.max() : reduce(Math::max);
     }
 
     @Override
     public final OptionalDouble average() {
+        ArraySource a;
+        if ((a = arraySource()) != null)
+            return a.average();
         long[] avg = collect(() -> new long[2],
                              (ll, i) -> {
                                  ll[0]++;
@@ -443,6 +453,9 @@ abstract class LongPipeline<E_IN>
 
     @Override
     public final LongSummaryStatistics summaryStatistics() {
+        ArraySource a;
+        if ((a = arraySource()) != null)
+            return a.summaryStatistics();
         return collect(LongSummaryStatistics::new, LongSummaryStatistics::accept,
                        LongSummaryStatistics::combine);
     }
@@ -503,6 +516,111 @@ abstract class LongPipeline<E_IN>
 
     //
 
+    /**
+     * The elements of a sequential pipeline read directly from an array:
+     * those of a long array source, or those of an object array source
+     * mapped by the only operation of the pipeline.  Terminal reductions
+     * over such pipelines run as counted loops over the array, which the
+     * compiler can unroll and free of bounds checks, instead of passing
+     * each element through a chain of Sinks.
+     */
+    abstract static class ArraySource {
+        final int length;
+
+        ArraySource(int length) {
+            this.length = length;
+        }
+
+        /** Returns the element at index i. */
+        abstract long get(int i);
+
+        final long sum() {
+            long sum = 0;
+            for (int i = 0, n = length; i < n; ++i)
+                sum += get(i);
+            return sum;
+        }
+
+        final OptionalLong min() {
+            int n = length;
+            if (n == 0)
+                return OptionalLong.empty();
+            long result = get(0);
+            for (int i = 1; i < n; ++i)
+                result = Math.min(result, get(i));
+            return OptionalLong.of(result);
+        }
+
+        final OptionalLong max() {
+            int n = length;
+            if (n == 0)
+                return OptionalLong.empty();
+            long result = get(0);
+            for (int i = 1; i < n; ++i)
+                result = Math.max(result, get(i));
+            return OptionalLong.of(result);
+        }
+
+        final OptionalDouble average() {
+            int n = length;
+            long sum = 0;
+            for (int i = 0; i < n; ++i)
+                sum += get(i);
+            return n > 0
+                   ? OptionalDouble.of((double) sum / n)
+                   : OptionalDouble.empty();
+        }
+
+        final LongSummaryStatistics summaryStatistics() {
+            LongSummaryStatistics stats = new LongSummaryStatistics();
+            for (int i = 0, n = length; i < n; ++i)
+                stats.accept(get(i));
+            return stats;
+        }
+    }
+
+    /** ArraySource over the elements of a long array. */
+    static final class LongArraySource extends ArraySource {
+        private final long[] array;
+
+        LongArraySource(long[] array) {
+            super(array.length);
+            this.array = array;
+        }
+
+        @Override
+        long get(int i) {
+            return array[i];
+        }
+    }
+
+    /** ArraySource over the elements of an object array mapped to longs. */
+    static final class MappedArraySource extends ArraySource {
+        private final Object[] array;
+        private final ToLongFunction<Object> mapper;
+
+        @SuppressWarnings("unchecked")
+        <T> MappedArraySource(T[] array, ToLongFunction<? super T> mapper) {
+            super(array.length);
+            this.array = array;
+            this.mapper = (ToLongFunction<Object>) mapper;
+        }
+
+        @Override
+        long get(int i) {
+            return mapper.applyAsLong(array[i]);
+        }
+    }
+
+    /**
+     * Returns the elements of this stage as an ArraySource, consuming the
+     * pipeline, if the pipeline is sequential and reads them directly
+     * from an array; otherwise returns {@code null} without consuming it.
+     */
+    ArraySource arraySource() {
+        return null;
+    }
+
     /**
      * Source stage of a LongPipeline.
      *
@@ -568,6 +686,31 @@ abstract class LongPipeline<E_IN>
         }
     }
 
+    /**
+     * Source stage of a LongStream over an entire long array, whose
+     * sequential terminal reductions read the array directly.
+     */
+    static final class ArrayHead extends Head<Long> {
+        private final long[] array;
+
+        ArrayHead(long[] array) {
+            this(array, Arrays.spliterator(array));
+        }
+
+        private ArrayHead(long[] array, Spliterator.OfLong spliterator) {
+            super(spliterator, StreamOpFlag.fromCharacteristics(spliterator), false);
+            this.array = array;
+        }
+
+        @Override
+        ArraySource arraySource() {
+            if (directSourceStage() == null)
+                return null;
+            consumeDirect();
+            return new LongArraySource(array);
+        }
+    }
+
     /** Base class for a stateless intermediate stage of a LongStream.
      *
      * @param <E_IN> type of elements in the upstream source
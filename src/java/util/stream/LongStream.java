@@ -24,7 +24,7 @@
  */
 package java.util.stream;
 
-import java.util.Arrays;
+import java.util.LongLongHashMap;
 import java.util.LongSummaryStatistics;
 import java.util.Objects;
 import java.util.OptionalDouble;
@@ -668,6 +668,35 @@ public interface LongStream extends BaseStream<Long, LongStream> {
      */
     long count();
 
+    /**
+     * Returns a table mapping each distinct element of this stream
+     * to the number of times it occurs.  This is equivalent to:
+     * <pre>{@code
+     *     return collect(LongLongHashMap::new,
+     *                    (m, e) -> m.addTo(e, 1L),
+     *                    LongLongHashMap::addAll);
+     * }</pre>
+     * and, unlike {@code boxed().collect(Collectors.groupingBy(Function.identity(),
+     * Collectors.counting()))}, allocates neither boxed keys nor
+     * per-key counters.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">terminal
+     * operation</a>.
+     *
+     * @apiNote
+     * For example, {@code LongStream.of(3, 1, 3).groupingCount().get(3)} is {@code 2}.
+     * Keys that do not occur are reported with count {@code 0} by
+     * {@link LongLongHashMap#get}.
+     *
+     * @return a table of the number of occurrences of each element
+     * @since 9
+     */
+    default LongLongHashMap groupingCount() {
+        return collect(LongLongHashMap::new,
+                       (m, e) -> m.addTo(e, 1L),
+                       LongLongHashMap::addAll);
+    }
+
     /**
      * Returns an {@code OptionalDouble} describing the arithmetic mean of elements of
      * this stream, or an empty optional if this stream is empty.  This is a
@@ -867,7 +896,7 @@ public interface LongStream extends BaseStream<Long, LongStream> {
      * @return the new stream
      */
     public static LongStream of(long... values) {
-        return Arrays.stream(values);
+        return new LongPipeline.ArrayHead(values);
     }
 
     /**
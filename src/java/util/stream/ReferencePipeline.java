@@ -24,6 +24,7 @@
  */
 package java.util.stream;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
 import java.util.Objects;
@@ -213,6 +214,13 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            IntPipeline.ArraySource arraySource() {
+                P_OUT[] array = consumeArraySource(this);
+                return (array == null) ? null
+                    : new IntPipeline.MappedArraySource(array, mapper);
+            }
         };
     }
 
@@ -230,6 +238,13 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            LongPipeline.ArraySource arraySource() {
+                P_OUT[] array = consumeArraySource(this);
+                return (array == null) ? null
+                    : new LongPipeline.MappedArraySource(array, mapper);
+            }
         };
     }
 
@@ -247,6 +262,13 @@ abstract class ReferencePipeline<P_IN, P_OUT>
                     }
                 };
             }
+
+            @Override
+            DoublePipeline.ArraySource arraySource() {
+                P_OUT[] array = consumeArraySource(this);
+                return (array == null) ? null
+                    : new DoublePipeline.MappedArraySource(array, mapper);
+            }
         };
     }
 
@@ -396,11 +418,19 @@ abstract class ReferencePipeline<P_IN, P_OUT>
         return SortedOps.makeRef(this, comparator);
     }
 
+    @Override
+    public final Stream<P_OUT> sorted(Comparator<? super P_OUT> comparator,
+                                      SortOptions<P_OUT> options) {
+        return SortedOps.makeRef(this, comparator, options);
+    }
+
     @Override
     public final Stream<P_OUT> limit(long maxSize) {
         if (maxSize < 0)
             throw new IllegalArgumentException(Long.toString(maxSize));
-        return SliceOps.makeRef(this, 0, maxSize);
+        Stream<P_OUT> s = SliceOps.makeRef(this, 0, maxSize);
+        SortedOps.limitSorted(this, maxSize);
+        return s;
     }
 
     @Override
@@ -606,6 +636,43 @@ abstract class ReferencePipeline<P_IN, P_OUT>
         }
     }
 
+    /**
+     * Source stage of a Stream over an entire array, whose elements
+     * sequential primitive reductions of a single mapping stage read
+     * directly.
+     *
+     * @param <E_OUT> type of elements in the array
+     */
+    static final class ArrayHead<E_OUT> extends Head<E_OUT, E_OUT> {
+        private final E_OUT[] array;
+
+        ArrayHead(E_OUT[] array) {
+            this(array, Arrays.spliterator(array));
+        }
+
+        private ArrayHead(E_OUT[] array, Spliterator<E_OUT> spliterator) {
+            super(spliterator, StreamOpFlag.fromCharacteristics(spliterator), false);
+            this.array = array;
+        }
+    }
+
+    /**
+     * If the given stage is the only operation of a sequential pipeline
+     * whose source is an {@link ArrayHead}, consumes the pipeline and
+     * returns the source array; otherwise returns {@code null}.
+     *
+     * @param stage the stage whose upstream may be an array source
+     * @param <T> type of elements in the array
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T[] consumeArraySource(AbstractPipeline<?, ?, ?> stage) {
+        AbstractPipeline<?, ?, ?> source = stage.directSourceStage();
+        if (source == stage || !(source instanceof ArrayHead))
+            return null;
+        stage.consumeDirect();
+        return (T[]) ((ArrayHead<?>) source).array;
+    }
+
     /**
      * Base class for a stateless intermediate stage of a Stream.
      *
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+package java.util.stream;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Options for a {@linkplain Stream#sorted(Comparator, SortOptions) sort}
+ * of a stream whose elements need not all fit in memory.
+ *
+ * <p>A sort with these options holds at most {@link #maxRunLength()}
+ * elements in memory at a time per thread taking part in the sort.  It
+ * sorts each such run of elements, spills it to a temporary file in
+ * {@link #directory()}, and finally merges the sorted runs.  Elements are
+ * written to and read back from the files by a {@link Serializer}.
+ *
+ * <p>Spill files are deleted once the sorted elements have been fully
+ * traversed, or once a sequential traversal has stopped early, and all of
+ * them are deleted if the sort itself fails.  Files that remain when the
+ * stream pipeline fails elsewhere, or when a short-circuiting terminal
+ * operation on a parallel stream abandons the merge before the end, are
+ * deleted when the stream is {@linkplain BaseStream#close() closed}, so a
+ * stream sorted with these options should be closed, for example by a
+ * try-with-resources statement.  Runs are merged a bounded number at a
+ * time, in several passes if there are many of them, so a sort never
+ * holds more than a small number of files open.
+ *
+ * @param <T> the type of elements to sort
+ * @since 9
+ */
+public final class SortOptions<T> {
+
+    /**
+     * Writes elements to, and reads them back from, the files to which a
+     * sort spills its runs.  A serializer must read elements back in the
+     * same form in which it wrote them, and may be used by several threads
+     * at once, each with its own input or output.
+     *
+     * @param <T> the type of elements to serialize
+     * @since 9
+     */
+    public interface Serializer<T> {
+        /**
+         * Writes an element.
+         *
+         * @param out the output to write to
+         * @param t the element
+         * @throws IOException if an I/O error occurs
+         */
+        void write(DataOutput out, T t) throws IOException;
+
+        /**
+         * Reads an element written by {@link #write}.
+         *
+         * @param in the input to read from
+         * @return the element
+         * @throws IOException if an I/O error occurs
+         */
+        T read(DataInput in) throws IOException;
+    }
+
+    final Path directory;
+    final int maxRunLength;
+    final Serializer<T> serializer;
+
+    private SortOptions(Path directory, int maxRunLength,
+                        Serializer<T> serializer) {
+        this.directory = directory;
+        this.maxRunLength = maxRunLength;
+        this.serializer = serializer;
+    }
+
+    /**
+     * Returns options for a sort that spills sorted runs of at most
+     * {@code maxRunLength} elements to temporary files in the given
+     * directory, using the given serializer.
+     *
+     * @param <T> the type of elements to sort
+     * @param directory the directory in which to create spill files
+     * @param maxRunLength the maximum number of elements to hold in memory
+     *        per thread
+     * @param serializer the serializer for elements in spill files
+     * @return the sort options
+     * @throws NullPointerException if {@code directory} or
+     *         {@code serializer} is null
+     * @throws IllegalArgumentException if {@code maxRunLength} is not
+     *         positive
+     */
+    public static <T> SortOptions<T> spillTo(Path directory, int maxRunLength,
+                                             Serializer<T> serializer) {
+        Objects.requireNonNull(directory);
+        Objects.requireNonNull(serializer);
+        if (maxRunLength <= 0)
+            throw new IllegalArgumentException("maxRunLength: " + maxRunLength);
+        return new SortOptions<>(directory, maxRunLength, serializer);
+    }
+
+    /**
+     * Returns the directory in which spill files are created.
+     *
+     * @return the spill directory
+     */
+    public Path directory() {
+        return directory;
+    }
+
+    /**
+     * Returns the maximum number of elements held in memory per thread.
+     *
+     * @return the maximum run length
+     */
+    public int maxRunLength() {
+        return maxRunLength;
+    }
+
+    /**
+     * Returns the serializer for elements in spill files.
+     *
+     * @return the serializer
+     */
+    public Serializer<T> serializer() {
+        return serializer;
+    }
+}
@@ -24,11 +24,32 @@
  */
 package java.util.stream;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.Set;
 import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountedCompleter;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
 import java.util.function.IntFunction;
 
 
@@ -41,6 +62,11 @@ final class SortedOps {
 
     private SortedOps() { }
 
+    /**
+     * The maximum number of spilled runs merged at once
+     */
+    static final int MAX_MERGE_WIDTH = 64;
+
     /**
      * Appends a "sorted" operation to the provided stream.
      *
@@ -63,6 +89,21 @@ final class SortedOps {
         return new OfRef<>(upstream, comparator);
     }
 
+    /**
+     * Appends a "sorted" operation to the provided stream, which spills
+     * sorted runs of elements as described by the provided options.
+     *
+     * @param <T> the type of both input and output elements
+     * @param upstream a reference stream with element type T
+     * @param comparator the comparator to order elements by
+     * @param options the options describing where and how runs are spilled
+     */
+    static <T> Stream<T> makeRef(AbstractPipeline<?, T, ?> upstream,
+                                Comparator<? super T> comparator,
+                                SortOptions<T> options) {
+        return new OfRef<>(upstream, comparator, Objects.requireNonNull(options));
+    }
+
     /**
      * Appends a "sorted" operation to the provided stream.
      *
@@ -93,6 +134,35 @@ final class SortedOps {
         return new OfDouble(upstream);
     }
 
+    /**
+     * Records that only the first {@code n} elements of the output of the
+     * given stage are consumed, if the stage is a sort, so that the sort
+     * need only retain those.  Called when a limit is appended directly to
+     * the stage, which then can have no other downstream stage.
+     *
+     * @param stage the stage to which a limit was appended
+     * @param n the limit
+     */
+    static void limitSorted(AbstractPipeline<?, ?, ?> stage, long n) {
+        if (stage instanceof OfRef)
+            ((OfRef<?>) stage).limit = n;
+        else if (stage instanceof OfInt)
+            ((OfInt) stage).limit = n;
+    }
+
+    /**
+     * Returns the number of leading elements a sort need retain, or -1 if
+     * it must retain all of them.
+     *
+     * @param limit the limit appended to the sort, or -1 if none
+     * @param maxRetained the maximum number of elements worth retaining
+     *        in place of a full sort
+     */
+    private static int retained(long limit, long maxRetained) {
+        return (limit >= 0 && limit < Nodes.MAX_ARRAY_SIZE && limit <= maxRetained)
+               ? (int) limit : -1;
+    }
+
     /**
      * Specialized subtype for sorting reference streams
      */
@@ -102,6 +172,18 @@ final class SortedOps {
          */
         private final boolean isNaturalSort;
         private final Comparator<? super T> comparator;
+        /**
+         * Options for spilling sorted runs, or null to sort in memory
+         */
+        private final SortOptions<T> options;
+        /**
+         * Spilled runs not yet deleted, or null to sort in memory
+         */
+        private final Spills<T> spills;
+        /**
+         * Limit appended to this sort, or -1 if none
+         */
+        long limit = -1;
 
         /**
          * Sort using natural order of {@literal <T>} which must be
@@ -115,6 +197,8 @@ final class SortedOps {
             @SuppressWarnings("unchecked")
             Comparator<? super T> comp = (Comparator<? super T>) Comparator.naturalOrder();
             this.comparator = comp;
+            this.options = null;
+            this.spills = null;
         }
 
         /**
@@ -123,10 +207,30 @@ final class SortedOps {
          * @param comparator The comparator to be used to evaluate ordering.
          */
         OfRef(AbstractPipeline<?, T, ?> upstream, Comparator<? super T> comparator) {
+            this(upstream, comparator, null);
+        }
+
+        /**
+         * Sort using the provided comparator, spilling sorted runs as
+         * described by the provided options if they are non-null.
+         *
+         * @param comparator The comparator to be used to evaluate ordering.
+         * @param options The options for spilling sorted runs, or null.
+         */
+        OfRef(AbstractPipeline<?, T, ?> upstream, Comparator<? super T> comparator,
+              SortOptions<T> options) {
             super(upstream, StreamShape.REFERENCE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.NOT_SORTED);
             this.isNaturalSort = false;
             this.comparator = Objects.requireNonNull(comparator);
+            this.options = options;
+            if (options != null) {
+                // Delete whatever runs a failed or abandoned sort leaves
+                this.spills = new Spills<>();
+                onClose(spills);
+            }
+            else
+                this.spills = null;
         }
 
         @Override
@@ -135,8 +239,13 @@ final class SortedOps {
 
             // If the input is already naturally sorted and this operation
             // also naturally sorted then this is a no-op
+            int k;
             if (StreamOpFlag.SORTED.isKnown(flags) && isNaturalSort)
                 return sink;
+            else if ((k = retained()) >= 0)
+                return new TopKRefSortingSink<>(sink, comparator, k);
+            else if (options != null)
+                return new SpillingRefSortingSink<>(sink, comparator, options, spills);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedRefSortingSink<>(sink, comparator);
             else
@@ -149,9 +258,31 @@ final class SortedOps {
                                                  IntFunction<T[]> generator) {
             // If the input is already naturally sorted and this operation
             // naturally sorts then collect the output
+            int k;
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()) && isNaturalSort) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if ((k = retained()) >= 0) {
+                // Merge the first k elements of each leaf, in encounter order
+                TopK<T> top = ReduceOps.<T, TopK<T>>makeRef(
+                    () -> new TopK<>(k, comparator), TopK::accept, TopK::merge)
+                    .evaluateParallel(helper, spliterator);
+                return Nodes.node(top.toArray(generator));
+            }
+            else if (options != null) {
+                // The result is wanted in memory, so only the runs spill
+                Spliterator<T> merged = opEvaluateParallelLazy(helper, spliterator);
+                Node.Builder<T> nb = Nodes.builder(merged.getExactSizeIfKnown(), generator);
+                try {
+                    nb.begin(merged.getExactSizeIfKnown());
+                    merged.forEachRemaining(nb);
+                    nb.end();
+                } catch (Throwable ex) {
+                    spills.close(ex);
+                    throw ex;
+                }
+                return nb.build();
+            }
             else {
                 // @@@ Weak two-pass parallel implementation; parallel collect, parallel sort
                 T[] flattenedData = helper.evaluate(spliterator, true, generator).asArray(generator);
@@ -159,12 +290,38 @@ final class SortedOps {
                 return Nodes.node(flattenedData);
             }
         }
+
+        @Override
+        public <P_IN> Spliterator<T> opEvaluateParallelLazy(PipelineHelper<T> helper,
+                                                            Spliterator<P_IN> spliterator) {
+            if (options == null || retained() >= 0)
+                return super.opEvaluateParallelLazy(helper, spliterator);
+            // Sort and spill runs concurrently, then merge them lazily
+            List<Run<T>> runs = new SpillTask<>(helper, spliterator, comparator,
+                                                options, spills).invoke();
+            return merge(runs, comparator, options, spills);
+        }
+
+        /**
+         * Returns the number of leading elements to retain, or -1 to sort
+         * all of them.  A spilling sort retains them only if they fit in a
+         * run.
+         */
+        private int retained() {
+            return SortedOps.retained(limit, (options == null)
+                                             ? Long.MAX_VALUE : options.maxRunLength);
+        }
     }
 
     /**
      * Specialized subtype for sorting int streams.
      */
     private static final class OfInt extends IntPipeline.StatefulOp<Integer> {
+        /**
+         * Limit appended to this sort, or -1 if none
+         */
+        long limit = -1;
+
         OfInt(AbstractPipeline<?, Integer, ?> upstream) {
             super(upstream, StreamShape.INT_VALUE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.IS_SORTED);
@@ -174,8 +331,11 @@ final class SortedOps {
         public Sink<Integer> opWrapSink(int flags, Sink<Integer> sink) {
             Objects.requireNonNull(sink);
 
+            int k;
             if (StreamOpFlag.SORTED.isKnown(flags))
                 return sink;
+            else if ((k = retained(limit, Long.MAX_VALUE)) >= 0)
+                return new TopKIntSortingSink(sink, k);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedIntSortingSink(sink);
             else
@@ -186,9 +346,16 @@ final class SortedOps {
         public <P_IN> Node<Integer> opEvaluateParallel(PipelineHelper<Integer> helper,
                                                        Spliterator<P_IN> spliterator,
                                                        IntFunction<Integer[]> generator) {
+            int k;
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags())) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if ((k = retained(limit, Long.MAX_VALUE)) >= 0) {
+                IntTopK top = ReduceOps.<IntTopK>makeInt(
+                    () -> new IntTopK(k), IntTopK::accept, IntTopK::merge)
+                    .evaluateParallel(helper, spliterator);
+                return Nodes.node(top.toArray());
+            }
             else {
                 Node.OfInt n = (Node.OfInt) helper.evaluate(spliterator, true, generator);
 
@@ -405,6 +572,672 @@ final class SortedOps {
         }
     }
 
+    /**
+     * A sorted run of elements, either held in memory or spilled to a file,
+     * that is read once when runs are merged.
+     */
+    private static final class Run<T> {
+        private final SortOptions<T> options;
+        private final Spills<T> spills;
+        private final long size;
+        // In-memory run
+        private Object[] array;
+        private int index;
+        // Spilled run
+        private Path file;
+        private DataInputStream in;
+        private long remaining;
+
+        /** Position of this run in encounter order, breaking ties in merges */
+        int order;
+        /** The current element, after a successful advance */
+        T head;
+
+        /**
+         * Creates a run of the first n elements of the sorted array, held in
+         * memory.
+         */
+        Run(Object[] array, int n) {
+            this.options = null;
+            this.spills = null;
+            this.size = n;
+            this.array = (n == array.length) ? array : Arrays.copyOf(array, n);
+        }
+
+        /**
+         * Creates a run of n elements spilled to the given file.
+         */
+        Run(SortOptions<T> options, Spills<T> spills, Path file, long n) {
+            this.options = options;
+            this.spills = spills;
+            this.size = n;
+            this.file = file;
+            this.remaining = n;
+        }
+
+        /**
+         * Spills the first n elements of the sorted array to a new file in
+         * the directory of the given options.
+         */
+        @SuppressWarnings("unchecked")
+        static <T> Run<T> spill(Object[] array, int n, SortOptions<T> options,
+                                Spills<T> spills) throws IOException {
+            return spill((Iterator<T>) Arrays.asList(array).subList(0, n).iterator(),
+                         n, options, spills);
+        }
+
+        /**
+         * Spills the n sorted elements of the given iterator to a new file
+         * in the directory of the given options, and adds the run to the
+         * given spills.
+         */
+        static <T> Run<T> spill(Iterator<? extends T> elements, long n,
+                                SortOptions<T> options, Spills<T> spills)
+                throws IOException {
+            Path file = Files.createTempFile(options.directory, "sorted", ".run");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                     Channels.newOutputStream(FileChannel.open(file, StandardOpenOption.WRITE))))) {
+                while (elements.hasNext())
+                    options.serializer.write(out, elements.next());
+            } catch (Throwable ex) {
+                Files.deleteIfExists(file);
+                throw ex;
+            }
+            Run<T> r = new Run<>(options, spills, file, n);
+            spills.add(r);
+            return r;
+        }
+
+        long size() {
+            return size;
+        }
+
+        /**
+         * Sets head to the next element of this run, if any.
+         *
+         * @return true if there was a next element
+         */
+        @SuppressWarnings("unchecked")
+        boolean advance() throws IOException {
+            if (file == null) {
+                if (array == null || index >= array.length)
+                    return false;
+                head = (T) array[index];
+                array[index++] = null;
+                return true;
+            }
+            else if (remaining > 0) {
+                if (in == null)
+                    in = new DataInputStream(new BufferedInputStream(
+                        Channels.newInputStream(FileChannel.open(file, StandardOpenOption.READ))));
+                head = options.serializer.read(in);
+                --remaining;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Releases the elements of this run, deleting its file if spilled.
+         * A run may be closed by more than one thread, if the sort fails.
+         */
+        synchronized void close() throws IOException {
+            array = null;
+            head = null;
+            Path f;
+            if ((f = file) != null) {
+                file = null;
+                spills.remove(this);
+                try {
+                    if (in != null)
+                        in.close();
+                } finally {
+                    Files.deleteIfExists(f);
+                }
+            }
+        }
+
+        /**
+         * Closes all of the given runs, suppressing failures to close the
+         * rest into the first failure, or into the given exception if
+         * non-null.
+         */
+        static <T> void closeAll(Iterable<Run<T>> runs, Throwable ex) {
+            IOException failure = null;
+            for (Run<T> r : runs) {
+                try {
+                    r.close();
+                } catch (IOException e) {
+                    if (ex != null)
+                        ex.addSuppressed(e);
+                    else if (failure == null)
+                        failure = e;
+                    else
+                        failure.addSuppressed(e);
+                }
+            }
+            if (failure != null)
+                throw new UncheckedIOException(failure);
+        }
+    }
+
+    /**
+     * The spilled runs of a sort that have not yet been deleted.  All of
+     * them are deleted if the sort fails, or when the stream is closed, so
+     * that no file outlives a failed or abandoned sort.  Once closed, runs
+     * spilled by tasks still running are deleted as they are added.
+     */
+    private static final class Spills<T> implements Runnable {
+        private final Set<Run<T>> runs = ConcurrentHashMap.newKeySet();
+        private volatile boolean closed;
+
+        /**
+         * Adds a spilled run, deleting it and throwing
+         * CancellationException if the sort has already been abandoned.
+         */
+        void add(Run<T> r) throws IOException {
+            runs.add(r);
+            if (closed) {
+                r.close();
+                throw new CancellationException();
+            }
+        }
+
+        void remove(Run<T> r) {
+            runs.remove(r);
+        }
+
+        /**
+         * Deletes all runs, suppressing failures into the given exception
+         * if non-null.
+         */
+        void close(Throwable ex) {
+            closed = true;
+            Run.closeAll(runs, ex);
+        }
+
+        @Override
+        public void run() {
+            close(null);
+        }
+    }
+
+    /**
+     * Returns a spliterator over the merge of the given runs, first merging
+     * consecutive groups of runs into longer spilled runs for as long as
+     * there are more than {@link #MAX_MERGE_WIDTH} of them, so that at most
+     * that many files are open at once.  Merging consecutive groups keeps
+     * the runs in encounter order, preserving the stability of the sort.
+     */
+    private static <T> RunMerger<T> merge(List<Run<T>> runs,
+                                          Comparator<? super T> comparator,
+                                          SortOptions<T> options,
+                                          Spills<T> spills) {
+        try {
+            while (runs.size() > MAX_MERGE_WIDTH) {
+                List<Run<T>> merged = new ArrayList<>(
+                    (runs.size() + MAX_MERGE_WIDTH - 1) / MAX_MERGE_WIDTH);
+                for (int i = 0; i < runs.size(); i += MAX_MERGE_WIDTH) {
+                    List<Run<T>> group = runs.subList(
+                        i, Math.min(i + MAX_MERGE_WIDTH, runs.size()));
+                    if (group.size() == 1)
+                        merged.add(group.get(0));
+                    else {
+                        RunMerger<T> m = new RunMerger<>(new ArrayList<>(group),
+                                                         comparator);
+                        merged.add(Run.spill(Spliterators.iterator(m),
+                                             m.estimateSize(), options, spills));
+                    }
+                }
+                runs = merged;
+            }
+        } catch (IOException ex) {
+            spills.close(ex);
+            throw new UncheckedIOException(ex);
+        } catch (Throwable ex) {
+            spills.close(ex);
+            throw ex;
+        }
+        return new RunMerger<>(runs, comparator);
+    }
+
+    /**
+     * {@link Sink} that gathers elements into runs of at most
+     * {@link SortOptions#maxRunLength} elements, sorting each run and
+     * spilling it when full.
+     */
+    private static final class RunWriter<T> implements Sink<T> {
+        private final Comparator<? super T> comparator;
+        private final SortOptions<T> options;
+        private final Spills<T> spills;
+        private final List<Run<T>> runs = new ArrayList<>();
+        private Object[] buffer;
+        private int count;
+
+        RunWriter(Comparator<? super T> comparator, SortOptions<T> options,
+                  Spills<T> spills) {
+            this.comparator = comparator;
+            this.options = options;
+            this.spills = spills;
+        }
+
+        @Override
+        public void accept(T t) {
+            Object[] b = buffer;
+            if (b == null)
+                buffer = b = new Object[Math.min(options.maxRunLength, 16)];
+            else if (count == b.length) {
+                if (count == options.maxRunLength) {
+                    spill();
+                    count = 0;
+                }
+                else
+                    buffer = b = Arrays.copyOf(b, (int) Math.min(
+                        (long) count << 1, options.maxRunLength));
+            }
+            b[count++] = t;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void spill() {
+            Arrays.sort((T[]) buffer, 0, count, comparator);
+            try {
+                runs.add(Run.spill(buffer, count, options, spills));
+            } catch (IOException ex) {
+                Run.closeAll(runs, ex);
+                throw new UncheckedIOException(ex);
+            } catch (Throwable ex) {
+                Run.closeAll(runs, ex);
+                throw ex;
+            }
+            Arrays.fill(buffer, 0, count, null);
+        }
+
+        /**
+         * Sorts the elements not yet spilled and returns all runs, in
+         * encounter order.
+         *
+         * @param spillLast whether the last run is spilled even if it could
+         *        be held in memory
+         */
+        @SuppressWarnings("unchecked")
+        List<Run<T>> finish(boolean spillLast) {
+            if (count > 0) {
+                if (spillLast || !runs.isEmpty())
+                    spill();
+                else {
+                    Arrays.sort((T[]) buffer, 0, count, comparator);
+                    runs.add(new Run<>(buffer, count));
+                }
+            }
+            buffer = null;
+            count = 0;
+            return runs;
+        }
+    }
+
+    /**
+     * Spliterator over the k-way merge of sorted runs.  Each run is a node
+     * of a priority queue keyed by its current element, and ties are broken
+     * in favour of the run that came first in encounter order, so the merge
+     * preserves the stability of the sort.  Runs are closed once exhausted,
+     * or all at once on {@link #close} or failure.
+     */
+    private static final class RunMerger<T> implements Spliterator<T> {
+        private final List<Run<T>> runs;
+        private PriorityQueue<Run<T>> queue;
+        private final Comparator<? super T> comparator;
+        private long est;
+
+        RunMerger(List<Run<T>> runs, Comparator<? super T> comparator) {
+            this.runs = runs;
+            this.comparator = comparator;
+            long n = 0;
+            for (Run<T> r : runs)
+                n += r.size();
+            this.est = n;
+        }
+
+        private PriorityQueue<Run<T>> queue() {
+            PriorityQueue<Run<T>> q;
+            if ((q = queue) == null) {
+                q = new PriorityQueue<>(Math.max(1, runs.size()), (a, b) -> {
+                    int c = comparator.compare(a.head, b.head);
+                    return (c != 0) ? c : Integer.compare(a.order, b.order);
+                });
+                int order = 0;
+                try {
+                    for (Run<T> r : runs) {
+                        r.order = order++;
+                        if (r.advance())
+                            q.add(r);
+                        else
+                            r.close();
+                    }
+                } catch (IOException ex) {
+                    Run.closeAll(runs, ex);
+                    throw new UncheckedIOException(ex);
+                } catch (Throwable ex) {
+                    Run.closeAll(runs, ex);
+                    throw ex;
+                }
+                queue = q;
+            }
+            return q;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super T> action) {
+            Objects.requireNonNull(action);
+            PriorityQueue<Run<T>> q = queue();
+            Run<T> r;
+            if ((r = q.poll()) == null)
+                return false;
+            T t = r.head;
+            try {
+                if (r.advance())
+                    q.add(r);
+                else
+                    r.close();
+            } catch (IOException ex) {
+                Run.closeAll(runs, ex);
+                throw new UncheckedIOException(ex);
+            } catch (Throwable ex) {
+                Run.closeAll(runs, ex);
+                throw ex;
+            }
+            --est;
+            action.accept(t);
+            return true;
+        }
+
+        /**
+         * Closes all runs, including any that have not been exhausted,
+         * suppressing failures into the given exception if non-null.
+         */
+        void close(Throwable ex) {
+            Run.closeAll(runs, ex);
+        }
+
+        @Override
+        public Spliterator<T> trySplit() {
+            return null;
+        }
+
+        @Override
+        public long estimateSize() {
+            return est;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED;
+        }
+    }
+
+    /**
+     * Task that gathers the elements of each leaf into sorted runs that are
+     * spilled concurrently, resulting in the list of all runs in encounter
+     * order.
+     */
+    @SuppressWarnings("serial")
+    private static final class SpillTask<P_IN, T>
+            extends AbstractTask<P_IN, T, List<Run<T>>, SpillTask<P_IN, T>> {
+        private final Comparator<? super T> comparator;
+        private final SortOptions<T> options;
+        private final Spills<T> spills;
+
+        SpillTask(PipelineHelper<T> helper, Spliterator<P_IN> spliterator,
+                  Comparator<? super T> comparator, SortOptions<T> options,
+                  Spills<T> spills) {
+            super(helper, spliterator);
+            this.comparator = comparator;
+            this.options = options;
+            this.spills = spills;
+        }
+
+        SpillTask(SpillTask<P_IN, T> parent, Spliterator<P_IN> spliterator) {
+            super(parent, spliterator);
+            this.comparator = parent.comparator;
+            this.options = parent.options;
+            this.spills = parent.spills;
+        }
+
+        @Override
+        protected SpillTask<P_IN, T> makeChild(Spliterator<P_IN> spliterator) {
+            return new SpillTask<>(this, spliterator);
+        }
+
+        @Override
+        protected List<Run<T>> doLeaf() {
+            return helper.wrapAndCopyInto(new RunWriter<>(comparator, options, spills),
+                                          spliterator).finish(true);
+        }
+
+        @Override
+        public boolean onExceptionalCompletion(Throwable ex, CountedCompleter<?> caller) {
+            // Delete the runs of all leaves, including those still running
+            spills.close(ex);
+            return super.onExceptionalCompletion(ex, caller);
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller) {
+            if (!isLeaf()) {
+                List<Run<T>> runs = leftChild.getLocalResult();
+                runs.addAll(rightChild.getLocalResult());
+                setLocalResult(runs);
+            }
+            super.onCompletion(caller);
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on reference streams, holding at
+     * most {@link SortOptions#maxRunLength} elements in memory and spilling
+     * the rest in sorted runs that are merged at the end of the sink
+     * protocol.
+     */
+    private static final class SpillingRefSortingSink<T> extends AbstractRefSortingSink<T> {
+        private final SortOptions<T> options;
+        private final Spills<T> spills;
+        private RunWriter<T> writer;
+
+        SpillingRefSortingSink(Sink<? super T> sink, Comparator<? super T> comparator,
+                               SortOptions<T> options, Spills<T> spills) {
+            super(sink, comparator);
+            this.options = options;
+            this.spills = spills;
+        }
+
+        @Override
+        public void begin(long size) {
+            writer = new RunWriter<>(comparator, options, spills);
+        }
+
+        @Override
+        public void end() {
+            RunMerger<T> merger = merge(writer.finish(false), comparator,
+                                        options, spills);
+            writer = null;
+            try {
+                downstream.begin(merger.estimateSize());
+                if (!cancellationWasRequested) {
+                    merger.forEachRemaining(downstream);
+                }
+                else {
+                    do { } while (!downstream.cancellationRequested() &&
+                                  merger.tryAdvance(downstream));
+                }
+            } catch (Throwable ex) {
+                merger.close(ex);
+                throw ex;
+            }
+            merger.close(null);
+            downstream.end();
+        }
+
+        @Override
+        public void accept(T t) {
+            writer.accept(t);
+        }
+    }
+
+    /**
+     * Retains the first k elements, in the order of a comparator, of those
+     * accepted, in O(k) space.  Elements are appended to a buffer of at most
+     * 2k elements, which when full is sorted and cut back to its first k.
+     * The k-th of those then bounds the elements worth appending, so that
+     * most elements of a large input are rejected by a single comparison.
+     * As the sort is stable and elements are only ever appended, elements
+     * that compare equal keep the order in which they were accepted, giving
+     * the same result as a full stable sort followed by a limit.
+     */
+    static final class TopK<T> implements Consumer<T> {
+        private final int k;
+        private final Comparator<? super T> comparator;
+        private final int capacity;
+        private Object[] buffer = new Object[0];
+        private int size;
+        // True once buffer[0, k) holds the least k elements so far, in order
+        private boolean bounded;
+
+        TopK(int k, Comparator<? super T> comparator) {
+            if (k < 0)
+                throw new IllegalArgumentException(Integer.toString(k));
+            this.k = k;
+            this.comparator = Objects.requireNonNull(comparator);
+            this.capacity = (int) Math.min((long) k << 1, Nodes.MAX_ARRAY_SIZE);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(T t) {
+            if (k == 0 ||
+                (bounded && comparator.compare(t, (T) buffer[k - 1]) >= 0))
+                return;
+            if (size == buffer.length) {
+                if (size < capacity)
+                    buffer = Arrays.copyOf(buffer, grow());
+                else if (size > k) {
+                    trim();
+                    if (comparator.compare(t, (T) buffer[k - 1]) >= 0)
+                        return;
+                }
+                else
+                    throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            buffer[size++] = t;
+        }
+
+        /**
+         * Accepts the retained elements of another TopK whose elements
+         * follow those accepted by this one.
+         */
+        @SuppressWarnings("unchecked")
+        TopK<T> merge(TopK<T> other) {
+            Object[] b = other.buffer;
+            for (int i = 0, n = other.size; i < n; i++)
+                accept((T) b[i]);
+            return this;
+        }
+
+        /**
+         * Returns the length to which to grow the full buffer: doubled
+         * while it holds fewer than k elements, then straight to 2k, so
+         * that each later trim frees k slots.
+         */
+        private int grow() {
+            return (size >= k) ? capacity
+                : Math.min(Math.max(size << 1, 16), capacity);
+        }
+
+        @SuppressWarnings("unchecked")
+        private void trim() {
+            Arrays.sort((T[]) buffer, 0, size, comparator);
+            Arrays.fill(buffer, k, size, null);
+            size = k;
+            bounded = true;
+        }
+
+        /**
+         * Returns the number of retained elements, after sorting them into
+         * the first size() elements of the buffer.
+         */
+        @SuppressWarnings("unchecked")
+        int size() {
+            if (size > k)
+                trim();
+            else if (!bounded)
+                Arrays.sort((T[]) buffer, 0, size, comparator);
+            return size;
+        }
+
+        /**
+         * Returns the retained element at index i, which must be less than
+         * the result of a preceding call to size().
+         */
+        @SuppressWarnings("unchecked")
+        T get(int i) {
+            return (T) buffer[i];
+        }
+
+        T[] toArray(IntFunction<T[]> generator) {
+            int n = size();
+            T[] a = generator.apply(n);
+            System.arraycopy(buffer, 0, a, 0, n);
+            return a;
+        }
+
+        List<T> toList() {
+            int n = size();
+            List<T> list = new ArrayList<>(n);
+            for (int i = 0; i < n; i++)
+                list.add(get(i));
+            return list;
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on reference streams of which only
+     * the first k elements are consumed.
+     */
+    private static final class TopKRefSortingSink<T> extends AbstractRefSortingSink<T> {
+        private final int k;
+        private TopK<T> top;
+
+        TopKRefSortingSink(Sink<? super T> sink, Comparator<? super T> comparator, int k) {
+            super(sink, comparator);
+            this.k = k;
+        }
+
+        @Override
+        public void begin(long size) {
+            top = new TopK<>(k, comparator);
+        }
+
+        @Override
+        public void end() {
+            int n = top.size();
+            downstream.begin(n);
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < n; i++)
+                    downstream.accept(top.get(i));
+            }
+            else {
+                for (int i = 0; i < n && !downstream.cancellationRequested(); i++)
+                    downstream.accept(top.get(i));
+            }
+            downstream.end();
+            top = null;
+        }
+
+        @Override
+        public void accept(T t) {
+            top.accept(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on int streams.
      */
@@ -503,6 +1336,129 @@ final class SortedOps {
         }
     }
 
+    /**
+     * Retains the least k ints of those accepted, in O(k) space, as
+     * {@link TopK} does for references.
+     */
+    static final class IntTopK implements IntConsumer {
+        private final int k;
+        private final int capacity;
+        private int[] buffer = new int[0];
+        private int size;
+        // True once buffer[0, k) holds the least k elements so far, in order
+        private boolean bounded;
+
+        IntTopK(int k) {
+            if (k < 0)
+                throw new IllegalArgumentException(Integer.toString(k));
+            this.k = k;
+            this.capacity = (int) Math.min((long) k << 1, Nodes.MAX_ARRAY_SIZE);
+        }
+
+        @Override
+        public void accept(int t) {
+            if (k == 0 || (bounded && t >= buffer[k - 1]))
+                return;
+            if (size == buffer.length) {
+                if (size < capacity)
+                    buffer = Arrays.copyOf(buffer, grow());
+                else if (size > k) {
+                    trim();
+                    if (t >= buffer[k - 1])
+                        return;
+                }
+                else
+                    throw new IllegalArgumentException(Nodes.BAD_SIZE);
+            }
+            buffer[size++] = t;
+        }
+
+        /**
+         * Accepts the retained elements of another IntTopK.
+         */
+        IntTopK merge(IntTopK other) {
+            int[] b = other.buffer;
+            for (int i = 0, n = other.size; i < n; i++)
+                accept(b[i]);
+            return this;
+        }
+
+        /**
+         * Returns the length to which to grow the full buffer, as in
+         * TopK.
+         */
+        private int grow() {
+            return (size >= k) ? capacity
+                : Math.min(Math.max(size << 1, 16), capacity);
+        }
+
+        private void trim() {
+            Arrays.sort(buffer, 0, size);
+            size = k;
+            bounded = true;
+        }
+
+        /**
+         * Returns the number of retained elements, after sorting them into
+         * the first size() elements of the buffer.
+         */
+        int size() {
+            if (size > k)
+                trim();
+            else if (!bounded)
+                Arrays.sort(buffer, 0, size);
+            return size;
+        }
+
+        int get(int i) {
+            return buffer[i];
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(buffer, size());
+        }
+    }
+
+    /**
+     * {@link Sink} for implementing sort on int streams of which only the
+     * first k elements are consumed.
+     */
+    private static final class TopKIntSortingSink extends AbstractIntSortingSink {
+        private final int k;
+        private IntTopK top;
+
+        TopKIntSortingSink(Sink<? super Integer> sink, int k) {
+            super(sink);
+            this.k = k;
+        }
+
+        @Override
+        public void begin(long size) {
+            top = new IntTopK(k);
+        }
+
+        @Override
+        public void end() {
+            int n = top.size();
+            downstream.begin(n);
+            if (!cancellationWasRequested) {
+                for (int i = 0; i < n; i++)
+                    downstream.accept(top.get(i));
+            }
+            else {
+                for (int i = 0; i < n && !downstream.cancellationRequested(); i++)
+                    downstream.accept(top.get(i));
+            }
+            downstream.end();
+            top = null;
+        }
+
+        @Override
+        public void accept(int t) {
+            top.accept(t);
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on long streams.
      */
@@ -26,7 +26,6 @@ package java.util.stream;
 
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Objects;
@@ -404,6 +403,38 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      */
     Stream<T> sorted(Comparator<? super T> comparator);
 
+    /**
+     * Returns a stream consisting of the elements of this stream, sorted
+     * according to the provided {@code Comparator} while holding only a
+     * bounded number of elements in memory.  Sorted runs of elements are
+     * spilled to temporary files as described by the given
+     * {@link SortOptions}, and merged when the elements are traversed.
+     *
+     * <p>For ordered streams, the sort is stable.  For unordered streams, no
+     * stability guarantees are made.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.  An {@link java.io.IOException} thrown
+     * while spilling or merging runs is rethrown, wrapped in an
+     * {@link java.io.UncheckedIOException}, from the terminal operation.
+     *
+     * @implSpec
+     * The default implementation ignores {@code options} and returns
+     * {@code sorted(comparator)}.
+     *
+     * @param comparator a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   {@code Comparator} to be used to compare stream elements
+     * @param options the options describing where and how runs are spilled
+     * @return the new stream
+     * @since 9
+     */
+    default Stream<T> sorted(Comparator<? super T> comparator,
+                             SortOptions<T> options) {
+        Objects.requireNonNull(options);
+        return sorted(comparator);
+    }
+
     /**
      * Returns a stream consisting of the elements of this stream, additionally
      * performing the provided action on each element as elements are consumed
@@ -1184,7 +1215,7 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
     @SafeVarargs
     @SuppressWarnings("varargs") // Creating a stream from an array is safe
     public static<T> Stream<T> of(T... values) {
-        return Arrays.stream(values);
+        return new ReferencePipeline.ArrayHead<>(values);
     }
 
     /**
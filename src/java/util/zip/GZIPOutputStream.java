@@ -180,18 +180,26 @@ class GZIPOutputStream extends DeflaterOutputStream {
      * Writes GZIP member header.
      */
     private void writeHeader() throws IOException {
-        out.write(new byte[] {
-                      (byte) GZIP_MAGIC,        // Magic number (short)
-                      (byte)(GZIP_MAGIC >> 8),  // Magic number (short)
-                      Deflater.DEFLATED,        // Compression method (CM)
-                      0,                        // Flags (FLG)
-                      0,                        // Modification time MTIME (int)
-                      0,                        // Modification time MTIME (int)
-                      0,                        // Modification time MTIME (int)
-                      0,                        // Modification time MTIME (int)
-                      0,                        // Extra flags (XFLG)
-                      0                         // Operating system (OS)
-                  });
+        out.write(header());
+    }
+
+    /*
+     * Returns a GZIP member header with no optional fields. Also used by
+     * ParallelGZIPOutputStream.
+     */
+    static byte[] header() {
+        return new byte[] {
+            (byte) GZIP_MAGIC,        // Magic number (short)
+            (byte)(GZIP_MAGIC >> 8),  // Magic number (short)
+            Deflater.DEFLATED,        // Compression method (CM)
+            0,                        // Flags (FLG)
+            0,                        // Modification time MTIME (int)
+            0,                        // Modification time MTIME (int)
+            0,                        // Modification time MTIME (int)
+            0,                        // Modification time MTIME (int)
+            0,                        // Extra flags (XFLG)
+            0                         // Operating system (OS)
+        };
     }
 
     /*
@@ -199,15 +207,24 @@ class GZIPOutputStream extends DeflaterOutputStream {
      * offset.
      */
     private void writeTrailer(byte[] buf, int offset) throws IOException {
-        writeInt((int)crc.getValue(), buf, offset); // CRC-32 of uncompr. data
-        writeInt(def.getTotalIn(), buf, offset + 4); // Number of uncompr. bytes
+        writeTrailer((int)crc.getValue(), def.getTotalIn(), buf, offset);
+    }
+
+    /*
+     * Writes GZIP member trailer for the given CRC-32 and uncompressed
+     * size to a byte array, starting at a given offset. Also used by
+     * ParallelGZIPOutputStream.
+     */
+    static void writeTrailer(int crc, int totalIn, byte[] buf, int offset) {
+        writeInt(crc, buf, offset);             // CRC-32 of uncompr. data
+        writeInt(totalIn, buf, offset + 4);     // Number of uncompr. bytes
     }
 
     /*
      * Writes integer in Intel byte order to a byte array, starting at a
      * given offset.
      */
-    private void writeInt(int i, byte[] buf, int offset) throws IOException {
+    private static void writeInt(int i, byte[] buf, int offset) {
         writeShort(i & 0xffff, buf, offset);
         writeShort((i >> 16) & 0xffff, buf, offset + 2);
     }
@@ -216,7 +233,7 @@ class GZIPOutputStream extends DeflaterOutputStream {
      * Writes short integer in Intel byte order to a byte array, starting
      * at a given offset
      */
-    private void writeShort(int s, byte[] buf, int offset) throws IOException {
+    private static void writeShort(int s, byte[] buf, int offset) {
         buf[offset] = (byte)(s & 0xff);
         buf[offset + 1] = (byte)((s >> 8) & 0xff);
     }
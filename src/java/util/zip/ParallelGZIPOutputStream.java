@@ -0,0 +1,320 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.zip;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * This class implements a stream filter for writing compressed data in
+ * the GZIP file format, compressing independent blocks of the input in
+ * parallel.
+ *
+ * <p>Input is collected into blocks of a fixed size, each of which is
+ * compressed by a task submitted to a {@link ForkJoinPool}, so that
+ * compression of large inputs may use as many processors as the pool
+ * provides.  Every block but the last is compressed with flush mode
+ * {@link Deflater#SYNC_FLUSH}, which ends its output on a byte boundary,
+ * and with the final 32K bytes of the previous block as a preset
+ * dictionary, so that matches spanning a block boundary are not lost.
+ * The compressed blocks are written in order as they complete, forming
+ * a single deflate stream within a single GZIP member, which may be read
+ * by {@link GZIPInputStream} or any other GZIP decompressor.
+ *
+ * <p>The output differs from that of {@link GZIPOutputStream}, and is
+ * typically very slightly larger.  At most a bounded number of blocks
+ * are held awaiting compression or output; a writer that gets further
+ * ahead waits for the oldest block to be written.
+ *
+ * @see GZIPOutputStream
+ * @since 9
+ */
+public
+class ParallelGZIPOutputStream extends FilterOutputStream {
+
+    /**
+     * The default block size, in bytes.
+     */
+    static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    /*
+     * Size of the preset dictionary, the maximum deflate match distance.
+     */
+    private static final int DICT_SIZE = 32 * 1024;
+
+    /*
+     * Trailer size in bytes.
+     */
+    private static final int TRAILER_SIZE = 8;
+
+    private final ForkJoinPool pool;
+    private final int level;
+    private final int blockSize;
+    private final int maxPending;
+
+    /*
+     * Compressed blocks awaiting output, oldest first.
+     */
+    private final ArrayDeque<ForkJoinTask<byte[]>> pending = new ArrayDeque<>();
+
+    /*
+     * Idle deflaters, reused by compression tasks.
+     */
+    private final ConcurrentLinkedQueue<Deflater> deflaters =
+        new ConcurrentLinkedQueue<>();
+
+    private final CRC32 crc = new CRC32();
+    private byte[] block;
+    private int count;
+    private byte[] dict;
+    private long totalIn;
+    private boolean finished;
+    private boolean closed;
+
+    /**
+     * Creates a new output stream with the specified block size,
+     * compression level and pool.
+     *
+     * @param out the output stream
+     * @param blockSize the size of the blocks compressed in parallel
+     * @param level the compression level (0-9)
+     * @param pool the pool in which to compress blocks
+     * @exception IOException If an I/O error has occurred.
+     * @exception IllegalArgumentException if {@code blockSize <= 0}
+     *            or the compression level is invalid
+     */
+    public ParallelGZIPOutputStream(OutputStream out, int blockSize,
+                                    int level, ForkJoinPool pool)
+        throws IOException
+    {
+        super(out);
+        if (out == null || pool == null) {
+            throw new NullPointerException();
+        } else if (blockSize <= 0) {
+            throw new IllegalArgumentException("block size <= 0");
+        } else if ((level < 0 || level > 9) &&
+                   level != Deflater.DEFAULT_COMPRESSION) {
+            throw new IllegalArgumentException("invalid compression level");
+        }
+        this.pool = pool;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.maxPending = Math.max(2, 2 * pool.getParallelism());
+        this.block = new byte[blockSize];
+        out.write(GZIPOutputStream.header());
+    }
+
+    /**
+     * Creates a new output stream with a default block size and
+     * compression level, compressing blocks in the
+     * {@linkplain ForkJoinPool#commonPool() common pool}.
+     *
+     * @param out the output stream
+     * @exception IOException If an I/O error has occurred.
+     */
+    public ParallelGZIPOutputStream(OutputStream out) throws IOException {
+        this(out, DEFAULT_BLOCK_SIZE, Deflater.DEFAULT_COMPRESSION,
+             ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Writes a byte to the compressed output stream.
+     * @param b the byte to be written
+     * @exception IOException If an I/O error has occurred.
+     */
+    public void write(int b) throws IOException {
+        byte[] buf = new byte[1];
+        buf[0] = (byte)(b & 0xff);
+        write(buf, 0, 1);
+    }
+
+    /**
+     * Writes array of bytes to the compressed output stream. This method
+     * will block until all the bytes are buffered, which may require
+     * waiting for earlier blocks to be compressed and written.
+     * @param b the data to be written
+     * @param off the start offset of the data
+     * @param len the length of the data
+     * @exception IOException If an I/O error has occurred.
+     */
+    public synchronized void write(byte[] b, int off, int len)
+        throws IOException
+    {
+        if (finished) {
+            throw new IOException("write beyond end of stream");
+        }
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        }
+        crc.update(b, off, len);
+        totalIn += len;
+        while (len > 0) {
+            int n = Math.min(len, blockSize - count);
+            System.arraycopy(b, off, block, count, n);
+            count += n;
+            off += n;
+            len -= n;
+            if (count == blockSize)
+                submitBlock(false);
+        }
+    }
+
+    /**
+     * Submits the current block for compression, then writes any
+     * completed blocks, waiting for the oldest if too many are pending.
+     */
+    private void submitBlock(boolean last) throws IOException {
+        final byte[] in = block;
+        final int n = count;
+        final byte[] d = dict;
+        pending.add(pool.submit(() -> compress(in, n, d, last)));
+        if (n >= DICT_SIZE) {
+            dict = Arrays.copyOfRange(in, n - DICT_SIZE, n);
+        } else if (n > 0) {
+            byte[] nd = new byte[Math.min(DICT_SIZE,
+                                          n + (d == null ? 0 : d.length))];
+            int keep = nd.length - n;
+            if (keep > 0)
+                System.arraycopy(d, d.length - keep, nd, 0, keep);
+            System.arraycopy(in, 0, nd, keep, n);
+            dict = nd;
+        }
+        block = last ? null : new byte[blockSize];
+        count = 0;
+        writeCompleted(last ? 0 : maxPending - 1);
+    }
+
+    /**
+     * Writes completed blocks in order, and waits for and writes the
+     * oldest blocks until at most {@code maxLeft} remain pending.
+     */
+    private void writeCompleted(int maxLeft) throws IOException {
+        ForkJoinTask<byte[]> t;
+        while ((t = pending.peek()) != null &&
+               (t.isDone() || pending.size() > maxLeft)) {
+            pending.poll();
+            byte[] b;
+            try {
+                b = t.join();
+            } catch (RuntimeException | Error e) {
+                throw new IOException("Compression failed", e);
+            }
+            out.write(b);
+        }
+    }
+
+    /**
+     * Compresses a block, returning the raw deflate data.
+     */
+    private byte[] compress(byte[] in, int n, byte[] d, boolean last) {
+        Deflater def = deflaters.poll();
+        if (def == null)
+            def = new Deflater(level, true);
+        try {
+            if (d != null)
+                def.setDictionary(d);
+            def.setInput(in, 0, n);
+            if (last)
+                def.finish();
+            byte[] buf = new byte[n + (n >>> 3) + 64];
+            int len = 0;
+            for (;;) {
+                len += def.deflate(buf, len, buf.length - len,
+                                   last ? Deflater.NO_FLUSH
+                                        : Deflater.SYNC_FLUSH);
+                if (last ? def.finished() : len < buf.length)
+                    break;
+                if (len == buf.length)
+                    buf = Arrays.copyOf(buf, buf.length << 1);
+            }
+            def.reset();
+            deflaters.add(def);
+            def = null;
+            return (len == buf.length) ? buf : Arrays.copyOf(buf, len);
+        } finally {
+            if (def != null)
+                def.end();
+        }
+    }
+
+    /**
+     * Compresses any buffered input and writes all compressed data,
+     * then flushes the output stream.  The compressor is flushed with
+     * flush mode {@link Deflater#SYNC_FLUSH}, so that all data written so
+     * far may be decompressed from the output.
+     * @exception IOException if an I/O error has occurred
+     */
+    public synchronized void flush() throws IOException {
+        if (!finished) {
+            if (count > 0)
+                submitBlock(false);
+            writeCompleted(0);
+        }
+        out.flush();
+    }
+
+    /**
+     * Finishes writing compressed data to the output stream without closing
+     * the underlying stream. Use this method when applying multiple filters
+     * in succession to the same output stream.
+     * @exception IOException if an I/O error has occurred
+     */
+    public synchronized void finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            try {
+                submitBlock(true);
+            } finally {
+                Deflater def;
+                while ((def = deflaters.poll()) != null)
+                    def.end();
+            }
+            byte[] trailer = new byte[TRAILER_SIZE];
+            GZIPOutputStream.writeTrailer((int)crc.getValue(), (int)totalIn,
+                                          trailer, 0);
+            out.write(trailer);
+        }
+    }
+
+    /**
+     * Writes remaining compressed data to the output stream and closes the
+     * underlying stream.
+     * @exception IOException if an I/O error has occurred
+     */
+    public void close() throws IOException {
+        if (!closed) {
+            finish();
+            out.close();
+            closed = true;
+        }
+    }
+}
@@ -0,0 +1,975 @@
+/*
+ * Copyright (c) 2017, Oracle and/or its affiliates. All rights reserved.
+ * ORACLE PROPRIETARY/CONFIDENTIAL. Use is subject to license terms.
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ *
+ */
+
+package java.util.zip;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A read-only {@link SeekableByteChannel} over the uncompressed contents of
+ * a GZIP file or a zip file entry, which supports efficient repositioning.
+ *
+ * <p>A compressed stream can in general only be decompressed from its
+ * start.  As this channel decompresses, it records <i>checkpoints</i>
+ * roughly every <i>span</i> bytes of uncompressed data: each records the
+ * position of a deflate block boundary in the compressed data together
+ * with the 32K bytes of uncompressed data preceding it, which is all the
+ * state needed to resume decompression there.  A later {@link
+ * #position(long) repositioning} resumes from the nearest checkpoint at or
+ * before the new position, so that at most about <i>span</i> bytes need be
+ * decompressed and discarded to reach it.  Positions beyond those
+ * decompressed so far are reached by decompressing forward, recording
+ * checkpoints on the way.
+ *
+ * <p>The checkpoints recorded are available as an {@link Index}, which may
+ * be {@linkplain Index#writeTo written} to a file, for example alongside
+ * the archive, and {@linkplain Index#readFrom read} back and supplied when
+ * opening a channel over the same archive later, so that the archive need
+ * not be decompressed again to rebuild it.  Each checkpoint occupies about
+ * 32K bytes, so the span trades the size of the index against the cost of
+ * repositioning.
+ *
+ * <p>The CRC-32 of each GZIP member is verified when the member is
+ * decompressed from its start.  Data decompressed after resuming from a
+ * checkpoint is not verified.
+ *
+ * <p>Channels of this class are safe for use by multiple concurrent
+ * threads; reads and repositioning are serialized.
+ *
+ * @see GZIPInputStream
+ * @see ZipFile#getSeekableChannel(ZipEntry)
+ * @since 9
+ */
+public final class SeekableInflaterChannel implements SeekableByteChannel {
+
+    /**
+     * The default span, in bytes of uncompressed data, between checkpoints.
+     */
+    public static final long DEFAULT_SPAN = 1L << 20;
+
+    /*
+     * Source of compressed data, read at absolute positions.
+     */
+    interface Input {
+        int readAt(byte[] b, int off, int len, long pos) throws IOException;
+        void close() throws IOException;
+    }
+
+    // Formats
+    static final int GZIP = 0;          // one or more GZIP members
+    static final int DEFLATE = 1;       // raw deflate data
+    static final int STORED = 2;        // uncompressed data
+
+    // Decoder states
+    private static final int MEMBER_HEADER = 0;
+    private static final int BLOCK_HEADER = 1;
+    private static final int STORED_BLOCK = 2;
+    private static final int CODES = 3;
+    private static final int TRAILER = 4;
+    private static final int DONE = 5;
+
+    private static final int GZIP_MAGIC = 0x8b1f;
+    private static final int FHCRC      = 2;
+    private static final int FEXTRA     = 4;
+    private static final int FNAME      = 8;
+    private static final int FCOMMENT   = 16;
+
+    private static final int WSIZE = 32 * 1024;
+    private static final int WMASK = WSIZE - 1;
+
+    private final Input in;
+    private final int format;
+    private final long knownSize;       // uncompressed size, or -1
+    private final Index index;
+    private boolean open = true;
+
+    // Position requested by the caller, and of the decoder
+    private long position;
+    private long outPos;
+
+    // Input buffering and bit accumulator
+    private final byte[] inBuf = new byte[8192];
+    private long inBufPos;              // stream position of inBuf[0]
+    private int inLen;
+    private int inIdx;
+    private long bitBuf;
+    private int bitCnt;
+
+    // Decoder state
+    private int state;
+    private boolean lastBlock;
+    private int storedRem;
+    private Huffman lit, dist;
+    private final Huffman dynLit = new Huffman(288);
+    private final Huffman dynDist = new Huffman(30);
+    private final Huffman lenCode = new Huffman(19);
+    private final byte[] lengths = new byte[288 + 30];
+    private int copyLen, copyDist;
+    private final byte[] window = new byte[WSIZE];
+    private long histStart;             // first position held in window
+    private final CRC32 crc = new CRC32();
+    private boolean crcValid;           // member decoded from its start
+    private long crcPos;                // position up to which crc computed
+
+    SeekableInflaterChannel(Input in, int format, long knownSize,
+                            Index index) {
+        this.in = in;
+        this.format = format;
+        this.knownSize = knownSize;
+        this.index = index;
+        if (format == STORED) {
+            index.complete = true;
+            index.size = knownSize;
+        }
+        restart();
+    }
+
+    /**
+     * Opens a channel over the GZIP data read from the given channel,
+     * recording checkpoints every {@code span} bytes of uncompressed data.
+     * The data may consist of several concatenated GZIP members.  Closing
+     * the returned channel closes the given channel.
+     *
+     * @param ch the channel from which GZIP data is read
+     * @param span the approximate number of uncompressed bytes between
+     *        checkpoints
+     * @return a new channel
+     * @throws IllegalArgumentException if {@code span} is not positive
+     */
+    public static SeekableInflaterChannel open(SeekableByteChannel ch,
+                                               long span) {
+        if (span <= 0)
+            throw new IllegalArgumentException("span <= 0");
+        return new SeekableInflaterChannel(channelInput(ch), GZIP, -1,
+                                           new Index(span));
+    }
+
+    /**
+     * Opens a channel over the GZIP data read from the given channel,
+     * starting with the checkpoints in the given index, which must have
+     * been obtained from a channel over the same data.  Further checkpoints
+     * are added to a copy of the index as needed.  Closing the returned
+     * channel closes the given channel.
+     *
+     * @param ch the channel from which GZIP data is read
+     * @param index an index of the same data
+     * @return a new channel
+     */
+    public static SeekableInflaterChannel open(SeekableByteChannel ch,
+                                               Index index) {
+        return new SeekableInflaterChannel(channelInput(ch), GZIP, -1,
+                                           index.copy());
+    }
+
+    private static Input channelInput(SeekableByteChannel ch) {
+        if (ch == null)
+            throw new NullPointerException();
+        return new Input() {
+            public int readAt(byte[] b, int off, int len, long pos)
+                throws IOException
+            {
+                ch.position(pos);
+                return ch.read(ByteBuffer.wrap(b, off, len));
+            }
+            public void close() throws IOException {
+                ch.close();
+            }
+        };
+    }
+
+    /**
+     * Returns a copy of the index of checkpoints recorded so far.
+     *
+     * @return the index
+     */
+    public synchronized Index index() {
+        return index.copy();
+    }
+
+    // -- SeekableByteChannel --
+
+    private void ensureOpen() throws IOException {
+        if (!open)
+            throw new ClosedChannelException();
+    }
+
+    /**
+     * Reads a sequence of bytes from this channel into the given buffer,
+     * starting at this channel's position.
+     *
+     * @param dst the buffer into which bytes are to be transferred
+     * @return the number of bytes read, possibly zero, or {@code -1} if
+     *         the position is at or beyond the end of the uncompressed data
+     * @throws ZipException if the compressed data is corrupt
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized int read(ByteBuffer dst) throws IOException {
+        ensureOpen();
+        int len = dst.remaining();
+        if (len == 0)
+            return 0;
+        if (format == STORED) {
+            if (position >= knownSize)
+                return -1;
+            len = (int)Math.min(len, knownSize - position);
+        }
+        byte[] b; int off;
+        if (dst.hasArray()) {
+            b = dst.array();
+            off = dst.arrayOffset() + dst.position();
+        } else {
+            len = Math.min(len, WSIZE);
+            b = new byte[len];
+            off = 0;
+        }
+        int n;
+        if (format == STORED) {
+            n = in.readAt(b, off, len, position);
+            if (n <= 0)
+                throw new EOFException("Unexpected end of entry data");
+        } else {
+            if (outPos != position)
+                seek(position);
+            n = inflate(b, off, Math.min(len, WSIZE));
+            if (n < 0)
+                return -1;
+        }
+        if (dst.hasArray())
+            dst.position(dst.position() + n);
+        else
+            dst.put(b, 0, n);
+        position += n;
+        return n;
+    }
+
+    /**
+     * Always throws {@link NonWritableChannelException}.
+     *
+     * @throws NonWritableChannelException always
+     */
+    public int write(ByteBuffer src) {
+        throw new NonWritableChannelException();
+    }
+
+    /**
+     * Returns this channel's position in the uncompressed data.
+     *
+     * @return this channel's position
+     * @throws ClosedChannelException if this channel is closed
+     */
+    public synchronized long position() throws IOException {
+        ensureOpen();
+        return position;
+    }
+
+    /**
+     * Sets this channel's position in the uncompressed data.  The
+     * repositioning takes effect, by resuming decompression at the nearest
+     * checkpoint, when data is next read.  Setting the position beyond the
+     * end of the data is legal, in which case reads return end-of-stream.
+     *
+     * @param newPosition the new position
+     * @return this channel
+     * @throws ClosedChannelException if this channel is closed
+     * @throws IllegalArgumentException if the new position is negative
+     */
+    public synchronized SeekableInflaterChannel position(long newPosition)
+        throws IOException
+    {
+        ensureOpen();
+        if (newPosition < 0)
+            throw new IllegalArgumentException();
+        position = newPosition;
+        return this;
+    }
+
+    /**
+     * Returns the size of the uncompressed data.  If it is not yet known,
+     * the remainder of the data is decompressed to find it, completing the
+     * index.
+     *
+     * @return the size of the uncompressed data
+     * @throws ZipException if the compressed data is corrupt
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized long size() throws IOException {
+        ensureOpen();
+        if (knownSize >= 0)
+            return knownSize;
+        if (!index.complete) {
+            if (outPos < index.frontier())
+                seek(index.frontier());
+            byte[] scratch = new byte[WSIZE];
+            while (inflate(scratch, 0, WSIZE) >= 0)
+                ;
+        }
+        return index.size;
+    }
+
+    /**
+     * Always throws {@link NonWritableChannelException}.
+     *
+     * @throws NonWritableChannelException always
+     */
+    public SeekableByteChannel truncate(long size) {
+        throw new NonWritableChannelException();
+    }
+
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes this channel and the source of the compressed data.
+     *
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void close() throws IOException {
+        if (open) {
+            open = false;
+            in.close();
+        }
+    }
+
+    // -- Repositioning --
+
+    /*
+     * Moves the decoder to the given position, resuming from the nearest
+     * checkpoint unless the decoder is already between it and the target.
+     */
+    private void seek(long target) throws IOException {
+        Checkpoint cp = index.floor(target);
+        long from = (cp == null) ? 0L : cp.out;
+        if (outPos > target || outPos < from) {
+            if (cp == null)
+                restart();
+            else
+                resume(cp);
+        }
+        byte[] scratch = new byte[WSIZE];
+        while (outPos < target) {
+            int n = (int)Math.min(WSIZE, target - outPos);
+            if (inflate(scratch, 0, n) < 0) {
+                break;
+            }
+        }
+    }
+
+    private void restart() {
+        setInputPosition(0L);
+        state = (format == GZIP) ? MEMBER_HEADER : BLOCK_HEADER;
+        lastBlock = false;
+        copyLen = 0;
+        outPos = 0L;
+        histStart = 0L;
+        crcValid = false;
+    }
+
+    private void resume(Checkpoint cp) throws IOException {
+        setInputPosition(cp.bit >>> 3);
+        int r = (int)(cp.bit & 7);
+        if (r != 0) {
+            need(r);
+            drop(r);
+        }
+        state = BLOCK_HEADER;
+        lastBlock = false;
+        copyLen = 0;
+        outPos = cp.out;
+        histStart = cp.out - cp.window.length;
+        for (int i = 0; i < cp.window.length; i++)
+            window[(int)(histStart + i) & WMASK] = cp.window[i];
+        crcValid = false;
+    }
+
+    /*
+     * Records a checkpoint at the current block boundary if the decoder
+     * is a span beyond the last one.
+     */
+    private void checkpoint() {
+        if (!index.complete && outPos >= index.frontier() + index.span) {
+            int wlen = (int)Math.min(WSIZE, outPos - histStart);
+            byte[] w = new byte[wlen];
+            long start = outPos - wlen;
+            for (int i = 0; i < wlen; i++)
+                w[i] = window[(int)(start + i) & WMASK];
+            index.checkpoints.add(new Checkpoint(outPos, bitPosition(), w));
+        }
+    }
+
+    // -- Bit input --
+
+    private void setInputPosition(long pos) {
+        inBufPos = pos;
+        inLen = 0;
+        inIdx = 0;
+        bitBuf = 0L;
+        bitCnt = 0;
+    }
+
+    private long bitPosition() {
+        return (inBufPos + inIdx) * 8 - bitCnt;
+    }
+
+    /*
+     * Returns the next byte of input, or -1 at the end of the input.
+     */
+    private int nextByte() throws IOException {
+        if (inIdx == inLen) {
+            inBufPos += inLen;
+            inIdx = 0;
+            inLen = 0;
+            int n = in.readAt(inBuf, 0, inBuf.length, inBufPos);
+            if (n <= 0)
+                return -1;
+            inLen = n;
+        }
+        return inBuf[inIdx++] & 0xff;
+    }
+
+    /*
+     * Ensures at least n bits are buffered, if the input allows.  Returns
+     * false if the input ended first.
+     */
+    private boolean fill(int n) throws IOException {
+        while (bitCnt < n) {
+            int b = nextByte();
+            if (b < 0)
+                return false;
+            bitBuf |= (long)b << bitCnt;
+            bitCnt += 8;
+        }
+        return true;
+    }
+
+    private void need(int n) throws IOException {
+        if (!fill(n))
+            throw new EOFException("Unexpected end of ZLIB input stream");
+    }
+
+    private void drop(int n) {
+        bitBuf >>>= n;
+        bitCnt -= n;
+    }
+
+    private int bits(int n) throws IOException {
+        need(n);
+        int v = (int)(bitBuf & ((1L << n) - 1));
+        drop(n);
+        return v;
+    }
+
+    private void alignToByte() {
+        drop(bitCnt & 7);
+    }
+
+    // -- Huffman decoding --
+
+    /*
+     * A canonical Huffman code, decoded by table lookup for codes of up
+     * to FAST_BITS bits, and otherwise one bit at a time from the code
+     * length counts, as in zlib's puff.c.
+     */
+    static final class Huffman {
+        static final int FAST_BITS = 9;
+        final short[] count = new short[16];
+        final short[] symbol;
+        final int[] fast = new int[1 << FAST_BITS];  // (symbol << 4) | length
+
+        Huffman(int n) {
+            symbol = new short[n];
+        }
+
+        /*
+         * Builds the code from the given code lengths.  Returns false if
+         * the lengths are over-subscribed.
+         */
+        boolean build(byte[] len, int off, int n) {
+            Arrays.fill(count, (short)0);
+            for (int i = 0; i < n; i++)
+                count[len[off + i]]++;
+            int left = 1;
+            for (int l = 1; l < 16; l++) {
+                left <<= 1;
+                left -= count[l];
+                if (left < 0)
+                    return false;
+            }
+            int[] offs = new int[16];
+            int[] next = new int[16];
+            int code = 0;
+            for (int l = 1; l < 16; l++) {
+                offs[l] = (l == 1) ? 0 : offs[l - 1] + count[l - 1];
+                code = (code + ((l == 1) ? 0 : count[l - 1])) << 1;
+                next[l] = code;
+            }
+            Arrays.fill(fast, 0);
+            for (int s = 0; s < n; s++) {
+                int l = len[off + s];
+                if (l == 0)
+                    continue;
+                symbol[offs[l]++] = (short)s;
+                int c = next[l]++;
+                if (l <= FAST_BITS) {
+                    int r = Integer.reverse(c) >>> (32 - l);
+                    for (int j = r; j < (1 << FAST_BITS); j += 1 << l)
+                        fast[j] = (s << 4) | l;
+                }
+            }
+            return true;
+        }
+    }
+
+    private static final Huffman FIXED_LIT = new Huffman(288);
+    private static final Huffman FIXED_DIST = new Huffman(30);
+    static {
+        byte[] l = new byte[288];
+        Arrays.fill(l, 0, 144, (byte)8);
+        Arrays.fill(l, 144, 256, (byte)9);
+        Arrays.fill(l, 256, 280, (byte)7);
+        Arrays.fill(l, 280, 288, (byte)8);
+        FIXED_LIT.build(l, 0, 288);
+        Arrays.fill(l, 0, 30, (byte)5);
+        FIXED_DIST.build(l, 0, 30);
+    }
+
+    private int decode(Huffman h) throws IOException {
+        fill(15);
+        int e = h.fast[(int)bitBuf & ((1 << Huffman.FAST_BITS) - 1)];
+        if (e != 0 && (e & 15) <= bitCnt) {
+            drop(e & 15);
+            return e >>> 4;
+        }
+        int code = 0, first = 0, idx = 0;
+        for (int l = 1; l < 16; l++) {
+            if (l > bitCnt)
+                throw new EOFException("Unexpected end of ZLIB input stream");
+            code |= (int)(bitBuf >>> (l - 1)) & 1;
+            int count = h.count[l];
+            if (code - count < first) {
+                drop(l);
+                return h.symbol[idx + (code - first)];
+            }
+            idx += count;
+            first += count;
+            first <<= 1;
+            code <<= 1;
+        }
+        throw new ZipException("invalid code");
+    }
+
+    private static final short[] LBASE = {
+        3, 4, 5, 6, 7, 8, 9, 10, 11, 13, 15, 17, 19, 23, 27, 31,
+        35, 43, 51, 59, 67, 83, 99, 115, 131, 163, 195, 227, 258 };
+    private static final byte[] LEXT = {
+        0, 0, 0, 0, 0, 0, 0, 0, 1, 1, 1, 1, 2, 2, 2, 2,
+        3, 3, 3, 3, 4, 4, 4, 4, 5, 5, 5, 5, 0 };
+    private static final int[] DBASE = {
+        1, 2, 3, 4, 5, 7, 9, 13, 17, 25, 33, 49, 65, 97, 129, 193,
+        257, 385, 513, 769, 1025, 1537, 2049, 3073, 4097, 6145,
+        8193, 12289, 16385, 24577 };
+    private static final byte[] DEXT = {
+        0, 0, 0, 0, 1, 1, 2, 2, 3, 3, 4, 4, 5, 5, 6, 6,
+        7, 7, 8, 8, 9, 9, 10, 10, 11, 11, 12, 12, 13, 13 };
+    private static final byte[] ORDER = {
+        16, 17, 18, 0, 8, 7, 9, 6, 10, 5, 11, 4, 12, 3, 13, 2, 14, 1, 15 };
+
+    private void readDynamicTables() throws IOException {
+        int nlen = bits(5) + 257;
+        int ndist = bits(5) + 1;
+        int ncode = bits(4) + 4;
+        if (nlen > 286 || ndist > 30)
+            throw new ZipException("invalid dynamic block header");
+        byte[] len = lengths;
+        Arrays.fill(len, 0, 19, (byte)0);
+        for (int i = 0; i < ncode; i++)
+            len[ORDER[i]] = (byte)bits(3);
+        if (!lenCode.build(len, 0, 19))
+            throw new ZipException("invalid code lengths set");
+        for (int i = 0; i < nlen + ndist; ) {
+            int sym = decode(lenCode);
+            if (sym < 16) {
+                len[i++] = (byte)sym;
+            } else {
+                int prev = 0, rep;
+                if (sym == 16) {
+                    if (i == 0)
+                        throw new ZipException("invalid bit length repeat");
+                    prev = len[i - 1];
+                    rep = 3 + bits(2);
+                } else if (sym == 17) {
+                    rep = 3 + bits(3);
+                } else {
+                    rep = 11 + bits(7);
+                }
+                if (i + rep > nlen + ndist)
+                    throw new ZipException("invalid bit length repeat");
+                while (rep-- > 0)
+                    len[i++] = (byte)prev;
+            }
+        }
+        if (len[256] == 0)
+            throw new ZipException("invalid code -- missing end-of-block");
+        if (!dynLit.build(len, 0, nlen) || !dynDist.build(len, nlen, ndist))
+            throw new ZipException("invalid literal/lengths set");
+        lit = dynLit;
+        dist = dynDist;
+    }
+
+    // -- Decompression --
+
+    private void put(byte[] b, int i, byte v) {
+        window[(int)outPos & WMASK] = v;
+        b[i] = v;
+        outPos++;
+    }
+
+    /*
+     * Decompresses up to len (at most WSIZE) bytes into b, returning the
+     * number of bytes produced, or -1 at the end of the data.
+     */
+    private int inflate(byte[] b, int off, int len) throws IOException {
+        int n = 0;
+        try {
+            while (n < len) {
+                switch (state) {
+                case MEMBER_HEADER:
+                    readMemberHeader();
+                    updateCrc();
+                    crc.reset();
+                    crcValid = true;
+                    histStart = outPos;
+                    state = BLOCK_HEADER;
+                    break;
+                case BLOCK_HEADER:
+                    if (lastBlock) {
+                        state = (format == GZIP) ? TRAILER : DONE;
+                        break;
+                    }
+                    checkpoint();
+                    lastBlock = bits(1) == 1;
+                    switch (bits(2)) {
+                    case 0:
+                        alignToByte();
+                        int l = bits(16);
+                        if (l != (~bits(16) & 0xffff))
+                            throw new ZipException(
+                                "invalid stored block lengths");
+                        storedRem = l;
+                        state = STORED_BLOCK;
+                        break;
+                    case 1:
+                        lit = FIXED_LIT;
+                        dist = FIXED_DIST;
+                        state = CODES;
+                        break;
+                    case 2:
+                        readDynamicTables();
+                        state = CODES;
+                        break;
+                    default:
+                        throw new ZipException("invalid block type");
+                    }
+                    break;
+                case STORED_BLOCK:
+                    while (storedRem > 0 && n < len) {
+                        put(b, off + n++, (byte)bits(8));
+                        storedRem--;
+                    }
+                    if (storedRem == 0)
+                        state = BLOCK_HEADER;
+                    break;
+                case CODES:
+                    while (n < len) {
+                        if (copyLen > 0) {
+                            int c = Math.min(copyLen, len - n);
+                            copyLen -= c;
+                            while (c-- > 0)
+                                put(b, off + n++,
+                                    window[(int)(outPos - copyDist) & WMASK]);
+                            continue;
+                        }
+                        int sym = decode(lit);
+                        if (sym < 256) {
+                            put(b, off + n++, (byte)sym);
+                        } else if (sym == 256) {
+                            state = BLOCK_HEADER;
+                            break;
+                        } else {
+                            sym -= 257;
+                            if (sym >= 29)
+                                throw new ZipException(
+                                    "invalid literal/length code");
+                            copyLen = LBASE[sym] + bits(LEXT[sym]);
+                            int ds = decode(dist);
+                            if (ds >= 30)
+                                throw new ZipException("invalid distance code");
+                            copyDist = DBASE[ds] + bits(DEXT[ds]);
+                            if (copyDist > outPos - histStart)
+                                throw new ZipException(
+                                    "invalid distance too far back");
+                        }
+                    }
+                    break;
+                case TRAILER:
+                    alignToByte();
+                    updateCrc();
+                    int crc32 = bits(16) | (bits(16) << 16);
+                    int isize = bits(16) | (bits(16) << 16);
+                    if (crcValid && (crc32 != (int)crc.getValue() ||
+                                     isize != (int)(outPos - histStart)))
+                        throw new ZipException("Corrupt GZIP trailer");
+                    crcValid = false;
+                    lastBlock = false;
+                    if (fill(16) && (bitBuf & 0xffff) == GZIP_MAGIC)
+                        state = MEMBER_HEADER;
+                    else
+                        state = DONE;
+                    break;
+                default: // DONE
+                    if (!index.complete) {
+                        index.complete = true;
+                        index.size = outPos;
+                    }
+                    return (n == 0) ? -1 : n;
+                }
+            }
+            return n;
+        } finally {
+            if (crcValid)
+                updateCrc();
+            else
+                crcPos = outPos;
+        }
+    }
+
+    /*
+     * Adds the data decompressed since the last update to the CRC.  At
+     * most WSIZE bytes are decompressed between updates, so the data is
+     * still in the window.
+     */
+    private void updateCrc() {
+        if (crcValid && crcPos < outPos) {
+            int s = (int)crcPos & WMASK, e = (int)outPos & WMASK;
+            if (s < e) {
+                crc.update(window, s, e - s);
+            } else {
+                crc.update(window, s, WSIZE - s);
+                crc.update(window, 0, e);
+            }
+        }
+        crcPos = outPos;
+    }
+
+    private void readMemberHeader() throws IOException {
+        if (bits(16) != GZIP_MAGIC)
+            throw new ZipException("Not in GZIP format");
+        if (bits(8) != 8)
+            throw new ZipException("Unsupported compression method");
+        int flg = bits(8);
+        bits(16); bits(16); bits(8); bits(8);   // MTIME, XFL, OS
+        if ((flg & FEXTRA) == FEXTRA) {
+            for (int xlen = bits(16); xlen > 0; xlen--)
+                bits(8);
+        }
+        if ((flg & FNAME) == FNAME) {
+            while (bits(8) != 0)
+                ;
+        }
+        if ((flg & FCOMMENT) == FCOMMENT) {
+            while (bits(8) != 0)
+                ;
+        }
+        if ((flg & FHCRC) == FHCRC)
+            bits(16);
+    }
+
+    // -- Index --
+
+    /*
+     * A resumption point: a block boundary at the given bit position of
+     * the compressed data, and the uncompressed data preceding it.
+     */
+    static final class Checkpoint {
+        final long out;
+        final long bit;
+        final byte[] window;
+
+        Checkpoint(long out, long bit, byte[] window) {
+            this.out = out;
+            this.bit = bit;
+            this.window = window;
+        }
+    }
+
+    /**
+     * An index of checkpoints in compressed data, from which decompression
+     * can be resumed.  An index is obtained from a channel by {@link
+     * SeekableInflaterChannel#index()}, and can be stored in a compact
+     * binary form by {@link #writeTo writeTo} and restored by {@link
+     * #readFrom readFrom}.  The form does not identify the data indexed;
+     * supplying an index of different data to a channel results in
+     * unspecified behavior.
+     *
+     * @since 9
+     */
+    public static final class Index {
+        private static final int MAGIC = 0x5a494458;     // "ZIDX"
+        private static final int VERSION = 1;
+
+        final long span;
+        final List<Checkpoint> checkpoints;
+        boolean complete;
+        long size;
+
+        Index(long span) {
+            this.span = span;
+            this.checkpoints = new ArrayList<>();
+        }
+
+        Index copy() {
+            Index x = new Index(span);
+            x.checkpoints.addAll(checkpoints);
+            x.complete = complete;
+            x.size = size;
+            return x;
+        }
+
+        long frontier() {
+            int n = checkpoints.size();
+            return (n == 0) ? 0L : checkpoints.get(n - 1).out;
+        }
+
+        /*
+         * Returns the last checkpoint at or before the given position.
+         */
+        Checkpoint floor(long pos) {
+            int lo = 0, hi = checkpoints.size() - 1;
+            Checkpoint found = null;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                Checkpoint c = checkpoints.get(mid);
+                if (c.out <= pos) {
+                    found = c;
+                    lo = mid + 1;
+                } else {
+                    hi = mid - 1;
+                }
+            }
+            return found;
+        }
+
+        /**
+         * Returns the approximate number of uncompressed bytes between
+         * checkpoints.
+         *
+         * @return the span
+         */
+        public long span() {
+            return span;
+        }
+
+        /**
+         * Tells whether this index covers all of the data, which is the
+         * case once the data has been decompressed to its end.
+         *
+         * @return {@code true} if this index is complete
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        /**
+         * Writes this index to the given stream.
+         *
+         * @param out the output stream
+         * @throws IOException if an I/O error occurs
+         */
+        public void writeTo(OutputStream out) throws IOException {
+            DataOutputStream dos = new DataOutputStream(out);
+            dos.writeInt(MAGIC);
+            dos.writeInt(VERSION);
+            dos.writeLong(span);
+            dos.writeBoolean(complete);
+            dos.writeLong(size);
+            dos.writeInt(checkpoints.size());
+            for (Checkpoint c : checkpoints) {
+                dos.writeLong(c.out);
+                dos.writeLong(c.bit);
+                dos.writeInt(c.window.length);
+                dos.write(c.window);
+            }
+            dos.flush();
+        }
+
+        /**
+         * Reads an index written by {@link #writeTo writeTo} from the
+         * given stream.
+         *
+         * @param in the input stream
+         * @return the index
+         * @throws ZipException if the stream does not contain an index
+         * @throws IOException if an I/O error occurs
+         */
+        public static Index readFrom(InputStream in) throws IOException {
+            DataInputStream dis = new DataInputStream(in);
+            if (dis.readInt() != MAGIC || dis.readInt() != VERSION)
+                throw new ZipException("Not an index");
+            long span = dis.readLong();
+            if (span <= 0)
+                throw new ZipException("Corrupt index");
+            Index x = new Index(span);
+            x.complete = dis.readBoolean();
+            x.size = dis.readLong();
+            int n = dis.readInt();
+            long last = 0L;
+            for (int i = 0; i < n; i++) {
+                long out = dis.readLong();
+                long bit = dis.readLong();
+                int wlen = dis.readInt();
+                if (out < last || bit < 0 || wlen < 0 || wlen > WSIZE ||
+                    wlen > out)
+                    throw new ZipException("Corrupt index");
+                byte[] w = new byte[wlen];
+                dis.readFully(w);
+                x.checkpoints.add(new Checkpoint(out, bit, w));
+                last = out;
+            }
+            return x;
+        }
+    }
+}
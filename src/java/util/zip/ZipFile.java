@@ -31,16 +31,17 @@ import java.io.IOException;
 import java.io.EOFException;
 import java.io.File;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.attribute.BasicFileAttributes;
 import java.nio.file.Path;
 import java.nio.file.Files;
 
-import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Deque;
 import java.util.Enumeration;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -50,6 +51,9 @@ import java.util.NoSuchElementException;
 import java.util.Spliterator;
 import java.util.Spliterators;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 import jdk.internal.misc.JavaUtilZipFileAccess;
@@ -371,6 +375,78 @@ class ZipFile implements ZipConstants, Closeable {
         }
     }
 
+    /**
+     * Returns a seekable channel for reading the contents of the specified
+     * zip file entry.  Repositioning within a compressed entry resumes
+     * decompression from checkpoints recorded as the entry is read, as
+     * described by {@link SeekableInflaterChannel}.
+     * <p>
+     * The channel reads from this zip file, and fails with a {@code
+     * ZipException} once this zip file has been closed.
+     *
+     * @param entry the zip file entry
+     * @return the channel for reading the contents of the specified zip
+     * file entry, or {@code null} if the entry is not in this zip file
+     * @throws ZipException if a ZIP format error has occurred
+     * @throws IOException if an I/O error has occurred
+     * @throws IllegalStateException if the zip file has been closed
+     * @since 9
+     */
+    public SeekableInflaterChannel getSeekableChannel(ZipEntry entry)
+        throws IOException
+    {
+        Objects.requireNonNull(entry, "entry");
+        synchronized (this) {
+            ensureOpen();
+            int pos;
+            if (Objects.equals(lastEntryName, entry.name)) {
+                pos = lastEntryPos;
+            } else if (!zc.isUTF8() && (entry.flag & EFS) != 0) {
+                pos = zsrc.getEntryPos(zc.getBytesUTF8(entry.name), false);
+            } else {
+                pos = zsrc.getEntryPos(zc.getBytes(entry.name), false);
+            }
+            if (pos == -1) {
+                return null;
+            }
+            ZipFileInputStream zfin = new ZipFileInputStream(zsrc.cen, pos);
+            long csize = zfin.rem;
+            SeekableInflaterChannel.Input in =
+                new SeekableInflaterChannel.Input() {
+                    public int readAt(byte[] b, int off, int len, long p)
+                        throws IOException
+                    {
+                        synchronized (ZipFile.this) {
+                            ensureOpenOrZipException();
+                            long start = zfin.initDataOffset();
+                            if (p >= csize) {
+                                return -1;
+                            }
+                            if (len > csize - p) {
+                                len = (int)(csize - p);
+                            }
+                            return zsrc.readAt(b, off, len, start + p);
+                        }
+                    }
+                    public void close() {}
+                };
+            int format;
+            switch (CENHOW(zsrc.cen, pos)) {
+            case STORED:
+                format = SeekableInflaterChannel.STORED;
+                break;
+            case DEFLATED:
+                format = SeekableInflaterChannel.DEFLATE;
+                break;
+            default:
+                throw new ZipException("invalid compression method");
+            }
+            return new SeekableInflaterChannel(in, format, zfin.size,
+                new SeekableInflaterChannel.Index(
+                    SeekableInflaterChannel.DEFAULT_SPAN));
+        }
+    }
+
     private class ZipFileInflaterInputStream extends InflaterInputStream {
         private volatile boolean closeRequested;
         private boolean eof = false;
@@ -433,11 +509,9 @@ class ZipFile implements ZipConstants, Closeable {
      */
     private Inflater getInflater() {
         Inflater inf;
-        synchronized (inflaterCache) {
-            while ((inf = inflaterCache.poll()) != null) {
-                if (!inf.ended()) {
-                    return inf;
-                }
+        while ((inf = inflaterCache.poll()) != null) {
+            if (!inf.ended()) {
+                return inf;
             }
         }
         return new Inflater(true);
@@ -449,14 +523,13 @@ class ZipFile implements ZipConstants, Closeable {
     private void releaseInflater(Inflater inf) {
         if (!inf.ended()) {
             inf.reset();
-            synchronized (inflaterCache) {
-                inflaterCache.add(inf);
-            }
+            inflaterCache.add(inf);
         }
     }
 
     // List of available Inflater objects for decompression
-    private final Deque<Inflater> inflaterCache = new ArrayDeque<>();
+    private final ConcurrentLinkedQueue<Inflater> inflaterCache =
+        new ConcurrentLinkedQueue<>();
 
     /**
      * Returns the path name of the ZIP file.
@@ -535,7 +608,7 @@ class ZipFile implements ZipConstants, Closeable {
 
     /* Checks ensureOpen() before invoke this method */
     private ZipEntry getZipEntry(String name, byte[] bname, int pos) {
-        byte[] cen = zsrc.cen;
+        ByteBuffer cen = zsrc.cen;
         int nlen = CENNAM(cen, pos);
         int elen = CENEXT(cen, pos);
         int clen = CENCOM(cen, pos);
@@ -545,11 +618,8 @@ class ZipFile implements ZipConstants, Closeable {
             // (1) null, invoked from iterator, or
             // (2) not equal to the name stored, a slash is appended during
             // getEntryPos() search.
-            if (!zc.isUTF8() && (flag & EFS) != 0) {
-                name = zc.toStringUTF8(cen, pos + CENHDR, nlen);
-            } else {
-                name = zc.toString(cen, pos + CENHDR, nlen);
-            }
+            name = cenString(cen, pos + CENHDR, nlen,
+                             !zc.isUTF8() && (flag & EFS) != 0);
         }
         ZipEntry e = new ZipEntry(name);
         e.flag = flag;
@@ -560,21 +630,35 @@ class ZipFile implements ZipConstants, Closeable {
         e.method = CENHOW(cen, pos);
         if (elen != 0) {
             int start = pos + CENHDR + nlen;
-            e.setExtra0(Arrays.copyOfRange(cen, start, start + elen), true);
+            e.setExtra0(Source.getBytes(cen, start, elen), true);
         }
         if (clen != 0) {
             int start = pos + CENHDR + nlen + elen;
-            if (!zc.isUTF8() && (flag & EFS) != 0) {
-                e.comment = zc.toStringUTF8(cen, start, clen);
-            } else {
-                e.comment = zc.toString(cen, start, clen);
-            }
+            e.comment = cenString(cen, start, clen,
+                                  !zc.isUTF8() && (flag & EFS) != 0);
         }
         lastEntryName = e.name;
         lastEntryPos = pos;
         return e;
     }
 
+    /*
+     * Decodes len bytes at off of the CEN, as UTF-8 if utf8 is true and
+     * otherwise with the charset of this zip file.  A CEN held on the heap
+     * is decoded in place; a mapped one is copied out first.
+     */
+    private String cenString(ByteBuffer cen, int off, int len, boolean utf8) {
+        byte[] b;
+        if (cen.hasArray()) {
+            b = cen.array();
+            off += cen.arrayOffset();
+        } else {
+            b = Source.getBytes(cen, off, len);
+            off = 0;
+        }
+        return utf8 ? zc.toStringUTF8(b, off, len) : zc.toString(b, off, len);
+    }
+
     /**
      * Returns the number of entries in the ZIP file.
      *
@@ -618,11 +702,9 @@ class ZipFile implements ZipConstants, Closeable {
                 }
             }
             // Release cached inflaters
-            synchronized (inflaterCache) {
-                Inflater inf;
-                while ((inf = inflaterCache.poll()) != null) {
-                    inf.end();
-                }
+            Inflater inf;
+            while ((inf = inflaterCache.poll()) != null) {
+                inf.end();
             }
             // Release zip src
             if (zsrc != null) {
@@ -684,7 +766,7 @@ class ZipFile implements ZipConstants, Closeable {
         protected long rem;     // number of remaining bytes within entry
         protected long size;    // uncompressed size of this entry
 
-        ZipFileInputStream(byte[] cen, int cenpos) throws IOException {
+        ZipFileInputStream(ByteBuffer cen, int cenpos) throws IOException {
             rem = CENSIZ(cen, cenpos);
             size = CENLEN(cen, cenpos);
             pos = CENOFF(cen, cenpos);
@@ -697,12 +779,12 @@ class ZipFile implements ZipConstants, Closeable {
             pos = - (pos + ZipFile.this.zsrc.locpos);
         }
 
-        private void checkZIP64(byte[] cen, int cenpos) throws IOException {
+        private void checkZIP64(ByteBuffer cen, int cenpos) throws IOException {
             int off = cenpos + CENHDR + CENNAM(cen, cenpos);
             int end = off + CENEXT(cen, cenpos);
             while (off + 4 < end) {
-                int tag = get16(cen, off);
-                int sz = get16(cen, off + 2);
+                int tag = SH(cen, off);
+                int sz = SH(cen, off + 2);
                 off += 4;
                 if (off + sz > end)         // invalid data
                     break;
@@ -710,21 +792,21 @@ class ZipFile implements ZipConstants, Closeable {
                     if (size == ZIP64_MAGICVAL) {
                         if (sz < 8 || (off + 8) > end)
                             break;
-                        size = get64(cen, off);
+                        size = LL(cen, off);
                         sz -= 8;
                         off += 8;
                     }
                     if (rem == ZIP64_MAGICVAL) {
                         if (sz < 8 || (off + 8) > end)
                             break;
-                        rem = get64(cen, off);
+                        rem = LL(cen, off);
                         sz -= 8;
                         off += 8;
                     }
                     if (pos == ZIP64_MAGICVAL) {
                         if (sz < 8 || (off + 8) > end)
                             break;
-                        pos = get64(cen, off);
+                        pos = LL(cen, off);
                         sz -= 8;
                         off += 8;
                     }
@@ -843,10 +925,11 @@ class ZipFile implements ZipConstants, Closeable {
                 return null;
             }
             String[] names = new String[zsrc.metanames.length];
-            byte[] cen = zsrc.cen;
+            ByteBuffer cen = zsrc.cen;
             for (int i = 0; i < names.length; i++) {
                 int pos = zsrc.metanames[i];
-                names[i] = new String(cen, pos + CENHDR, CENNAM(cen, pos),
+                names[i] = new String(Source.getBytes(cen, pos + CENHDR,
+                                                      CENNAM(cen, pos)),
                                       StandardCharsets.UTF_8);
             }
             return names;
@@ -854,6 +937,9 @@ class ZipFile implements ZipConstants, Closeable {
     }
 
     private static boolean isWindows;
+
+    // If true, zip files are memory-mapped, see Source
+    private static boolean mapFile;
     static {
         SharedSecrets.setJavaUtilZipFileAccess(
             new JavaUtilZipFileAccess() {
@@ -866,14 +952,30 @@ class ZipFile implements ZipConstants, Closeable {
              }
         );
         isWindows = VM.getSavedProperty("os.name").contains("Windows");
+        mapFile = "true".equals(VM.getSavedProperty("jdk.util.zip.mapFile"));
     }
 
+    /*
+     * The central directory and entry table of a zip file, shared by all
+     * ZipFile instances open on the same file.
+     *
+     * If the "jdk.util.zip.mapFile" system property is "true", a file of
+     * less than 2GB is mapped into memory when opened.  The CEN is then
+     * used in place in the mapping, rather than read into an array on the
+     * heap, and entry data is read from the mapping without a lock or
+     * system call.  Otherwise the CEN is read into an array, which cen
+     * wraps, so that both cases share the ByteBuffer accessors of
+     * ZipUtils.  As with any mapped
+     * file, truncating the file while it is open may crash the VM, which
+     * is why mapping is not the default.
+     */
     private static class Source {
         private final Key key;               // the key in files
-        private int refs = 1;
+        private final AtomicInteger refs = new AtomicInteger(1);
 
         private RandomAccessFile zfile;      // zfile of the underlying zip file
-        private byte[] cen;                  // CEN & ENDHDR
+        private volatile MappedByteBuffer mbuf; // mapping of zfile, or null
+        private ByteBuffer cen;              // CEN & ENDHDR, heap or mapped
         private long locpos;                 // position of first LOC header (usually 0)
         private byte[] comment;              // zip file comment
                                              // list of meta entries in META-INF dir
@@ -943,40 +1045,45 @@ class ZipFile implements ZipConstants, Closeable {
                 return false;
             }
         }
-        private static final HashMap<Key, Source> files = new HashMap<>();
+        private static final ConcurrentHashMap<Key, Source> files =
+            new ConcurrentHashMap<>();
 
+        /*
+         * Increments the reference count unless it has already dropped to
+         * zero, in which case the source is being closed and must not be
+         * shared.
+         */
+        private boolean acquire() {
+            for (int r; (r = refs.get()) > 0; ) {
+                if (refs.compareAndSet(r, r + 1)) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
         public static Source get(File file, boolean toDelete) throws IOException {
             Key key = new Key(file,
                               Files.readAttributes(file.toPath(), BasicFileAttributes.class));
-            Source src = null;
-            synchronized (files) {
-                src = files.get(key);
-                if (src != null) {
-                    src.refs++;
-                    return src;
-                }
+            Source src = files.get(key);
+            if (src != null && src.acquire()) {
+                return src;
             }
-            src = new Source(key, toDelete);
-
-            synchronized (files) {
-                if (files.containsKey(key)) {    // someone else put in first
-                    src.close();                 // close the newly created one
-                    src = files.get(key);
-                    src.refs++;
+            Source nsrc = new Source(key, toDelete);
+            while ((src = files.putIfAbsent(key, nsrc)) != null) {
+                if (src.acquire()) {         // someone else put in first
+                    nsrc.close();            // close the newly created one
                     return src;
                 }
-                files.put(key, src);
-                return src;
+                files.remove(key, src);      // being closed, replace it
             }
+            return nsrc;
         }
 
         private static void close(Source src) throws IOException {
-            synchronized (files) {
-                if (--src.refs == 0) {
-                    files.remove(src.key);
-                    src.close();
-                }
+            if (src.refs.decrementAndGet() == 0) {
+                files.remove(src.key, src);
+                src.close();
             }
         }
 
@@ -994,6 +1101,13 @@ class ZipFile implements ZipConstants, Closeable {
                 this.zfile = new RandomAccessFile(key.file, "r");
             }
             try {
+                if (mapFile) {
+                    long len = zfile.length();
+                    if (len <= Integer.MAX_VALUE) {
+                        mbuf = zfile.getChannel()
+                                    .map(FileChannel.MapMode.READ_ONLY, 0, len);
+                    }
+                }
                 initCEN(-1);
                 byte[] buf = new byte[4];
                 readFullyAt(buf, 0, 4, 0);
@@ -1007,6 +1121,7 @@ class ZipFile implements ZipConstants, Closeable {
         }
 
         private void close() throws IOException {
+            mbuf = null;
             zfile.close();
             zfile = null;
             cen = null;
@@ -1019,6 +1134,14 @@ class ZipFile implements ZipConstants, Closeable {
         private final int readFullyAt(byte[] buf, int off, int len, long pos)
             throws IOException
         {
+            MappedByteBuffer mbuf = this.mbuf;
+            if (mbuf != null) {
+                if (pos < 0 || pos + len > mbuf.limit()) {
+                    throw new EOFException();
+                }
+                getAt(mbuf, buf, off, len, pos);
+                return len;
+            }
             synchronized(zfile) {
                 zfile.seek(pos);
                 int N = len;
@@ -1035,12 +1158,41 @@ class ZipFile implements ZipConstants, Closeable {
         private final int readAt(byte[] buf, int off, int len, long pos)
             throws IOException
         {
+            MappedByteBuffer mbuf = this.mbuf;
+            if (mbuf != null) {
+                if (pos >= mbuf.limit()) {
+                    return -1;
+                }
+                len = (int)Math.min(len, mbuf.limit() - pos);
+                getAt(mbuf, buf, off, len, pos);
+                return len;
+            }
             synchronized(zfile) {
                 zfile.seek(pos);
                 return zfile.read(buf, off, len);
             }
         }
 
+        /*
+         * Copies len bytes at pos of a buffer into buf, through a
+         * duplicate so that concurrent readers do not share a position.
+         */
+        private static void getAt(ByteBuffer mbuf, byte[] buf, int off,
+                                  int len, long pos) {
+            ByteBuffer bb = mbuf.duplicate();
+            bb.position((int)pos);
+            bb.get(buf, off, len);
+        }
+
+        /*
+         * Returns a new array holding the len bytes at off of the CEN.
+         */
+        static byte[] getBytes(ByteBuffer cen, int off, int len) {
+            byte[] b = new byte[len];
+            getAt(cen, b, 0, len, off);
+            return b;
+        }
+
         private static final int hashN(byte[] a, int off, int len) {
             int h = 1;
             while (len-- > 0) {
@@ -1049,6 +1201,14 @@ class ZipFile implements ZipConstants, Closeable {
             return h;
         }
 
+        private static final int hashN(ByteBuffer a, int off, int len) {
+            int h = 1;
+            while (len-- > 0) {
+                h = 31 * h + a.get(off++);
+            }
+            return h;
+        }
+
         private static final int hash_append(int hash, byte b) {
             return hash * 31 + b;
         }
@@ -1174,10 +1334,23 @@ class ZipFile implements ZipConstants, Closeable {
                 if (locpos < 0) {
                     zerror("invalid END header (bad central directory offset)");
                 }
-                // read in the CEN and END
-                cen = new byte[(int)(end.cenlen + ENDHDR)];
-                if (readFullyAt(cen, 0, cen.length, cenpos) != end.cenlen + ENDHDR) {
-                    zerror("read CEN tables failed");
+                // map or read in the CEN and END
+                long cenlen = end.cenlen + ENDHDR;
+                MappedByteBuffer mbuf = this.mbuf;
+                if (mbuf != null) {
+                    if (cenpos + cenlen > mbuf.limit()) {
+                        zerror("read CEN tables failed");
+                    }
+                    ByteBuffer bb = mbuf.duplicate();
+                    bb.position((int)cenpos);
+                    bb.limit((int)(cenpos + cenlen));
+                    cen = bb.slice();
+                } else {
+                    byte[] buf = new byte[(int)cenlen];
+                    if (readFullyAt(buf, 0, buf.length, cenpos) != cenlen) {
+                        zerror("read CEN tables failed");
+                    }
+                    cen = ByteBuffer.wrap(buf);
                 }
                 total = end.centot;
             } else {
@@ -1199,7 +1372,7 @@ class ZipFile implements ZipConstants, Closeable {
             int i = 0;
             int hsh = 0;
             int pos = 0;
-            int limit = cen.length - ENDHDR;
+            int limit = cen.limit() - ENDHDR;
             while (pos + CENHDR  <= limit) {
                 if (i >= total) {
                     // This will only happen if the zip file has an incorrect
@@ -1243,7 +1416,7 @@ class ZipFile implements ZipConstants, Closeable {
                     metanames[j] = metanamesList.get(j);
                 }
             }
-            if (pos + ENDHDR != cen.length) {
+            if (pos + ENDHDR != cen.limit()) {
                 zerror("invalid CEN header (bad header size)");
             }
         }
@@ -1281,7 +1454,7 @@ class ZipFile implements ZipConstants, Closeable {
                             boolean matched = true;
                             int nameoff = pos + CENHDR;
                             for (int i = 0; i < name.length; i++) {
-                                if (name[i] != cen[nameoff++]) {
+                                if (name[i] != cen.get(nameoff++)) {
                                     matched = false;
                                     break;
                                 }
@@ -1311,29 +1484,29 @@ class ZipFile implements ZipConstants, Closeable {
          * Returns true if the bytes represent a non-directory name
          * beginning with "META-INF/", disregarding ASCII case.
          */
-        private static boolean isMetaName(byte[] name, int off, int len) {
+        private static boolean isMetaName(ByteBuffer name, int off, int len) {
             // Use the "oldest ASCII trick in the book"
-            return len > 9                     // "META-INF/".length()
-                && name[off + len - 1] != '/'  // non-directory
-                && (name[off++] | 0x20) == 'm'
-                && (name[off++] | 0x20) == 'e'
-                && (name[off++] | 0x20) == 't'
-                && (name[off++] | 0x20) == 'a'
-                && (name[off++]       ) == '-'
-                && (name[off++] | 0x20) == 'i'
-                && (name[off++] | 0x20) == 'n'
-                && (name[off++] | 0x20) == 'f'
-                && (name[off]         ) == '/';
+            return len > 9                          // "META-INF/".length()
+                && name.get(off + len - 1) != '/'  // non-directory
+                && (name.get(off++) | 0x20) == 'm'
+                && (name.get(off++) | 0x20) == 'e'
+                && (name.get(off++) | 0x20) == 't'
+                && (name.get(off++) | 0x20) == 'a'
+                && (name.get(off++)       ) == '-'
+                && (name.get(off++) | 0x20) == 'i'
+                && (name.get(off++) | 0x20) == 'n'
+                && (name.get(off++) | 0x20) == 'f'
+                && (name.get(off)         ) == '/';
         }
 
         /**
          * Returns the number of CEN headers in a central directory.
          * Will not throw, even if the zip file is corrupt.
          *
-         * @param cen copy of the bytes in a zip file's central directory
+         * @param cen the bytes of a zip file's central directory
          * @param size number of bytes in central directory
          */
-        private static int countCENHeaders(byte[] cen, int size) {
+        private static int countCENHeaders(ByteBuffer cen, int size) {
             int count = 0;
             for (int p = 0;
                  p + CENHDR <= size;
@@ -25,6 +25,7 @@
 
 package java.util.zip;
 
+import java.nio.ByteBuffer;
 import java.nio.file.attribute.FileTime;
 import java.time.Instant;
 import java.time.LocalDateTime;
@@ -242,6 +243,37 @@ class ZipUtils {
     static final long CENATX(byte[] b, int pos) { return LG(b, pos + 38);}
     static final long CENOFF(byte[] b, int pos) { return LG(b, pos + 42);}
 
+    // field access methods for a central directory held in a buffer, such
+    // as a mapping of the zip file; absolute gets, so independent of the
+    // buffer's position and byte order
+    static final int CH(ByteBuffer b, int n) {
+        return b.get(n) & 0xff ;
+    }
+
+    static final int SH(ByteBuffer b, int n) {
+        return (b.get(n) & 0xff) | ((b.get(n + 1) & 0xff) << 8);
+    }
+
+    static final long LG(ByteBuffer b, int n) {
+        return ((SH(b, n)) | (SH(b, n + 2) << 16)) & 0xffffffffL;
+    }
+
+    static final long LL(ByteBuffer b, int n) {
+        return (LG(b, n)) | (LG(b, n + 4) << 32);
+    }
+
+    static final long CENSIG(ByteBuffer b, int pos) { return LG(b, pos + 0); }
+    static final int  CENFLG(ByteBuffer b, int pos) { return SH(b, pos + 8); }
+    static final int  CENHOW(ByteBuffer b, int pos) { return SH(b, pos + 10);}
+    static final long CENTIM(ByteBuffer b, int pos) { return LG(b, pos + 12);}
+    static final long CENCRC(ByteBuffer b, int pos) { return LG(b, pos + 16);}
+    static final long CENSIZ(ByteBuffer b, int pos) { return LG(b, pos + 20);}
+    static final long CENLEN(ByteBuffer b, int pos) { return LG(b, pos + 24);}
+    static final int  CENNAM(ByteBuffer b, int pos) { return SH(b, pos + 28);}
+    static final int  CENEXT(ByteBuffer b, int pos) { return SH(b, pos + 30);}
+    static final int  CENCOM(ByteBuffer b, int pos) { return SH(b, pos + 32);}
+    static final long CENOFF(ByteBuffer b, int pos) { return LG(b, pos + 42);}
+
     // The END header is followed by a variable length comment of size < 64k.
     static final long END_MAXLEN = 0xFFFF + ENDHDR;
     static final int READBLOCKSZ = 128;